@@ -0,0 +1,72 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
+import org.sosy_lab.java_smt.api.SolverContext;
+
+/**
+ * Entry point for running the JMH benchmarks for all solvers whose libraries are available on the
+ * current machine. Solvers that can not be loaded are skipped.
+ *
+ * <p>The GC profiler is always enabled, such that the report contains the allocation rate per
+ * operation ({@code gc.alloc.rate.norm}) besides the throughput.
+ *
+ * <p>Usage: {@code BenchmarkRunner [RESULT_FILE [BENCHMARK_REGEX]]}
+ */
+public final class BenchmarkRunner {
+
+  private BenchmarkRunner() {}
+
+  public static void main(String[] args) throws RunnerException {
+    String resultFile = args.length > 0 && !args[0].isEmpty() ? args[0] : "JMH.json";
+    String filter = args.length > 1 ? args[1] : "";
+
+    List<String> solvers = getAvailableSolvers();
+    if (solvers.isEmpty()) {
+      System.err.println("No solver available, skipping all benchmarks.");
+      return;
+    }
+
+    ChainedOptionsBuilder options =
+        new OptionsBuilder()
+            .param("solver", solvers.toArray(new String[0]))
+            .addProfiler(GCProfiler.class)
+            .resultFormat(ResultFormatType.JSON)
+            .result(resultFile)
+            .shouldFailOnError(false);
+    if (!filter.isEmpty()) {
+      options.include(filter);
+    }
+    new Runner(options.build()).run();
+  }
+
+  /** Try to create a context for each solver and return the names of all successful ones. */
+  static List<String> getAvailableSolvers() {
+    List<String> available = new ArrayList<>();
+    for (Solvers solver : Solvers.values()) {
+      try (SolverContext context = SolverContextState.createContext(solver)) {
+        System.out.printf("Benchmarking %s (%s)%n", solver, context.getVersion());
+        available.add(solver.name());
+      } catch (InvalidConfigurationException | UnsatisfiedLinkError e) {
+        System.err.printf("Skipping solver %s: %s%n", solver, e.getMessage());
+      }
+    }
+    return available;
+  }
+}
@@ -0,0 +1,95 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sosy_lab.java_smt.api.BitvectorFormula;
+import org.sosy_lab.java_smt.api.BitvectorFormulaManager;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+
+/**
+ * Measures the construction of formulas in the theory of bitvectors, i.e., the operations of {@link
+ * org.sosy_lab.java_smt.basicimpl.AbstractBitvectorFormulaManager}. Solvers without bitvector
+ * support fail in the setup and are reported as such by JMH.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BitvectorFormulaBenchmark extends SolverContextState {
+
+  private static final int NUMBER_OF_VARIABLES = 256;
+
+  @Param({"32"})
+  public int bitsize;
+
+  private BitvectorFormulaManager bvmgr;
+  private BitvectorFormula[] variables;
+  private BitvectorFormula shift;
+  private int index = 0;
+
+  @Override
+  protected void setUp() {
+    bvmgr = mgr.getBitvectorFormulaManager();
+    variables = new BitvectorFormula[NUMBER_OF_VARIABLES];
+    for (int i = 0; i < variables.length; i++) {
+      variables[i] = bvmgr.makeVariable(bitsize, "bv" + i);
+    }
+    shift = bvmgr.makeBitvector(bitsize, 3);
+  }
+
+  private BitvectorFormula next() {
+    index = (index + 1) % NUMBER_OF_VARIABLES;
+    return variables[index];
+  }
+
+  @Benchmark
+  public BitvectorFormula makeBitvector() {
+    return bvmgr.makeBitvector(bitsize, index++);
+  }
+
+  @Benchmark
+  public BitvectorFormula add() {
+    return bvmgr.add(next(), next());
+  }
+
+  @Benchmark
+  public BitvectorFormula multiply() {
+    return bvmgr.multiply(next(), next());
+  }
+
+  @Benchmark
+  public BitvectorFormula and() {
+    return bvmgr.and(next(), next());
+  }
+
+  @Benchmark
+  public BitvectorFormula shiftLeft() {
+    return bvmgr.shiftLeft(next(), shift);
+  }
+
+  @Benchmark
+  public BitvectorFormula extract() {
+    return bvmgr.extract(next(), bitsize / 2 - 1, 0);
+  }
+
+  @Benchmark
+  public BooleanFormula lessThan() {
+    return bvmgr.lessThan(next(), next(), true);
+  }
+}
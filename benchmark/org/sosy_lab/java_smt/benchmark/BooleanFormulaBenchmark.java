@@ -0,0 +1,95 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.test.Fuzzer;
+
+/**
+ * Measures the construction of Boolean formulas. The operands are formulas produced by the {@link
+ * Fuzzer}, such that the solvers can not answer all requests from trivial simplifications.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BooleanFormulaBenchmark extends SolverContextState {
+
+  private static final int NUMBER_OF_OPERANDS = 256;
+  private static final int NUMBER_OF_VARIABLES = 32;
+
+  @Param({"20"})
+  public int formulaSize;
+
+  private BooleanFormula[] variables;
+  private BooleanFormula[] operands;
+  private Fuzzer fuzzer;
+  private int index = 0;
+
+  @Override
+  protected void setUp() {
+    fuzzer = new Fuzzer(mgr, new Random(0));
+    variables = new BooleanFormula[NUMBER_OF_VARIABLES];
+    for (int i = 0; i < variables.length; i++) {
+      variables[i] = bmgr.makeVariable("b" + i);
+    }
+    operands = new BooleanFormula[NUMBER_OF_OPERANDS];
+    for (int i = 0; i < operands.length; i++) {
+      operands[i] = fuzzer.fuzz(formulaSize, variables);
+    }
+  }
+
+  /** Returns the next operand, the access pattern avoids hitting the same pair of operands. */
+  private BooleanFormula next() {
+    index = (index + 1) % NUMBER_OF_OPERANDS;
+    return operands[index];
+  }
+
+  @Benchmark
+  public BooleanFormula and() {
+    return bmgr.and(next(), next());
+  }
+
+  @Benchmark
+  public BooleanFormula or() {
+    return bmgr.or(next(), next());
+  }
+
+  @Benchmark
+  public BooleanFormula not() {
+    return bmgr.not(next());
+  }
+
+  @Benchmark
+  public BooleanFormula xor() {
+    return bmgr.xor(next(), next());
+  }
+
+  @Benchmark
+  public BooleanFormula ifThenElse() {
+    return bmgr.ifThenElse(next(), next(), next());
+  }
+
+  /** Builds a complete fuzzed formula, i.e., a mix of nested Boolean operations. */
+  @Benchmark
+  public BooleanFormula fuzz() {
+    return fuzzer.fuzz(formulaSize, variables);
+  }
+}
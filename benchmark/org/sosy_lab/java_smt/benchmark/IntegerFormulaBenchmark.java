@@ -0,0 +1,100 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.IntegerFormulaManager;
+import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
+import org.sosy_lab.java_smt.test.HardIntegerFormulaGenerator;
+
+/**
+ * Measures the construction of formulas in the theory of integers, i.e., the operations of {@link
+ * org.sosy_lab.java_smt.basicimpl.AbstractNumeralFormulaManager}. Solvers without integer support
+ * fail in the setup and are reported as such by JMH.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IntegerFormulaBenchmark extends SolverContextState {
+
+  private static final int NUMBER_OF_VARIABLES = 256;
+
+  /** Size parameter for the {@link HardIntegerFormulaGenerator}. */
+  @Param({"10"})
+  public int generatorSize;
+
+  private IntegerFormulaManager imgr;
+  private HardIntegerFormulaGenerator generator;
+  private IntegerFormula[] variables;
+  private IntegerFormula constant;
+  private int index = 0;
+
+  @Override
+  protected void setUp() {
+    imgr = mgr.getIntegerFormulaManager();
+    generator = new HardIntegerFormulaGenerator(imgr, bmgr);
+    variables = new IntegerFormula[NUMBER_OF_VARIABLES];
+    for (int i = 0; i < variables.length; i++) {
+      variables[i] = imgr.makeVariable("i" + i);
+    }
+    constant = imgr.makeNumber(42);
+  }
+
+  private IntegerFormula next() {
+    index = (index + 1) % NUMBER_OF_VARIABLES;
+    return variables[index];
+  }
+
+  @Benchmark
+  public IntegerFormula makeNumber() {
+    return imgr.makeNumber(index++);
+  }
+
+  @Benchmark
+  public IntegerFormula add() {
+    return imgr.add(next(), next());
+  }
+
+  @Benchmark
+  public IntegerFormula subtract() {
+    return imgr.subtract(next(), next());
+  }
+
+  @Benchmark
+  public IntegerFormula multiplyWithConstant() {
+    return imgr.multiply(next(), constant);
+  }
+
+  @Benchmark
+  public BooleanFormula equal() {
+    return imgr.equal(next(), next());
+  }
+
+  @Benchmark
+  public BooleanFormula lessThan() {
+    return imgr.lessThan(next(), next());
+  }
+
+  /** Builds a complete formula with many shared subterms and Boolean structure. */
+  @Benchmark
+  public BooleanFormula hardFormula() {
+    return generator.generate(generatorSize);
+  }
+}
@@ -0,0 +1,158 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.benchmark;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverException;
+import org.sosy_lab.java_smt.basicimpl.withAssumptionsWrapper.ProverWithAssumptionsWrapper;
+
+/**
+ * Measures the latency of the incremental prover cycle push, addConstraint, isUnsat, and pop.
+ *
+ * <p>The benchmarks run on top of a prover stack with {@link #stackDepth} levels. Each level
+ * contains the same constraints, either as many small formulas or as a single large conjunction
+ * (see {@link AssertionShape}). With {@link #forceAssumptionsWrapper}, the prover is additionally
+ * wrapped in a {@link ProverWithAssumptionsWrapper}, such that the generic assumption handling can
+ * be measured for solvers that support assumptions natively.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProverStackBenchmark extends SolverContextState {
+
+  private static final int NUMBER_OF_ASSUMPTIONS = 16;
+
+  /** How constraints are distributed over the calls to addConstraint. */
+  public enum AssertionShape {
+    /** many small constraints, i.e., one call to addConstraint for each clause. */
+    MANY_SMALL,
+    /** few large constraints, i.e., one call to addConstraint for all clauses of a level. */
+    FEW_LARGE
+  }
+
+  @Param({"1", "64"})
+  public int stackDepth;
+
+  @Param({"32"})
+  public int clausesPerLevel;
+
+  @Param public AssertionShape shape;
+
+  @Param({"false", "true"})
+  public boolean forceAssumptionsWrapper;
+
+  private ProverEnvironment prover;
+  private List<List<BooleanFormula>> levels;
+  private List<BooleanFormula> assumptions;
+
+  @Override
+  protected void setUp() {
+    prover = context.newProverEnvironment();
+    if (forceAssumptionsWrapper) {
+      prover = new ProverWithAssumptionsWrapper(prover);
+    }
+
+    // each level is an implication chain over fresh variables, thus always satisfiable.
+    levels = new ArrayList<>();
+    for (int level = 0; level <= stackDepth; level++) {
+      List<BooleanFormula> clauses = new ArrayList<>();
+      for (int i = 0; i < clausesPerLevel; i++) {
+        clauses.add(
+            bmgr.implication(
+                bmgr.makeVariable("v_" + level + "_" + i),
+                bmgr.makeVariable("v_" + level + "_" + (i + 1))));
+      }
+      levels.add(
+          shape == AssertionShape.MANY_SMALL ? clauses : ImmutableList.of(bmgr.and(clauses)));
+    }
+
+    assumptions = new ArrayList<>();
+    for (int i = 0; i < NUMBER_OF_ASSUMPTIONS; i++) {
+      assumptions.add(bmgr.makeVariable("v_0_" + i));
+    }
+
+    // the base stack stays the same for all iterations, the last level is used by the benchmarks.
+    try {
+      for (List<BooleanFormula> level : levels.subList(0, stackDepth)) {
+        pushLevel(level);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Override
+  protected void tearDown() {
+    prover.close();
+  }
+
+  private void pushLevel(List<BooleanFormula> pLevel) throws InterruptedException {
+    prover.push();
+    for (BooleanFormula constraint : pLevel) {
+      prover.addConstraint(constraint);
+    }
+  }
+
+  /** Only the bookkeeping for a new level without any constraint. */
+  @Benchmark
+  public void pushPop() throws InterruptedException {
+    prover.push();
+    prover.pop();
+  }
+
+  /** The typical cycle of an incremental analysis. */
+  @Benchmark
+  public boolean pushAddIsUnsatPop() throws InterruptedException, SolverException {
+    pushLevel(levels.get(stackDepth));
+    try {
+      return prover.isUnsat();
+    } finally {
+      prover.pop();
+    }
+  }
+
+  @Benchmark
+  public boolean isUnsat() throws InterruptedException, SolverException {
+    return prover.isUnsat();
+  }
+
+  @Benchmark
+  public boolean isUnsatWithAssumptions() throws InterruptedException, SolverException {
+    return prover.isUnsatWithAssumptions(assumptions);
+  }
+
+  /** Build and remove a complete stack with the configured depth on top of the base stack. */
+  @Benchmark
+  public int rebuildStack() throws InterruptedException {
+    for (List<BooleanFormula> level : levels.subList(1, stackDepth + 1)) {
+      pushLevel(level);
+    }
+    int size = prover.size();
+    for (int i = 0; i < stackDepth; i++) {
+      prover.pop();
+    }
+    return size;
+  }
+}
@@ -0,0 +1,268 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.benchmark;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
+import org.sosy_lab.java_smt.api.SolverContext;
+import org.sosy_lab.java_smt.benchmark.ScriptReplayer.QueryResult;
+import org.sosy_lab.java_smt.benchmark.ScriptReplayer.Status;
+
+/**
+ * Replays a directory of SMT-LIB query logs, as written with the options {@code
+ * solver.logAllQueries} and {@code solver.logfile}, against a chosen solver.
+ *
+ * <p>The files are processed in parallel, each one with its own solver context. For each
+ * satisfiability check we report the wall time, the statistics of the prover environment, and
+ * whether the result agrees with the expected status (given via {@code (set-info :status ...)} in
+ * the log) and with an optional reference solver. The report is written as CSV and JSON.
+ *
+ * <p>Usage: {@code QueryReplay [-solver=SOLVER] [-reference=SOLVER] [-threads=N] [-output=PREFIX]
+ * DIRECTORY}
+ */
+public final class QueryReplay {
+
+  private QueryReplay() {}
+
+  /** One line of the report, i.e., one satisfiability check in one file. */
+  private static final class Row {
+    private final String file;
+    private final QueryResult result;
+    private final @Nullable QueryResult reference;
+
+    private Row(String pFile, QueryResult pResult, @Nullable QueryResult pReference) {
+      file = pFile;
+      result = pResult;
+      reference = pReference;
+    }
+
+    /** Whether no known expectation contradicts the result. */
+    private boolean agrees() {
+      return agrees(result.status, result.expected)
+          && (reference == null || agrees(result.status, reference.status));
+    }
+
+    private static boolean agrees(Status pStatus, @Nullable Status pOther) {
+      return pOther == null
+          || pStatus == Status.ERROR
+          || pOther == Status.ERROR
+          || pStatus == pOther;
+    }
+  }
+
+  public static void main(String... args)
+      throws IOException, InterruptedException, ExecutionException {
+    Solvers solver = Solvers.SMTINTERPOL;
+    Solvers referenceSolver = null;
+    int threads = Runtime.getRuntime().availableProcessors();
+    String output = "replay";
+    Path directory = null;
+    for (String arg : args) {
+      if (arg.startsWith("-solver=")) {
+        solver = Solvers.valueOf(arg.substring(8));
+      } else if (arg.startsWith("-reference=")) {
+        referenceSolver = Solvers.valueOf(arg.substring(11));
+      } else if (arg.startsWith("-threads=")) {
+        threads = Integer.parseInt(arg.substring(9));
+      } else if (arg.startsWith("-output=")) {
+        output = arg.substring(8);
+      } else if (directory == null) {
+        directory = Path.of(arg);
+      } else {
+        help();
+      }
+    }
+    if (directory == null) {
+      help();
+    }
+
+    List<Path> files;
+    try (Stream<Path> stream = Files.list(directory)) {
+      files =
+          stream
+              .filter(p -> p.toString().endsWith(".smt2"))
+              .sorted()
+              .collect(ImmutableList.toImmutableList());
+    }
+
+    List<Row> rows = replayAll(files, solver, referenceSolver, threads);
+    writeCsv(Path.of(output + ".csv"), rows);
+    writeJson(Path.of(output + ".json"), solver, referenceSolver, rows);
+
+    long disagreements = rows.stream().filter(r -> !r.agrees()).count();
+    System.out.printf(
+        "Replayed %d queries from %d files with %s, %d disagreements.%n",
+        rows.size(), files.size(), solver, disagreements);
+  }
+
+  private static List<Row> replayAll(
+      List<Path> pFiles, Solvers pSolver, @Nullable Solvers pReference, int pThreads)
+      throws InterruptedException, ExecutionException {
+    ExecutorService executor = Executors.newFixedThreadPool(pThreads);
+    try {
+      List<Future<List<Row>>> futures = new ArrayList<>();
+      for (Path file : pFiles) {
+        futures.add(executor.submit(() -> replayFile(file, pSolver, pReference)));
+      }
+      // collecting in order of submission keeps the report deterministic.
+      List<Row> rows = new ArrayList<>();
+      for (Future<List<Row>> future : futures) {
+        rows.addAll(future.get());
+      }
+      return rows;
+    } finally {
+      executor.shutdownNow();
+      executor.awaitTermination(1, TimeUnit.MINUTES);
+    }
+  }
+
+  private static List<Row> replayFile(Path pFile, Solvers pSolver, @Nullable Solvers pReference)
+      throws IOException, InvalidConfigurationException {
+    ImmutableList<String> commands = SmtLibScript.splitCommands(Files.readString(pFile, UTF_8));
+    List<QueryResult> results = replay(commands, pSolver);
+    List<QueryResult> referenceResults =
+        pReference == null ? ImmutableList.of() : replay(commands, pReference);
+
+    List<Row> rows = new ArrayList<>();
+    for (int i = 0; i < results.size(); i++) {
+      QueryResult reference = i < referenceResults.size() ? referenceResults.get(i) : null;
+      rows.add(new Row(pFile.getFileName().toString(), results.get(i), reference));
+    }
+    return rows;
+  }
+
+  private static List<QueryResult> replay(List<String> pCommands, Solvers pSolver)
+      throws InvalidConfigurationException {
+    try (SolverContext context = SolverContextState.createContext(pSolver)) {
+      return new ScriptReplayer(context).replay(pCommands);
+    }
+  }
+
+  private static void writeCsv(Path pFile, List<Row> pRows) throws IOException {
+    try (Writer out = Files.newBufferedWriter(pFile, UTF_8)) {
+      out.append(
+          "file,query,result,walltime_ns,expected,reference_result,reference_walltime_ns,"
+              + "agreement,statistics\n");
+      for (Row row : pRows) {
+        QueryResult ref = row.reference;
+        out.append(
+            Joiner.on(',')
+                .useForNull("")
+                .join(
+                    csv(row.file),
+                    row.result.index,
+                    row.result.status,
+                    row.result.wallTimeNanos,
+                    row.result.expected,
+                    ref == null ? null : ref.status,
+                    ref == null ? null : ref.wallTimeNanos,
+                    row.agrees(),
+                    csv(Joiner.on(';').withKeyValueSeparator('=').join(row.result.statistics))));
+        out.append('\n');
+      }
+    }
+  }
+
+  private static void writeJson(
+      Path pFile, Solvers pSolver, @Nullable Solvers pReference, List<Row> pRows)
+      throws IOException {
+    try (Writer out = Files.newBufferedWriter(pFile, UTF_8)) {
+      out.append("{\n  \"solver\": ").append(json(pSolver.toString()));
+      out.append(",\n  \"reference\": ");
+      out.append(pReference == null ? "null" : json(pReference.toString()));
+      out.append(",\n  \"queries\": [");
+      String separator = "\n";
+      for (Row row : pRows) {
+        out.append(separator).append("    {\"file\": ").append(json(row.file));
+        out.append(", \"query\": ").append(Integer.toString(row.result.index));
+        appendResult(out, "", row.result);
+        if (row.reference != null) {
+          appendResult(out, "reference_", row.reference);
+        }
+        out.append(", \"agreement\": ").append(Boolean.toString(row.agrees()));
+        out.append(", \"statistics\": {");
+        String entrySeparator = "";
+        for (Map.Entry<String, String> entry : row.result.statistics.entrySet()) {
+          out.append(entrySeparator).append(json(entry.getKey())).append(": ");
+          out.append(json(entry.getValue()));
+          entrySeparator = ", ";
+        }
+        out.append("}}");
+        separator = ",\n";
+      }
+      out.append("\n  ]\n}\n");
+    }
+  }
+
+  private static void appendResult(Writer out, String pPrefix, QueryResult pResult)
+      throws IOException {
+    out.append(", \"").append(pPrefix).append("result\": ");
+    out.append(json(pResult.status.toString()));
+    out.append(", \"").append(pPrefix).append("walltime_ns\": ");
+    out.append(Long.toString(pResult.wallTimeNanos));
+    if (pResult.expected != null) {
+      out.append(", \"").append(pPrefix).append("expected\": ");
+      out.append(json(pResult.expected.toString()));
+    }
+    if (pResult.error != null) {
+      out.append(", \"").append(pPrefix).append("error\": ").append(json(pResult.error));
+    }
+  }
+
+  private static String csv(String pValue) {
+    return "\"" + pValue.replace("\"", "\"\"") + "\"";
+  }
+
+  private static String json(String pValue) {
+    StringBuilder str = new StringBuilder("\"");
+    for (char c : pValue.toCharArray()) {
+      switch (c) {
+        case '"':
+          str.append("\\\"");
+          break;
+        case '\\':
+          str.append("\\\\");
+          break;
+        case '\n':
+          str.append("\\n");
+          break;
+        default:
+          if (c < 0x20) {
+            str.append(String.format("\\u%04x", (int) c));
+          } else {
+            str.append(c);
+          }
+      }
+    }
+    return str.append('"').toString();
+  }
+
+  private static void help() {
+    throw new AssertionError(
+        "run $> TOOL [-solver=SOLVER] [-reference=SOLVER] [-threads=N] [-output=PREFIX] DIRECTORY");
+  }
+}
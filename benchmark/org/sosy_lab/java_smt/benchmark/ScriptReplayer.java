@@ -0,0 +1,219 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.benchmark;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.FormulaManager;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext;
+import org.sosy_lab.java_smt.api.SolverException;
+
+/**
+ * Executes an SMT-LIB script, as written by the option {@code solver.logAllQueries}, on a solver
+ * context and measures each satisfiability check.
+ *
+ * <p>We only support the subset of SMT-LIB commands that appears in our query logs: declarations
+ * and definitions, assertions, push and pop, and (assumption-based) satisfiability checks. Other
+ * commands like {@code get-model} or {@code set-option} are ignored. Declarations are kept in a
+ * global scope, which is sufficient because the logs never re-use a symbol with another type.
+ */
+final class ScriptReplayer {
+
+  /** The outcome of a single satisfiability check. */
+  enum Status {
+    SAT,
+    UNSAT,
+    ERROR
+  }
+
+  /** Measurements for a single satisfiability check in a script. */
+  static final class QueryResult {
+    final int index;
+    final Status status;
+    final long wallTimeNanos;
+    final @Nullable Status expected;
+    final ImmutableMap<String, String> statistics;
+    final @Nullable String error;
+
+    QueryResult(
+        int pIndex,
+        Status pStatus,
+        long pWallTimeNanos,
+        @Nullable Status pExpected,
+        ImmutableMap<String, String> pStatistics,
+        @Nullable String pError) {
+      index = pIndex;
+      status = pStatus;
+      wallTimeNanos = pWallTimeNanos;
+      expected = pExpected;
+      statistics = pStatistics;
+      error = pError;
+    }
+  }
+
+  private final SolverContext context;
+  private final FormulaManager mgr;
+
+  private final Map<String, String> declarations = new LinkedHashMap<>();
+  private final List<String> pendingAssertions = new ArrayList<>();
+  private @Nullable Status expectedStatus = null;
+  private ProverEnvironment prover;
+
+  ScriptReplayer(SolverContext pContext) {
+    context = pContext;
+    mgr = context.getFormulaManager();
+    prover = context.newProverEnvironment();
+  }
+
+  Solvers getSolverName() {
+    return context.getSolverName();
+  }
+
+  /**
+   * Execute all commands of the script. If a command fails, we add an error entry and stop, because
+   * all further results would be meaningless.
+   */
+  ImmutableList<QueryResult> replay(List<String> pCommands) {
+    ImmutableList.Builder<QueryResult> results = ImmutableList.builder();
+    int index = 0;
+    try {
+      for (String command : pCommands) {
+        List<String> tokens = SmtLibScript.splitArguments(command);
+        if (tokens.isEmpty()) {
+          continue;
+        }
+        switch (tokens.get(0)) {
+          case "declare-fun":
+          case "declare-const":
+          case "define-fun":
+          case "declare-sort":
+          case "define-sort":
+            declarations.put(tokens.get(0) + " " + tokens.get(1), command);
+            break;
+          case "assert":
+            pendingAssertions.add(command);
+            break;
+          case "push":
+            flushAssertions();
+            for (int i = 0; i < getLevels(tokens); i++) {
+              prover.push();
+            }
+            break;
+          case "pop":
+            pendingAssertions.clear();
+            for (int i = 0; i < getLevels(tokens); i++) {
+              prover.pop();
+            }
+            break;
+          case "check-sat":
+            flushAssertions();
+            results.add(check(index++, ImmutableList.of()));
+            break;
+          case "check-sat-assuming":
+            flushAssertions();
+            results.add(check(index++, parseAssumptions(tokens.get(1))));
+            break;
+          case "set-info":
+            if (tokens.size() > 2 && ":status".equals(tokens.get(1))) {
+              expectedStatus = parseStatus(tokens.get(2));
+            }
+            break;
+          case "reset":
+            declarations.clear();
+            resetProver();
+            break;
+          case "reset-assertions":
+            resetProver();
+            break;
+          default:
+            // ignore all other commands, they do not influence satisfiability.
+        }
+      }
+    } catch (SolverException | InterruptedException | RuntimeException e) {
+      results.add(
+          new QueryResult(index, Status.ERROR, 0, expectedStatus, ImmutableMap.of(), e.toString()));
+    } finally {
+      prover.close();
+    }
+    return results.build();
+  }
+
+  private void resetProver() {
+    pendingAssertions.clear();
+    prover.close();
+    prover = context.newProverEnvironment();
+  }
+
+  private QueryResult check(int pIndex, List<BooleanFormula> pAssumptions)
+      throws SolverException, InterruptedException {
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    boolean unsat =
+        pAssumptions.isEmpty() ? prover.isUnsat() : prover.isUnsatWithAssumptions(pAssumptions);
+    long wallTime = stopwatch.elapsed(TimeUnit.NANOSECONDS);
+    QueryResult result =
+        new QueryResult(
+            pIndex,
+            unsat ? Status.UNSAT : Status.SAT,
+            wallTime,
+            expectedStatus,
+            prover.getStatistics(),
+            null);
+    expectedStatus = null; // the status info is only valid for the next query.
+    return result;
+  }
+
+  /**
+   * Assertions are collected until the next change of the stack or satisfiability check. Parsing
+   * accepts only a single assertion at once, thus each one is parsed on its own.
+   */
+  private void flushAssertions() throws InterruptedException {
+    for (String assertion : pendingAssertions) {
+      prover.addConstraint(parse(assertion));
+    }
+    pendingAssertions.clear();
+  }
+
+  private BooleanFormula parse(String pAssertion) {
+    return mgr.parse(Joiner.on('\n').join(declarations.values()) + "\n" + pAssertion);
+  }
+
+  private List<BooleanFormula> parseAssumptions(String pLiterals) {
+    ImmutableList.Builder<BooleanFormula> assumptions = ImmutableList.builder();
+    for (String literal : SmtLibScript.splitArguments(pLiterals)) {
+      assumptions.add(parse("(assert " + literal + ")"));
+    }
+    return assumptions.build();
+  }
+
+  private static int getLevels(List<String> pTokens) {
+    return pTokens.size() > 1 ? Integer.parseInt(pTokens.get(1)) : 1;
+  }
+
+  private static @Nullable Status parseStatus(String pStatus) {
+    switch (pStatus) {
+      case "sat":
+        return Status.SAT;
+      case "unsat":
+        return Status.UNSAT;
+      default:
+        return null;
+    }
+  }
+}
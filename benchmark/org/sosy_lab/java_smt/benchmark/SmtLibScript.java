@@ -0,0 +1,111 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.benchmark;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Minimal tokenizer for SMT-LIB scripts. It only splits the text into S-expressions and does not
+ * interpret them. Comments, string literals, and quoted symbols are handled such that parentheses
+ * inside them are ignored.
+ */
+final class SmtLibScript {
+
+  private SmtLibScript() {}
+
+  /** Split a script into its top-level commands. Comments between commands are dropped. */
+  static ImmutableList<String> splitCommands(String pScript) {
+    return split(pScript, 0, pScript.length());
+  }
+
+  /**
+   * Split a single S-expression into its direct children, e.g., {@code (push 1)} results in {@code
+   * [push, 1]}. Atoms are returned as list with one element.
+   */
+  static ImmutableList<String> splitArguments(String pExpression) {
+    String expr = pExpression.strip();
+    if (!expr.startsWith("(")) {
+      return ImmutableList.of(expr);
+    }
+    checkArgument(expr.endsWith(")"), "unbalanced expression: %s", expr);
+    return split(expr, 1, expr.length() - 1);
+  }
+
+  private static ImmutableList<String> split(String pText, int pFrom, int pTo) {
+    ImmutableList.Builder<String> parts = ImmutableList.builder();
+    int depth = 0;
+    int start = -1;
+    int i = pFrom;
+    while (i < pTo) {
+      char c = pText.charAt(i);
+      if (c == ';') { // comment until end of line
+        int end = pText.indexOf('\n', i);
+        i = end == -1 ? pTo : end;
+        continue;
+      }
+      if (c == '"' || c == '|') { // string literal or quoted symbol
+        if (start == -1) {
+          start = i;
+        }
+        i = skipQuoted(pText, i, pTo, c);
+        if (depth == 0) {
+          parts.add(pText.substring(start, i));
+          start = -1;
+        }
+        continue;
+      }
+      if (c == '(') {
+        if (depth == 0) {
+          start = i;
+        }
+        depth++;
+      } else if (c == ')') {
+        checkArgument(depth > 0, "unbalanced parentheses at position %s", i);
+        depth--;
+        if (depth == 0) {
+          parts.add(pText.substring(start, i + 1));
+          start = -1;
+        }
+      } else if (depth == 0) {
+        if (Character.isWhitespace(c)) {
+          if (start != -1) {
+            parts.add(pText.substring(start, i));
+            start = -1;
+          }
+        } else if (start == -1) {
+          start = i;
+        }
+      }
+      i++;
+    }
+    checkArgument(depth == 0, "unbalanced parentheses at end of script");
+    if (start != -1) {
+      parts.add(pText.substring(start, pTo));
+    }
+    return parts.build();
+  }
+
+  /** Returns the position after the closing quote, SMT-LIB escapes quotes in strings by '""'. */
+  private static int skipQuoted(String pText, int pStart, int pTo, char pQuote) {
+    int i = pStart + 1;
+    while (i < pTo) {
+      if (pText.charAt(i) == pQuote) {
+        if (pQuote == '"' && i + 1 < pTo && pText.charAt(i + 1) == '"') {
+          i += 2;
+          continue;
+        }
+        return i + 1;
+      }
+      i++;
+    }
+    throw new IllegalArgumentException("unterminated literal at position " + pStart);
+  }
+}
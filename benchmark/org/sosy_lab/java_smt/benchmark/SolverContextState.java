@@ -0,0 +1,84 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.ConfigurationBuilder;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.java_smt.SolverContextFactory;
+import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
+import org.sosy_lab.java_smt.api.BooleanFormulaManager;
+import org.sosy_lab.java_smt.api.FormulaManager;
+import org.sosy_lab.java_smt.api.SolverContext;
+import org.sosy_lab.java_smt.solvers.opensmt.Logics;
+
+/**
+ * Base state for all benchmarks that need a solver context. A fresh context is created for each
+ * trial and each benchmark thread, because solver contexts are not thread-safe.
+ *
+ * <p>Without explicit parameters, JMH runs the benchmark for all {@link Solvers}. The {@link
+ * BenchmarkRunner} restricts this to the solvers that are available on the current machine.
+ */
+@State(Scope.Thread)
+public abstract class SolverContextState {
+
+  @Param public Solvers solver;
+
+  protected SolverContext context;
+  protected FormulaManager mgr;
+  protected BooleanFormulaManager bmgr;
+
+  /**
+   * Create a solver context in the same way as our tests do. This method is also used to check
+   * whether a solver is available at all.
+   */
+  static SolverContext createContext(Solvers pSolver) throws InvalidConfigurationException {
+    ConfigurationBuilder config =
+        Configuration.builder().setOption("solver.solver", pSolver.toString());
+    if (pSolver == Solvers.OPENSMT) {
+      config.setOption("solver.opensmt.logic", Logics.QF_AUFLIRA.toString());
+    }
+    return new SolverContextFactory(
+            config.build(), LogManager.createNullLogManager(), ShutdownNotifier.createDummy())
+        .generateContext();
+  }
+
+  @Setup(Level.Trial)
+  public final void setUpContext() throws InvalidConfigurationException {
+    context = createContext(solver);
+    mgr = context.getFormulaManager();
+    bmgr = mgr.getBooleanFormulaManager();
+    setUp();
+  }
+
+  /**
+   * Prepare the inputs of the benchmark. Benchmarks that depend on an unsupported theory fail here
+   * with an {@link UnsupportedOperationException}, which JMH reports without aborting the run.
+   */
+  protected abstract void setUp();
+
+  /** Release all resources of the benchmark. This method is called before closing the context. */
+  protected void tearDown() {}
+
+  @TearDown(Level.Trial)
+  public final void closeContext() {
+    if (context != null) {
+      tearDown();
+      context.close();
+    }
+  }
+}
@@ -0,0 +1,17 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+/**
+ * JMH benchmarks for measuring the performance of JavaSMT and the underlying solvers.
+ *
+ * <p>The benchmarks are not part of the released JAR. They can be executed with {@code ant
+ * benchmark}, which runs all benchmarks for all solvers that are available on the current machine.
+ */
+@javax.annotation.ParametersAreNonnullByDefault
+@org.sosy_lab.common.annotations.ReturnValuesAreNonnullByDefault
+package org.sosy_lab.java_smt.benchmark;
@@ -0,0 +1,140 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.java_smt.api.BasicProverEnvironment;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.Evaluator;
+import org.sosy_lab.java_smt.api.Model;
+import org.sosy_lab.java_smt.api.Model.ValueAssignment;
+import org.sosy_lab.java_smt.api.SolverException;
+
+/**
+ * A prover of a leased solver context. The prover is registered as open while the context is
+ * leased, such that the pool can close it when the context is returned, and it unregisters itself
+ * when it is closed by the lessee.
+ */
+class LeasedBasicProverEnvironment<T> implements BasicProverEnvironment<T> {
+
+  private final BasicProverEnvironment<T> delegate;
+  private final Collection<BasicProverEnvironment<?>> openProvers;
+
+  LeasedBasicProverEnvironment(
+      BasicProverEnvironment<T> pDelegate, Collection<BasicProverEnvironment<?>> pOpenProvers) {
+    delegate = checkNotNull(pDelegate);
+    openProvers = checkNotNull(pOpenProvers);
+  }
+
+  @Override
+  public void pop() {
+    delegate.pop();
+  }
+
+  @Override
+  public @Nullable T addConstraint(BooleanFormula pConstraint) throws InterruptedException {
+    return delegate.addConstraint(pConstraint);
+  }
+
+  @Override
+  public void push() throws InterruptedException {
+    delegate.push();
+  }
+
+  @Override
+  public int size() {
+    return delegate.size();
+  }
+
+  @Override
+  public boolean isUnsat() throws SolverException, InterruptedException {
+    return delegate.isUnsat();
+  }
+
+  @Override
+  public boolean isUnsat(Duration pTimeout) throws SolverException, InterruptedException {
+    return delegate.isUnsat(pTimeout);
+  }
+
+  @Override
+  public @Nullable Runnable getInterruptCall() {
+    return delegate.getInterruptCall();
+  }
+
+  @Override
+  public boolean isUnsatWithAssumptions(Collection<BooleanFormula> pAssumptions)
+      throws SolverException, InterruptedException {
+    return delegate.isUnsatWithAssumptions(pAssumptions);
+  }
+
+  @Override
+  public Model getModel() throws SolverException {
+    return delegate.getModel();
+  }
+
+  @Override
+  public Evaluator getEvaluator() throws SolverException {
+    return delegate.getEvaluator();
+  }
+
+  @Override
+  public ImmutableList<ValueAssignment> getModelAssignments() throws SolverException {
+    return delegate.getModelAssignments();
+  }
+
+  @Override
+  public List<BooleanFormula> getUnsatCore() {
+    return delegate.getUnsatCore();
+  }
+
+  @Override
+  public Optional<List<BooleanFormula>> unsatCoreOverAssumptions(
+      Collection<BooleanFormula> pAssumptions) throws SolverException, InterruptedException {
+    return delegate.unsatCoreOverAssumptions(pAssumptions);
+  }
+
+  @Override
+  public ImmutableMap<String, String> getStatistics() {
+    return delegate.getStatistics();
+  }
+
+  @Override
+  public <R> R allSat(AllSatCallback<R> pCallback, List<BooleanFormula> pImportant)
+      throws InterruptedException, SolverException {
+    return delegate.allSat(pCallback, pImportant);
+  }
+
+  @Override
+  public AllSatIterator allSatIterator(List<BooleanFormula> pImportant)
+      throws InterruptedException, SolverException {
+    return delegate.allSatIterator(pImportant);
+  }
+
+  @Override
+  public void close() {
+    try {
+      delegate.close();
+    } finally {
+      openProvers.remove(this);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return delegate.toString();
+  }
+}
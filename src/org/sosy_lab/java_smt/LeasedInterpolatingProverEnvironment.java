@@ -0,0 +1,48 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt;
+
+import java.util.Collection;
+import java.util.List;
+import org.sosy_lab.java_smt.api.BasicProverEnvironment;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.InterpolatingProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverException;
+
+class LeasedInterpolatingProverEnvironment<T> extends LeasedBasicProverEnvironment<T>
+    implements InterpolatingProverEnvironment<T> {
+
+  private final InterpolatingProverEnvironment<T> delegate;
+
+  LeasedInterpolatingProverEnvironment(
+      InterpolatingProverEnvironment<T> pDelegate,
+      Collection<BasicProverEnvironment<?>> pOpenProvers) {
+    super(pDelegate, pOpenProvers);
+    delegate = pDelegate;
+  }
+
+  @Override
+  public BooleanFormula getInterpolant(Collection<T> pFormulasOfA)
+      throws SolverException, InterruptedException {
+    return delegate.getInterpolant(pFormulasOfA);
+  }
+
+  @Override
+  public List<BooleanFormula> getSeqInterpolants(List<? extends Collection<T>> pPartitionedFormulas)
+      throws SolverException, InterruptedException {
+    return delegate.getSeqInterpolants(pPartitionedFormulas);
+  }
+
+  @Override
+  public List<BooleanFormula> getTreeInterpolants(
+      List<? extends Collection<T>> pPartitionedFormulas, int[] pStartOfSubTree)
+      throws SolverException, InterruptedException {
+    return delegate.getTreeInterpolants(pPartitionedFormulas, pStartOfSubTree);
+  }
+}
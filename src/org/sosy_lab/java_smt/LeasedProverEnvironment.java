@@ -0,0 +1,22 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt;
+
+import java.util.Collection;
+import org.sosy_lab.java_smt.api.BasicProverEnvironment;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+
+class LeasedProverEnvironment extends LeasedBasicProverEnvironment<Void>
+    implements ProverEnvironment {
+
+  LeasedProverEnvironment(
+      ProverEnvironment pDelegate, Collection<BasicProverEnvironment<?>> pOpenProvers) {
+    super(pDelegate, pOpenProvers);
+  }
+}
@@ -12,11 +12,14 @@ import com.google.common.testing.AbstractPackageSanityTests;
 import org.sosy_lab.common.ShutdownManager;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
 
 public class PackageSanityTest extends AbstractPackageSanityTests {
 
   {
     setDefault(Configuration.class, Configuration.defaultConfiguration());
     setDefault(ShutdownNotifier.class, ShutdownManager.create().getNotifier());
+    // a solver that is available on all platforms
+    setDefault(Solvers.class, Solvers.SMTINTERPOL);
   }
 }
@@ -18,6 +18,7 @@ import org.sosy_lab.common.NativeLibraries;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
 import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.IntegerOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
@@ -25,7 +26,10 @@ import org.sosy_lab.common.io.PathCounterTemplate;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.java_smt.api.FloatingPointRoundingMode;
 import org.sosy_lab.java_smt.api.SolverContext;
+import org.sosy_lab.java_smt.basicimpl.AbstractFormulaManager;
 import org.sosy_lab.java_smt.basicimpl.AbstractNumeralFormulaManager.NonLinearArithmetic;
+import org.sosy_lab.java_smt.delegate.cache.CachingSolverContext;
+import org.sosy_lab.java_smt.delegate.events.EventSolverContext;
 import org.sosy_lab.java_smt.delegate.logging.LoggingSolverContext;
 import org.sosy_lab.java_smt.delegate.statistics.StatisticsSolverContext;
 import org.sosy_lab.java_smt.delegate.synchronize.SynchronizedSolverContext;
@@ -89,11 +93,48 @@ public class SolverContextFactory {
       description = "Sequentialize all solver actions to allow concurrent access!")
   private boolean synchronize = false;
 
+  @Option(
+      secure = true,
+      description =
+          "Cache the results of satisfiability checks, such that checking the same set of "
+              + "formulas again does not call the solver. See options with prefix solver.cache.")
+  private boolean cacheSatResults = false;
+
+  @Option(
+      secure = true,
+      description =
+          "Reuse the existing wrapper object when a solver term is wrapped again as formula, "
+              + "such that repeatedly created formulas are identical objects. "
+              + "This costs a hash-table lookup per created formula.")
+  private boolean internFormulas = false;
+
+  @Option(
+      secure = true,
+      description =
+          "Cache up to this many translated formulas per pair of contexts for translateFrom "
+              + "(0 disables the cache).")
+  @IntegerOption(min = 0)
+  private int translationCacheSize = 0;
+
+  @Option(
+      secure = true,
+      description =
+          "Dump formulas with the solver-independent SMT-LIB printer of JavaSMT, which binds "
+              + "shared subterms with let-expressions, instead of the printer of the solver.")
+  private boolean genericDump = false;
+
   @Option(
       secure = true,
       description = "Counts all operations and interactions towards the SMT solver.")
   private boolean collectStatistics = false;
 
+  @Option(
+      secure = true,
+      description =
+          "Emit Java Flight Recorder events for expensive solver calls. "
+              + "Events are only filled if they are enabled in a running recording.")
+  private boolean emitFlightRecorderEvents = false;
+
   @Option(secure = true, description = "Default rounding mode for floating point operations.")
   private FloatingPointRoundingMode floatingPointRoundingMode =
       FloatingPointRoundingMode.NEAREST_TIES_TO_EVEN;
@@ -215,12 +256,33 @@ public class SolverContextFactory {
           e);
     }
 
+    if (context.getFormulaManager() instanceof AbstractFormulaManager) {
+      AbstractFormulaManager<?, ?, ?, ?> fmgr =
+          (AbstractFormulaManager<?, ?, ?, ?>) context.getFormulaManager();
+      if (internFormulas) {
+        fmgr.getFormulaCreator().enableInterning();
+      }
+      if (translationCacheSize > 0) {
+        fmgr.enableTranslationCache(translationCacheSize);
+      }
+      if (genericDump) {
+        fmgr.enableGenericDump();
+      }
+    }
+
+    if (emitFlightRecorderEvents) {
+      // events should be the most inner wrapping layer, such that they only measure the solver.
+      context = new EventSolverContext(context);
+    }
     if (useLogger) {
       context = new LoggingSolverContext(logger, context);
     }
     if (synchronize) {
       context = new SynchronizedSolverContext(config, logger, shutdownNotifier, context);
     }
+    if (cacheSatResults) {
+      context = new CachingSolverContext(config, logger, context);
+    }
     if (collectStatistics) {
       // statistics need to be the most outer wrapping layer.
       context = new StatisticsSolverContext(context);
@@ -0,0 +1,233 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.IntegerOption;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.FormulaManager;
+import org.sosy_lab.java_smt.api.SolverContext;
+
+/**
+ * Owns a solver context and replaces it by a fresh context when the memory usage of the solver
+ * grows too large, because solvers typically do not release memory for formulas before the context
+ * is closed. This allows long-running applications to keep the memory of the solver bounded.
+ *
+ * <p>Formulas that should survive a replacement need to be retained via {@link
+ * #retain(BooleanFormula)}. On replacement, all retained formulas that are still referenced by the
+ * application are translated into the new context. All other formulas, provers, and models of the
+ * old context become invalid, thus the context must only be replaced at a point where the
+ * application does not use any of them, which is why replacement is never triggered automatically,
+ * but only by calling {@link #recycleIfNecessary()} or {@link #recycle()}. After a replacement, the
+ * new context needs to be requested via {@link #getContext()}.
+ *
+ * <p>The memory usage is taken from the statistics of the context, see {@link
+ * SolverContext#getStatistics()}, which only Boolector reports for a single context. For other
+ * solvers (e.g., SMTInterpol, Princess, MathSAT5, or CVC5), the context is never replaced by {@link
+ * #recycleIfNecessary()}. Z3 only reports the memory usage of the whole process. This is only taken
+ * into account by a governor with the option {@code solver.governor.useProcessMemory}, which at
+ * most one governor of the process may enable, because replacing one context does not release the
+ * memory of other contexts.
+ */
+@Options(prefix = "solver.governor")
+public final class SolverContextGovernor implements AutoCloseable {
+
+  @Option(
+      secure = true,
+      description =
+          "Replace the solver context when its statistics report a memory usage above this "
+              + "number of megabytes.")
+  @IntegerOption(min = 1)
+  private int maxMemory = 1024;
+
+  @Option(
+      secure = true,
+      description =
+          "Use the memory usage of the whole process if the solver does not report the memory "
+              + "usage of the context (e.g., Z3). At most one governor per process may use this.")
+  private boolean useProcessMemory = false;
+
+  /** Statistics keys under which solvers report the memory usage of the whole process. */
+  private static final ImmutableMap<Solvers, String> PROCESS_MEMORY_STATISTICS_KEYS =
+      ImmutableMap.of(Solvers.Z3, "process memory");
+
+  /** The only governor that may replace its context based on the memory of the process. */
+  private static final AtomicReference<@Nullable SolverContextGovernor> processMemoryOwner =
+      new AtomicReference<>();
+
+  private final SolverContextFactory factory;
+  private final Solvers solver;
+
+  private SolverContext context;
+
+  /** All retained formulas that are still referenced by the application. */
+  private final Set<RetainedFormula> retained = Collections.newSetFromMap(new WeakHashMap<>());
+
+  private long recycledContexts = 0;
+  private long migratedFormulas = 0;
+  private boolean closed = false;
+
+  /**
+   * Create a governor and its initial context.
+   *
+   * @param pConfig configuration for the governor and for all created contexts
+   * @param pLogger logger for all created contexts
+   * @param pShutdownNotifier shutdown notifier for all created contexts
+   * @param pSolver the solver for all created contexts
+   */
+  public SolverContextGovernor(
+      Configuration pConfig,
+      LogManager pLogger,
+      ShutdownNotifier pShutdownNotifier,
+      Solvers pSolver)
+      throws InvalidConfigurationException {
+    pConfig.inject(this);
+    checkNotNull(pLogger);
+    checkNotNull(pShutdownNotifier);
+    solver = checkNotNull(pSolver);
+    factory = new SolverContextFactory(pConfig, pLogger, pShutdownNotifier);
+    if (useProcessMemory && !processMemoryOwner.compareAndSet(null, this)) {
+      throw new InvalidConfigurationException(
+          "Only one solver context governor can use the memory usage of the whole process.");
+    }
+    try {
+      context = factory.generateContext(solver);
+    } catch (InvalidConfigurationException | RuntimeException e) {
+      processMemoryOwner.compareAndSet(this, null);
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the current context. The context is owned by the governor and must not be closed by the
+   * application. It is only valid until the next replacement.
+   */
+  public synchronized SolverContext getContext() {
+    checkState(!closed, "governor is closed");
+    return context;
+  }
+
+  /**
+   * Retain a formula of the current context, such that it is translated into the new context on
+   * each replacement. The formula is retained as long as the application references the returned
+   * object.
+   */
+  public synchronized RetainedFormula retain(BooleanFormula pFormula) {
+    checkState(!closed, "governor is closed");
+    RetainedFormula result = new RetainedFormula(checkNotNull(pFormula));
+    retained.add(result);
+    return result;
+  }
+
+  /**
+   * Replace the context if its memory usage is above the configured limit.
+   *
+   * @return whether the context was replaced
+   */
+  public synchronized boolean recycleIfNecessary() throws InvalidConfigurationException {
+    checkState(!closed, "governor is closed");
+    if (getMemoryUsage() > maxMemory) {
+      recycle();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Returns the memory usage of the context in megabytes, or -1 if the solver does not report it.
+   */
+  private double getMemoryUsage() {
+    double memory = SolverContextPool.getMemoryUsage(context);
+    @Nullable String processKey = PROCESS_MEMORY_STATISTICS_KEYS.get(solver);
+    if (memory < 0 && useProcessMemory && processKey != null) {
+      memory = SolverContextPool.getMemoryUsage(context.getStatistics(), processKey);
+    }
+    return memory;
+  }
+
+  /**
+   * Replace the context by a fresh context, translate all retained formulas into the new context,
+   * and close the old context.
+   */
+  public synchronized void recycle() throws InvalidConfigurationException {
+    checkState(!closed, "governor is closed");
+    SolverContext newContext = factory.generateContext(solver);
+    FormulaManager oldFmgr = context.getFormulaManager();
+    FormulaManager newFmgr = newContext.getFormulaManager();
+    ImmutableList<RetainedFormula> formulas = ImmutableList.copyOf(retained);
+    ImmutableList.Builder<BooleanFormula> translated = ImmutableList.builder();
+    try {
+      for (RetainedFormula formula : formulas) {
+        translated.add(newFmgr.translateFrom(formula.formula, oldFmgr));
+      }
+    } catch (RuntimeException e) {
+      // keep using the old context
+      newContext.close();
+      throw e;
+    }
+    ImmutableList<BooleanFormula> newFormulas = translated.build();
+    for (int i = 0; i < formulas.size(); i++) {
+      formulas.get(i).formula = newFormulas.get(i);
+    }
+    migratedFormulas += formulas.size();
+    context.close();
+    context = newContext;
+    recycledContexts++;
+  }
+
+  /** Returns statistics about the replacement of contexts. */
+  public synchronized ImmutableMap<String, Object> getStatistics() {
+    return ImmutableMap.of(
+        "number of recycled contexts", recycledContexts,
+        "number of migrated formulas", migratedFormulas,
+        "number of retained formulas", retained.size());
+  }
+
+  /** Close the current context. Retained formulas become invalid. */
+  @Override
+  public synchronized void close() {
+    if (!closed) {
+      closed = true;
+      retained.clear();
+      context.close();
+      processMemoryOwner.compareAndSet(this, null);
+    }
+  }
+
+  /** A formula that is moved into the new context whenever the context is replaced. */
+  public static final class RetainedFormula {
+
+    private volatile BooleanFormula formula;
+
+    private RetainedFormula(BooleanFormula pFormula) {
+      formula = pFormula;
+    }
+
+    /** Returns the formula in the context that is currently owned by the governor. */
+    public BooleanFormula get() {
+      return formula;
+    }
+  }
+}
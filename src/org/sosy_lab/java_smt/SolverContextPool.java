@@ -0,0 +1,351 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.IntegerOption;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
+import org.sosy_lab.java_smt.api.BasicProverEnvironment;
+import org.sosy_lab.java_smt.api.FormulaManager;
+import org.sosy_lab.java_smt.api.InterpolatingProverEnvironment;
+import org.sosy_lab.java_smt.api.OptimizationProverEnvironment;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext;
+
+/**
+ * A pool of pre-initialized solver contexts for one solver and one configuration, such that the
+ * (possibly expensive) creation of a context does not happen while a query is answered.
+ *
+ * <p>A context is leased via {@link #lease()} and returned to the pool by closing the leased
+ * context. While leased, the context is used exclusively by the lessee. Formulas of a leased
+ * context must not be used after returning it, because the same context will be leased again later.
+ * Provers created from a leased context should be closed before returning the context, all provers
+ * that are still open when the context is returned are closed by the pool.
+ *
+ * <p>The symbol table of a context is shared by all its lessees: variables and uninterpreted
+ * functions declared by one lessee are still declared for later lessees of the same context, thus
+ * declaring the same name with a different type fails for most solvers. Lessees that need a fresh
+ * symbol table should use the option {@code solver.pool.maxLeasesPerContext=1}.
+ *
+ * <p>A returned context is recycled, i.e., closed and replaced by a fresh context, if it was leased
+ * too often or if its statistics report too much memory usage, because solvers typically do not
+ * release memory for formulas before the context is closed.
+ */
+@Options(prefix = "solver.pool")
+public final class SolverContextPool implements AutoCloseable {
+
+  @Option(secure = true, description = "Number of idle solver contexts that are kept initialized.")
+  @IntegerOption(min = 0)
+  private int size = 4;
+
+  @Option(
+      secure = true,
+      description =
+          "Recycle a solver context after it was leased this many times (0 disables this limit).")
+  @IntegerOption(min = 0)
+  private int maxLeasesPerContext = 0;
+
+  @Option(
+      secure = true,
+      description =
+          "Recycle a solver context when its statistics report a memory usage above this number "
+              + "of megabytes (0 disables this limit). Only solvers that report the memory "
+              + "usage of a single context are affected, which is currently only Boolector.")
+  @IntegerOption(min = 0)
+  private int maxMemoryPerContext = 0;
+
+  /**
+   * Statistics keys under which solvers report the memory usage of one context in megabytes. The
+   * other solvers do not report it, e.g., Z3 only estimates the memory of the whole process.
+   */
+  static final ImmutableMap<Solvers, String> CONTEXT_MEMORY_STATISTICS_KEYS =
+      ImmutableMap.of(Solvers.BOOLECTOR, "memory");
+
+  private final SolverContextFactory factory;
+  private final Solvers solver;
+  private final LogManager logger;
+
+  /** Idle contexts, the most recently returned context is leased first. */
+  private final BlockingDeque<PooledContext> idle = new LinkedBlockingDeque<>();
+
+  private final LongAdder createdContexts = new LongAdder();
+  private final LongAdder recycledContexts = new LongAdder();
+  private final LongAdder leases = new LongAdder();
+
+  private volatile boolean closed = false;
+
+  /**
+   * Create a pool of solver contexts and initialize the configured number of contexts.
+   *
+   * @param pConfig configuration for the pool and for all created contexts
+   * @param pLogger logger for all created contexts
+   * @param pShutdownNotifier shutdown notifier for all created contexts
+   * @param pSolver the solver for all created contexts
+   */
+  public SolverContextPool(
+      Configuration pConfig,
+      LogManager pLogger,
+      ShutdownNotifier pShutdownNotifier,
+      Solvers pSolver)
+      throws InvalidConfigurationException {
+    pConfig.inject(this);
+    logger = checkNotNull(pLogger);
+    solver = checkNotNull(pSolver);
+    factory = new SolverContextFactory(pConfig, pLogger, pShutdownNotifier);
+    for (int i = 0; i < size; i++) {
+      idle.addLast(createContext());
+    }
+  }
+
+  private PooledContext createContext() throws InvalidConfigurationException {
+    PooledContext context = new PooledContext(factory.generateContext(solver));
+    createdContexts.increment();
+    return context;
+  }
+
+  /**
+   * Lease a context from the pool. If no idle context is available, a new context is created. The
+   * returned context must be closed after usage, which returns it to the pool.
+   */
+  public SolverContext lease() throws InvalidConfigurationException {
+    checkState(!closed, "pool is closed");
+    PooledContext context = idle.pollFirst();
+    if (context == null) {
+      context = createContext();
+    }
+    context.leases++;
+    leases.increment();
+    return new LeasedSolverContext(context);
+  }
+
+  private void release(PooledContext pContext) {
+    if (closed) {
+      pContext.delegate.close();
+    } else if (shouldRecycle(pContext)) {
+      pContext.delegate.close();
+      recycledContexts.increment();
+      if (idle.size() < size) {
+        try {
+          // the returning thread pays for the replacement, not the next lessee.
+          PooledContext replacement = createContext();
+          if (!offerIdle(replacement)) {
+            // another thread filled the pool while we created the replacement
+            replacement.delegate.close();
+          }
+        } catch (InvalidConfigurationException e) {
+          logger.logUserException(Level.WARNING, e, "Cannot create solver context for the pool");
+        }
+      }
+    } else if (!offerIdle(pContext)) {
+      pContext.delegate.close();
+    }
+
+    if (closed) {
+      // the pool was closed concurrently, avoid leaking the context we just added.
+      closeIdleContexts();
+    }
+  }
+
+  /**
+   * Add the context to the idle contexts if the pool is not full. Checking the size and adding the
+   * context is one atomic step, such that concurrent returns never keep more than {@link #size}
+   * contexts.
+   */
+  private boolean offerIdle(PooledContext pContext) {
+    synchronized (idle) {
+      return idle.size() < size && idle.offerFirst(pContext);
+    }
+  }
+
+  private boolean shouldRecycle(PooledContext pContext) {
+    if (maxLeasesPerContext > 0 && pContext.leases >= maxLeasesPerContext) {
+      return true;
+    }
+    return maxMemoryPerContext > 0 && getMemoryUsage(pContext.delegate) > maxMemoryPerContext;
+  }
+
+  /**
+   * Returns the memory usage in megabytes as reported by the statistics of the given context, or -1
+   * if the solver does not report the memory usage of a context.
+   */
+  static double getMemoryUsage(SolverContext pContext) {
+    @Nullable String key = CONTEXT_MEMORY_STATISTICS_KEYS.get(pContext.getSolverName());
+    return key == null ? -1 : getMemoryUsage(pContext.getStatistics(), key);
+  }
+
+  /**
+   * Returns the memory usage in megabytes as reported under the given key, or -1 if the key is not
+   * present.
+   */
+  static double getMemoryUsage(Map<String, String> pStatistics, String pKey) {
+    checkNotNull(pKey);
+    @Nullable String value = pStatistics.get(pKey);
+    if (value != null) {
+      try {
+        return Double.parseDouble(value.trim());
+      } catch (NumberFormatException e) {
+        // ignore values in unknown format
+      }
+    }
+    return -1;
+  }
+
+  /** Returns the number of idle contexts that can be leased without creating a new context. */
+  public int getNumberOfIdleContexts() {
+    return idle.size();
+  }
+
+  /** Returns statistics about the usage of this pool. */
+  public ImmutableMap<String, Object> getStatistics() {
+    return ImmutableMap.of(
+        "number of leases", leases.sum(),
+        "number of created contexts", createdContexts.sum(),
+        "number of recycled contexts", recycledContexts.sum(),
+        "number of idle contexts", idle.size());
+  }
+
+  private void closeIdleContexts() {
+    for (PooledContext context = idle.pollFirst(); context != null; context = idle.pollFirst()) {
+      context.delegate.close();
+    }
+  }
+
+  /**
+   * Close the pool and all idle contexts. Contexts that are currently leased are closed when they
+   * are returned.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    closeIdleContexts();
+  }
+
+  /** A context owned by the pool, together with its usage data. */
+  private static final class PooledContext {
+
+    private final SolverContext delegate;
+
+    /** Only accessed by the thread that currently owns the context. */
+    private int leases = 0;
+
+    private PooledContext(SolverContext pDelegate) {
+      delegate = checkNotNull(pDelegate);
+    }
+  }
+
+  /** The view of a pooled context for a lessee. Closing it returns the context to the pool. */
+  private final class LeasedSolverContext implements SolverContext {
+
+    private final PooledContext context;
+    private final SolverContext delegate;
+    private final AtomicBoolean returned = new AtomicBoolean(false);
+
+    /**
+     * All provers created by the lessee that are still open, such that they can be closed on
+     * return. A prover removes itself when it is closed by the lessee.
+     */
+    private final Set<BasicProverEnvironment<?>> provers = ConcurrentHashMap.newKeySet();
+
+    private LeasedSolverContext(PooledContext pContext) {
+      context = pContext;
+      delegate = pContext.delegate;
+    }
+
+    private void checkNotReturned() {
+      checkState(!returned.get(), "solver context was already returned to the pool");
+    }
+
+    @Override
+    public FormulaManager getFormulaManager() {
+      checkNotReturned();
+      return delegate.getFormulaManager();
+    }
+
+    private <T extends BasicProverEnvironment<?>> T track(T pProver) {
+      provers.add(pProver);
+      return pProver;
+    }
+
+    @Override
+    public ProverEnvironment newProverEnvironment(ProverOptions... pOptions) {
+      checkNotReturned();
+      return track(new LeasedProverEnvironment(delegate.newProverEnvironment(pOptions), provers));
+    }
+
+    @Override
+    public InterpolatingProverEnvironment<?> newProverEnvironmentWithInterpolation(
+        ProverOptions... pOptions) {
+      checkNotReturned();
+      return track(
+          wrapInterpolatingProver(delegate.newProverEnvironmentWithInterpolation(pOptions)));
+    }
+
+    private <T> InterpolatingProverEnvironment<T> wrapInterpolatingProver(
+        InterpolatingProverEnvironment<T> pProver) {
+      return new LeasedInterpolatingProverEnvironment<>(pProver, provers);
+    }
+
+    @Override
+    public OptimizationProverEnvironment newOptimizationProverEnvironment(
+        ProverOptions... pOptions) {
+      checkNotReturned();
+      return track(
+          new LeasedOptimizationProverEnvironment(
+              delegate.newOptimizationProverEnvironment(pOptions), provers));
+    }
+
+    @Override
+    public String getVersion() {
+      return delegate.getVersion();
+    }
+
+    @Override
+    public Solvers getSolverName() {
+      return delegate.getSolverName();
+    }
+
+    @Override
+    public ImmutableMap<String, String> getStatistics() {
+      checkNotReturned();
+      return delegate.getStatistics();
+    }
+
+    @Override
+    public void close() {
+      if (returned.compareAndSet(false, true)) {
+        try {
+          // closing a prover removes it from the set, which is safe while iterating
+          for (BasicProverEnvironment<?> prover : provers) {
+            prover.close();
+          }
+        } finally {
+          release(context);
+        }
+      }
+    }
+  }
+}
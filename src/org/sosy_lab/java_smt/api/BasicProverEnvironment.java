@@ -11,7 +11,9 @@ package org.sosy_lab.java_smt.api;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import java.time.Duration;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -69,6 +71,32 @@ public interface BasicProverEnvironment<T> extends AutoCloseable {
   /** Check whether the conjunction of all formulas on the stack is unsatisfiable. */
   boolean isUnsat() throws SolverException, InterruptedException;
 
+  /**
+   * Check whether the conjunction of all formulas on the stack is unsatisfiable, and give up after
+   * the given time. Only this check is aborted when the time is exceeded, the prover and its
+   * context can still be used afterwards.
+   *
+   * <p>Solvers with a native time limit use it, the others are interrupted by a shared timer
+   * thread. Not all solvers support this.
+   *
+   * @param timeout the maximum time for this check, must be positive.
+   * @throws SolverException if the time was exceeded or the solver failed.
+   */
+  default boolean isUnsat(Duration timeout) throws SolverException, InterruptedException {
+    throw new UnsupportedOperationException("checks with a time limit are not supported");
+  }
+
+  /**
+   * Returns an operation that interrupts a running satisfiability check of this prover from another
+   * thread, or null if the solver does not support this. In contrast to a shutdown request of the
+   * context, the interrupt only affects the currently running check of this prover. Later checks
+   * and other provers of the context are not affected. Calling the operation while no check is
+   * running has no effect.
+   */
+  default @Nullable Runnable getInterruptCall() {
+    return null;
+  }
+
   /**
    * Check whether the conjunction of all formulas on the stack together with the list of
    * assumptions is satisfiable.
@@ -168,6 +196,55 @@ public interface BasicProverEnvironment<T> extends AutoCloseable {
   <R> R allSat(AllSatCallback<R> callback, List<BooleanFormula> important)
       throws InterruptedException, SolverException;
 
+  /**
+   * Get all satisfying assignments of the current environment with regard to a subset of terms, one
+   * after another. The assignments are the same as reported to the callback of {@link #allSat}.
+   *
+   * <p>Provers that support this natively compute the next assignment only when it is requested,
+   * such that the caller can stop early by closing the iterator. The default implementation
+   * computes all assignments with {@link #allSat} at once. The prover must not be used otherwise
+   * until the iterator is closed or exhausted.
+   *
+   * @param important A set of (positive) variables appearing in the asserted queries. Only these
+   *     variables will appear in the assignments.
+   * @return An iterator over all satisfying assignments, which must be closed after use.
+   */
+  default AllSatIterator allSatIterator(List<BooleanFormula> important)
+      throws InterruptedException, SolverException {
+    ImmutableList<List<BooleanFormula>> models =
+        allSat(
+            new AllSatCallback<>() {
+              private final ImmutableList.Builder<List<BooleanFormula>> builder =
+                  ImmutableList.builder();
+
+              @Override
+              public void apply(List<BooleanFormula> model) {
+                builder.add(ImmutableList.copyOf(model));
+              }
+
+              @Override
+              public ImmutableList<List<BooleanFormula>> getResult() {
+                return builder.build();
+              }
+            },
+            important);
+    Iterator<List<BooleanFormula>> iterator = models.iterator();
+    return new AllSatIterator() {
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public List<BooleanFormula> next() {
+        return iterator.next();
+      }
+
+      @Override
+      public void close() {}
+    };
+  }
+
   /**
    * Interface for the {@link #allSat} callback.
    *
@@ -189,4 +266,32 @@ public interface BasicProverEnvironment<T> extends AutoCloseable {
     /** Returning the result generated after all the {@link #apply} calls went through. */
     R getResult() throws InterruptedException;
   }
+
+  /**
+   * Iterator for the {@link #allSatIterator} query. In contrast to {@link Iterator}, computing the
+   * next assignment may fail with a checked exception.
+   */
+  interface AllSatIterator extends AutoCloseable {
+
+    /**
+     * Returns whether there is another satisfying assignment. This might compute the assignment
+     * with the solver.
+     */
+    boolean hasNext() throws InterruptedException, SolverException;
+
+    /**
+     * Returns the next satisfying assignment, in the format described in {@link
+     * AllSatCallback#apply}.
+     *
+     * @throws java.util.NoSuchElementException if there is no further assignment.
+     */
+    List<BooleanFormula> next() throws InterruptedException, SolverException;
+
+    /**
+     * Stops the computation of further assignments and restores the assertion stack of the prover.
+     * Further calls are ignored.
+     */
+    @Override
+    void close();
+  }
 }
@@ -38,6 +38,15 @@ public interface SolverContext extends AutoCloseable {
      */
     GENERATE_ALL_SAT,
 
+    /**
+     * Whether the solver should shrink each satisfying assignment found during {@link
+     * BasicProverEnvironment#allSat} to a partial assignment before blocking it. Important
+     * predicates that are omitted from a reported assignment can take any value. This option only
+     * has an effect for solvers without native support for AllSAT and requires {@link
+     * #GENERATE_ALL_SAT}.
+     */
+    MINIMIZE_ALL_SAT_MODELS,
+
     /**
      * Whether the solver should generate an unsat core for unsatisfiable formulas. Unsat core is
      * generated over all formulas asserted with {@link
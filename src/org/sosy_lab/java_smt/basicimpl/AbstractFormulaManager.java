@@ -17,9 +17,12 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableBiMap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.Appender;
 import org.sosy_lab.java_smt.api.ArrayFormulaManager;
@@ -126,6 +129,13 @@ public abstract class AbstractFormulaManager<TFormulaInfo, TType, TEnv, TFuncDec
 
   private final FormulaCreator<TFormulaInfo, TType, TEnv, TFuncDecl> formulaCreator;
 
+  /** Caches for translations from other managers, null if caching is disabled. */
+  private volatile @Nullable Map<FormulaManager, TranslationCache> translationCaches = null;
+
+  private volatile int translationCacheSize = 0;
+
+  private volatile boolean genericDump = false;
+
   /** Builds a solver from the given theory implementations. */
   @SuppressWarnings("checkstyle:parameternumber")
   protected AbstractFormulaManager(
@@ -263,7 +273,19 @@ public abstract class AbstractFormulaManager<TFormulaInfo, TType, TEnv, TFuncDec
 
   @Override
   public Appender dumpFormula(BooleanFormula t) {
-    return dumpFormula(formulaCreator.extractInfo(t));
+    Appender dump = dumpFormula(formulaCreator.extractInfo(t));
+    if (genericDump && !(dump instanceof SmtLibWriter)) {
+      return new SmtLibWriter(this, t, dump);
+    }
+    return dump;
+  }
+
+  /**
+   * Dump formulas with the solver-independent {@link SmtLibWriter}, which prints shared subterms
+   * only once, instead of the solver-specific printer.
+   */
+  public final void enableGenericDump() {
+    genericDump = true;
   }
 
   @Override
@@ -400,11 +422,60 @@ public abstract class AbstractFormulaManager<TFormulaInfo, TType, TEnv, TFuncDec
     return found.buildKeepingLast();
   }
 
+  /**
+   * Remember translations from other managers into this manager, up to the given number of formulas
+   * per other manager. A conjunction is translated per conjunct, such that translating another
+   * conjunction with some of the same conjuncts only translates the new conjuncts.
+   */
+  public final void enableTranslationCache(int pSize) {
+    checkArgument(pSize > 0, "cache size must be positive");
+    translationCacheSize = pSize;
+    if (translationCaches == null) {
+      translationCaches = new WeakHashMap<>();
+    }
+  }
+
   @Override
-  public BooleanFormula translateFrom(BooleanFormula formula, FormulaManager otherManager) {
+  public final BooleanFormula translateFrom(BooleanFormula formula, FormulaManager otherManager) {
     if (this == otherManager) {
       return formula; // shortcut
     }
+    Map<FormulaManager, TranslationCache> caches = translationCaches;
+    if (caches == null) {
+      return translateFromImpl(formula, otherManager);
+    }
+    TranslationCache cache;
+    synchronized (caches) {
+      cache = caches.computeIfAbsent(otherManager, m -> new TranslationCache(translationCacheSize));
+    }
+    BooleanFormula result = cache.get(formula);
+    if (result == null) {
+      Set<BooleanFormula> conjuncts =
+          otherManager.getBooleanFormulaManager().toConjunctionArgs(formula, false);
+      if (conjuncts.size() <= 1) {
+        result = translateFromImpl(formula, otherManager);
+      } else {
+        List<BooleanFormula> translated = new ArrayList<>(conjuncts.size());
+        for (BooleanFormula conjunct : conjuncts) {
+          BooleanFormula translatedConjunct = cache.get(conjunct);
+          if (translatedConjunct == null) {
+            translatedConjunct = translateFromImpl(conjunct, otherManager);
+            cache.put(conjunct, translatedConjunct);
+          }
+          translated.add(translatedConjunct);
+        }
+        result = booleanManager.and(translated);
+      }
+      cache.put(formula, result);
+    }
+    return result;
+  }
+
+  /**
+   * Translate a formula from another manager without caching. The default implementation dumps and
+   * parses the formula, solvers can override this with a native translation.
+   */
+  protected BooleanFormula translateFromImpl(BooleanFormula formula, FormulaManager otherManager) {
     return parse(otherManager.dumpFormula(formula).toString());
   }
 
@@ -14,6 +14,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -25,6 +26,7 @@ import org.sosy_lab.java_smt.api.BasicProverEnvironment;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.Evaluator;
 import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
+import org.sosy_lab.java_smt.api.SolverException;
 
 public abstract class AbstractProver<T> implements BasicProverEnvironment<T> {
 
@@ -113,6 +115,20 @@ public abstract class AbstractProver<T> implements BasicProverEnvironment<T> {
   protected abstract @Nullable T addConstraintImpl(BooleanFormula constraint)
       throws InterruptedException;
 
+  /**
+   * Check satisfiability with a time limit. Solvers with a native time limit override this method,
+   * the default implementation interrupts the check via {@link #getInterruptCall()}.
+   */
+  @Override
+  public boolean isUnsat(Duration pTimeout) throws SolverException, InterruptedException {
+    checkState(!closed);
+    Runnable interrupt = getInterruptCall();
+    if (interrupt == null) {
+      throw new UnsupportedOperationException("solver does not support checks with time limit");
+    }
+    return DeadlineTimer.run(this::isUnsat, pTimeout, interrupt);
+  }
+
   protected ImmutableSet<BooleanFormula> getAssertedFormulas() {
     ImmutableSet.Builder<BooleanFormula> builder = ImmutableSet.builder();
     for (Map<BooleanFormula, T> level : assertedFormulas) {
@@ -10,11 +10,18 @@ package org.sosy_lab.java_smt.basicimpl;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import java.util.ArrayDeque;
 import java.util.Deque;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.function.Supplier;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.java_smt.api.BasicProverEnvironment;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.BooleanFormulaManager;
 import org.sosy_lab.java_smt.api.Evaluator;
@@ -30,6 +37,19 @@ public abstract class AbstractProverWithAllSat<T> extends AbstractProver<T> {
 
   protected final ShutdownNotifier shutdownNotifier;
   private final BooleanFormulaManager bmgr;
+  private final @Nullable AllSatCubeMinimizer cubeMinimizer;
+
+  /** Creates provers for shrinking cubes with theory predicates, set by the solver context. */
+  private @Nullable Supplier<? extends BasicProverEnvironment<?>> implicantProverFactory = null;
+
+  /** The prover for shrinking cubes with theory predicates, only exists during AllSAT queries. */
+  private @Nullable BasicProverEnvironment<?> implicantProver = null;
+
+  /** The formulas asserted before the current AllSAT query, i.e., without blocking clauses. */
+  private ImmutableSet<BooleanFormula> queryConstraints = ImmutableSet.of();
+
+  /** The atoms of the query constraints that are fixed while shrinking cubes with a core. */
+  private ImmutableSet<BooleanFormula> independentAtoms = ImmutableSet.of();
 
   protected AbstractProverWithAllSat(
       Set<ProverOptions> pOptions,
@@ -38,6 +58,39 @@ public abstract class AbstractProverWithAllSat<T> extends AbstractProver<T> {
     super(pOptions);
     bmgr = pBmgr;
     shutdownNotifier = pShutdownNotifier;
+    if (pOptions.contains(ProverOptions.MINIMIZE_ALL_SAT_MODELS)
+        && pBmgr instanceof AbstractBooleanFormulaManager) {
+      cubeMinimizer = new AllSatCubeMinimizer(pBmgr);
+    } else {
+      cubeMinimizer = null;
+    }
+  }
+
+  /**
+   * Enable the minimization of cubes with theory predicates for {@link
+   * ProverOptions#MINIMIZE_ALL_SAT_MODELS}. The given factory creates provers of the same context
+   * that support {@link BasicProverEnvironment#unsatCoreOverAssumptions}.
+   */
+  void setImplicantProverFactory(Supplier<? extends BasicProverEnvironment<?>> pFactory) {
+    if (cubeMinimizer != null) {
+      implicantProverFactory = Preconditions.checkNotNull(pFactory);
+    }
+  }
+
+  /** Remember the asserted formulas for shrinking cubes with theory predicates. */
+  private void startQuery() {
+    if (implicantProverFactory != null) {
+      queryConstraints = getAssertedFormulas();
+    }
+  }
+
+  private void closeImplicantProver() {
+    if (implicantProver != null) {
+      implicantProver.close();
+      implicantProver = null;
+    }
+    queryConstraints = ImmutableSet.of();
+    independentAtoms = ImmutableSet.of();
   }
 
   @Override
@@ -46,6 +99,8 @@ public abstract class AbstractProverWithAllSat<T> extends AbstractProver<T> {
     Preconditions.checkState(!closed);
     checkGenerateAllSat();
 
+    final int level = size();
+    startQuery();
     push();
     try {
       // try model-based computation of ALLSAT
@@ -54,12 +109,116 @@ public abstract class AbstractProverWithAllSat<T> extends AbstractProver<T> {
       // fallback to direct SAT/UNSAT-based computation of ALLSAT
       iterateOverAllPredicateCombinations(callback, importantPredicates, new ArrayDeque<>());
       // TODO should we completely switch to the second method?
+    } finally {
+      // the callback may stop the computation with an exception
+      while (size() > level) {
+        pop();
+      }
+      closeImplicantProver();
     }
-
-    pop();
     return callback.getResult();
   }
 
+  @Override
+  public AllSatIterator allSatIterator(List<BooleanFormula> importantPredicates)
+      throws InterruptedException, SolverException {
+    Preconditions.checkState(!closed);
+    checkGenerateAllSat();
+
+    startQuery();
+    push();
+    return new ModelIterator(importantPredicates);
+  }
+
+  /**
+   * Computes the same assignments as {@link #allSat}, but only one model at a time, when the next
+   * assignment is requested. The pushed level is removed when the iterator is exhausted or closed.
+   */
+  private final class ModelIterator implements AllSatIterator {
+
+    private final List<BooleanFormula> importantPredicates;
+    private @Nullable List<BooleanFormula> nextModel = null;
+
+    /** Remaining assignments of the fallback computation, if model generation failed. */
+    private @Nullable Deque<List<BooleanFormula>> fallbackModels = null;
+
+    private boolean finished = false;
+
+    private ModelIterator(List<BooleanFormula> pImportantPredicates) {
+      importantPredicates = pImportantPredicates;
+    }
+
+    @Override
+    public boolean hasNext() throws InterruptedException, SolverException {
+      if (nextModel != null) {
+        return true;
+      } else if (finished) {
+        return false;
+      }
+      Preconditions.checkState(!closed);
+      shutdownNotifier.shutdownIfNecessary();
+
+      if (fallbackModels == null) {
+        try {
+          // try model-based computation of ALLSAT
+          if (!isUnsat()) {
+            nextModel = getCubeOfModel(importantPredicates);
+            addConstraint(bmgr.not(bmgr.and(nextModel)));
+            return true;
+          }
+        } catch (SolverException e) {
+          // fallback to direct SAT/UNSAT-based computation of ALLSAT for the remaining models
+          Deque<List<BooleanFormula>> models = new ArrayDeque<>();
+          iterateOverAllPredicateCombinations(
+              new AllSatCallback<@Nullable Void>() {
+                @Override
+                public void apply(List<BooleanFormula> model) {
+                  models.add(model);
+                }
+
+                @Override
+                public @Nullable Void getResult() {
+                  return null;
+                }
+              },
+              importantPredicates,
+              new ArrayDeque<>());
+          fallbackModels = models;
+        }
+      }
+
+      if (fallbackModels != null && !fallbackModels.isEmpty()) {
+        nextModel = fallbackModels.poll();
+        return true;
+      }
+      close();
+      return false;
+    }
+
+    @Override
+    public List<BooleanFormula> next() throws InterruptedException, SolverException {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      List<BooleanFormula> model = nextModel;
+      nextModel = null;
+      return model;
+    }
+
+    @Override
+    public void close() {
+      if (!finished) {
+        finished = true;
+        nextModel = null;
+        fallbackModels = null;
+        closeImplicantProver();
+        if (!closed) {
+          pop();
+        }
+      }
+    }
+  }
+
   /**
    * This method computes all satisfiable assignments for the given predicates by iterating over all
    * models. The SMT solver can choose the ordering of variables and shortcut model generation.
@@ -70,23 +229,7 @@ public abstract class AbstractProverWithAllSat<T> extends AbstractProver<T> {
     while (!isUnsat()) {
       shutdownNotifier.shutdownIfNecessary();
 
-      ImmutableList.Builder<BooleanFormula> valuesOfModel = ImmutableList.builder();
-      try (Evaluator evaluator = getEvaluatorWithoutChecks()) {
-        for (BooleanFormula formula : importantPredicates) {
-          Boolean value = evaluator.evaluate(formula);
-          if (value == null) {
-            // This is a legal return value for evaluation.
-            // The value doesn't matter. We ignore this assignment.
-            // This step aim for shortcutting the ALLSAT-loop.
-          } else if (value) {
-            valuesOfModel.add(formula);
-          } else {
-            valuesOfModel.add(bmgr.not(formula));
-          }
-        }
-      }
-
-      final ImmutableList<BooleanFormula> values = valuesOfModel.build();
+      final ImmutableList<BooleanFormula> values = getCubeOfModel(importantPredicates);
       callback.apply(values);
       shutdownNotifier.shutdownIfNecessary();
 
@@ -96,6 +239,94 @@ public abstract class AbstractProverWithAllSat<T> extends AbstractProver<T> {
     }
   }
 
+  /** Returns the values of the important predicates in the current model. */
+  private ImmutableList<BooleanFormula> getCubeOfModel(List<BooleanFormula> importantPredicates)
+      throws SolverException, InterruptedException {
+    ImmutableList<BooleanFormula> cube;
+    @Nullable BasicProverEnvironment<?> prover = null;
+    ImmutableList<BooleanFormula> fixedLiterals = ImmutableList.of();
+    try (Evaluator evaluator = getEvaluatorWithoutChecks()) {
+      // A value of null is a legal return value for evaluation.
+      // The value doesn't matter. We ignore this assignment.
+      // This step aim for shortcutting the ALLSAT-loop.
+      Map<BooleanFormula, @Nullable Boolean> valuesOfModel = new LinkedHashMap<>();
+      for (BooleanFormula formula : importantPredicates) {
+        valuesOfModel.put(formula, evaluator.evaluate(formula));
+      }
+      cube = buildCube(valuesOfModel, evaluator);
+      if (cubeMinimizer != null
+          && implicantProverFactory != null
+          && cubeMinimizer.hasTheoryPredicates(importantPredicates)) {
+        prover = getImplicantProver(cubeMinimizer, implicantProverFactory, importantPredicates);
+        if (prover != null) {
+          fixedLiterals = cubeMinimizer.getLiterals(independentAtoms, evaluator);
+        }
+      }
+    }
+    if (cubeMinimizer != null && prover != null) {
+      try {
+        cube = cubeMinimizer.minimizeWithCore(cube, fixedLiterals, prover);
+      } catch (UnsupportedOperationException e) {
+        // e.g., the solver does not support theory atoms as assumptions
+        disableCoreMinimization();
+      }
+    }
+    return cube;
+  }
+
+  /**
+   * Returns the prover for shrinking cubes with theory predicates, or null if the solver does not
+   * support this. The prover is created for the first cube of a query and gets the negated query
+   * constraints only once, because the blocking clauses of the query are not needed for the check.
+   */
+  private @Nullable BasicProverEnvironment<?> getImplicantProver(
+      AllSatCubeMinimizer pMinimizer,
+      Supplier<? extends BasicProverEnvironment<?>> pFactory,
+      List<BooleanFormula> importantPredicates)
+      throws InterruptedException {
+    if (implicantProver == null) {
+      try {
+        BasicProverEnvironment<?> prover = pFactory.get();
+        implicantProver = prover;
+        prover.push(bmgr.not(bmgr.and(queryConstraints)));
+        independentAtoms = pMinimizer.getIndependentAtoms(queryConstraints, importantPredicates);
+      } catch (UnsupportedOperationException e) {
+        // e.g., the solver does not support unsat cores or visiting formulas
+        disableCoreMinimization();
+      }
+    }
+    return implicantProver;
+  }
+
+  private void disableCoreMinimization() {
+    closeImplicantProver();
+    implicantProverFactory = null;
+  }
+
+  /**
+   * Build the cube of literals for the given values of the important predicates. If {@link
+   * ProverOptions#MINIMIZE_ALL_SAT_MODELS} is enabled, the cube only contains the literals that are
+   * required to satisfy all asserted formulas (including the blocking clauses of previous cubes).
+   */
+  private ImmutableList<BooleanFormula> buildCube(
+      Map<BooleanFormula, @Nullable Boolean> valuesOfModel, Evaluator evaluator) {
+    if (cubeMinimizer != null) {
+      try {
+        return cubeMinimizer.minimize(valuesOfModel, getAssertedFormulas(), evaluator);
+      } catch (UnsupportedOperationException e) {
+        // the solver does not support visiting formulas, so we use the complete assignment
+      }
+    }
+    ImmutableList.Builder<BooleanFormula> cube = ImmutableList.builder();
+    for (Map.Entry<BooleanFormula, @Nullable Boolean> entry : valuesOfModel.entrySet()) {
+      Boolean value = entry.getValue();
+      if (value != null) {
+        cube.add(value ? entry.getKey() : bmgr.not(entry.getKey()));
+      }
+    }
+    return cube.build();
+  }
+
   /**
    * This method computes all satisfiable assignments for the given predicates by (recursively)
    * traversing the decision tree over the given variables. The ordering of variables is fixed, and
@@ -144,6 +375,12 @@ public abstract class AbstractProverWithAllSat<T> extends AbstractProver<T> {
     }
   }
 
+  @Override
+  public void close() {
+    closeImplicantProver();
+    super.close();
+  }
+
   /**
    * Get an evaluator instance for model evaluation without executing checks for prover options.
    *
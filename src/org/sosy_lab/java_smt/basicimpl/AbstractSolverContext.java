@@ -38,6 +38,11 @@ public abstract class AbstractSolverContext implements SolverContext {
   @Override
   public final ProverEnvironment newProverEnvironment(ProverOptions... options) {
     ProverEnvironment out = newProverEnvironment0(toSet(options));
+    if (out instanceof AbstractProverWithAllSat) {
+      ((AbstractProverWithAllSat<?>) out)
+          .setImplicantProverFactory(
+              () -> newProverEnvironment(ProverOptions.GENERATE_UNSAT_CORE_OVER_ASSUMPTIONS));
+    }
     if (!supportsAssumptionSolving()) {
       // In the case we do not already have a prover environment with assumptions,
       // we add a wrapper to it
@@ -41,6 +41,7 @@ public abstract class AbstractUFManager<TFormulaInfo, TFunctionDecl, TType, TEnv
       String pName, FormulaType<T> pReturnType, List<FormulaType<?>> pArgTypes) {
     checkVariableName(pName);
     List<TType> argTypes = Lists.transform(pArgTypes, this::toSolverType);
+    formulaCreator.registerDeclaredUF(pName);
     return FunctionDeclarationImpl.of(
         pName,
         FunctionDeclarationKind.UF,
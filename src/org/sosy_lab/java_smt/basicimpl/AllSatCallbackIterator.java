@@ -0,0 +1,180 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.basicimpl;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.java_smt.api.BasicProverEnvironment;
+import org.sosy_lab.java_smt.api.BasicProverEnvironment.AllSatCallback;
+import org.sosy_lab.java_smt.api.BasicProverEnvironment.AllSatIterator;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.SolverException;
+
+/**
+ * Iterator over the assignments of a callback-based {@link BasicProverEnvironment#allSat}
+ * computation, e.g., the native AllSAT of a solver.
+ *
+ * <p>The computation runs on a separate thread, which hands over each assignment and then waits
+ * inside the callback until the next assignment is requested. Thus, the solver computes the next
+ * assignment only on demand. Closing the iterator early lets the callback throw an exception, which
+ * stops the computation and lets {@link BasicProverEnvironment#allSat} clean up its pushed level.
+ * The prover is only used by one thread at a time, because the calling thread waits for the
+ * computation thread while an assignment is requested, and {@link #close} waits for the end of the
+ * computation.
+ */
+public final class AllSatCallbackIterator implements AllSatIterator {
+
+  private static final ThreadFactory THREAD_FACTORY =
+      new ThreadFactoryBuilder().setDaemon(true).setNameFormat("allsat-iterator-%d").build();
+
+  /** Signals the end of the computation to the calling thread. */
+  private static final Object END = new Object();
+
+  /** Thrown from within the callback to stop the computation early. */
+  private static final class AbortedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+  }
+
+  /** Wraps a failure of the computation. */
+  private static final class Failure {
+    private final Throwable cause;
+
+    private Failure(Throwable pCause) {
+      cause = pCause;
+    }
+  }
+
+  private final BasicProverEnvironment<?> prover;
+  private final ImmutableList<BooleanFormula> important;
+
+  /** Hands over assignments, the end marker, or a failure from the computation thread. */
+  private final SynchronousQueue<Object> results = new SynchronousQueue<>();
+
+  /** One permit for each requested assignment after the first one. */
+  private final Semaphore demand = new Semaphore(0);
+
+  private @Nullable Thread thread = null;
+  private @Nullable List<BooleanFormula> nextModel = null;
+  private boolean finished = false;
+  private volatile boolean aborted = false;
+
+  public AllSatCallbackIterator(
+      BasicProverEnvironment<?> pProver, List<BooleanFormula> pImportant) {
+    prover = checkNotNull(pProver);
+    important = ImmutableList.copyOf(pImportant);
+  }
+
+  @Override
+  public boolean hasNext() throws InterruptedException, SolverException {
+    if (nextModel != null) {
+      return true;
+    } else if (finished) {
+      return false;
+    }
+
+    if (thread == null) {
+      thread = THREAD_FACTORY.newThread(this::compute);
+      thread.start();
+    } else {
+      demand.release();
+    }
+
+    Object result = results.take();
+    if (result instanceof List) {
+      @SuppressWarnings("unchecked")
+      List<BooleanFormula> model = (List<BooleanFormula>) result;
+      nextModel = model;
+      return true;
+    }
+    finished = true;
+    Uninterruptibles.joinUninterruptibly(thread);
+    if (result instanceof Failure) {
+      Throwable cause = ((Failure) result).cause;
+      Throwables.throwIfInstanceOf(cause, SolverException.class);
+      Throwables.throwIfInstanceOf(cause, InterruptedException.class);
+      Throwables.throwIfUnchecked(cause);
+      throw new AssertionError("unexpected exception during AllSAT computation", cause);
+    }
+    return false;
+  }
+
+  @Override
+  public List<BooleanFormula> next() throws InterruptedException, SolverException {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    List<BooleanFormula> model = nextModel;
+    nextModel = null;
+    return model;
+  }
+
+  @Override
+  public void close() {
+    if (!finished) {
+      finished = true;
+      nextModel = null;
+      if (thread != null) {
+        // the computation thread waits for demand within the callback
+        aborted = true;
+        demand.release();
+        while (thread.isAlive()) {
+          // if the caller was interrupted while waiting, a result might still be pending
+          results.poll();
+          Uninterruptibles.joinUninterruptibly(thread, 10, TimeUnit.MILLISECONDS);
+        }
+      }
+    }
+  }
+
+  /** Runs the AllSAT computation, called on the computation thread. */
+  private void compute() {
+    Object result = END;
+    try {
+      prover.allSat(
+          new AllSatCallback<@Nullable Void>() {
+            @Override
+            public void apply(List<BooleanFormula> model) {
+              if (aborted) {
+                throw new AbortedException();
+              }
+              Uninterruptibles.putUninterruptibly(results, ImmutableList.copyOf(model));
+              demand.acquireUninterruptibly();
+              if (aborted) {
+                throw new AbortedException();
+              }
+            }
+
+            @Override
+            public @Nullable Void getResult() {
+              return null;
+            }
+          },
+          important);
+    } catch (AbortedException e) {
+      // closed by the caller, nobody waits for a result
+      return;
+    } catch (Exception | Error e) {
+      result = new Failure(e);
+    }
+    if (!aborted) {
+      Uninterruptibles.putUninterruptibly(results, result);
+    }
+  }
+}
@@ -0,0 +1,437 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.basicimpl;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.java_smt.api.BasicProverEnvironment;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.BooleanFormulaManager;
+import org.sosy_lab.java_smt.api.Evaluator;
+import org.sosy_lab.java_smt.api.Formula;
+import org.sosy_lab.java_smt.api.FunctionDeclaration;
+import org.sosy_lab.java_smt.api.FunctionDeclarationKind;
+import org.sosy_lab.java_smt.api.QuantifiedFormulaManager.Quantifier;
+import org.sosy_lab.java_smt.api.SolverException;
+import org.sosy_lab.java_smt.api.visitors.BooleanFormulaVisitor;
+import org.sosy_lab.java_smt.api.visitors.DefaultBooleanFormulaVisitor;
+import org.sosy_lab.java_smt.api.visitors.TraversalProcess;
+
+/**
+ * Shrinks a satisfying assignment of the important predicates of an AllSAT query to a partial
+ * assignment, such that every extension of the partial assignment is also satisfying.
+ *
+ * <p>A predicate is removed from the assignment if the asserted formulas still evaluate to true
+ * when the value of the predicate is unknown, using a three-valued evaluation of the Boolean
+ * structure of the asserted formulas, where all atoms keep their value from the model. This is only
+ * sound for predicates that are Boolean variables and do not occur inside of any theory atom,
+ * because only then the value of the predicate can be changed independently of all atoms.
+ *
+ * <p>Other predicates (e.g., theory atoms like {@code x > 0}) can only be removed with an
+ * additional solver call, see {@link #minimizeWithCore}: the remaining cube is shrunk to an unsat
+ * core of the negated asserted formulas, such that every model of the cube can be extended to a
+ * model of the asserted formulas. Atoms that are not important are fixed to their value in the
+ * model if they are independent of the important predicates, otherwise they prevent the
+ * minimization.
+ */
+final class AllSatCubeMinimizer {
+
+  private enum Value {
+    TRUE,
+    FALSE,
+    UNKNOWN;
+
+    static Value of(@Nullable Boolean pValue) {
+      if (pValue == null) {
+        return UNKNOWN;
+      }
+      return pValue ? TRUE : FALSE;
+    }
+
+    Value not() {
+      switch (this) {
+        case TRUE:
+          return FALSE;
+        case FALSE:
+          return TRUE;
+        default:
+          return UNKNOWN;
+      }
+    }
+  }
+
+  private final BooleanFormulaManager bmgr;
+
+  /** Theory atoms that were already analyzed, with the names of all variables within atoms. */
+  private final Set<BooleanFormula> knownAtoms = new HashSet<>();
+
+  private final Set<String> variablesInAtoms = new HashSet<>();
+
+  AllSatCubeMinimizer(BooleanFormulaManager pBmgr) {
+    bmgr = checkNotNull(pBmgr);
+  }
+
+  /**
+   * Shrink an assignment of the important predicates.
+   *
+   * @param pAssignment the values of the important predicates in the model, where a predicate with
+   *     a value of {@code null} can already take any value.
+   * @param pConstraints all asserted formulas, which are satisfied by the model.
+   * @param pEvaluator the evaluator for the model.
+   * @return literals for the remaining predicates, in the order of the given assignment.
+   */
+  ImmutableList<BooleanFormula> minimize(
+      Map<BooleanFormula, @Nullable Boolean> pAssignment,
+      Collection<BooleanFormula> pConstraints,
+      Evaluator pEvaluator) {
+    checkNotNull(pAssignment);
+    checkNotNull(pConstraints);
+    checkNotNull(pEvaluator);
+    Map<BooleanFormula, Value> atomValues = new HashMap<>();
+    Set<String> unknown = new HashSet<>();
+    Map<BooleanFormula, String> variableNames = new HashMap<>();
+    for (Map.Entry<BooleanFormula, @Nullable Boolean> entry : pAssignment.entrySet()) {
+      String name = getVariableName(entry.getKey());
+      if (name != null) {
+        variableNames.put(entry.getKey(), name);
+        if (entry.getValue() == null) {
+          unknown.add(name);
+        }
+      }
+    }
+
+    // the first evaluation collects all variables in atoms
+    boolean minimizable = evaluate(pConstraints, unknown, atomValues, pEvaluator);
+    for (Map.Entry<BooleanFormula, @Nullable Boolean> entry : pAssignment.entrySet()) {
+      String name = variableNames.get(entry.getKey());
+      if (minimizable
+          && entry.getValue() != null
+          && name != null
+          && !variablesInAtoms.contains(name)) {
+        unknown.add(name);
+        if (!evaluate(pConstraints, unknown, atomValues, pEvaluator)) {
+          unknown.remove(name);
+        }
+      }
+    }
+
+    ImmutableList.Builder<BooleanFormula> cube = ImmutableList.builder();
+    for (Map.Entry<BooleanFormula, @Nullable Boolean> entry : pAssignment.entrySet()) {
+      Boolean value = entry.getValue();
+      String name = variableNames.get(entry.getKey());
+      if (value != null && (name == null || !unknown.contains(name))) {
+        cube.add(value ? entry.getKey() : bmgr.not(entry.getKey()));
+      }
+    }
+    return cube.build();
+  }
+
+  /**
+   * Returns whether one of the predicates can not be removed by {@link #minimize}, because it is
+   * not a Boolean variable or occurs inside a theory atom of the formulas evaluated so far.
+   */
+  boolean hasTheoryPredicates(Collection<BooleanFormula> pPredicates) {
+    for (BooleanFormula predicate : pPredicates) {
+      String name = getVariableName(predicate);
+      if (name == null || variablesInAtoms.contains(name)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns all atoms of the constraints that share no symbol with the given predicates. The value
+   * of such an atom can be fixed while checking whether a cube of the predicates implies the
+   * constraints: every assignment of the predicates that is consistent with the cube is also
+   * consistent with the fixed atoms, because they do not share any symbol.
+   */
+  ImmutableSet<BooleanFormula> getIndependentAtoms(
+      Collection<BooleanFormula> pConstraints, Collection<BooleanFormula> pPredicates) {
+    checkNotNull(pConstraints);
+    Set<String> predicateSymbols = new HashSet<>();
+    for (BooleanFormula predicate : pPredicates) {
+      addSymbols(predicate, predicateSymbols);
+    }
+    Set<BooleanFormula> atoms = new LinkedHashSet<>();
+    for (BooleanFormula constraint : pConstraints) {
+      bmgr.visitRecursively(
+          constraint,
+          new DefaultBooleanFormulaVisitor<>() {
+            @Override
+            protected TraversalProcess visitDefault() {
+              return TraversalProcess.CONTINUE;
+            }
+
+            @Override
+            public TraversalProcess visitQuantifier(
+                Quantifier quantifier,
+                BooleanFormula quantifiedAST,
+                List<Formula> boundVars,
+                BooleanFormula body) {
+              // atoms with bound variables can not be fixed
+              return TraversalProcess.SKIP;
+            }
+
+            @Override
+            public TraversalProcess visitAtom(
+                BooleanFormula atom, FunctionDeclaration<BooleanFormula> funcDecl) {
+              atoms.add(atom);
+              return TraversalProcess.CONTINUE;
+            }
+          });
+    }
+    ImmutableSet.Builder<BooleanFormula> independentAtoms = ImmutableSet.builder();
+    for (BooleanFormula atom : atoms) {
+      Set<String> symbols = new HashSet<>();
+      addSymbols(atom, symbols);
+      if (Collections.disjoint(symbols, predicateSymbols)) {
+        independentAtoms.add(atom);
+      }
+    }
+    return independentAtoms.build();
+  }
+
+  /** Returns the literals of the given atoms in the model, atoms without a value are skipped. */
+  ImmutableList<BooleanFormula> getLiterals(
+      Collection<BooleanFormula> pAtoms, Evaluator pEvaluator) {
+    checkNotNull(pEvaluator);
+    ImmutableList.Builder<BooleanFormula> literals = ImmutableList.builder();
+    for (BooleanFormula atom : pAtoms) {
+      @Nullable Boolean value = pEvaluator.evaluate(atom);
+      if (value != null) {
+        literals.add(value ? atom : bmgr.not(atom));
+      }
+    }
+    return literals.build();
+  }
+
+  /**
+   * Shrink a cube to an implicant of the asserted formulas, i.e., to a subset of its literals such
+   * that the subset together with the fixed literals and the negation of the asserted formulas is
+   * unsatisfiable.
+   *
+   * @param pCube literals of the important predicates that satisfy the asserted formulas.
+   * @param pFixedLiterals literals of the independent atoms (see {@link #getIndependentAtoms}) in
+   *     the same model as the cube.
+   * @param pProver a prover of the same context that supports {@link
+   *     BasicProverEnvironment#unsatCoreOverAssumptions}, with the negation of the asserted
+   *     formulas as its only constraint.
+   * @return the literals of the cube that are in the unsat core, in the order of the given cube, or
+   *     the given cube if the cube does not imply the asserted formulas (e.g., because of other
+   *     atoms that depend on the predicates).
+   */
+  ImmutableList<BooleanFormula> minimizeWithCore(
+      List<BooleanFormula> pCube,
+      List<BooleanFormula> pFixedLiterals,
+      BasicProverEnvironment<?> pProver)
+      throws SolverException, InterruptedException {
+    checkNotNull(pCube);
+    checkNotNull(pFixedLiterals);
+    checkNotNull(pProver);
+    List<BooleanFormula> assumptions = new ArrayList<>(pCube);
+    assumptions.addAll(pFixedLiterals);
+    Optional<List<BooleanFormula>> core = pProver.unsatCoreOverAssumptions(assumptions);
+    if (!core.isPresent()) {
+      return ImmutableList.copyOf(pCube);
+    }
+    Set<BooleanFormula> coreLiterals = new HashSet<>(core.orElseThrow());
+    if (!assumptions.containsAll(coreLiterals)) {
+      // the solver did not report the literals as given, we can not match them
+      return ImmutableList.copyOf(pCube);
+    }
+    return pCube.stream().filter(coreLiterals::contains).collect(toImmutableList());
+  }
+
+  /** Adds the names of all variables and UFs in the formula to the given set. */
+  private void addSymbols(BooleanFormula pFormula, Set<String> pSymbols) {
+    // all managers used by the provers are implemented in this package
+    ((AbstractBooleanFormulaManager<?, ?, ?, ?>) bmgr)
+        .getFormulaCreator()
+        .extractVariablesAndUFs(pFormula, true, (name, f) -> pSymbols.add(name));
+  }
+
+  /** Returns the name of the predicate if it is a Boolean variable, and null otherwise. */
+  private @Nullable String getVariableName(BooleanFormula pPredicate) {
+    return bmgr.visit(
+        pPredicate,
+        new DefaultBooleanFormulaVisitor<@Nullable String>() {
+          @Override
+          protected @Nullable String visitDefault() {
+            return null;
+          }
+
+          @Override
+          public @Nullable String visitAtom(
+              BooleanFormula atom, FunctionDeclaration<BooleanFormula> funcDecl) {
+            return funcDecl.getKind() == FunctionDeclarationKind.VAR ? funcDecl.getName() : null;
+          }
+        });
+  }
+
+  /** Returns whether all constraints evaluate to true if the given variables are unknown. */
+  private boolean evaluate(
+      Collection<BooleanFormula> pConstraints,
+      Set<String> pUnknown,
+      Map<BooleanFormula, Value> pAtomValues,
+      Evaluator pEvaluator) {
+    ThreeValuedEvaluation evaluation = new ThreeValuedEvaluation(pUnknown, pAtomValues, pEvaluator);
+    for (BooleanFormula constraint : pConstraints) {
+      if (evaluation.evaluate(constraint) != Value.TRUE) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Evaluates the Boolean structure of formulas, memoized for shared subformulas. */
+  private final class ThreeValuedEvaluation implements BooleanFormulaVisitor<Value> {
+
+    private final Set<String> unknown;
+    private final Map<BooleanFormula, Value> atomValues;
+    private final Evaluator evaluator;
+    private final Map<BooleanFormula, Value> memo = new HashMap<>();
+
+    private ThreeValuedEvaluation(
+        Set<String> pUnknown, Map<BooleanFormula, Value> pAtomValues, Evaluator pEvaluator) {
+      unknown = pUnknown;
+      atomValues = pAtomValues;
+      evaluator = pEvaluator;
+    }
+
+    private Value evaluate(BooleanFormula pFormula) {
+      Value value = memo.get(pFormula);
+      if (value == null) {
+        value = bmgr.visit(pFormula, this);
+        memo.put(pFormula, value);
+      }
+      return value;
+    }
+
+    @Override
+    public Value visitConstant(boolean value) {
+      return Value.of(value);
+    }
+
+    @Override
+    public Value visitBoundVar(BooleanFormula var, int deBruijnIdx) {
+      return Value.UNKNOWN;
+    }
+
+    @Override
+    public Value visitNot(BooleanFormula operand) {
+      return evaluate(operand).not();
+    }
+
+    @Override
+    public Value visitAnd(List<BooleanFormula> operands) {
+      Value result = Value.TRUE;
+      for (BooleanFormula operand : operands) {
+        Value value = evaluate(operand);
+        if (value == Value.FALSE) {
+          return Value.FALSE;
+        } else if (value == Value.UNKNOWN) {
+          result = Value.UNKNOWN;
+        }
+      }
+      return result;
+    }
+
+    @Override
+    public Value visitOr(List<BooleanFormula> operands) {
+      Value result = Value.FALSE;
+      for (BooleanFormula operand : operands) {
+        Value value = evaluate(operand);
+        if (value == Value.TRUE) {
+          return Value.TRUE;
+        } else if (value == Value.UNKNOWN) {
+          result = Value.UNKNOWN;
+        }
+      }
+      return result;
+    }
+
+    @Override
+    public Value visitXor(BooleanFormula operand1, BooleanFormula operand2) {
+      return visitEquivalence(operand1, operand2).not();
+    }
+
+    @Override
+    public Value visitEquivalence(BooleanFormula operand1, BooleanFormula operand2) {
+      Value value1 = evaluate(operand1);
+      Value value2 = evaluate(operand2);
+      if (value1 == Value.UNKNOWN || value2 == Value.UNKNOWN) {
+        return Value.UNKNOWN;
+      }
+      return Value.of(value1 == value2);
+    }
+
+    @Override
+    public Value visitImplication(BooleanFormula operand1, BooleanFormula operand2) {
+      Value value1 = evaluate(operand1);
+      if (value1 == Value.FALSE) {
+        return Value.TRUE;
+      }
+      Value value2 = evaluate(operand2);
+      if (value2 == Value.TRUE) {
+        return Value.TRUE;
+      }
+      return value1 == Value.TRUE ? value2 : Value.UNKNOWN;
+    }
+
+    @Override
+    public Value visitIfThenElse(
+        BooleanFormula condition, BooleanFormula thenFormula, BooleanFormula elseFormula) {
+      Value conditionValue = evaluate(condition);
+      if (conditionValue == Value.TRUE) {
+        return evaluate(thenFormula);
+      } else if (conditionValue == Value.FALSE) {
+        return evaluate(elseFormula);
+      }
+      Value thenValue = evaluate(thenFormula);
+      return thenValue == evaluate(elseFormula) ? thenValue : Value.UNKNOWN;
+    }
+
+    @Override
+    public Value visitQuantifier(
+        Quantifier quantifier,
+        BooleanFormula quantifiedAST,
+        List<Formula> boundVars,
+        BooleanFormula body) {
+      // the variables in the quantified formula are not tracked, thus we can not evaluate it
+      return Value.UNKNOWN;
+    }
+
+    @Override
+    public Value visitAtom(BooleanFormula atom, FunctionDeclaration<BooleanFormula> funcDecl) {
+      if (funcDecl.getKind() == FunctionDeclarationKind.VAR) {
+        if (unknown.contains(funcDecl.getName())) {
+          return Value.UNKNOWN;
+        }
+      } else if (knownAtoms.add(atom)) {
+        addSymbols(atom, variablesInAtoms);
+      }
+      return atomValues.computeIfAbsent(atom, a -> Value.of(evaluator.evaluate(a)));
+    }
+  }
+}
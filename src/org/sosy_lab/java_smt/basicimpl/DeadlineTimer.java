@@ -0,0 +1,109 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.basicimpl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.java_smt.api.SolverException;
+
+/**
+ * Time limits for single satisfiability checks.
+ *
+ * <p>Solvers without a native time limit are interrupted by a timer thread that is shared by all
+ * provers, such that a time limit does not require a thread of its own.
+ */
+public final class DeadlineTimer {
+
+  private static final ScheduledExecutorService TIMER =
+      Executors.newSingleThreadScheduledExecutor(
+          new ThreadFactoryBuilder().setDaemon(true).setNameFormat("solver-deadline-%d").build());
+
+  private DeadlineTimer() {}
+
+  /** A satisfiability check that can be interrupted from another thread. */
+  public interface Check {
+    boolean run() throws SolverException, InterruptedException;
+  }
+
+  public static void checkTimeout(Duration pTimeout) {
+    checkArgument(
+        !pTimeout.isNegative() && !pTimeout.isZero(), "timeout must be positive: %s", pTimeout);
+  }
+
+  /** Returns the timeout in milliseconds, at least 1 and at most {@link Integer#MAX_VALUE}. */
+  public static int toMillis(Duration pTimeout) {
+    return (int) Math.max(1, Math.min(Integer.MAX_VALUE, pTimeout.toMillis()));
+  }
+
+  /** The exception that is thrown when a check exceeds its time limit. */
+  public static SolverException timeoutException(Duration pTimeout, @Nullable Throwable pCause) {
+    checkNotNull(pTimeout);
+    return new SolverException(
+        "Satisfiability check exceeded its time limit of " + pTimeout, pCause);
+  }
+
+  /**
+   * Run the check and call the interrupt when the time is exceeded. The interrupt is never called
+   * after the check returned. If the check fails after the interrupt, a timeout is reported.
+   */
+  public static boolean run(Check pCheck, Duration pTimeout, Runnable pInterrupt)
+      throws SolverException, InterruptedException {
+    checkNotNull(pCheck);
+    checkNotNull(pInterrupt);
+    checkTimeout(pTimeout);
+    TimedCheck timedCheck = new TimedCheck(pInterrupt);
+    ScheduledFuture<?> timer =
+        TIMER.schedule(timedCheck::expire, pTimeout.toNanos(), TimeUnit.NANOSECONDS);
+    boolean result;
+    try {
+      result = pCheck.run();
+    } catch (SolverException | InterruptedException | RuntimeException e) {
+      if (timedCheck.finish()) {
+        throw timeoutException(pTimeout, e);
+      }
+      throw e;
+    } finally {
+      timer.cancel(false);
+    }
+    timedCheck.finish();
+    return result;
+  }
+
+  private static final class TimedCheck {
+
+    private final Runnable interrupt;
+    private boolean running = true;
+    private boolean expired = false;
+
+    private TimedCheck(Runnable pInterrupt) {
+      interrupt = pInterrupt;
+    }
+
+    private synchronized void expire() {
+      if (running) {
+        expired = true;
+        interrupt.run();
+      }
+    }
+
+    /** Mark the check as finished and return whether it was interrupted. */
+    private synchronized boolean finish() {
+      running = false;
+      return expired;
+    }
+  }
+}
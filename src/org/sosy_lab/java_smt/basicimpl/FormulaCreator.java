@@ -13,6 +13,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
 import com.google.common.collect.Sets;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import java.util.ArrayDeque;
@@ -23,7 +24,10 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.BiConsumer;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.java_smt.api.ArrayFormula;
@@ -77,6 +81,16 @@ public abstract class FormulaCreator<TFormulaInfo, TType, TEnv, TFuncDecl> {
   private final @Nullable TType regexType;
   protected final TEnv environment;
 
+  /** The names of the UFs declared by the user, see {@link #isDeclaredUF}. */
+  private final Set<String> declaredUFs = Sets.newConcurrentHashSet();
+
+  /**
+   * The existing wrappers per kind of formula, such that wrapping the same term again returns the
+   * same wrapper. The wrappers are referenced weakly. Null if interning is disabled.
+   */
+  private volatile @Nullable Map<Class<?>, ConcurrentMap<TFormulaInfo, Formula>> internedFormulas =
+      null;
+
   protected FormulaCreator(
       TEnv env,
       TType boolType,
@@ -136,19 +150,50 @@ public abstract class FormulaCreator<TFormulaInfo, TType, TEnv, TFuncDecl> {
 
   public abstract TFormulaInfo makeVariable(TType type, String varName);
 
+  /**
+   * Let all following calls to {@link #encapsulate} and its variants return the existing wrapper if
+   * a term was already wrapped as the same kind of formula and the wrapper is still reachable. This
+   * avoids allocating (and for some solvers, registering) a new wrapper for each operation that
+   * returns a known term, at the cost of a lookup in a hash table. Thus it is most useful for
+   * solvers with cheap hashing of terms.
+   */
+  public final void enableInterning() {
+    if (internedFormulas == null) {
+      internedFormulas = new ConcurrentHashMap<>();
+    }
+  }
+
+  /**
+   * Wrap the term with the given function, or return the existing wrapper if interning is enabled.
+   * All encapsulating methods, including overriding methods of subclasses, should use this.
+   *
+   * @param pKind the interface of the wrapper, e.g., {@code BooleanFormula.class}
+   */
+  @SuppressWarnings("unchecked")
+  protected final <T extends Formula> T intern(
+      Class<? super T> pKind, TFormulaInfo pTerm, Function<TFormulaInfo, T> pWrap) {
+    Map<Class<?>, ConcurrentMap<TFormulaInfo, Formula>> interned = internedFormulas;
+    if (interned == null) {
+      return pWrap.apply(pTerm);
+    }
+    ConcurrentMap<TFormulaInfo, Formula> wrappers =
+        interned.computeIfAbsent(pKind, k -> new MapMaker().weakValues().makeMap());
+    return (T) wrappers.computeIfAbsent(pTerm, pWrap);
+  }
+
   public BooleanFormula encapsulateBoolean(TFormulaInfo pTerm) {
     assert getFormulaType(pTerm).isBooleanType();
-    return new BooleanFormulaImpl<>(pTerm);
+    return intern(BooleanFormula.class, pTerm, BooleanFormulaImpl::new);
   }
 
   protected BitvectorFormula encapsulateBitvector(TFormulaInfo pTerm) {
     assert getFormulaType(pTerm).isBitvectorType();
-    return new BitvectorFormulaImpl<>(pTerm);
+    return intern(BitvectorFormula.class, pTerm, BitvectorFormulaImpl::new);
   }
 
   protected FloatingPointFormula encapsulateFloatingPoint(TFormulaInfo pTerm) {
     assert getFormulaType(pTerm).isFloatingPointType();
-    return new FloatingPointFormulaImpl<>(pTerm);
+    return intern(FloatingPointFormula.class, pTerm, FloatingPointFormulaImpl::new);
   }
 
   protected <TI extends Formula, TE extends Formula> ArrayFormula<TI, TE> encapsulateArray(
@@ -159,22 +204,23 @@ public abstract class FormulaCreator<TFormulaInfo, TType, TEnv, TFuncDecl> {
             + " but found: "
             + FormulaType.getArrayType(pIndexType, pElementType);
 
-    return new ArrayFormulaImpl<>(pTerm, pIndexType, pElementType);
+    return intern(
+        ArrayFormula.class, pTerm, t -> new ArrayFormulaImpl<>(t, pIndexType, pElementType));
   }
 
   protected StringFormula encapsulateString(TFormulaInfo pTerm) {
     assert getFormulaType(pTerm).isStringType();
-    return new StringFormulaImpl<>(pTerm);
+    return intern(StringFormula.class, pTerm, StringFormulaImpl::new);
   }
 
   protected RegexFormula encapsulateRegex(TFormulaInfo pTerm) {
     assert getFormulaType(pTerm).isRegexType();
-    return new RegexFormulaImpl<>(pTerm);
+    return intern(RegexFormula.class, pTerm, RegexFormulaImpl::new);
   }
 
   protected EnumerationFormula encapsulateEnumeration(TFormulaInfo pTerm) {
     assert getFormulaType(pTerm).isEnumerationType();
-    return new EnumerationFormulaImpl<>(pTerm);
+    return intern(EnumerationFormula.class, pTerm, EnumerationFormulaImpl::new);
   }
 
   public Formula encapsulateWithTypeOf(TFormulaInfo pTerm) {
@@ -188,26 +234,30 @@ public abstract class FormulaCreator<TFormulaInfo, TType, TEnv, TFuncDecl> {
             "Trying to encapsulate formula %s of type %s as %s",
             pTerm, getFormulaType(pTerm), pType);
     if (pType.isBooleanType()) {
-      return (T) new BooleanFormulaImpl<>(pTerm);
+      return (T) intern(BooleanFormula.class, pTerm, BooleanFormulaImpl::new);
     } else if (pType.isIntegerType()) {
-      return (T) new IntegerFormulaImpl<>(pTerm);
+      return (T) intern(IntegerFormula.class, pTerm, IntegerFormulaImpl::new);
     } else if (pType.isRationalType()) {
-      return (T) new RationalFormulaImpl<>(pTerm);
+      return (T) intern(RationalFormula.class, pTerm, RationalFormulaImpl::new);
     } else if (pType.isStringType()) {
-      return (T) new StringFormulaImpl<>(pTerm);
+      return (T) intern(StringFormula.class, pTerm, StringFormulaImpl::new);
     } else if (pType.isRegexType()) {
-      return (T) new RegexFormulaImpl<>(pTerm);
+      return (T) intern(RegexFormula.class, pTerm, RegexFormulaImpl::new);
     } else if (pType.isBitvectorType()) {
-      return (T) new BitvectorFormulaImpl<>(pTerm);
+      return (T) intern(BitvectorFormula.class, pTerm, BitvectorFormulaImpl::new);
     } else if (pType.isFloatingPointType()) {
-      return (T) new FloatingPointFormulaImpl<>(pTerm);
+      return (T) intern(FloatingPointFormula.class, pTerm, FloatingPointFormulaImpl::new);
     } else if (pType.isFloatingPointRoundingModeType()) {
-      return (T) new FloatingPointRoundingModeFormulaImpl<>(pTerm);
+      return (T)
+          intern(
+              FloatingPointRoundingModeFormula.class,
+              pTerm,
+              FloatingPointRoundingModeFormulaImpl::new);
     } else if (pType.isArrayType()) {
       ArrayFormulaType<?, ?> arrayType = (ArrayFormulaType<?, ?>) pType;
       return (T) encapsulateArray(pTerm, arrayType.getIndexType(), arrayType.getElementType());
     } else if (pType.isEnumerationType()) {
-      return (T) new EnumerationFormulaImpl<>(pTerm);
+      return (T) intern(EnumerationFormula.class, pTerm, EnumerationFormulaImpl::new);
     }
     throw new IllegalArgumentException(
         "Cannot create formulas of type " + pType + " in the Solver!");
@@ -508,6 +558,19 @@ public abstract class FormulaCreator<TFormulaInfo, TType, TEnv, TFuncDecl> {
 
   public abstract TFuncDecl declareUFImpl(String pName, TType pReturnType, List<TType> pArgTypes);
 
+  /** Remember that the user declared a UF with the given name via {@link AbstractUFManager}. */
+  final void registerDeclaredUF(String pName) {
+    declaredUFs.add(pName);
+  }
+
+  /**
+   * Returns whether a UF with the given name was declared by the user. Some solvers report internal
+   * functions as UFs when visiting a formula, such UFs can not be declared in SMT-LIB.
+   */
+  final boolean isDeclaredUF(String pName) {
+    return declaredUFs.contains(pName);
+  }
+
   public TFuncDecl getBooleanVarDeclaration(BooleanFormula var) {
     return getBooleanVarDeclarationImpl(extractInfo(var));
   }
@@ -9,7 +9,16 @@
 package org.sosy_lab.java_smt.basicimpl;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.ShutdownNotifier.ShutdownRequestListener;
@@ -19,9 +28,29 @@ import org.sosy_lab.common.ShutdownNotifier.ShutdownRequestListener;
  *
  * <p>The hook is active directly after its construction until calling the method {@link
  * ShutdownHook#close()} and forwards all shutdown requests to the provided method.
+ *
+ * <p>The interrupts are sent by a thread that is shared by all hooks, such that a shutdown request
+ * returns immediately, even if many solvers need to be interrupted. The time from a shutdown
+ * request until the solver returns is available via {@link #getCancellationStatistics()}.
+ *
+ * <p>After {@link #close()} returns, the interrupt method is not called anymore. If an interrupt is
+ * sent while the hook is closed, closing waits until the interrupt is finished.
  */
 public final class ShutdownHook implements ShutdownRequestListener, AutoCloseable {
 
+  private static final long INITIAL_RETRY_DELAY_MS = 1;
+  private static final long MAX_RETRY_DELAY_MS = 100;
+  private static final long NOT_REQUESTED = -1;
+
+  private static final ScheduledExecutorService INTERRUPT_EXECUTOR =
+      Executors.newSingleThreadScheduledExecutor(
+          new ThreadFactoryBuilder().setDaemon(true).setNameFormat("solver-interrupt-%d").build());
+
+  private static final LongAdder cancellations = new LongAdder();
+  private static final LongAdder interruptCalls = new LongAdder();
+  private static final LongAdder sumTimeToCancel = new LongAdder();
+  private static final LongAccumulator maxTimeToCancel = new LongAccumulator(Math::max, 0);
+
   private final ShutdownNotifier shutdownNotifier;
   private final Runnable interruptCall;
 
@@ -33,24 +62,79 @@ public final class ShutdownHook implements ShutdownRequestListener, AutoCloseabl
 
   final AtomicBoolean isActiveHook = new AtomicBoolean(true);
 
-  // Due to a small delay in some solvers, interrupts have no effect when it is called too soon,
-  // so we repeat cancellation until the solver's method returns and terminates.
-  // In that case, we should call #close and terminate this hook.
+  /** Guards checking {@link #isActiveHook} together with sending the interrupt. */
+  private final Object interruptLock = new Object();
+
+  /** Time of the first shutdown request, in nanoseconds. */
+  private final AtomicLong requestTime = new AtomicLong(NOT_REQUESTED);
+
+  private volatile @Nullable ScheduledFuture<?> nextInterrupt = null;
+
   @Override
   public void shutdownRequested(@Nullable String reasonUnused) {
-    while (isActiveHook.get()) { // flag is reset in #cancelHook
-      interruptCall.run();
-      try {
-        Thread.sleep(10); // let's wait a few steps
-      } catch (InterruptedException e) {
-        // ignore
+    if (isActiveHook.get() && requestTime.compareAndSet(NOT_REQUESTED, System.nanoTime())) {
+      nextInterrupt =
+          INTERRUPT_EXECUTOR.schedule(
+              () -> interrupt(INITIAL_RETRY_DELAY_MS), 0, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  // Due to a small delay in some solvers, interrupts have no effect when it is called too soon,
+  // so we repeat cancellation with increasing delay until the solver's method returns and
+  // terminates. In that case, we should call #close and terminate this hook.
+  private void interrupt(long pDelay) {
+    synchronized (interruptLock) {
+      if (!isActiveHook.get()) { // flag is reset in #close
+        return;
       }
+      interruptCalls.increment();
+      interruptCall.run();
+      long nextDelay = Math.min(2 * pDelay, MAX_RETRY_DELAY_MS);
+      nextInterrupt =
+          INTERRUPT_EXECUTOR.schedule(() -> interrupt(nextDelay), pDelay, TimeUnit.MILLISECONDS);
     }
   }
 
   @Override
   public void close() {
-    isActiveHook.set(false);
-    shutdownNotifier.unregister(this);
+    final boolean wasActive;
+    synchronized (interruptLock) {
+      // waits for an interrupt that is currently sent, because after closing the hook the solver
+      // might start its next query, which must not be interrupted.
+      wasActive = isActiveHook.getAndSet(false);
+    }
+    if (wasActive) {
+      shutdownNotifier.unregister(this);
+      long start = requestTime.get();
+      if (start != NOT_REQUESTED) {
+        long timeToCancel = System.nanoTime() - start;
+        cancellations.increment();
+        sumTimeToCancel.add(timeToCancel);
+        maxTimeToCancel.accumulate(timeToCancel);
+      }
+      ScheduledFuture<?> pending = nextInterrupt;
+      if (pending != null) {
+        pending.cancel(false);
+      }
+    }
+  }
+
+  /**
+   * Returns statistics about all interrupted solver calls of this JVM: the number of interrupted
+   * calls, the number of sent interrupts, and the time between shutdown request and return of the
+   * solver call.
+   */
+  public static ImmutableMap<String, Object> getCancellationStatistics() {
+    long count = cancellations.sum();
+    long sum = sumTimeToCancel.sum();
+    return ImmutableMap.of(
+        "number of cancelled solver calls",
+        count,
+        "number of interrupts",
+        interruptCalls.sum(),
+        "avg time to cancel (ms)",
+        count == 0 ? 0.0 : sum / 1e6 / count,
+        "max time to cancel (ms)",
+        maxTimeToCancel.get() / 1e6);
   }
 }
@@ -0,0 +1,495 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.basicimpl;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.CharMatcher;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.Appender;
+import org.sosy_lab.common.Appenders;
+import org.sosy_lab.common.rationals.Rational;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.Formula;
+import org.sosy_lab.java_smt.api.FormulaManager;
+import org.sosy_lab.java_smt.api.FormulaType;
+import org.sosy_lab.java_smt.api.FormulaType.BitvectorType;
+import org.sosy_lab.java_smt.api.FunctionDeclaration;
+import org.sosy_lab.java_smt.api.FunctionDeclarationKind;
+import org.sosy_lab.java_smt.api.QuantifiedFormulaManager.Quantifier;
+import org.sosy_lab.java_smt.api.visitors.FormulaVisitor;
+
+/**
+ * Solver-independent SMT-LIB printer for formulas, based on {@link FormulaManager#visit}. Subterms
+ * that occur more than once are bound with a let-expression and printed only once, such that the
+ * size of the output is linear in the size of the formula DAG. The output is streamed to the {@link
+ * Appendable} without building a string for the whole formula.
+ *
+ * <p>Formulas with constructs that are not supported by this printer (e.g., quantifiers,
+ * floating-point or string operations, or bitvector extraction) are printed with a fallback,
+ * usually the solver-specific printer.
+ */
+public final class SmtLibWriter extends Appenders.AbstractAppender {
+
+  /** Prefix for let-bound names, symbols with a leading dot are reserved for solvers. */
+  private static final String LET_PREFIX = ".cse";
+
+  private static final CharMatcher SYMBOL_CHARS =
+      CharMatcher.inRange('a', 'z')
+          .or(CharMatcher.inRange('A', 'Z'))
+          .or(CharMatcher.inRange('0', '9'))
+          .or(CharMatcher.anyOf("~!@$%^&*_-+=<>.?/"))
+          .precomputed();
+
+  private static final ImmutableSet<String> RESERVED_WORDS =
+      ImmutableSet.of(
+          "_",
+          "!",
+          "as",
+          "let",
+          "exists",
+          "forall",
+          "match",
+          "par",
+          "BINARY",
+          "DECIMAL",
+          "HEXADECIMAL",
+          "NUMERAL",
+          "STRING");
+
+  private final FormulaManager mgr;
+  private final BooleanFormula formula;
+  private final Appender fallback;
+
+  /**
+   * Create a printer for a formula.
+   *
+   * @param pMgr the manager of the formula
+   * @param pFormula the formula to print
+   * @param pFallback the printer to use if the formula contains unsupported constructs
+   */
+  public SmtLibWriter(FormulaManager pMgr, BooleanFormula pFormula, Appender pFallback) {
+    mgr = checkNotNull(pMgr);
+    formula = checkNotNull(pFormula);
+    fallback = checkNotNull(pFallback);
+  }
+
+  @Override
+  public void appendTo(Appendable out) throws IOException {
+    checkNotNull(out);
+    Analysis analysis = new Analysis();
+    if (!analysis.run()) {
+      fallback.appendTo(out);
+      return;
+    }
+
+    for (Map.Entry<String, FormulaType<?>> variable : analysis.variables.entrySet()) {
+      out.append("(declare-fun ")
+          .append(quote(variable.getKey()))
+          .append(" () ")
+          .append(variable.getValue().toSMTLIBString())
+          .append(")\n");
+    }
+    for (FunctionDeclaration<?> uf : analysis.ufs.values()) {
+      out.append("(declare-fun ").append(quote(uf.getName())).append(" (");
+      List<FormulaType<?>> argumentTypes = uf.getArgumentTypes();
+      for (int i = 0; i < argumentTypes.size(); i++) {
+        if (i > 0) {
+          out.append(' ');
+        }
+        out.append(argumentTypes.get(i).toSMTLIBString());
+      }
+      out.append(") ").append(uf.getType().toSMTLIBString()).append(")\n");
+    }
+
+    // bind shared terms in the order of their creation, i.e., children before parents
+    Map<Formula, String> names = new HashMap<>();
+    out.append("(assert ");
+    for (Formula shared : analysis.sharedTerms) {
+      String name = LET_PREFIX + names.size();
+      out.append("(let ((").append(name).append(' ');
+      writeTerm(out, shared, analysis.terms, names);
+      out.append(")) ");
+      names.put(shared, name);
+    }
+    writeTerm(out, formula, analysis.terms, names);
+    for (int i = 0; i < analysis.sharedTerms.size(); i++) {
+      out.append(')');
+    }
+    out.append(')');
+  }
+
+  /** Print a term iteratively, using the let-bound names for its shared subterms. */
+  private static void writeTerm(
+      Appendable out, Formula root, Map<Formula, Term> terms, Map<Formula, String> names)
+      throws IOException {
+    Deque<Object> toWrite = new ArrayDeque<>();
+    toWrite.push(root);
+    while (!toWrite.isEmpty()) {
+      Object next = toWrite.pop();
+      if (next instanceof String) {
+        out.append((String) next);
+        continue;
+      }
+      String name = names.get(next);
+      if (name != null) {
+        out.append(name);
+        continue;
+      }
+      Term term = terms.get(next);
+      out.append(term.open);
+      toWrite.push(term.close);
+      for (Formula child : term.children.reverse()) {
+        toWrite.push(child);
+        toWrite.push(" ");
+      }
+    }
+  }
+
+  /** Quote a symbol if required, see Section 3.1 "Symbols" of the SMT-LIB standard. */
+  private static String quote(String symbol) {
+    if (!symbol.isEmpty()
+        && SYMBOL_CHARS.matchesAllOf(symbol)
+        && !CharMatcher.inRange('0', '9').matches(symbol.charAt(0))
+        && !RESERVED_WORDS.contains(symbol)) {
+      return symbol;
+    }
+    return "|" + symbol + "|";
+  }
+
+  private static boolean isQuotable(String symbol) {
+    return CharMatcher.anyOf("|\\").matchesNoneOf(symbol);
+  }
+
+  /** A term to print: "{open} {child_1} ... {child_n}{close}". */
+  private static final class Term {
+    private final String open;
+    private final ImmutableList<Formula> children;
+    private final String close;
+    private int references = 0;
+
+    private Term(String pOpen, ImmutableList<Formula> pChildren, String pClose) {
+      open = pOpen;
+      children = pChildren;
+      close = pClose;
+    }
+
+    private static Term atom(String pText) {
+      return new Term(pText, ImmutableList.of(), "");
+    }
+  }
+
+  /**
+   * Collects all terms of the formula DAG with their number of references, and all variables and
+   * UFs. The DAG is traversed iteratively to avoid a stack overflow for deep formulas.
+   */
+  private final class Analysis implements FormulaVisitor<Boolean> {
+
+    private final Map<Formula, Term> terms = new HashMap<>();
+    private final List<Formula> sharedTerms = new ArrayList<>();
+    private final Map<String, FormulaType<?>> variables = new LinkedHashMap<>();
+    private final Map<String, FunctionDeclaration<?>> ufs = new LinkedHashMap<>();
+    private final Deque<Formula> toProcess = new ArrayDeque<>();
+
+    /** Returns whether all terms of the formula are supported. */
+    private boolean run() {
+      List<Formula> created = new ArrayList<>();
+      toProcess.push(formula);
+      while (!toProcess.isEmpty()) {
+        Formula f = toProcess.peek();
+        if (terms.containsKey(f)) {
+          toProcess.pop();
+          continue;
+        }
+        if (!mgr.visit(f, this)) {
+          return false;
+        }
+        if (terms.containsKey(f)) {
+          created.add(f);
+        }
+      }
+      for (Formula f : created) {
+        Term term = terms.get(f);
+        if (term.references > 1 && !term.children.isEmpty()) {
+          sharedTerms.add(f);
+        }
+      }
+      return true;
+    }
+
+    private boolean finish(Formula f, @Nullable Term term) {
+      if (term == null) {
+        return false;
+      }
+      toProcess.pop();
+      for (Formula child : term.children) {
+        terms.get(child).references++;
+      }
+      terms.put(f, term);
+      return true;
+    }
+
+    @Override
+    public Boolean visitFreeVariable(Formula f, String name) {
+      if (!isQuotable(name)) {
+        return false;
+      }
+      variables.put(name, mgr.getFormulaType(f));
+      return finish(f, Term.atom(quote(name)));
+    }
+
+    @Override
+    public Boolean visitBoundVariable(Formula f, int deBruijnIdx) {
+      return false;
+    }
+
+    @Override
+    public Boolean visitQuantifier(
+        BooleanFormula f,
+        Quantifier quantifier,
+        List<Formula> boundVariables,
+        BooleanFormula body) {
+      // let-bound terms must not be moved out of the scope of the quantifier
+      return false;
+    }
+
+    @Override
+    public Boolean visitConstant(Formula f, Object value) {
+      String text = printConstant(mgr.getFormulaType(f), value);
+      return text != null && finish(f, Term.atom(text));
+    }
+
+    @Override
+    public Boolean visitFunction(
+        Formula f, List<Formula> args, FunctionDeclaration<?> functionDeclaration) {
+      boolean done = true;
+      for (Formula arg : args) {
+        if (!terms.containsKey(arg)) {
+          toProcess.push(arg);
+          done = false;
+        }
+      }
+      if (!done) {
+        return true;
+      }
+      if (functionDeclaration.getKind() == FunctionDeclarationKind.UF) {
+        if (!isQuotable(functionDeclaration.getName())
+            || !isDeclaredUF(functionDeclaration.getName())) {
+          return false;
+        }
+        ufs.put(functionDeclaration.getName(), functionDeclaration);
+        String name = quote(functionDeclaration.getName());
+        return finish(
+            f,
+            args.isEmpty()
+                ? Term.atom(name)
+                : new Term("(" + name, ImmutableList.copyOf(args), ")"));
+      }
+      return finish(f, printApplication(functionDeclaration, args));
+    }
+
+    /**
+     * Returns whether the UF was declared by the user. Other UFs are solver-internal functions
+     * (e.g., Princess reports its theory functions as UFs), whose declaration in SMT-LIB would
+     * change the meaning of the formula.
+     */
+    private boolean isDeclaredUF(String name) {
+      return mgr instanceof AbstractFormulaManager
+          && ((AbstractFormulaManager<?, ?, ?, ?>) mgr).getFormulaCreator().isDeclaredUF(name);
+    }
+
+    private @Nullable Term printApplication(FunctionDeclaration<?> decl, List<Formula> args) {
+      if (args.isEmpty()) {
+        // nullary builtins, e.g., re.allchar, are not supported
+        return null;
+      }
+      ImmutableList<Formula> children = ImmutableList.copyOf(args);
+      String operator = getOperator(decl);
+      if (operator != null) {
+        return new Term("(" + operator, children, ")");
+      }
+      switch (decl.getKind()) {
+        case EQ_ZERO:
+          return new Term("(=", children, " " + zeroFor(args.get(0)) + ")");
+        case GTE_ZERO:
+          return new Term("(>=", children, " " + zeroFor(args.get(0)) + ")");
+        case BV_SIGN_EXTENSION:
+        case BV_ZERO_EXTENSION:
+          FormulaType<?> argType = mgr.getFormulaType(args.get(0));
+          int extension =
+              ((BitvectorType) decl.getType()).getSize() - ((BitvectorType) argType).getSize();
+          String extend =
+              decl.getKind() == FunctionDeclarationKind.BV_SIGN_EXTENSION
+                  ? "sign_extend"
+                  : "zero_extend";
+          return new Term("((_ " + extend + " " + extension + ")", children, ")");
+        default:
+          return null;
+      }
+    }
+
+    private String zeroFor(Formula arg) {
+      return mgr.getFormulaType(arg).isRationalType() ? "0.0" : "0";
+    }
+
+    private @Nullable String getOperator(FunctionDeclaration<?> decl) {
+      switch (decl.getKind()) {
+        case AND:
+          return "and";
+        case OR:
+          return "or";
+        case NOT:
+          return "not";
+        case IMPLIES:
+          return "=>";
+        case IFF:
+        case EQ:
+        case BV_EQ:
+          return "=";
+        case XOR:
+          return "xor";
+        case ITE:
+          return "ite";
+        case DISTINCT:
+          return "distinct";
+        case SELECT:
+          return "select";
+        case STORE:
+          return "store";
+        case UMINUS:
+        case SUB:
+          return "-";
+        case ADD:
+          return "+";
+        case MUL:
+          return "*";
+        case DIV:
+          return decl.getType().isIntegerType() ? "div" : "/";
+        case MODULO:
+          return "mod";
+        case LT:
+          return "<";
+        case LTE:
+          return "<=";
+        case GT:
+          return ">";
+        case GTE:
+          return ">=";
+        case FLOOR:
+          return "to_int";
+        case TO_REAL:
+          return "to_real";
+        case BV_CONCAT:
+          return "concat";
+        case BV_NOT:
+          return "bvnot";
+        case BV_NEG:
+          return "bvneg";
+        case BV_OR:
+          return "bvor";
+        case BV_AND:
+          return "bvand";
+        case BV_XOR:
+          return "bvxor";
+        case BV_SUB:
+          return "bvsub";
+        case BV_ADD:
+          return "bvadd";
+        case BV_SDIV:
+          return "bvsdiv";
+        case BV_UDIV:
+          return "bvudiv";
+        case BV_SREM:
+          return "bvsrem";
+        case BV_UREM:
+          return "bvurem";
+        case BV_MUL:
+          return "bvmul";
+        case BV_ULT:
+          return "bvult";
+        case BV_SLT:
+          return "bvslt";
+        case BV_ULE:
+          return "bvule";
+        case BV_SLE:
+          return "bvsle";
+        case BV_UGT:
+          return "bvugt";
+        case BV_SGT:
+          return "bvsgt";
+        case BV_UGE:
+          return "bvuge";
+        case BV_SGE:
+          return "bvsge";
+        case BV_SHL:
+          return "bvshl";
+        case BV_LSHR:
+          return "bvlshr";
+        case BV_ASHR:
+          return "bvashr";
+        default:
+          return null;
+      }
+    }
+  }
+
+  private static @Nullable String printConstant(FormulaType<?> type, Object value) {
+    if (type.isBooleanType() && value instanceof Boolean) {
+      return value.toString();
+    } else if (type.isIntegerType() && value instanceof BigInteger) {
+      return printInteger((BigInteger) value);
+    } else if (type.isRationalType()) {
+      if (value instanceof BigInteger) {
+        return printDecimal(new BigDecimal((BigInteger) value));
+      } else if (value instanceof BigDecimal) {
+        return printDecimal((BigDecimal) value);
+      } else if (value instanceof Rational) {
+        Rational rational = (Rational) value;
+        if (rational.isIntegral()) {
+          return printDecimal(new BigDecimal(rational.getNum()));
+        }
+        String quotient =
+            String.format(
+                "(/ %s %s)",
+                printDecimal(new BigDecimal(rational.getNum().abs())),
+                printDecimal(new BigDecimal(rational.getDen())));
+        return rational.getNum().signum() < 0 ? "(- " + quotient + ")" : quotient;
+      }
+    } else if (type.isBitvectorType() && value instanceof BigInteger) {
+      int size = ((BitvectorType) type).getSize();
+      BigInteger bits = ((BigInteger) value).mod(BigInteger.ONE.shiftLeft(size));
+      return "(_ bv" + bits + " " + size + ")";
+    }
+    return null;
+  }
+
+  private static String printInteger(BigInteger value) {
+    return value.signum() < 0 ? "(- " + value.negate() + ")" : value.toString();
+  }
+
+  private static String printDecimal(BigDecimal value) {
+    String text = value.abs().toPlainString();
+    if (!text.contains(".")) {
+      text += ".0";
+    }
+    return value.signum() < 0 ? "(- " + text + ")" : text;
+  }
+}
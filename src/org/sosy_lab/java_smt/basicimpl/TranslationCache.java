@@ -0,0 +1,49 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.basicimpl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+
+/**
+ * A bounded map from formulas of one source context to their translation in one target context. The
+ * least recently used entry is evicted first.
+ *
+ * <p>The cache must not reference the source or target manager, because it is stored in a map with
+ * weak keys for the source manager.
+ */
+final class TranslationCache {
+
+  private final Map<BooleanFormula, BooleanFormula> cache;
+
+  @SuppressWarnings("serial")
+  TranslationCache(int pSize) {
+    checkArgument(pSize > 0, "cache size must be positive");
+    cache =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<BooleanFormula, BooleanFormula> pEldest) {
+            return size() > pSize;
+          }
+        };
+  }
+
+  synchronized @Nullable BooleanFormula get(BooleanFormula pSource) {
+    return cache.get(checkNotNull(pSource));
+  }
+
+  synchronized void put(BooleanFormula pSource, BooleanFormula pTarget) {
+    cache.put(checkNotNull(pSource), checkNotNull(pTarget));
+  }
+}
@@ -10,30 +10,61 @@ package org.sosy_lab.java_smt.basicimpl.withAssumptionsWrapper;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.java_smt.api.BasicProverEnvironment;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.Model;
 import org.sosy_lab.java_smt.api.SolverException;
 
+/**
+ * Provides assumption solving for solvers without native support, by pushing each assumption onto
+ * the stack of the delegate. Assumptions are kept on the stack until the next operation, such that
+ * a subsequent query only re-asserts the suffix of assumptions that differs from the previous
+ * query. Optionally, all new assumptions of a query are batched into a single level.
+ */
 public class BasicProverWithAssumptionsWrapper<T, P extends BasicProverEnvironment<T>>
     implements BasicProverEnvironment<T> {
 
   protected final P delegate;
   protected final List<BooleanFormula> solverAssumptionsAsFormula = new ArrayList<>();
 
-  BasicProverWithAssumptionsWrapper(P pDelegate) {
+  /**
+   * The number of assumptions on the stack of the delegate up to and including each level pushed
+   * for assumptions. Without batching, each level contains exactly one assumption.
+   */
+  private final List<Integer> assumptionLevels = new ArrayList<>();
+
+  private final boolean batchAssumptions;
+
+  BasicProverWithAssumptionsWrapper(P pDelegate, boolean pBatchAssumptions) {
     delegate = pDelegate;
+    batchAssumptions = pBatchAssumptions;
   }
 
   protected void clearAssumptions() {
-    for (int i = 0; i < solverAssumptionsAsFormula.size(); i++) {
+    popAssumptionLevels(0);
+  }
+
+  /**
+   * Pop levels of assumptions until at most the given number of assumptions is left on the stack.
+   *
+   * @return the number of remaining assumptions
+   */
+  private int popAssumptionLevels(int pKeep) {
+    while (!assumptionLevels.isEmpty() && Iterables.getLast(assumptionLevels) > pKeep) {
       delegate.pop();
+      assumptionLevels.remove(assumptionLevels.size() - 1);
     }
-    solverAssumptionsAsFormula.clear();
+    int remaining = assumptionLevels.isEmpty() ? 0 : Iterables.getLast(assumptionLevels);
+    solverAssumptionsAsFormula.subList(remaining, solverAssumptionsAsFormula.size()).clear();
+    unregisterPushedFormulas(remaining);
+    return remaining;
   }
 
   @Override
@@ -56,7 +87,7 @@ public class BasicProverWithAssumptionsWrapper<T, P extends BasicProverEnvironme
 
   @Override
   public int size() {
-    return delegate.size();
+    return delegate.size() - assumptionLevels.size();
   }
 
   @Override
@@ -65,13 +96,44 @@ public class BasicProverWithAssumptionsWrapper<T, P extends BasicProverEnvironme
     return delegate.isUnsat();
   }
 
+  @Override
+  public boolean isUnsat(Duration pTimeout) throws SolverException, InterruptedException {
+    clearAssumptions();
+    return delegate.isUnsat(pTimeout);
+  }
+
+  @Override
+  public @Nullable Runnable getInterruptCall() {
+    return delegate.getInterruptCall();
+  }
+
   @Override
   public boolean isUnsatWithAssumptions(Collection<BooleanFormula> assumptions)
       throws SolverException, InterruptedException {
-    clearAssumptions();
-    solverAssumptionsAsFormula.addAll(assumptions);
-    for (BooleanFormula formula : assumptions) {
-      registerPushedFormula(delegate.push(formula));
+    // keep the common prefix with the previous assumptions on the stack
+    List<BooleanFormula> newAssumptions = ImmutableList.copyOf(assumptions);
+    int common = 0;
+    while (common < newAssumptions.size()
+        && common < solverAssumptionsAsFormula.size()
+        && newAssumptions.get(common).equals(solverAssumptionsAsFormula.get(common))) {
+      common++;
+    }
+    int kept = popAssumptionLevels(common);
+
+    List<BooleanFormula> suffix = newAssumptions.subList(kept, newAssumptions.size());
+    if (batchAssumptions && !suffix.isEmpty()) {
+      delegate.push();
+      for (BooleanFormula formula : suffix) {
+        registerPushedFormula(delegate.addConstraint(formula));
+      }
+      solverAssumptionsAsFormula.addAll(suffix);
+      assumptionLevels.add(solverAssumptionsAsFormula.size());
+    } else {
+      for (BooleanFormula formula : suffix) {
+        registerPushedFormula(delegate.push(formula));
+        solverAssumptionsAsFormula.add(formula);
+        assumptionLevels.add(solverAssumptionsAsFormula.size());
+      }
     }
     return delegate.isUnsat();
   }
@@ -79,6 +141,11 @@ public class BasicProverWithAssumptionsWrapper<T, P extends BasicProverEnvironme
   /** overridden in sub-class. */
   protected void registerPushedFormula(@SuppressWarnings("unused") T pPushResult) {}
 
+  /**
+   * Forget all pushed formulas except for the given number of first ones, overridden in sub-class.
+   */
+  protected void unregisterPushedFormulas(@SuppressWarnings("unused") int pRemaining) {}
+
   @Override
   public Model getModel() throws SolverException {
     return delegate.getModel();
@@ -32,7 +32,19 @@ public class InterpolatingProverWithAssumptionsWrapper<T>
 
   public InterpolatingProverWithAssumptionsWrapper(
       InterpolatingProverEnvironment<T> pDelegate, FormulaManager pFmgr) {
-    super(pDelegate);
+    this(pDelegate, pFmgr, false);
+  }
+
+  /**
+   * Create a wrapper that optionally pushes all new assumptions of a query as one level.
+   *
+   * @param pBatchAssumptions whether to push all new assumptions of a query as one level
+   */
+  public InterpolatingProverWithAssumptionsWrapper(
+      InterpolatingProverEnvironment<T> pDelegate,
+      FormulaManager pFmgr,
+      boolean pBatchAssumptions) {
+    super(pDelegate, pBatchAssumptions);
     solverAssumptionsFromPush = new ArrayList<>();
     fmgr = checkNotNull(pFmgr);
     bmgr = fmgr.getBooleanFormulaManager();
@@ -81,9 +93,8 @@ public class InterpolatingProverWithAssumptionsWrapper<T>
   }
 
   @Override
-  protected void clearAssumptions() {
-    super.clearAssumptions();
-    solverAssumptionsFromPush.clear();
+  protected void unregisterPushedFormulas(int pRemaining) {
+    solverAssumptionsFromPush.subList(pRemaining, solverAssumptionsFromPush.size()).clear();
   }
 
   class RemoveAssumptionsFromFormulaVisitor extends BooleanFormulaTransformationVisitor {
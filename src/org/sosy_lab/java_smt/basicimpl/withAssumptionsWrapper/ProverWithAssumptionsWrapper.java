@@ -15,6 +15,15 @@ public class ProverWithAssumptionsWrapper
     implements ProverEnvironment {
 
   public ProverWithAssumptionsWrapper(ProverEnvironment pDelegate) {
-    super(pDelegate);
+    this(pDelegate, false);
+  }
+
+  /**
+   * Create a wrapper that optionally pushes all new assumptions of a query as one level.
+   *
+   * @param pBatchAssumptions whether to push all new assumptions of a query as one level
+   */
+  public ProverWithAssumptionsWrapper(ProverEnvironment pDelegate, boolean pBatchAssumptions) {
+    super(pDelegate, pBatchAssumptions);
   }
 }
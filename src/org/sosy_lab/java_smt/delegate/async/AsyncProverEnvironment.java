@@ -0,0 +1,201 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.delegate.async;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.ShutdownManager;
+import org.sosy_lab.java_smt.api.BasicProverEnvironment;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.Model.ValueAssignment;
+import org.sosy_lab.java_smt.api.SolverException;
+import org.sosy_lab.java_smt.basicimpl.ShutdownHook;
+
+/**
+ * A non-blocking facade for a prover environment, such that many pending queries do not require one
+ * waiting thread each.
+ *
+ * <p>All operations are executed in the order of their submission on a given executor, which can be
+ * shared by many provers, and return a {@link CompletableFuture} for their result. The prover is
+ * never accessed by two threads at once. Formulas may only be created while operations are pending,
+ * and provers of the same context may only share an executor with several threads, if the solver
+ * context supports concurrent access, e.g., with the option {@code solver.synchronize}.
+ *
+ * <p>A query that is cancelled before it started is skipped. A query that is cancelled while the
+ * solver is running is interrupted, if the prover supports interrupting a single prover (see {@link
+ * BasicProverEnvironment#getInterruptCall()}), otherwise it runs until it is finished. The
+ * interrupt is repeated until the query returns, and it does not affect later queries or other
+ * provers of the context. Operations that change the assertion stack are always executed, even if
+ * their future was cancelled.
+ */
+public final class AsyncProverEnvironment implements AutoCloseable {
+
+  /** An operation on the prover, executed by a thread of the executor. */
+  public interface ProverTask<P, R> {
+    R run(P prover) throws SolverException, InterruptedException;
+  }
+
+  private static final String CANCELLED = "query was cancelled";
+
+  private final BasicProverEnvironment<?> delegate;
+  private final Executor sequentialExecutor;
+  private final @Nullable Runnable interruptCall;
+
+  /** Guards starting a query together with its cancellation. */
+  private final Object startLock = new Object();
+
+  private boolean closed = false;
+
+  /**
+   * Create a non-blocking facade for a prover.
+   *
+   * @param pDelegate the prover, which must not be used directly afterwards
+   * @param pExecutor the executor that runs the operations of the prover, can be shared
+   */
+  public AsyncProverEnvironment(BasicProverEnvironment<?> pDelegate, Executor pExecutor) {
+    delegate = checkNotNull(pDelegate);
+    sequentialExecutor = MoreExecutors.newSequentialExecutor(checkNotNull(pExecutor));
+    interruptCall = pDelegate.getInterruptCall();
+  }
+
+  /** Submit an operation that changes the assertion stack and is executed in any case. */
+  private CompletableFuture<Void> submitUpdate(ProverTask<BasicProverEnvironment<?>, ?> pTask) {
+    checkState(!closed);
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    sequentialExecutor.execute(
+        () -> {
+          try {
+            pTask.run(delegate);
+            future.complete(null);
+          } catch (SolverException | InterruptedException | RuntimeException e) {
+            future.completeExceptionally(e);
+          }
+        });
+    return future;
+  }
+
+  /**
+   * Submit an arbitrary query, e.g., for retrieving a model after a satisfiable check. The query
+   * must not change the assertion stack.
+   */
+  public <R> CompletableFuture<R> submit(ProverTask<BasicProverEnvironment<?>, R> pTask) {
+    checkState(!closed);
+    CompletableFuture<R> future = new CompletableFuture<>();
+    ShutdownManager cancellation = ShutdownManager.create();
+    sequentialExecutor.execute(
+        () -> {
+          @Nullable ShutdownHook hook = null;
+          synchronized (startLock) {
+            if (future.isDone()) {
+              return; // cancelled before it started
+            }
+            if (interruptCall != null) {
+              hook = new ShutdownHook(cancellation.getNotifier(), interruptCall);
+            }
+          }
+          try {
+            future.complete(pTask.run(delegate));
+          } catch (SolverException | InterruptedException | RuntimeException e) {
+            future.completeExceptionally(e);
+          } finally {
+            if (hook != null) {
+              // waits for a pending interrupt, such that it can not affect the next query
+              hook.close();
+            }
+          }
+        });
+    future.whenComplete(
+        (result, failure) -> {
+          if (future.isCancelled()) {
+            synchronized (startLock) {
+              cancellation.requestShutdown(CANCELLED);
+            }
+          }
+        });
+    return future;
+  }
+
+  @CanIgnoreReturnValue
+  public CompletableFuture<Void> pushAsync() {
+    return submitUpdate(
+        prover -> {
+          prover.push();
+          return null;
+        });
+  }
+
+  @CanIgnoreReturnValue
+  public CompletableFuture<Void> popAsync() {
+    return submitUpdate(
+        prover -> {
+          prover.pop();
+          return null;
+        });
+  }
+
+  @CanIgnoreReturnValue
+  public CompletableFuture<Void> addConstraintAsync(BooleanFormula pConstraint) {
+    checkNotNull(pConstraint);
+    return submitUpdate(prover -> prover.addConstraint(pConstraint));
+  }
+
+  /** Asynchronous version of {@link BasicProverEnvironment#isUnsat()}. */
+  public CompletableFuture<Boolean> isUnsatAsync() {
+    return submit(BasicProverEnvironment::isUnsat);
+  }
+
+  /** Asynchronous version of {@link BasicProverEnvironment#isUnsat(Duration)}. */
+  public CompletableFuture<Boolean> isUnsatAsync(Duration pTimeout) {
+    return submit(prover -> prover.isUnsat(pTimeout));
+  }
+
+  /** Asynchronous version of {@link BasicProverEnvironment#isUnsatWithAssumptions}. */
+  public CompletableFuture<Boolean> isUnsatWithAssumptionsAsync(
+      Collection<BooleanFormula> pAssumptions) {
+    ImmutableList<BooleanFormula> assumptions = ImmutableList.copyOf(pAssumptions);
+    return submit(prover -> prover.isUnsatWithAssumptions(assumptions));
+  }
+
+  /** Asynchronous version of {@link BasicProverEnvironment#getModelAssignments()}. */
+  public CompletableFuture<ImmutableList<ValueAssignment>> getModelAssignmentsAsync() {
+    return submit(BasicProverEnvironment::getModelAssignments);
+  }
+
+  /** Asynchronous version of {@link BasicProverEnvironment#getUnsatCore()}. */
+  public CompletableFuture<ImmutableList<BooleanFormula>> getUnsatCoreAsync() {
+    return submit(prover -> ImmutableList.copyOf(prover.getUnsatCore()));
+  }
+
+  /**
+   * Close the prover after all pending operations are executed. This method blocks until the prover
+   * is closed, such that the context can be closed afterwards.
+   */
+  @Override
+  public void close() {
+    if (!closed) {
+      CompletableFuture<Void> closing =
+          submitUpdate(
+              prover -> {
+                prover.close();
+                return null;
+              });
+      closed = true;
+      closing.join();
+    }
+  }
+}
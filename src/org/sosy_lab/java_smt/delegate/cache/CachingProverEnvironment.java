@@ -0,0 +1,307 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.delegate.cache;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.Evaluator;
+import org.sosy_lab.java_smt.api.FormulaManager;
+import org.sosy_lab.java_smt.api.Model;
+import org.sosy_lab.java_smt.api.Model.ValueAssignment;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
+import org.sosy_lab.java_smt.api.SolverException;
+import org.sosy_lab.java_smt.delegate.cache.SatResultCache.Query;
+import org.sosy_lab.java_smt.delegate.cache.SatResultCache.Result;
+
+/**
+ * A prover that answers satisfiability checks from a cache, if the same set of formulas was checked
+ * before by any prover of the context. On a cache hit, the solver is only called if a model or
+ * unsat core is requested that is not cached. If a persistent store is given, results are also
+ * looked up in and added to the store.
+ */
+class CachingProverEnvironment implements ProverEnvironment {
+
+  private final ProverEnvironment delegate;
+  private final SatResultCache cache;
+  private final @Nullable PersistentSatResultStore store;
+  private final HashCode storeKeyPrefix;
+  private final FormulaManager fmgr;
+
+  /** The hashes of the dumped formulas, used in the keys of the persistent store. */
+  private final Map<BooleanFormula, HashCode> formulaHashes = new HashMap<>();
+
+  private final boolean generateModels;
+  private final boolean generateUnsatCores;
+
+  /** The asserted formulas per level, the bottom level is never removed. */
+  private final List<List<BooleanFormula>> levels = new ArrayList<>();
+
+  /** Set if the last check was answered from the cache, i.e., the solver did not check it. */
+  private @Nullable Result lastHit = null;
+
+  /** The assumptions of the last check, needed for repeating it in the solver. */
+  private @Nullable ImmutableSet<BooleanFormula> lastAssumptions = null;
+
+  CachingProverEnvironment(
+      ProverEnvironment pDelegate,
+      SatResultCache pCache,
+      @Nullable PersistentSatResultStore pStore,
+      HashCode pStoreKeyPrefix,
+      FormulaManager pFmgr,
+      Set<ProverOptions> pOptions) {
+    delegate = checkNotNull(pDelegate);
+    cache = checkNotNull(pCache);
+    store = pStore;
+    storeKeyPrefix = checkNotNull(pStoreKeyPrefix);
+    fmgr = checkNotNull(pFmgr);
+    generateModels = pOptions.contains(ProverOptions.GENERATE_MODELS);
+    generateUnsatCores = pOptions.contains(ProverOptions.GENERATE_UNSAT_CORE);
+    levels.add(new ArrayList<>());
+  }
+
+  private ImmutableSet<BooleanFormula> getAssertedFormulas() {
+    ImmutableSet.Builder<BooleanFormula> asserted = ImmutableSet.builder();
+    for (List<BooleanFormula> level : levels) {
+      asserted.addAll(level);
+    }
+    return asserted.build();
+  }
+
+  /**
+   * The key of a query in the persistent store is based on the SMT-LIB dump of the formulas, which
+   * is independent of the current run. As for {@link Query}, the order of formulas is irrelevant.
+   */
+  private HashCode getStoreKey(
+      ImmutableSet<BooleanFormula> pAsserted, ImmutableSet<BooleanFormula> pAssumptions) {
+    Hasher hasher = PersistentSatResultStore.hashFunction().newHasher();
+    hasher.putBytes(storeKeyPrefix.asBytes());
+    putFormulaHashes(hasher, pAsserted);
+    hasher.putByte((byte) 0);
+    putFormulaHashes(hasher, pAssumptions);
+    return hasher.hash();
+  }
+
+  private void putFormulaHashes(Hasher pHasher, Collection<BooleanFormula> pFormulas) {
+    List<String> hashes = new ArrayList<>(pFormulas.size());
+    for (BooleanFormula formula : pFormulas) {
+      hashes.add(
+          formulaHashes
+              .computeIfAbsent(
+                  formula,
+                  f ->
+                      PersistentSatResultStore.hashFunction()
+                          .hashString(fmgr.dumpFormula(f).toString(), StandardCharsets.UTF_8))
+              .toString());
+    }
+    Collections.sort(hashes);
+    for (String hash : hashes) {
+      pHasher.putString(hash, StandardCharsets.UTF_8);
+    }
+  }
+
+  @Override
+  public void push() throws InterruptedException {
+    lastHit = null;
+    delegate.push();
+    levels.add(new ArrayList<>());
+  }
+
+  @Override
+  public void pop() {
+    checkState(levels.size() > 1, "initial level must remain until close");
+    lastHit = null;
+    delegate.pop();
+    levels.remove(levels.size() - 1);
+  }
+
+  @Override
+  public @Nullable Void addConstraint(BooleanFormula pConstraint) throws InterruptedException {
+    lastHit = null;
+    Void result = delegate.addConstraint(pConstraint);
+    levels.get(levels.size() - 1).add(pConstraint);
+    return result;
+  }
+
+  @Override
+  public int size() {
+    return delegate.size();
+  }
+
+  /** An uncached satisfiability check of the solver. */
+  private interface Check {
+    boolean run() throws SolverException, InterruptedException;
+  }
+
+  private boolean check(ImmutableSet<BooleanFormula> pAssumptions, Check pCheck)
+      throws SolverException, InterruptedException {
+    ImmutableSet<BooleanFormula> asserted = getAssertedFormulas();
+    Query query = new Query(asserted, pAssumptions);
+    lastAssumptions = pAssumptions;
+    Result cached = cache.get(query);
+    if (cached != null) {
+      lastHit = cached;
+      return cached.unsat;
+    }
+
+    HashCode storeKey = null;
+    if (store != null) {
+      storeKey = getStoreKey(asserted, pAssumptions);
+      Boolean stored = store.get(storeKey);
+      if (stored != null) {
+        cached = new Result(stored, null, null);
+        cache.put(query, cached);
+        lastHit = cached;
+        return stored;
+      }
+    }
+
+    lastHit = null;
+    boolean unsat = pCheck.run();
+    if (store != null) {
+      store.put(checkNotNull(storeKey), unsat);
+    }
+    ImmutableList<ValueAssignment> model = null;
+    ImmutableList<BooleanFormula> unsatCore = null;
+    if (!unsat && cache.cachesModels() && generateModels) {
+      model = delegate.getModelAssignments();
+    } else if (unsat && cache.cachesUnsatCores() && generateUnsatCores && !query.hasAssumptions()) {
+      unsatCore = ImmutableList.copyOf(delegate.getUnsatCore());
+    }
+    cache.put(query, new Result(unsat, model, unsatCore));
+    return unsat;
+  }
+
+  /** Repeat the last check in the solver if it was answered from the cache. */
+  private void ensureSolverState() throws SolverException, InterruptedException {
+    if (lastHit != null) {
+      ImmutableSet<BooleanFormula> assumptions = checkNotNull(lastAssumptions);
+      boolean unsat =
+          assumptions.isEmpty() ? delegate.isUnsat() : delegate.isUnsatWithAssumptions(assumptions);
+      checkState(unsat == lastHit.unsat, "cached result differs from solver result");
+      lastHit = null;
+    }
+  }
+
+  @Override
+  public boolean isUnsat() throws SolverException, InterruptedException {
+    return check(ImmutableSet.of(), delegate::isUnsat);
+  }
+
+  @Override
+  public boolean isUnsat(Duration pTimeout) throws SolverException, InterruptedException {
+    return check(ImmutableSet.of(), () -> delegate.isUnsat(pTimeout));
+  }
+
+  @Override
+  public @Nullable Runnable getInterruptCall() {
+    return delegate.getInterruptCall();
+  }
+
+  @Override
+  public boolean isUnsatWithAssumptions(Collection<BooleanFormula> pAssumptions)
+      throws SolverException, InterruptedException {
+    ImmutableSet<BooleanFormula> assumptions = ImmutableSet.copyOf(pAssumptions);
+    return check(assumptions, () -> delegate.isUnsatWithAssumptions(assumptions));
+  }
+
+  @Override
+  public Model getModel() throws SolverException {
+    ensureSolverStateUnchecked();
+    return delegate.getModel();
+  }
+
+  @Override
+  public Evaluator getEvaluator() throws SolverException {
+    ensureSolverStateUnchecked();
+    return delegate.getEvaluator();
+  }
+
+  @Override
+  public ImmutableList<ValueAssignment> getModelAssignments() throws SolverException {
+    if (lastHit != null && lastHit.model != null) {
+      return lastHit.model;
+    }
+    ensureSolverStateUnchecked();
+    return delegate.getModelAssignments();
+  }
+
+  @Override
+  public List<BooleanFormula> getUnsatCore() {
+    if (lastHit != null && lastHit.unsatCore != null) {
+      return lastHit.unsatCore;
+    }
+    try {
+      ensureSolverStateUnchecked();
+    } catch (SolverException e) {
+      throw new IllegalStateException("repeating the satisfiability check failed", e);
+    }
+    return delegate.getUnsatCore();
+  }
+
+  /**
+   * Like {@link #ensureSolverState()}, but for methods that can not throw an {@link
+   * InterruptedException}.
+   */
+  private void ensureSolverStateUnchecked() throws SolverException {
+    try {
+      ensureSolverState();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SolverException("repeating the satisfiability check was interrupted", e);
+    }
+  }
+
+  @Override
+  public Optional<List<BooleanFormula>> unsatCoreOverAssumptions(
+      Collection<BooleanFormula> pAssumptions) throws SolverException, InterruptedException {
+    lastHit = null;
+    return delegate.unsatCoreOverAssumptions(pAssumptions);
+  }
+
+  @Override
+  public <R> R allSat(AllSatCallback<R> pCallback, List<BooleanFormula> pImportant)
+      throws InterruptedException, SolverException {
+    lastHit = null;
+    return delegate.allSat(pCallback, pImportant);
+  }
+
+  @Override
+  public ImmutableMap<String, String> getStatistics() {
+    return delegate.getStatistics();
+  }
+
+  @Override
+  public void close() {
+    delegate.close();
+  }
+
+  @Override
+  public String toString() {
+    return delegate.toString();
+  }
+}
@@ -0,0 +1,132 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.delegate.cache;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
+import org.sosy_lab.java_smt.api.FormulaManager;
+import org.sosy_lab.java_smt.api.InterpolatingProverEnvironment;
+import org.sosy_lab.java_smt.api.OptimizationProverEnvironment;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext;
+
+/**
+ * A solver context whose provers share a cache of satisfiability results. Only provers created via
+ * {@link #newProverEnvironment} use the cache, because interpolation and optimization depend on the
+ * state of the solver.
+ *
+ * <p>If a directory for a persistent cache is configured, the satisfiability of queries is also
+ * stored on disk and reused by later runs with the same solver and configuration.
+ */
+public class CachingSolverContext implements SolverContext {
+
+  private final SolverContext delegate;
+  private final SatResultCache cache;
+  private final @Nullable PersistentSatResultStore store;
+
+  /** Identifies solver and configuration in the keys of the persistent store. */
+  private final HashCode storeKeyPrefix;
+
+  public CachingSolverContext(Configuration pConfig, LogManager pLogger, SolverContext pDelegate)
+      throws InvalidConfigurationException {
+    delegate = checkNotNull(pDelegate);
+    cache = new SatResultCache(pConfig);
+    store = PersistentSatResultStore.create(pConfig, pLogger);
+    storeKeyPrefix = getStoreKeyPrefix(pConfig, pDelegate);
+  }
+
+  /**
+   * Hash the solver, its version, and all solver options except for the cache options, because a
+   * result of the solver might depend on them.
+   */
+  private static HashCode getStoreKeyPrefix(Configuration pConfig, SolverContext pDelegate) {
+    Hasher hasher = PersistentSatResultStore.hashFunction().newHasher();
+    hasher.putString(pDelegate.getSolverName().name(), StandardCharsets.UTF_8).putByte((byte) 0);
+    hasher.putString(pDelegate.getVersion(), StandardCharsets.UTF_8).putByte((byte) 0);
+    for (String line : Splitter.on('\n').omitEmptyStrings().split(pConfig.asPropertiesString())) {
+      if (line.startsWith("solver.") && !line.startsWith("solver.cache")) {
+        hasher.putString(line, StandardCharsets.UTF_8).putByte((byte) 0);
+      }
+    }
+    return hasher.hash();
+  }
+
+  @Override
+  public FormulaManager getFormulaManager() {
+    return delegate.getFormulaManager();
+  }
+
+  @SuppressWarnings("resource")
+  @Override
+  public ProverEnvironment newProverEnvironment(ProverOptions... pOptions) {
+    return new CachingProverEnvironment(
+        delegate.newProverEnvironment(pOptions),
+        cache,
+        store,
+        storeKeyPrefix,
+        delegate.getFormulaManager(),
+        ImmutableSet.copyOf(pOptions));
+  }
+
+  @Override
+  public InterpolatingProverEnvironment<?> newProverEnvironmentWithInterpolation(
+      ProverOptions... pOptions) {
+    return delegate.newProverEnvironmentWithInterpolation(pOptions);
+  }
+
+  @Override
+  public OptimizationProverEnvironment newOptimizationProverEnvironment(ProverOptions... pOptions) {
+    return delegate.newOptimizationProverEnvironment(pOptions);
+  }
+
+  @Override
+  public String getVersion() {
+    return delegate.getVersion();
+  }
+
+  @Override
+  public Solvers getSolverName() {
+    return delegate.getSolverName();
+  }
+
+  @Override
+  public ImmutableMap<String, String> getStatistics() {
+    ImmutableMap.Builder<String, String> builder = ImmutableMap.builder();
+    builder.putAll(delegate.getStatistics());
+    for (Map.Entry<String, Object> entry : cache.getStatistics().entrySet()) {
+      builder.put(entry.getKey(), entry.getValue().toString());
+    }
+    if (store != null) {
+      for (Map.Entry<String, Object> entry : store.getStatistics().entrySet()) {
+        builder.put(entry.getKey(), entry.getValue().toString());
+      }
+    }
+    return builder.buildKeepingLast();
+  }
+
+  @Override
+  public void close() {
+    if (store != null) {
+      store.close();
+    }
+    delegate.close();
+  }
+}
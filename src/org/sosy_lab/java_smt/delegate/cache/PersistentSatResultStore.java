@@ -0,0 +1,484 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.delegate.cache;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.IntegerOption;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.log.LogManager;
+
+/**
+ * A persistent map from query hashes to satisfiability results, such that results survive the
+ * restart of an application.
+ *
+ * <p>The store consists of two files in a directory:
+ *
+ * <ul>
+ *   <li>An append-only log of recently added results, which is memory-mapped, such that an append
+ *       is only a copy into memory and survives a crash of the application. Each record has a
+ *       checksum, such that a record that was only partially written before a crash of the
+ *       operating system is detected and dropped when the store is opened. The unused rest of the
+ *       mapped log is filled with zeros.
+ *   <li>An index with all older results, sorted by hash, which is memory-mapped and searched in
+ *       place, such that opening the store does not read all results into memory.
+ * </ul>
+ *
+ * <p>When the log grows too large, the log is merged into a new index (compaction). The index is
+ * replaced atomically. If it grows beyond its size limit, the results of the oldest compactions are
+ * dropped.
+ *
+ * <p>Only one store can use a directory at a time, because a second writer would corrupt the log
+ * and the index. The store holds a lock on a file in the directory. If the directory is locked by
+ * another process or context, no store is created and results are only cached in memory.
+ */
+final class PersistentSatResultStore implements AutoCloseable {
+
+  @Options(prefix = "solver.cache.persistent")
+  static final class PersistentCacheOptions {
+
+    @Option(
+        secure = true,
+        description =
+            "Directory for a cache of satisfiability results that is kept across runs "
+                + "(disabled if not set). Only the satisfiability of queries is stored.")
+    @FileOption(FileOption.Type.OUTPUT_DIRECTORY)
+    private @Nullable Path directory = null;
+
+    @Option(secure = true, description = "Maximum number of results in the persistent cache.")
+    @IntegerOption(min = 1, max = MAX_INDEX_ENTRIES)
+    private int maxEntries = 1_000_000;
+
+    @Option(
+        secure = true,
+        description =
+            "Number of new results after which the log of the persistent cache is merged "
+                + "into its index.")
+    @IntegerOption(min = 1, max = MAX_LOG_RECORDS)
+    private int compactionThreshold = 10_000;
+
+    PersistentCacheOptions(Configuration pConfig) throws InvalidConfigurationException {
+      pConfig.inject(this);
+    }
+  }
+
+  private static final String LOG_FILE = "results.log";
+  private static final String INDEX_FILE = "results.idx";
+  private static final String LOCK_FILE = "results.lock";
+
+  private static final int KEY_BYTES = 32; // SHA-256
+  private static final int LOG_RECORD_BYTES = KEY_BYTES + 1 + Integer.BYTES;
+  private static final int INDEX_ENTRY_BYTES = KEY_BYTES + 1 + Integer.BYTES;
+  private static final int INDEX_MAGIC = 0x4A534331; // "JSC1"
+  private static final int INDEX_HEADER_BYTES = 3 * Integer.BYTES;
+
+  /** Both files are mapped into a single buffer, which is limited to 2 GB. */
+  private static final int MAX_INDEX_ENTRIES =
+      (Integer.MAX_VALUE - INDEX_HEADER_BYTES) / INDEX_ENTRY_BYTES;
+
+  private static final int MAX_LOG_RECORDS = Integer.MAX_VALUE / LOG_RECORD_BYTES;
+
+  private final int maxEntries;
+  private final int compactionThreshold;
+  private final LogManager logger;
+  private final Path logFile;
+  private final Path indexFile;
+
+  /** Holds the lock on the directory until the store is closed. */
+  private final FileChannel directoryLock;
+
+  private final FileChannel log;
+
+  /** The mapped log, the next record is written at its position. */
+  private MappedByteBuffer logBuffer;
+
+  private @Nullable MappedByteBuffer index = null;
+  private int indexEntries = 0;
+  private int generation = 0;
+
+  /** The results from the log, which are not yet in the index. */
+  private final Map<HashCode, Boolean> recent = new HashMap<>();
+
+  private long hits = 0;
+  private long misses = 0;
+
+  private boolean closed = false;
+
+  /**
+   * Returns a new store, or null if no directory is configured or the directory is used by another
+   * store.
+   */
+  static @Nullable PersistentSatResultStore create(Configuration pConfig, LogManager pLogger)
+      throws InvalidConfigurationException {
+    PersistentCacheOptions options = new PersistentCacheOptions(pConfig);
+    if (options.directory == null) {
+      return null;
+    }
+    try {
+      Files.createDirectories(options.directory);
+      FileChannel lock = lockDirectory(options.directory);
+      if (lock == null) {
+        pLogger.log(
+            Level.WARNING,
+            "Persistent cache in",
+            options.directory,
+            "is used by another process or solver context, results are only cached in memory.");
+        return null;
+      }
+      try {
+        return new PersistentSatResultStore(options, options.directory, lock, pLogger);
+      } catch (IOException e) {
+        lock.close();
+        throw e;
+      }
+    } catch (IOException e) {
+      throw new InvalidConfigurationException(
+          "Cannot open persistent cache in " + options.directory + ": " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Returns a channel that holds an exclusive lock on the directory, or null if the directory is
+   * already locked.
+   */
+  private static @Nullable FileChannel lockDirectory(Path pDirectory) throws IOException {
+    FileChannel channel =
+        FileChannel.open(
+            pDirectory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    try {
+      if (channel.tryLock() != null) {
+        return channel;
+      }
+    } catch (OverlappingFileLockException e) {
+      // the directory is locked by another store in this JVM
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+    channel.close();
+    return null;
+  }
+
+  private PersistentSatResultStore(
+      PersistentCacheOptions pOptions,
+      Path pDirectory,
+      FileChannel pDirectoryLock,
+      LogManager pLogger)
+      throws IOException {
+    maxEntries = pOptions.maxEntries;
+    compactionThreshold = pOptions.compactionThreshold;
+    logger = checkNotNull(pLogger);
+    logFile = pDirectory.resolve(LOG_FILE);
+    indexFile = pDirectory.resolve(INDEX_FILE);
+    directoryLock = checkNotNull(pDirectoryLock);
+    mapIndex();
+    log =
+        FileChannel.open(
+            logFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      logBuffer = mapLog(Math.max(log.size(), (long) compactionThreshold * LOG_RECORD_BYTES), 0);
+    } catch (IOException e) {
+      log.close();
+      throw e;
+    }
+    readLog();
+  }
+
+  private void mapIndex() throws IOException {
+    if (!Files.exists(indexFile)) {
+      return;
+    }
+    try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("index file is too large " + indexFile);
+      }
+      MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.limit() < INDEX_HEADER_BYTES || buffer.getInt(0) != INDEX_MAGIC) {
+        throw new IOException("invalid index file " + indexFile);
+      }
+      int entries = buffer.getInt(Integer.BYTES);
+      if (buffer.limit() != INDEX_HEADER_BYTES + (long) entries * INDEX_ENTRY_BYTES) {
+        throw new IOException("truncated index file " + indexFile);
+      }
+      index = buffer;
+      indexEntries = entries;
+      generation = buffer.getInt(2 * Integer.BYTES);
+    }
+  }
+
+  /**
+   * Map the log with the given size, which grows the file if necessary, and continue writing at the
+   * given position.
+   */
+  private MappedByteBuffer mapLog(long pSize, int pPosition) throws IOException {
+    if (pSize > Integer.MAX_VALUE) {
+      throw new IOException("log file is too large " + logFile);
+    }
+    MappedByteBuffer buffer = log.map(MapMode.READ_WRITE, 0, pSize);
+    buffer.position(pPosition);
+    return buffer;
+  }
+
+  /** Load all complete records of the log and clear a partially written last record. */
+  private void readLog() {
+    MappedByteBuffer buffer = logBuffer;
+    byte[] key = new byte[KEY_BYTES];
+    int valid = 0;
+    while (valid + LOG_RECORD_BYTES <= buffer.limit()) {
+      buffer.position(valid);
+      buffer.get(key);
+      byte result = buffer.get();
+      int checksum = buffer.getInt();
+      if (checksum != checksum(key, result)) {
+        break;
+      }
+      recent.put(HashCode.fromBytes(key.clone()), result != 0);
+      valid += LOG_RECORD_BYTES;
+    }
+    boolean incomplete = false;
+    for (int i = valid; i < buffer.limit(); i++) {
+      if (buffer.get(i) != 0) {
+        buffer.put(i, (byte) 0);
+        incomplete = true;
+      }
+    }
+    if (incomplete) {
+      logger.log(Level.WARNING, "Dropping incomplete records at the end of", logFile);
+    }
+    buffer.position(valid);
+  }
+
+  private static int checksum(byte[] pKey, byte pResult) {
+    CRC32 crc = new CRC32();
+    crc.update(pKey);
+    crc.update(pResult);
+    return (int) crc.getValue();
+  }
+
+  /** Returns the cached result for the given query hash, or null. */
+  synchronized @Nullable Boolean get(HashCode pKey) {
+    checkState(!closed);
+    Boolean result = recent.get(pKey);
+    if (result == null && index != null) {
+      result = searchIndex(index, pKey.asBytes());
+    }
+    if (result == null) {
+      misses++;
+    } else {
+      hits++;
+    }
+    return result;
+  }
+
+  private @Nullable Boolean searchIndex(ByteBuffer pIndex, byte[] pKey) {
+    int low = 0;
+    int high = indexEntries - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int offset = indexOffset(mid);
+      int cmp = compareKey(pIndex, offset, pKey);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return pIndex.get(offset + KEY_BYTES) != 0;
+      }
+    }
+    return null;
+  }
+
+  /** Returns the offset of an entry, the index always fits into one buffer (see mapIndex). */
+  private static int indexOffset(int pEntry) {
+    return Math.toIntExact(INDEX_HEADER_BYTES + (long) pEntry * INDEX_ENTRY_BYTES);
+  }
+
+  private static int compareKey(ByteBuffer pBuffer, int pOffset, byte[] pKey) {
+    for (int i = 0; i < KEY_BYTES; i++) {
+      int cmp = Integer.compare(pBuffer.get(pOffset + i) & 0xFF, pKey[i] & 0xFF);
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
+    return 0;
+  }
+
+  /** Append a result to the log. Failures are logged, but do not affect the solver. */
+  synchronized void put(HashCode pKey, boolean pUnsat) {
+    checkState(!closed);
+    checkArgument(pKey.bits() == KEY_BYTES * 8);
+    if (recent.containsKey(pKey)) {
+      return;
+    }
+    byte[] key = pKey.asBytes();
+    byte result = (byte) (pUnsat ? 1 : 0);
+    try {
+      if (logBuffer.remaining() < LOG_RECORD_BYTES) {
+        // only happens if the log was written with a larger compaction threshold
+        logBuffer =
+            mapLog(
+                logBuffer.capacity() + (long) compactionThreshold * LOG_RECORD_BYTES,
+                logBuffer.position());
+      }
+      logBuffer.put(key).put(result).putInt(checksum(key, result));
+      recent.put(pKey, pUnsat);
+      if (recent.size() >= compactionThreshold) {
+        compact();
+      }
+    } catch (IOException e) {
+      logger.logUserException(Level.WARNING, e, "Cannot write to persistent cache");
+    }
+  }
+
+  /**
+   * Merge the log into a new index, which replaces the old index atomically, and clear the log. If
+   * the application crashes before the log is cleared, its records are merged again later.
+   */
+  private void compact() throws IOException {
+    List<IndexEntry> entries = new ArrayList<>(indexEntries + recent.size());
+    if (index != null) {
+      ByteBuffer oldIndex = index;
+      for (int i = 0; i < indexEntries; i++) {
+        int offset = indexOffset(i);
+        byte[] key = new byte[KEY_BYTES];
+        for (int j = 0; j < KEY_BYTES; j++) {
+          key[j] = oldIndex.get(offset + j);
+        }
+        HashCode hash = HashCode.fromBytes(key);
+        if (!recent.containsKey(hash)) {
+          boolean unsat = oldIndex.get(offset + KEY_BYTES) != 0;
+          entries.add(new IndexEntry(hash, unsat, oldIndex.getInt(offset + KEY_BYTES + 1)));
+        }
+      }
+    }
+    int newGeneration = generation + 1;
+    for (Map.Entry<HashCode, Boolean> entry : recent.entrySet()) {
+      entries.add(new IndexEntry(entry.getKey(), entry.getValue(), newGeneration));
+    }
+    if (entries.size() > maxEntries) {
+      entries.sort(Comparator.comparingInt((IndexEntry e) -> e.generation).reversed());
+      entries.subList(maxEntries, entries.size()).clear();
+    }
+    entries.sort(Comparator.comparing(e -> e.key.asBytes(), PersistentSatResultStore::compare));
+
+    Path tmpFile = indexFile.resolveSibling(INDEX_FILE + ".tmp");
+    ByteBuffer buffer = ByteBuffer.allocate(indexOffset(entries.size()));
+    buffer.putInt(INDEX_MAGIC).putInt(entries.size()).putInt(newGeneration);
+    for (IndexEntry entry : entries) {
+      buffer.put(entry.key.asBytes()).put((byte) (entry.unsat ? 1 : 0)).putInt(entry.generation);
+    }
+    buffer.flip();
+    try (FileChannel channel =
+        FileChannel.open(
+            tmpFile,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE)) {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(true);
+    }
+    Files.move(
+        tmpFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    mapIndex();
+
+    // a mapped file can not be truncated on all platforms, thus we clear the log in place
+    for (int i = 0; i < logBuffer.position(); i++) {
+      logBuffer.put(i, (byte) 0);
+    }
+    logBuffer.position(0);
+    recent.clear();
+  }
+
+  private static int compare(byte[] pKey1, byte[] pKey2) {
+    for (int i = 0; i < KEY_BYTES; i++) {
+      int cmp = Integer.compare(pKey1[i] & 0xFF, pKey2[i] & 0xFF);
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
+    return 0;
+  }
+
+  /** Returns the hash function for the keys of this store. */
+  static HashFunction hashFunction() {
+    return Hashing.sha256();
+  }
+
+  synchronized ImmutableMap<String, Object> getStatistics() {
+    return ImmutableMap.of(
+        "persistent cache hits", hits,
+        "persistent cache misses", misses,
+        "persistent cache entries in log", recent.size(),
+        "persistent cache entries in index", indexEntries);
+  }
+
+  @Override
+  public synchronized void close() {
+    if (!closed) {
+      closed = true;
+      try {
+        if (!recent.isEmpty()) {
+          compact();
+        }
+        logBuffer.force();
+        log.close();
+      } catch (IOException e) {
+        logger.logUserException(Level.WARNING, e, "Cannot close persistent cache");
+      } finally {
+        try {
+          directoryLock.close(); // releases the lock
+        } catch (IOException e) {
+          logger.logUserException(Level.WARNING, e, "Cannot unlock persistent cache");
+        }
+      }
+    }
+  }
+
+  private static final class IndexEntry {
+    private final HashCode key;
+    private final boolean unsat;
+    private final int generation;
+
+    private IndexEntry(HashCode pKey, boolean pUnsat, int pGeneration) {
+      key = pKey;
+      unsat = pUnsat;
+      generation = pGeneration;
+    }
+  }
+}
@@ -0,0 +1,163 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.delegate.cache;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.IntegerOption;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.Model.ValueAssignment;
+
+/**
+ * A bounded cache from queries, i.e., sets of asserted formulas and assumptions, to the results of
+ * their satisfiability checks. The least recently used entry is evicted first. The cache is shared
+ * by all provers of a context and can be accessed concurrently.
+ */
+@Options(prefix = "solver.cache")
+final class SatResultCache {
+
+  @Option(secure = true, description = "Maximum number of cached results of satisfiability checks.")
+  @IntegerOption(min = 1)
+  private int size = 10000;
+
+  @Option(
+      secure = true,
+      description =
+          "Also cache the model assignments of satisfiable queries. "
+              + "This requires the prover option GENERATE_MODELS.")
+  private boolean models = false;
+
+  @Option(
+      secure = true,
+      description =
+          "Also cache the unsat core of unsatisfiable queries without assumptions. "
+              + "This requires the prover option GENERATE_UNSAT_CORE.")
+  private boolean unsatCores = false;
+
+  private final Map<Query, Result> cache;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  @SuppressWarnings("serial")
+  SatResultCache(Configuration pConfig) throws InvalidConfigurationException {
+    pConfig.inject(this);
+    cache =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<Query, Result> pEldest) {
+            boolean evict = size() > size;
+            if (evict) {
+              evictions.increment();
+            }
+            return evict;
+          }
+        };
+  }
+
+  boolean cachesModels() {
+    return models;
+  }
+
+  boolean cachesUnsatCores() {
+    return unsatCores;
+  }
+
+  synchronized @Nullable Result get(Query pQuery) {
+    Result result = cache.get(pQuery);
+    if (result == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    return result;
+  }
+
+  synchronized void put(Query pQuery, Result pResult) {
+    cache.put(pQuery, pResult);
+  }
+
+  ImmutableMap<String, Object> getStatistics() {
+    int entries;
+    synchronized (this) {
+      entries = cache.size();
+    }
+    return ImmutableMap.of(
+        "sat cache hits", hits.sum(),
+        "sat cache misses", misses.sum(),
+        "sat cache evictions", evictions.sum(),
+        "sat cache entries", entries);
+  }
+
+  /** The asserted formulas and assumptions of a satisfiability check, independent of order. */
+  static final class Query {
+
+    private final ImmutableSet<BooleanFormula> asserted;
+    private final ImmutableSet<BooleanFormula> assumptions;
+    private final int hashCode;
+
+    Query(ImmutableSet<BooleanFormula> pAsserted, ImmutableSet<BooleanFormula> pAssumptions) {
+      asserted = checkNotNull(pAsserted);
+      assumptions = checkNotNull(pAssumptions);
+      hashCode = 31 * asserted.hashCode() + assumptions.hashCode();
+    }
+
+    boolean hasAssumptions() {
+      return !assumptions.isEmpty();
+    }
+
+    @Override
+    public boolean equals(@Nullable Object pOther) {
+      if (this == pOther) {
+        return true;
+      }
+      if (!(pOther instanceof Query)) {
+        return false;
+      }
+      Query other = (Query) pOther;
+      return hashCode == other.hashCode
+          && asserted.equals(other.asserted)
+          && assumptions.equals(other.assumptions);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  /** The result of a satisfiability check, optionally with its model or unsat core. */
+  static final class Result {
+
+    final boolean unsat;
+    final @Nullable ImmutableList<ValueAssignment> model;
+    final @Nullable ImmutableList<BooleanFormula> unsatCore;
+
+    Result(
+        boolean pUnsat,
+        @Nullable ImmutableList<ValueAssignment> pModel,
+        @Nullable ImmutableList<BooleanFormula> pUnsatCore) {
+      unsat = pUnsat;
+      model = pModel;
+      unsatCore = pUnsatCore;
+    }
+  }
+}
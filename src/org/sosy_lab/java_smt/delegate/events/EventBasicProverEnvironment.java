@@ -0,0 +1,219 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.delegate.events;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.java_smt.api.BasicProverEnvironment;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.Model;
+import org.sosy_lab.java_smt.api.SolverException;
+
+class EventBasicProverEnvironment<T> implements BasicProverEnvironment<T> {
+
+  /** Result of an event whose operation terminated with an exception. */
+  private static final String FAILED = "failed";
+
+  /** Result of an event whose operation has no result value. */
+  private static final String SUCCESS = "success";
+
+  private final BasicProverEnvironment<T> delegate;
+  private final String solverName;
+
+  /** The number of asserted formulas on all levels, and the same number before each push. */
+  private int assertedFormulas = 0;
+
+  private final Deque<Integer> assertedFormulasBeforePush = new ArrayDeque<>();
+
+  EventBasicProverEnvironment(BasicProverEnvironment<T> pDelegate, String pSolverName) {
+    delegate = checkNotNull(pDelegate);
+    solverName = checkNotNull(pSolverName);
+  }
+
+  /**
+   * Finish the given event. The event is only filled and committed if it is enabled and passes the
+   * configured threshold, such that disabled events only cost the event allocation, which is
+   * usually eliminated by the JIT compiler.
+   */
+  void commit(ProverCallEvent pEvent, String pOperation, @Nullable String pResult) {
+    pEvent.end();
+    if (pEvent.shouldCommit()) {
+      pEvent.solver = solverName;
+      pEvent.operation = pOperation;
+      pEvent.stackDepth = delegate.size();
+      pEvent.assertedFormulas = assertedFormulas;
+      pEvent.result = pResult == null ? FAILED : pResult;
+      pEvent.commit();
+    }
+  }
+
+  static String toResult(boolean pUnsat) {
+    return pUnsat ? "unsat" : "sat";
+  }
+
+  @Override
+  public void pop() {
+    delegate.pop();
+    assertedFormulas = assertedFormulasBeforePush.pop();
+  }
+
+  @Override
+  public @Nullable T addConstraint(BooleanFormula pConstraint) throws InterruptedException {
+    T id = delegate.addConstraint(pConstraint);
+    assertedFormulas++;
+    return id;
+  }
+
+  @Override
+  public void push() throws InterruptedException {
+    ProverCallEvent event = new ProverCallEvent();
+    event.begin();
+    String result = null;
+    try {
+      delegate.push();
+      assertedFormulasBeforePush.push(assertedFormulas);
+      result = SUCCESS;
+    } finally {
+      commit(event, "push", result);
+    }
+  }
+
+  @Override
+  public int size() {
+    return delegate.size();
+  }
+
+  @Override
+  public boolean isUnsat() throws SolverException, InterruptedException {
+    ProverCallEvent event = new ProverCallEvent();
+    event.begin();
+    String result = null;
+    try {
+      boolean unsat = delegate.isUnsat();
+      result = toResult(unsat);
+      return unsat;
+    } finally {
+      commit(event, "isUnsat", result);
+    }
+  }
+
+  @Override
+  public boolean isUnsat(Duration pTimeout) throws SolverException, InterruptedException {
+    ProverCallEvent event = new ProverCallEvent();
+    event.begin();
+    String result = null;
+    try {
+      boolean unsat = delegate.isUnsat(pTimeout);
+      result = toResult(unsat);
+      return unsat;
+    } finally {
+      commit(event, "isUnsatWithTimeout", result);
+    }
+  }
+
+  @Override
+  public @Nullable Runnable getInterruptCall() {
+    return delegate.getInterruptCall();
+  }
+
+  @Override
+  public boolean isUnsatWithAssumptions(Collection<BooleanFormula> pAssumptions)
+      throws SolverException, InterruptedException {
+    ProverCallEvent event = new ProverCallEvent();
+    event.begin();
+    String result = null;
+    try {
+      boolean unsat = delegate.isUnsatWithAssumptions(pAssumptions);
+      result = toResult(unsat);
+      return unsat;
+    } finally {
+      commit(event, "isUnsatWithAssumptions", result);
+    }
+  }
+
+  @Override
+  public Model getModel() throws SolverException {
+    ProverCallEvent event = new ProverCallEvent();
+    event.begin();
+    String result = null;
+    try {
+      Model model = delegate.getModel();
+      result = "model";
+      return model;
+    } finally {
+      commit(event, "getModel", result);
+    }
+  }
+
+  @Override
+  public List<BooleanFormula> getUnsatCore() {
+    return delegate.getUnsatCore();
+  }
+
+  @Override
+  public Optional<List<BooleanFormula>> unsatCoreOverAssumptions(
+      Collection<BooleanFormula> pAssumptions) throws SolverException, InterruptedException {
+    return delegate.unsatCoreOverAssumptions(pAssumptions);
+  }
+
+  @Override
+  public void close() {
+    delegate.close();
+  }
+
+  @Override
+  public String toString() {
+    return delegate.toString();
+  }
+
+  @Override
+  public <R> R allSat(AllSatCallback<R> pCallback, List<BooleanFormula> pImportant)
+      throws InterruptedException, SolverException {
+    ProverCallEvent event = new ProverCallEvent();
+    event.begin();
+    CountingAllSatCallback<R> callback = new CountingAllSatCallback<>(pCallback);
+    String result = null;
+    try {
+      R allSatResult = delegate.allSat(callback, pImportant);
+      result = callback.models + " models";
+      return allSatResult;
+    } finally {
+      commit(event, "allSat", result);
+    }
+  }
+
+  /** Forwards all models and counts them for the event. */
+  private static class CountingAllSatCallback<R> implements AllSatCallback<R> {
+
+    private final AllSatCallback<R> delegate;
+    private int models = 0;
+
+    CountingAllSatCallback(AllSatCallback<R> pDelegate) {
+      delegate = pDelegate;
+    }
+
+    @Override
+    public void apply(List<BooleanFormula> pModel) {
+      models++;
+      delegate.apply(pModel);
+    }
+
+    @Override
+    public R getResult() throws InterruptedException {
+      return delegate.getResult();
+    }
+  }
+}
@@ -0,0 +1,261 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.delegate.events;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableMap;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.Appender;
+import org.sosy_lab.common.Appenders;
+import org.sosy_lab.java_smt.api.ArrayFormulaManager;
+import org.sosy_lab.java_smt.api.BitvectorFormulaManager;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.BooleanFormulaManager;
+import org.sosy_lab.java_smt.api.EnumerationFormulaManager;
+import org.sosy_lab.java_smt.api.FloatingPointFormulaManager;
+import org.sosy_lab.java_smt.api.Formula;
+import org.sosy_lab.java_smt.api.FormulaManager;
+import org.sosy_lab.java_smt.api.FormulaType;
+import org.sosy_lab.java_smt.api.FunctionDeclaration;
+import org.sosy_lab.java_smt.api.IntegerFormulaManager;
+import org.sosy_lab.java_smt.api.QuantifiedFormulaManager;
+import org.sosy_lab.java_smt.api.RationalFormulaManager;
+import org.sosy_lab.java_smt.api.SLFormulaManager;
+import org.sosy_lab.java_smt.api.StringFormulaManager;
+import org.sosy_lab.java_smt.api.Tactic;
+import org.sosy_lab.java_smt.api.UFManager;
+import org.sosy_lab.java_smt.api.visitors.FormulaTransformationVisitor;
+import org.sosy_lab.java_smt.api.visitors.FormulaVisitor;
+import org.sosy_lab.java_smt.api.visitors.TraversalProcess;
+
+/**
+ * Emits events for parsing, dumping, translating and simplifying formulas. The theory-specific
+ * managers are returned unwrapped, because creating single terms is too fine-grained for events.
+ */
+class EventFormulaManager implements FormulaManager {
+
+  /** Result of an event whose operation terminated with an exception. */
+  private static final String FAILED = "failed";
+
+  private static final String SUCCESS = "success";
+
+  private final FormulaManager delegate;
+  private final String solverName;
+
+  EventFormulaManager(FormulaManager pDelegate, String pSolverName) {
+    delegate = checkNotNull(pDelegate);
+    solverName = checkNotNull(pSolverName);
+  }
+
+  private void commit(FormulaManagerCallEvent pEvent, String pOperation, @Nullable String pResult) {
+    pEvent.end();
+    if (pEvent.shouldCommit()) {
+      pEvent.solver = solverName;
+      pEvent.operation = pOperation;
+      pEvent.result = pResult == null ? FAILED : pResult;
+      pEvent.commit();
+    }
+  }
+
+  @Override
+  public IntegerFormulaManager getIntegerFormulaManager() {
+    return delegate.getIntegerFormulaManager();
+  }
+
+  @Override
+  public RationalFormulaManager getRationalFormulaManager() {
+    return delegate.getRationalFormulaManager();
+  }
+
+  @Override
+  public BooleanFormulaManager getBooleanFormulaManager() {
+    return delegate.getBooleanFormulaManager();
+  }
+
+  @Override
+  public ArrayFormulaManager getArrayFormulaManager() {
+    return delegate.getArrayFormulaManager();
+  }
+
+  @Override
+  public BitvectorFormulaManager getBitvectorFormulaManager() {
+    return delegate.getBitvectorFormulaManager();
+  }
+
+  @Override
+  public FloatingPointFormulaManager getFloatingPointFormulaManager() {
+    return delegate.getFloatingPointFormulaManager();
+  }
+
+  @Override
+  public UFManager getUFManager() {
+    return delegate.getUFManager();
+  }
+
+  @Override
+  public SLFormulaManager getSLFormulaManager() {
+    return delegate.getSLFormulaManager();
+  }
+
+  @Override
+  public QuantifiedFormulaManager getQuantifiedFormulaManager() {
+    return delegate.getQuantifiedFormulaManager();
+  }
+
+  @Override
+  public StringFormulaManager getStringFormulaManager() {
+    return delegate.getStringFormulaManager();
+  }
+
+  @Override
+  public EnumerationFormulaManager getEnumerationFormulaManager() {
+    return delegate.getEnumerationFormulaManager();
+  }
+
+  @Override
+  public <T extends Formula> T makeVariable(FormulaType<T> pFormulaType, String pName) {
+    return delegate.makeVariable(pFormulaType, pName);
+  }
+
+  @Override
+  public <T extends Formula> T makeApplication(
+      FunctionDeclaration<T> pDeclaration, List<? extends Formula> pArgs) {
+    return delegate.makeApplication(pDeclaration, pArgs);
+  }
+
+  @Override
+  public <T extends Formula> T makeApplication(
+      FunctionDeclaration<T> pDeclaration, Formula... pArgs) {
+    return delegate.makeApplication(pDeclaration, pArgs);
+  }
+
+  @Override
+  public <T extends Formula> FormulaType<T> getFormulaType(T pFormula) {
+    return delegate.getFormulaType(pFormula);
+  }
+
+  @Override
+  public BooleanFormula parse(String pS) throws IllegalArgumentException {
+    FormulaManagerCallEvent event = new FormulaManagerCallEvent();
+    event.begin();
+    String result = null;
+    try {
+      BooleanFormula formula = delegate.parse(pS);
+      result = SUCCESS;
+      return formula;
+    } finally {
+      commit(event, "parse", result);
+    }
+  }
+
+  @Override
+  public Appender dumpFormula(BooleanFormula pT) {
+    return new Appenders.AbstractAppender() {
+      @Override
+      public void appendTo(Appendable out) throws IOException {
+        String dump;
+        FormulaManagerCallEvent event = new FormulaManagerCallEvent();
+        event.begin();
+        String result = null;
+        try {
+          dump = delegate.dumpFormula(pT).toString(); // the work is done here
+          result = dump.length() + " chars";
+        } finally {
+          commit(event, "dumpFormula", result);
+        }
+        out.append(dump);
+      }
+    };
+  }
+
+  @Override
+  public BooleanFormula applyTactic(BooleanFormula pInput, Tactic pTactic)
+      throws InterruptedException {
+    return delegate.applyTactic(pInput, pTactic);
+  }
+
+  @Override
+  public <T extends Formula> T simplify(T pInput) throws InterruptedException {
+    FormulaManagerCallEvent event = new FormulaManagerCallEvent();
+    event.begin();
+    String result = null;
+    try {
+      T formula = delegate.simplify(pInput);
+      result = SUCCESS;
+      return formula;
+    } finally {
+      commit(event, "simplify", result);
+    }
+  }
+
+  @Override
+  public <R> R visit(Formula pF, FormulaVisitor<R> pFormulaVisitor) {
+    return delegate.visit(pF, pFormulaVisitor);
+  }
+
+  @Override
+  public void visitRecursively(Formula pF, FormulaVisitor<TraversalProcess> pFormulaVisitor) {
+    delegate.visitRecursively(pF, pFormulaVisitor);
+  }
+
+  @Override
+  public <T extends Formula> T transformRecursively(
+      T pF, FormulaTransformationVisitor pFormulaVisitor) {
+    return delegate.transformRecursively(pF, pFormulaVisitor);
+  }
+
+  @Override
+  public ImmutableMap<String, Formula> extractVariables(Formula pF) {
+    return delegate.extractVariables(pF);
+  }
+
+  @Override
+  public ImmutableMap<String, Formula> extractVariablesAndUFs(Formula pF) {
+    return delegate.extractVariablesAndUFs(pF);
+  }
+
+  @Override
+  public <T extends Formula> T substitute(
+      T pF, Map<? extends Formula, ? extends Formula> pFromToMapping) {
+    return delegate.substitute(pF, pFromToMapping);
+  }
+
+  @Override
+  public BooleanFormula translateFrom(BooleanFormula pFormula, FormulaManager pOtherContext) {
+    FormulaManagerCallEvent event = new FormulaManagerCallEvent();
+    event.begin();
+    String result = null;
+    try {
+      BooleanFormula formula = delegate.translateFrom(pFormula, pOtherContext);
+      result = SUCCESS;
+      return formula;
+    } finally {
+      commit(event, "translateFrom", result);
+    }
+  }
+
+  @Override
+  public boolean isValidName(String pVariableName) {
+    return delegate.isValidName(pVariableName);
+  }
+
+  @Override
+  public String escape(String pVariableName) {
+    return delegate.escape(pVariableName);
+  }
+
+  @Override
+  public String unescape(String pVariableName) {
+    return delegate.unescape(pVariableName);
+  }
+}
@@ -0,0 +1,74 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.delegate.events;
+
+import java.util.Collection;
+import java.util.List;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.InterpolatingProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverException;
+
+class EventInterpolatingProverEnvironment<T> extends EventBasicProverEnvironment<T>
+    implements InterpolatingProverEnvironment<T> {
+
+  private final InterpolatingProverEnvironment<T> delegate;
+
+  EventInterpolatingProverEnvironment(
+      InterpolatingProverEnvironment<T> pDelegate, String pSolverName) {
+    super(pDelegate, pSolverName);
+    delegate = pDelegate;
+  }
+
+  @Override
+  public BooleanFormula getInterpolant(Collection<T> pFormulasOfA)
+      throws SolverException, InterruptedException {
+    ProverCallEvent event = new ProverCallEvent();
+    event.begin();
+    String result = null;
+    try {
+      BooleanFormula itp = delegate.getInterpolant(pFormulasOfA);
+      result = "1 interpolant";
+      return itp;
+    } finally {
+      commit(event, "getInterpolant", result);
+    }
+  }
+
+  @Override
+  public List<BooleanFormula> getSeqInterpolants(List<? extends Collection<T>> pPartitionedFormulas)
+      throws SolverException, InterruptedException {
+    ProverCallEvent event = new ProverCallEvent();
+    event.begin();
+    String result = null;
+    try {
+      List<BooleanFormula> itps = delegate.getSeqInterpolants(pPartitionedFormulas);
+      result = itps.size() + " interpolants";
+      return itps;
+    } finally {
+      commit(event, "getSeqInterpolants", result);
+    }
+  }
+
+  @Override
+  public List<BooleanFormula> getTreeInterpolants(
+      List<? extends Collection<T>> pPartitionedFormulas, int[] pStartOfSubTree)
+      throws SolverException, InterruptedException {
+    ProverCallEvent event = new ProverCallEvent();
+    event.begin();
+    String result = null;
+    try {
+      List<BooleanFormula> itps =
+          delegate.getTreeInterpolants(pPartitionedFormulas, pStartOfSubTree);
+      result = itps.size() + " interpolants";
+      return itps;
+    } finally {
+      commit(event, "getTreeInterpolants", result);
+    }
+  }
+}
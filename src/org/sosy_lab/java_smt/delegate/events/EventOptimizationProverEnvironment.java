@@ -0,0 +1,60 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.delegate.events;
+
+import java.util.Optional;
+import org.sosy_lab.common.rationals.Rational;
+import org.sosy_lab.java_smt.api.Formula;
+import org.sosy_lab.java_smt.api.OptimizationProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverException;
+
+class EventOptimizationProverEnvironment extends EventBasicProverEnvironment<Void>
+    implements OptimizationProverEnvironment {
+
+  private final OptimizationProverEnvironment delegate;
+
+  EventOptimizationProverEnvironment(OptimizationProverEnvironment pDelegate, String pSolverName) {
+    super(pDelegate, pSolverName);
+    delegate = pDelegate;
+  }
+
+  @Override
+  public int maximize(Formula pObjective) {
+    return delegate.maximize(pObjective);
+  }
+
+  @Override
+  public int minimize(Formula pObjective) {
+    return delegate.minimize(pObjective);
+  }
+
+  @Override
+  public OptStatus check() throws InterruptedException, SolverException {
+    ProverCallEvent event = new ProverCallEvent();
+    event.begin();
+    String result = null;
+    try {
+      OptStatus status = delegate.check();
+      result = status.toString();
+      return status;
+    } finally {
+      commit(event, "check", result);
+    }
+  }
+
+  @Override
+  public Optional<Rational> upper(int pHandle, Rational pEpsilon) {
+    return delegate.upper(pHandle, pEpsilon);
+  }
+
+  @Override
+  public Optional<Rational> lower(int pHandle, Rational pEpsilon) {
+    return delegate.lower(pHandle, pEpsilon);
+  }
+}
@@ -0,0 +1,20 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.delegate.events;
+
+import org.sosy_lab.java_smt.api.BasicProverEnvironment;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+
+class EventProverEnvironment extends EventBasicProverEnvironment<Void>
+    implements ProverEnvironment {
+
+  EventProverEnvironment(BasicProverEnvironment<Void> pDelegate, String pSolverName) {
+    super(pDelegate, pSolverName);
+  }
+}
@@ -0,0 +1,80 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.delegate.events;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableMap;
+import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
+import org.sosy_lab.java_smt.api.FormulaManager;
+import org.sosy_lab.java_smt.api.InterpolatingProverEnvironment;
+import org.sosy_lab.java_smt.api.OptimizationProverEnvironment;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext;
+
+/**
+ * A solver context that emits Java Flight Recorder events for all expensive solver calls. The
+ * events are only filled with data and committed if they are enabled in a running recording.
+ */
+public class EventSolverContext implements SolverContext {
+
+  private final SolverContext delegate;
+  private final String solverName;
+
+  public EventSolverContext(SolverContext pDelegate) {
+    delegate = checkNotNull(pDelegate);
+    solverName = delegate.getSolverName().toString();
+  }
+
+  @Override
+  public FormulaManager getFormulaManager() {
+    return new EventFormulaManager(delegate.getFormulaManager(), solverName);
+  }
+
+  @SuppressWarnings("resource")
+  @Override
+  public ProverEnvironment newProverEnvironment(ProverOptions... pOptions) {
+    return new EventProverEnvironment(delegate.newProverEnvironment(pOptions), solverName);
+  }
+
+  @SuppressWarnings("resource")
+  @Override
+  public InterpolatingProverEnvironment<?> newProverEnvironmentWithInterpolation(
+      ProverOptions... pOptions) {
+    return new EventInterpolatingProverEnvironment<>(
+        delegate.newProverEnvironmentWithInterpolation(pOptions), solverName);
+  }
+
+  @SuppressWarnings("resource")
+  @Override
+  public OptimizationProverEnvironment newOptimizationProverEnvironment(ProverOptions... pOptions) {
+    return new EventOptimizationProverEnvironment(
+        delegate.newOptimizationProverEnvironment(pOptions), solverName);
+  }
+
+  @Override
+  public String getVersion() {
+    return delegate.getVersion();
+  }
+
+  @Override
+  public Solvers getSolverName() {
+    return delegate.getSolverName();
+  }
+
+  @Override
+  public ImmutableMap<String, String> getStatistics() {
+    return delegate.getStatistics();
+  }
+
+  @Override
+  public void close() {
+    delegate.close();
+  }
+}
@@ -0,0 +1,32 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.delegate.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** A call to a formula manager, e.g., for parsing, dumping or simplifying a formula. */
+@Name("org.sosy_lab.java_smt.FormulaManagerCall")
+@Label("Formula Manager Call")
+@Category({"JavaSMT", "Formula Manager"})
+@Description("An expensive operation on formulas of an SMT solver")
+final class FormulaManagerCallEvent extends Event {
+
+  @Label("Solver")
+  String solver = "";
+
+  @Label("Operation")
+  String operation = "";
+
+  @Label("Result")
+  String result = "";
+}
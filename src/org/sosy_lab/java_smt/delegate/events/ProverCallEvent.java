@@ -0,0 +1,40 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.delegate.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** A call to a prover environment, e.g., a satisfiability check or a query for interpolants. */
+@Name("org.sosy_lab.java_smt.ProverCall")
+@Label("Prover Call")
+@Category({"JavaSMT", "Prover"})
+@Description("A query to the prover environment of an SMT solver")
+final class ProverCallEvent extends Event {
+
+  @Label("Solver")
+  String solver = "";
+
+  @Label("Operation")
+  String operation = "";
+
+  @Label("Stack Depth")
+  @Description("Number of backtracking levels of the prover")
+  int stackDepth;
+
+  @Label("Asserted Formulas")
+  @Description("Number of formulas asserted on all levels of the prover")
+  int assertedFormulas;
+
+  @Label("Result")
+  String result = "";
+}
@@ -0,0 +1,368 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.delegate.portfolio;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.ShutdownManager;
+import org.sosy_lab.common.ShutdownNotifier.ShutdownRequestListener;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.java_smt.SolverContextFactory;
+import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.FormulaManager;
+import org.sosy_lab.java_smt.api.Model;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext;
+import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
+import org.sosy_lab.java_smt.api.SolverException;
+import org.sosy_lab.java_smt.basicimpl.ShutdownHook;
+
+/**
+ * One solver of a portfolio prover. All operations on the solver are executed sequentially by a
+ * dedicated thread, such that the solver is never accessed concurrently, while different solvers of
+ * the portfolio run in parallel.
+ */
+final class BackendProver {
+
+  /** An operation on the solver, executed by the thread of the solver. */
+  interface Task<R> {
+    R run(SolverContext context, ProverEnvironment prover)
+        throws SolverException, InterruptedException;
+  }
+
+  /** The result of a {@link Task} that was raced against other solvers. */
+  static final class Outcome<R> {
+    final BackendProver backend;
+    final @Nullable R result;
+    final @Nullable Exception failure;
+
+    private Outcome(BackendProver pBackend, @Nullable R pResult, @Nullable Exception pFailure) {
+      backend = pBackend;
+      result = pResult;
+      failure = pFailure;
+    }
+  }
+
+  /** A raced query of this solver, which other threads can cancel before or while it runs. */
+  private static final class Query {
+    private final ShutdownManager cancellation = ShutdownManager.create();
+
+    /** The assertion stack for restoring the solver, if the query needs a shutdown of it. */
+    private volatile @Nullable List<? extends List<String>> stack = null;
+  }
+
+  private static final String CANCELLED = "query was answered by another solver of the portfolio";
+  private static final String REPLACED =
+      "the solver instance was replaced or closed, which also freed its models";
+
+  private final Solvers solver;
+  private final PortfolioSolverContext portfolio;
+  private final ProverOptions[] options;
+  private final ExecutorService executor;
+
+  /** The query that was raced last, used by other threads for cancellation. */
+  private volatile @Nullable Query lastQuery = null;
+
+  /** Whether the current solver instance can interrupt a single query without a shutdown. */
+  private volatile boolean interruptible = false;
+
+  /** Set if the solver can not handle the assertion stack, then it no longer takes part. */
+  private volatile boolean broken = false;
+
+  // the current solver instance, only accessed by the thread of the solver
+  private long generation = 0;
+  private @Nullable ShutdownManager shutdownManager = null;
+  private @Nullable ShutdownRequestListener shutdownForwarder = null;
+
+  /** The assertion stack for a new solver instance, if the current one was shut down. */
+  private @Nullable List<? extends List<String>> stackToRestore = null;
+
+  private @Nullable SolverContext context = null;
+  private @Nullable ProverEnvironment prover = null;
+
+  BackendProver(Solvers pSolver, PortfolioSolverContext pPortfolio, ProverOptions... pOptions) {
+    solver = checkNotNull(pSolver);
+    portfolio = checkNotNull(pPortfolio);
+    options = pOptions.clone();
+    executor =
+        Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("portfolio-" + solver + "-%d")
+                .build());
+    executor.execute(() -> rebuild(ImmutableList.of()));
+  }
+
+  Solvers getSolver() {
+    return solver;
+  }
+
+  boolean isBroken() {
+    return broken;
+  }
+
+  void countWin() {
+    portfolio.countWin(solver);
+  }
+
+  private void markBroken(Exception e) {
+    broken = true;
+    portfolio
+        .getLogger()
+        .logUserException(Level.WARNING, e, "Solver " + solver + " is excluded from the portfolio");
+  }
+
+  /** Create a new solver instance and assert the given assertion stack. */
+  private void rebuild(List<? extends List<String>> pStack) {
+    closeSolver();
+    if (broken) {
+      return;
+    }
+    try {
+      ShutdownManager manager = ShutdownManager.create();
+      shutdownForwarder = manager::requestShutdown;
+      portfolio.getShutdownNotifier().registerAndCheckImmediately(shutdownForwarder);
+      shutdownManager = manager;
+      context =
+          new SolverContextFactory(
+                  portfolio.getConfig(), portfolio.getLogger(), manager.getNotifier())
+              .generateContext(solver);
+      prover = context.newProverEnvironment(options);
+      interruptible = prover.getInterruptCall() != null;
+      FormulaManager mgr = context.getFormulaManager();
+      for (int level = 0; level < pStack.size(); level++) {
+        if (level > 0) {
+          prover.push();
+        }
+        for (String constraint : pStack.get(level)) {
+          prover.addConstraint(mgr.parse(constraint));
+        }
+      }
+    } catch (InvalidConfigurationException | InterruptedException | RuntimeException e) {
+      markBroken(e);
+    }
+  }
+
+  /**
+   * Replace the solver instance, if it was shut down for cancelling a query. This is done lazily
+   * before the next operation, such that cancelled queries cost nothing if no operation follows.
+   */
+  private void restoreSolver() {
+    List<? extends List<String>> stack = stackToRestore;
+    if (stack != null) {
+      stackToRestore = null;
+      rebuild(stack);
+    }
+  }
+
+  /**
+   * Run a raced query, such that it can be cancelled. The query is interrupted if the prover
+   * supports this, otherwise the solver instance is shut down and replaced before the next
+   * operation.
+   */
+  private <R> R runQuery(Query pQuery, Task<R> pTask) throws SolverException, InterruptedException {
+    SolverContext currentContext = checkNotNull(context);
+    ProverEnvironment currentProver = checkNotNull(prover);
+    @Nullable Runnable interrupt = currentProver.getInterruptCall();
+    @Nullable ShutdownManager manager = null;
+    if (interrupt == null) {
+      manager = checkNotNull(shutdownManager);
+      ShutdownManager solverShutdown = manager;
+      interrupt = () -> solverShutdown.requestShutdown(CANCELLED);
+    }
+    ShutdownHook hook = new ShutdownHook(pQuery.cancellation.getNotifier(), interrupt);
+    try {
+      return pTask.run(currentContext, currentProver);
+    } finally {
+      hook.close();
+      // the hook is closed, thus no further shutdown can follow
+      if (manager != null && manager.getNotifier().shouldShutdown()) {
+        stackToRestore = pQuery.stack;
+      }
+    }
+  }
+
+  private void closeSolver() {
+    generation++;
+    if (prover != null) {
+      prover.close();
+      prover = null;
+    }
+    if (context != null) {
+      context.close();
+      context = null;
+    }
+    if (shutdownForwarder != null) {
+      portfolio.getShutdownNotifier().unregister(shutdownForwarder);
+      shutdownForwarder = null;
+    }
+    shutdownManager = null;
+  }
+
+  /** Execute an operation that changes the assertion stack, without waiting for it. */
+  void execute(Task<?> pTask) {
+    executor.execute(
+        () -> {
+          restoreSolver();
+          if (broken) {
+            return;
+          }
+          try {
+            pTask.run(checkNotNull(context), checkNotNull(prover));
+          } catch (SolverException | InterruptedException | RuntimeException e) {
+            markBroken(e);
+          }
+        });
+  }
+
+  /** Execute a query and report its outcome to the given queue. */
+  <R> void race(Task<R> pTask, Queue<Outcome<R>> pOutcomes) {
+    Query query = new Query();
+    lastQuery = query;
+    executor.execute(
+        () -> {
+          if (query.cancellation.getNotifier().shouldShutdown()) {
+            return; // cancelled before it started, nobody waits for the outcome
+          }
+          restoreSolver();
+          Outcome<R> outcome;
+          if (broken) {
+            outcome =
+                new Outcome<>(this, null, new SolverException("Solver " + solver + " is broken"));
+          } else {
+            try {
+              outcome = new Outcome<>(this, runQuery(query, pTask), null);
+            } catch (SolverException | InterruptedException | RuntimeException e) {
+              outcome = new Outcome<>(this, null, e);
+            }
+          }
+          pOutcomes.add(outcome);
+        });
+  }
+
+  /** Execute an operation and wait for its result. */
+  <R> R call(Task<R> pTask) throws SolverException {
+    Future<R> future =
+        executor.submit(
+            () -> {
+              restoreSolver();
+              if (broken) {
+                throw new SolverException("Solver " + solver + " is broken");
+              }
+              return pTask.run(checkNotNull(context), checkNotNull(prover));
+            });
+    try {
+      return Uninterruptibles.getUninterruptibly(future);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      Throwables.throwIfInstanceOf(cause, SolverException.class);
+      Throwables.throwIfUnchecked(cause);
+      throw new SolverException("Solver " + solver + " was interrupted", cause);
+    }
+  }
+
+  /**
+   * Execute an operation on the solver instance with the given generation and wait for its result.
+   *
+   * @throws IllegalStateException if the solver instance was replaced or closed in the meantime
+   */
+  <R> R call(long pGeneration, Task<R> pTask) throws SolverException {
+    try {
+      return call(
+          (context, prover) -> {
+            checkState(generation == pGeneration, REPLACED);
+            return pTask.run(context, prover);
+          });
+    } catch (RejectedExecutionException e) {
+      throw new IllegalStateException(REPLACED, e);
+    }
+  }
+
+  /**
+   * Returns the generation of the current solver instance, which changes whenever the instance is
+   * replaced or closed. Only valid within a {@link Task}.
+   */
+  long getGeneration() {
+    return generation;
+  }
+
+  /**
+   * Close a model of the solver instance with the given generation. Nothing needs to be done if the
+   * instance was already replaced or closed, because closing the instance also freed the model.
+   */
+  void closeModel(long pGeneration, Model pModel) {
+    try {
+      executor.execute(
+          () -> {
+            if (generation == pGeneration) {
+              pModel.close();
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      // the portfolio prover was closed and with it the solver instance
+    }
+  }
+
+  /**
+   * Cancel the last raced query of this solver. A query that did not start yet is skipped, and a
+   * running query is interrupted. Only if the prover can not interrupt a single query, the solver
+   * instance is shut down and replaced before the next operation.
+   *
+   * @param pStack the current assertion stack of the portfolio prover, only retrieved if the solver
+   *     instance might need to be replaced
+   */
+  void cancel(Supplier<? extends List<? extends List<String>>> pStack) {
+    Query query = lastQuery;
+    if (query != null) {
+      if (!interruptible) {
+        query.stack = pStack.get();
+      }
+      query.cancellation.requestShutdown(CANCELLED);
+    }
+  }
+
+  void close() {
+    executor.execute(this::closeSolver);
+    executor.shutdown();
+  }
+
+  /** Translate formulas into strings that any solver can parse. */
+  static ImmutableList<String> dump(FormulaManager pMgr, Collection<BooleanFormula> pFormulas) {
+    ImmutableList.Builder<String> dumps = ImmutableList.builder();
+    for (BooleanFormula f : pFormulas) {
+      dumps.add(pMgr.dumpFormula(f).toString());
+    }
+    return dumps.build();
+  }
+
+  static ImmutableList<BooleanFormula> parse(FormulaManager pMgr, Collection<String> pDumps) {
+    ImmutableList.Builder<BooleanFormula> formulas = ImmutableList.builder();
+    for (String dump : pDumps) {
+      formulas.add(pMgr.parse(dump));
+    }
+    return formulas.build();
+  }
+}
@@ -0,0 +1,169 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.delegate.portfolio;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.TruthJUnit.assume;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Supplier;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.common.ShutdownManager;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.BooleanFormulaManager;
+import org.sosy_lab.java_smt.api.SolverException;
+import org.sosy_lab.java_smt.delegate.portfolio.BackendProver.Outcome;
+import org.sosy_lab.java_smt.delegate.portfolio.BackendProver.Task;
+
+/** Cancels the running query of a single solver of a portfolio. */
+public class BackendProverTest {
+
+  private static final Task<Void> PUSH_HARD_PROBLEM =
+      (context, prover) -> {
+        prover.push();
+        prover.addConstraint(
+            pigeonHole(context.getFormulaManager().getBooleanFormulaManager(), 20));
+        return null;
+      };
+
+  private static final Task<Void> POP =
+      (context, prover) -> {
+        prover.pop();
+        return null;
+      };
+
+  private PortfolioSolverContext portfolio;
+
+  @Before
+  public void init() throws InvalidConfigurationException {
+    portfolio =
+        new PortfolioSolverContext(
+            Configuration.defaultConfiguration(),
+            LogManager.createTestLogManager(),
+            ShutdownManager.create().getNotifier());
+  }
+
+  @After
+  public void close() {
+    portfolio.close();
+  }
+
+  /** Put one pigeon more than holes into the holes, which is hard for every solver. */
+  private static BooleanFormula pigeonHole(BooleanFormulaManager bmgr, int holes) {
+    List<BooleanFormula> constraints = new ArrayList<>();
+    BooleanFormula[][] inHole = new BooleanFormula[holes + 1][holes];
+    for (int pigeon = 0; pigeon <= holes; pigeon++) {
+      for (int hole = 0; hole < holes; hole++) {
+        inHole[pigeon][hole] = bmgr.makeVariable("p" + pigeon + "h" + hole);
+      }
+      constraints.add(bmgr.or(inHole[pigeon]));
+    }
+    for (int hole = 0; hole < holes; hole++) {
+      for (int pigeon = 0; pigeon <= holes; pigeon++) {
+        for (int other = pigeon + 1; other <= holes; other++) {
+          constraints.add(bmgr.not(bmgr.and(inHole[pigeon][hole], inHole[other][hole])));
+        }
+      }
+    }
+    return bmgr.and(constraints);
+  }
+
+  private static Outcome<Boolean> cancelRunningQuery(
+      BackendProver pBackend, Supplier<ImmutableList<ImmutableList<String>>> pStack)
+      throws InterruptedException {
+    CountDownLatch started = new CountDownLatch(1);
+    BlockingQueue<Outcome<Boolean>> outcomes = new LinkedBlockingQueue<>();
+    pBackend.race(
+        (context, prover) -> {
+          started.countDown();
+          return prover.isUnsat();
+        },
+        outcomes);
+    started.await();
+    pBackend.cancel(pStack);
+    return outcomes.take();
+  }
+
+  private void assertQueryIsInterrupted(Solvers pSolver)
+      throws SolverException, InterruptedException {
+    BackendProver backend = new BackendProver(pSolver, portfolio);
+    try {
+      backend.execute(PUSH_HARD_PROBLEM);
+      long generation = backend.call((context, prover) -> backend.getGeneration());
+
+      Outcome<Boolean> outcome =
+          cancelRunningQuery(
+              backend,
+              () -> {
+                throw new AssertionError("the assertion stack is only needed for a new instance");
+              });
+      assertThat(outcome.failure).isNotNull();
+
+      // the solver instance is kept and can answer the next query
+      backend.execute(POP);
+      assertThat(backend.<Boolean>call((context, prover) -> prover.isUnsat())).isFalse();
+      assertThat(backend.<Long>call((context, prover) -> backend.getGeneration()))
+          .isEqualTo(generation);
+    } finally {
+      backend.close();
+    }
+  }
+
+  @Test(timeout = 20000)
+  public void smtInterpolQueryIsInterrupted() throws SolverException, InterruptedException {
+    assertQueryIsInterrupted(Solvers.SMTINTERPOL);
+  }
+
+  @Test(timeout = 20000)
+  public void princessQueryIsInterrupted() throws SolverException, InterruptedException {
+    assertQueryIsInterrupted(Solvers.PRINCESS);
+  }
+
+  @Test(timeout = 20000)
+  public void solverWithoutInterruptIsReplaced() throws SolverException, InterruptedException {
+    BackendProver backend = new BackendProver(Solvers.BOOLECTOR, portfolio);
+    try {
+      backend.execute(PUSH_HARD_PROBLEM);
+      long generation;
+      try {
+        generation = backend.call((context, prover) -> backend.getGeneration());
+      } catch (SolverException e) {
+        assume()
+            .withMessage("Solver %s is not available", Solvers.BOOLECTOR)
+            .that(backend.isBroken())
+            .isFalse();
+        throw e;
+      }
+
+      Outcome<Boolean> outcome =
+          cancelRunningQuery(
+              backend, () -> ImmutableList.of(ImmutableList.of(), ImmutableList.of()));
+      assertThat(outcome.failure).isNotNull();
+
+      // a new solver instance with the given assertion stack answers the next query
+      backend.execute(POP);
+      assertThat(backend.<Boolean>call((context, prover) -> prover.isUnsat())).isFalse();
+      assertThat(backend.<Long>call((context, prover) -> backend.getGeneration()))
+          .isNotEqualTo(generation);
+    } finally {
+      backend.close();
+    }
+  }
+}
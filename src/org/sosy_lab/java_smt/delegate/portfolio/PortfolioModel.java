@@ -0,0 +1,156 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.delegate.portfolio;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableList;
+import java.math.BigInteger;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.rationals.Rational;
+import org.sosy_lab.java_smt.api.BitvectorFormula;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.EnumerationFormula;
+import org.sosy_lab.java_smt.api.Formula;
+import org.sosy_lab.java_smt.api.FormulaManager;
+import org.sosy_lab.java_smt.api.Model;
+import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
+import org.sosy_lab.java_smt.api.NumeralFormula.RationalFormula;
+import org.sosy_lab.java_smt.api.SolverException;
+import org.sosy_lab.java_smt.api.StringFormula;
+import org.sosy_lab.java_smt.utils.FormulaTranslator;
+import org.sosy_lab.java_smt.utils.SolverUtils;
+
+/**
+ * A model of the solver that won the last query. Formulas are translated into the context of that
+ * solver with a {@link FormulaTranslator}, and formulas of the model are translated back. The
+ * translation runs on the thread of the solver while the calling thread waits, thus the solver that
+ * builds the formulas of the portfolio must allow access from other threads.
+ *
+ * <p>The model belongs to one solver instance. If that instance is replaced, e.g., because it was
+ * cancelled in a later query, or if the prover is closed, the model was freed together with the
+ * instance and can no longer be used.
+ */
+class PortfolioModel implements Model {
+
+  /** An operation on the model of the solver, executed by the thread of the solver. */
+  private interface ModelTask<R> {
+    R run(FormulaTranslator pToSolver, FormulaTranslator pFromSolver);
+  }
+
+  private final Model delegate;
+  private final BackendProver backend;
+  private final long generation;
+  private final FormulaManager manager;
+  private final FormulaManager solverManager;
+
+  PortfolioModel(
+      Model pDelegate,
+      BackendProver pBackend,
+      long pGeneration,
+      FormulaManager pManager,
+      FormulaManager pSolverManager) {
+    delegate = checkNotNull(pDelegate);
+    backend = checkNotNull(pBackend);
+    generation = pGeneration;
+    manager = checkNotNull(pManager);
+    solverManager = checkNotNull(pSolverManager);
+  }
+
+  /**
+   * Execute the operation on the model of the solver.
+   *
+   * @throws IllegalStateException if the solver instance of this model was already replaced
+   */
+  private <R> R call(ModelTask<R> pTask) {
+    try {
+      return backend.call(
+          generation,
+          (context, prover) ->
+              pTask.run(
+                  SolverUtils.formulaTranslator(manager, solverManager),
+                  SolverUtils.formulaTranslator(solverManager, manager)));
+    } catch (SolverException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Override
+  public <T extends Formula> @Nullable T eval(T pFormula) {
+    return call(
+        (toSolver, fromSolver) -> {
+          T value = delegate.eval(toSolver.translateTerm(pFormula));
+          return value == null ? null : fromSolver.translateTerm(value);
+        });
+  }
+
+  @Override
+  public @Nullable Object evaluate(Formula pF) {
+    return call((toSolver, fromSolver) -> delegate.evaluate(toSolver.translateTerm(pF)));
+  }
+
+  @Override
+  public @Nullable BigInteger evaluate(IntegerFormula pF) {
+    return call((toSolver, fromSolver) -> delegate.evaluate(toSolver.translateTerm(pF)));
+  }
+
+  @Override
+  public @Nullable Rational evaluate(RationalFormula pF) {
+    return call((toSolver, fromSolver) -> delegate.evaluate(toSolver.translateTerm(pF)));
+  }
+
+  @Override
+  public @Nullable Boolean evaluate(BooleanFormula pF) {
+    return call((toSolver, fromSolver) -> delegate.evaluate(toSolver.translate(pF)));
+  }
+
+  @Override
+  public @Nullable BigInteger evaluate(BitvectorFormula pF) {
+    return call((toSolver, fromSolver) -> delegate.evaluate(toSolver.translateTerm(pF)));
+  }
+
+  @Override
+  public @Nullable String evaluate(StringFormula pF) {
+    return call((toSolver, fromSolver) -> delegate.evaluate(toSolver.translateTerm(pF)));
+  }
+
+  @Override
+  public @Nullable String evaluate(EnumerationFormula pF) {
+    return call((toSolver, fromSolver) -> delegate.evaluate(toSolver.translateTerm(pF)));
+  }
+
+  @Override
+  public ImmutableList<ValueAssignment> asList() {
+    return call(
+        (toSolver, fromSolver) -> {
+          ImmutableList.Builder<ValueAssignment> assignments = ImmutableList.builder();
+          for (ValueAssignment assignment : delegate.asList()) {
+            assignments.add(
+                new ValueAssignment(
+                    fromSolver.translateTerm(assignment.getKey()),
+                    fromSolver.translateTerm(assignment.getValueAsFormula()),
+                    fromSolver.translate(assignment.getAssignmentAsFormula()),
+                    assignment.getName(),
+                    assignment.getValue(),
+                    assignment.getArgumentsInterpretation()));
+          }
+          return assignments.build();
+        });
+  }
+
+  @Override
+  public String toString() {
+    return call((toSolver, fromSolver) -> delegate.toString());
+  }
+
+  @Override
+  public void close() {
+    backend.closeModel(generation, delegate);
+  }
+}
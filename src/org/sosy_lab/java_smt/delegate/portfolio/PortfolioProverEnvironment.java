@@ -0,0 +1,295 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.delegate.portfolio;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static org.sosy_lab.java_smt.delegate.portfolio.BackendProver.dump;
+import static org.sosy_lab.java_smt.delegate.portfolio.BackendProver.parse;
+
+import com.google.common.base.Suppliers;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Supplier;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.FormulaManager;
+import org.sosy_lab.java_smt.api.Model;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverException;
+import org.sosy_lab.java_smt.delegate.portfolio.BackendProver.Outcome;
+import org.sosy_lab.java_smt.delegate.portfolio.BackendProver.Task;
+
+class PortfolioProverEnvironment implements ProverEnvironment {
+
+  private final FormulaManager mgr;
+  private final ImmutableList<BackendProver> backends;
+
+  /**
+   * The assertion stack as parseable strings, needed to restore solvers that were shut down for
+   * cancelling a query.
+   */
+  private final List<List<String>> levels = new ArrayList<>();
+
+  /** The solver that answered the last query, if the assertion stack did not change since. */
+  private @Nullable BackendProver winner = null;
+
+  private boolean closed = false;
+
+  PortfolioProverEnvironment(FormulaManager pMgr, ImmutableList<BackendProver> pBackends) {
+    mgr = checkNotNull(pMgr);
+    backends = checkNotNull(pBackends);
+    levels.add(new ArrayList<>());
+  }
+
+  private void checkChange() {
+    checkState(!closed);
+    winner = null;
+  }
+
+  private BackendProver getWinner() {
+    checkState(!closed);
+    checkState(winner != null, "model and unsat core require a query before");
+    return winner;
+  }
+
+  @Override
+  public void push() {
+    checkChange();
+    levels.add(new ArrayList<>());
+    for (BackendProver backend : backends) {
+      backend.execute(
+          (context, prover) -> {
+            prover.push();
+            return null;
+          });
+    }
+  }
+
+  @Override
+  public void pop() {
+    checkChange();
+    checkState(levels.size() > 1, "cannot pop the bottom level");
+    levels.remove(levels.size() - 1);
+    for (BackendProver backend : backends) {
+      backend.execute(
+          (context, prover) -> {
+            prover.pop();
+            return null;
+          });
+    }
+  }
+
+  @Override
+  public @Nullable Void addConstraint(BooleanFormula pConstraint) {
+    checkChange();
+    String constraint = mgr.dumpFormula(pConstraint).toString();
+    levels.get(levels.size() - 1).add(constraint);
+    for (BackendProver backend : backends) {
+      backend.execute(
+          (context, prover) -> prover.addConstraint(context.getFormulaManager().parse(constraint)));
+    }
+    return null;
+  }
+
+  @Override
+  public int size() {
+    checkState(!closed);
+    return levels.size() - 1;
+  }
+
+  /**
+   * Run the query on all usable solvers, return the first successful answer and cancel the other
+   * solvers. If no solver succeeds, the first failure is thrown.
+   */
+  private <R> R race(Task<R> pTask) throws SolverException, InterruptedException {
+    checkChange();
+    List<BackendProver> participants = new ArrayList<>();
+    for (BackendProver backend : backends) {
+      if (!backend.isBroken()) {
+        participants.add(backend);
+      }
+    }
+    if (participants.isEmpty()) {
+      throw new SolverException("No solver of the portfolio can handle the asserted formulas.");
+    }
+
+    BlockingQueue<Outcome<R>> outcomes = new LinkedBlockingQueue<>();
+    for (BackendProver backend : participants) {
+      backend.race(pTask, outcomes);
+    }
+
+    Set<BackendProver> answered = new HashSet<>();
+    @Nullable Exception failure = null;
+    try {
+      while (answered.size() < participants.size()) {
+        Outcome<R> outcome = outcomes.take();
+        answered.add(outcome.backend);
+        if (outcome.failure == null) {
+          winner = outcome.backend;
+          return outcome.result;
+        } else if (failure == null) {
+          failure = outcome.failure;
+        }
+      }
+    } finally {
+      cancelUnanswered(participants, answered);
+    }
+
+    Throwables.throwIfInstanceOf(failure, SolverException.class);
+    Throwables.throwIfInstanceOf(failure, InterruptedException.class);
+    Throwables.throwIfUnchecked(failure);
+    throw new AssertionError(failure);
+  }
+
+  private void cancelUnanswered(List<BackendProver> pParticipants, Set<BackendProver> pAnswered) {
+    if (pAnswered.size() == pParticipants.size()) {
+      return;
+    }
+    Supplier<ImmutableList<ImmutableList<String>>> currentStack =
+        Suppliers.memoize(
+            () -> {
+              ImmutableList.Builder<ImmutableList<String>> stack = ImmutableList.builder();
+              for (List<String> level : levels) {
+                stack.add(ImmutableList.copyOf(level));
+              }
+              return stack.build();
+            });
+    for (BackendProver backend : pParticipants) {
+      if (!pAnswered.contains(backend)) {
+        backend.cancel(currentStack);
+      }
+    }
+  }
+
+  @Override
+  public boolean isUnsat() throws SolverException, InterruptedException {
+    boolean unsat = race((context, prover) -> prover.isUnsat());
+    countWin();
+    return unsat;
+  }
+
+  @Override
+  public boolean isUnsat(Duration pTimeout) throws SolverException, InterruptedException {
+    boolean unsat = race((context, prover) -> prover.isUnsat(pTimeout));
+    countWin();
+    return unsat;
+  }
+
+  @Override
+  public boolean isUnsatWithAssumptions(Collection<BooleanFormula> pAssumptions)
+      throws SolverException, InterruptedException {
+    ImmutableList<String> assumptions = dump(mgr, pAssumptions);
+    boolean unsat =
+        race(
+            (context, prover) ->
+                prover.isUnsatWithAssumptions(parse(context.getFormulaManager(), assumptions)));
+    countWin();
+    return unsat;
+  }
+
+  private void countWin() {
+    BackendProver currentWinner = getWinner();
+    currentWinner.countWin();
+  }
+
+  @SuppressWarnings("resource")
+  @Override
+  public Model getModel() throws SolverException {
+    BackendProver backend = getWinner();
+    return backend.call(
+        (context, prover) ->
+            new PortfolioModel(
+                prover.getModel(),
+                backend,
+                backend.getGeneration(),
+                mgr,
+                context.getFormulaManager()));
+  }
+
+  @Override
+  public List<BooleanFormula> getUnsatCore() {
+    BackendProver backend = getWinner();
+    ImmutableList<String> core;
+    try {
+      core =
+          backend.call(
+              (context, prover) -> dump(context.getFormulaManager(), prover.getUnsatCore()));
+    } catch (SolverException e) {
+      throw new IllegalStateException(e);
+    }
+    return parse(mgr, core);
+  }
+
+  @Override
+  public Optional<List<BooleanFormula>> unsatCoreOverAssumptions(
+      Collection<BooleanFormula> pAssumptions) throws SolverException, InterruptedException {
+    ImmutableList<String> assumptions = dump(mgr, pAssumptions);
+    Optional<ImmutableList<String>> core =
+        race(
+            (context, prover) -> {
+              FormulaManager otherMgr = context.getFormulaManager();
+              return prover
+                  .unsatCoreOverAssumptions(parse(otherMgr, assumptions))
+                  .map(formulas -> dump(otherMgr, formulas));
+            });
+    countWin();
+    return core.map(formulas -> parse(mgr, formulas));
+  }
+
+  @Override
+  public <R> R allSat(AllSatCallback<R> pCallback, List<BooleanFormula> pImportant)
+      throws InterruptedException, SolverException {
+    ImmutableList<String> important = dump(mgr, pImportant);
+    List<ImmutableList<String>> models =
+        race(
+            (context, prover) -> {
+              FormulaManager otherMgr = context.getFormulaManager();
+              List<ImmutableList<String>> dumpedModels = new ArrayList<>();
+              prover.allSat(
+                  new AllSatCallback<Void>() {
+                    @Override
+                    public void apply(List<BooleanFormula> pModel) {
+                      dumpedModels.add(dump(otherMgr, pModel));
+                    }
+
+                    @Override
+                    public Void getResult() {
+                      return null;
+                    }
+                  },
+                  parse(otherMgr, important));
+              return dumpedModels;
+            });
+    countWin();
+    for (List<String> model : models) {
+      pCallback.apply(parse(mgr, model));
+    }
+    return pCallback.getResult();
+  }
+
+  @Override
+  public void close() {
+    if (!closed) {
+      closed = true;
+      for (BackendProver backend : backends) {
+        backend.close();
+      }
+    }
+  }
+}
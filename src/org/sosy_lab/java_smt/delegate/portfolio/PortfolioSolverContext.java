@@ -0,0 +1,144 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.delegate.portfolio;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ConcurrentHashMultiset;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Multiset;
+import java.util.List;
+import org.sosy_lab.common.ShutdownNotifier;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.Option;
+import org.sosy_lab.common.configuration.Options;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.java_smt.SolverContextFactory;
+import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
+import org.sosy_lab.java_smt.api.FormulaManager;
+import org.sosy_lab.java_smt.api.InterpolatingProverEnvironment;
+import org.sosy_lab.java_smt.api.OptimizationProverEnvironment;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext;
+
+/**
+ * A solver context that races several solvers against each other.
+ *
+ * <p>Formulas are built with a context of the first configured solver. Each prover of this context
+ * uses one separate context per configured solver, mirrors all assertions into them (by dumping and
+ * parsing the formulas, like {@link FormulaManager#translateFrom}), and runs every query on all of
+ * them concurrently. The first answer is returned and the slower solvers are interrupted via their
+ * {@link ShutdownNotifier}. As the shutdown of a context can not be revoked, an interrupted solver
+ * gets a fresh context in the background, into which the current assertion stack is replayed.
+ *
+ * <p>Models and unsat cores are retrieved from the solver that answered the last query. Models only
+ * support the evaluation of boolean formulas, because only boolean formulas can be translated
+ * between solvers. Interpolation and optimization are not supported.
+ */
+@Options(prefix = "solver.portfolio")
+public class PortfolioSolverContext implements SolverContext {
+
+  @Option(
+      secure = true,
+      description =
+          "Solvers that are raced against each other. "
+              + "The first solver is also used for building formulas.")
+  private List<Solvers> solvers = ImmutableList.of(Solvers.SMTINTERPOL, Solvers.PRINCESS);
+
+  private final Configuration config;
+  private final LogManager logger;
+  private final ShutdownNotifier shutdownNotifier;
+  private final SolverContext formulaContext;
+
+  private final Multiset<Solvers> wins = ConcurrentHashMultiset.create();
+
+  public PortfolioSolverContext(
+      Configuration pConfig, LogManager pLogger, ShutdownNotifier pShutdownNotifier)
+      throws InvalidConfigurationException {
+    pConfig.inject(this);
+    if (solvers.isEmpty()) {
+      throw new InvalidConfigurationException("A portfolio requires at least one solver.");
+    }
+    config = pConfig;
+    logger = checkNotNull(pLogger);
+    shutdownNotifier = checkNotNull(pShutdownNotifier);
+    formulaContext =
+        new SolverContextFactory(pConfig, pLogger, pShutdownNotifier)
+            .generateContext(solvers.get(0));
+  }
+
+  Configuration getConfig() {
+    return config;
+  }
+
+  LogManager getLogger() {
+    return logger;
+  }
+
+  ShutdownNotifier getShutdownNotifier() {
+    return shutdownNotifier;
+  }
+
+  void countWin(Solvers pSolver) {
+    wins.add(pSolver);
+  }
+
+  @Override
+  public FormulaManager getFormulaManager() {
+    return formulaContext.getFormulaManager();
+  }
+
+  @SuppressWarnings("resource")
+  @Override
+  public ProverEnvironment newProverEnvironment(ProverOptions... pOptions) {
+    ImmutableList.Builder<BackendProver> backends = ImmutableList.builder();
+    for (Solvers solver : solvers) {
+      backends.add(new BackendProver(solver, this, pOptions));
+    }
+    return new PortfolioProverEnvironment(getFormulaManager(), backends.build());
+  }
+
+  @Override
+  public InterpolatingProverEnvironment<?> newProverEnvironmentWithInterpolation(
+      ProverOptions... pOptions) {
+    throw new UnsupportedOperationException("a portfolio does not support interpolation");
+  }
+
+  @Override
+  public OptimizationProverEnvironment newOptimizationProverEnvironment(ProverOptions... pOptions) {
+    throw new UnsupportedOperationException("a portfolio does not support optimization");
+  }
+
+  @Override
+  public String getVersion() {
+    return "Portfolio of " + solvers;
+  }
+
+  @Override
+  public Solvers getSolverName() {
+    return formulaContext.getSolverName();
+  }
+
+  @Override
+  public ImmutableMap<String, String> getStatistics() {
+    ImmutableMap.Builder<String, String> builder = ImmutableMap.builder();
+    builder.putAll(formulaContext.getStatistics());
+    for (Solvers solver : solvers) {
+      builder.put("portfolio wins of " + solver, Integer.toString(wins.count(solver)));
+    }
+    return builder.buildKeepingLast();
+  }
+
+  @Override
+  public void close() {
+    formulaContext.close();
+  }
+}
@@ -0,0 +1,211 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.delegate.statistics;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableSortedMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.sosy_lab.common.time.TimeSpan;
+
+/**
+ * A thread-safe histogram of latencies with logarithmic buckets, similar to an HDR histogram.
+ *
+ * <p>Each power of two is split into {@link #SUB_BUCKETS} linear sub-buckets, such that the
+ * relative error of each reported value is below {@code 1/SUB_BUCKETS}. Recording a value is
+ * lock-free and does not allocate memory.
+ *
+ * <p>A {@link Snapshot} is taken without blocking recording threads. If values are recorded
+ * concurrently, a snapshot might contain a part of them. With {@link #snapshotAndReset()}, each
+ * recorded value is contained in exactly one snapshot, which allows to export windowed metrics.
+ */
+public final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  /** exact buckets for small values, then SUB_BUCKETS buckets for each remaining power of two. */
+  private static final int NUMBER_OF_BUCKETS =
+      SUB_BUCKETS + (Long.SIZE - 1 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final TimeUnit unit;
+  private final AtomicLongArray buckets = new AtomicLongArray(NUMBER_OF_BUCKETS);
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  LatencyHistogram(TimeUnit pUnit) {
+    unit = checkNotNull(pUnit);
+  }
+
+  /** Record a single latency, given in the unit of this histogram. */
+  void record(long pValue) {
+    long value = Math.max(0, pValue);
+    buckets.incrementAndGet(indexOf(value));
+    sum.addAndGet(value);
+    max.accumulateAndGet(value, Math::max);
+  }
+
+  static int indexOf(long pValue) {
+    if (pValue < SUB_BUCKETS) {
+      return (int) pValue;
+    }
+    int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(pValue);
+    int shift = exponent - SUB_BUCKET_BITS;
+    int subBucket = (int) (pValue >>> shift) - SUB_BUCKETS;
+    return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+  }
+
+  /** Returns the largest value that is recorded into the bucket with the given index. */
+  static long upperBoundOf(int pIndex) {
+    if (pIndex < SUB_BUCKETS) {
+      return pIndex;
+    }
+    int shift = (pIndex - SUB_BUCKETS) / SUB_BUCKETS;
+    long top = SUB_BUCKETS + (pIndex - SUB_BUCKETS) % SUB_BUCKETS;
+    if (shift + SUB_BUCKET_BITS == Long.SIZE - 2 && top == 2 * SUB_BUCKETS - 1) {
+      return Long.MAX_VALUE; // avoid overflow for the last bucket
+    }
+    return ((top + 1) << shift) - 1;
+  }
+
+  /** Returns the current state of the histogram. */
+  public Snapshot snapshot() {
+    long[] counts = new long[NUMBER_OF_BUCKETS];
+    for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+      counts[i] = buckets.get(i);
+    }
+    return new Snapshot(unit, counts, sum.get(), max.get());
+  }
+
+  /** Returns the current state of the histogram and starts a new window with an empty histogram. */
+  public Snapshot snapshotAndReset() {
+    long[] counts = new long[NUMBER_OF_BUCKETS];
+    for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+      counts[i] = buckets.getAndSet(i, 0);
+    }
+    return new Snapshot(unit, counts, sum.getAndSet(0), max.getAndSet(0));
+  }
+
+  /** Remove all recorded values. */
+  public void reset() {
+    for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+      buckets.set(i, 0);
+    }
+    sum.set(0);
+    max.set(0);
+  }
+
+  @Override
+  public String toString() {
+    return snapshot().toString();
+  }
+
+  /** An immutable view of a {@link LatencyHistogram} at some point in time. */
+  public static final class Snapshot {
+
+    private final TimeUnit unit;
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final long max;
+
+    private Snapshot(TimeUnit pUnit, long[] pCounts, long pSum, long pMax) {
+      unit = pUnit;
+      counts = pCounts;
+      long total = 0;
+      for (long c : pCounts) {
+        total += c;
+      }
+      count = total;
+      sum = pSum;
+      max = pMax;
+    }
+
+    /** Returns the number of recorded values. */
+    public long getCount() {
+      return count;
+    }
+
+    /** Returns the sum of all recorded values. */
+    public TimeSpan getSum() {
+      return TimeSpan.of(sum, unit);
+    }
+
+    /** Returns the maximal recorded value. */
+    public TimeSpan getMax() {
+      return TimeSpan.of(max, unit);
+    }
+
+    /**
+     * Returns the value below or at which the given percentage of recorded values are, e.g., 99.9
+     * for the 99.9th percentile. The value is the upper bound of the matching bucket, but never
+     * larger than the maximal recorded value. Returns zero if no value was recorded.
+     */
+    public TimeSpan getPercentile(double pPercentile) {
+      checkArgument(0 <= pPercentile && pPercentile <= 100, "invalid percentile %s", pPercentile);
+      if (count == 0) {
+        return TimeSpan.of(0, unit);
+      }
+      long rank = Math.max(1, (long) Math.ceil(pPercentile / 100 * count));
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank) {
+          return TimeSpan.of(Math.min(upperBoundOf(i), max), unit);
+        }
+      }
+      return getMax();
+    }
+
+    public TimeSpan getP50() {
+      return getPercentile(50);
+    }
+
+    public TimeSpan getP90() {
+      return getPercentile(90);
+    }
+
+    public TimeSpan getP99() {
+      return getPercentile(99);
+    }
+
+    public TimeSpan getP999() {
+      return getPercentile(99.9);
+    }
+
+    /**
+     * Returns the non-empty buckets of the histogram, mapping the upper bound of each bucket to the
+     * number of values recorded into it.
+     */
+    public ImmutableSortedMap<TimeSpan, Long> getBuckets() {
+      ImmutableSortedMap.Builder<TimeSpan, Long> builder = ImmutableSortedMap.naturalOrder();
+      for (int i = 0; i < counts.length; i++) {
+        if (counts[i] > 0) {
+          builder.put(TimeSpan.of(upperBoundOf(i), unit), counts[i]);
+        }
+      }
+      return builder.buildOrThrow();
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "count=%d, p50=%s, p90=%s, p99=%s, p999=%s, max=%s",
+          count,
+          getP50().formatAs(TimeUnit.MILLISECONDS),
+          getP90().formatAs(TimeUnit.MILLISECONDS),
+          getP99().formatAs(TimeUnit.MILLISECONDS),
+          getP999().formatAs(TimeUnit.MILLISECONDS),
+          getMax().formatAs(TimeUnit.MILLISECONDS));
+    }
+  }
+}
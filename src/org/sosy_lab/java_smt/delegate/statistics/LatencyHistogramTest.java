@@ -0,0 +1,71 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.delegate.statistics;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.sosy_lab.common.time.TimeSpan;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void bucketBoundsTest() {
+    long[] values = {0, 1, 31, 32, 33, 63, 64, 65, 1000, 123_456_789L, Long.MAX_VALUE};
+    for (long value : values) {
+      int index = LatencyHistogram.indexOf(value);
+      assertThat(LatencyHistogram.upperBoundOf(index)).isAtLeast(value);
+      if (index > 0) {
+        assertThat(LatencyHistogram.upperBoundOf(index - 1)).isLessThan(value);
+      }
+    }
+  }
+
+  @Test
+  public void percentileTest() {
+    LatencyHistogram histogram = new LatencyHistogram(TimeUnit.NANOSECONDS);
+    for (int i = 1; i <= 1000; i++) {
+      histogram.record(i);
+    }
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    assertThat(snapshot.getCount()).isEqualTo(1000);
+    assertThat(snapshot.getMax()).isEqualTo(TimeSpan.ofNanos(1000));
+    assertThat(snapshot.getSum()).isEqualTo(TimeSpan.ofNanos(500_500));
+    assertWithinError(snapshot.getP50(), 500);
+    assertWithinError(snapshot.getP90(), 900);
+    assertWithinError(snapshot.getP99(), 990);
+    assertThat(snapshot.getP999()).isEqualTo(TimeSpan.ofNanos(1000));
+  }
+
+  @Test
+  public void snapshotAndResetTest() {
+    LatencyHistogram histogram = new LatencyHistogram(TimeUnit.NANOSECONDS);
+    histogram.record(5);
+    histogram.record(100);
+    LatencyHistogram.Snapshot first = histogram.snapshotAndReset();
+    assertThat(first.getCount()).isEqualTo(2);
+    assertThat(first.getBuckets()).hasSize(2);
+
+    histogram.record(7);
+    LatencyHistogram.Snapshot second = histogram.snapshot();
+    assertThat(second.getCount()).isEqualTo(1);
+    assertThat(second.getMax()).isEqualTo(TimeSpan.ofNanos(7));
+
+    histogram.reset();
+    assertThat(histogram.snapshot().getCount()).isEqualTo(0);
+    assertThat(histogram.snapshot().getP99()).isEqualTo(TimeSpan.ofNanos(0));
+  }
+
+  private static void assertWithinError(TimeSpan pValue, long pExpected) {
+    // the relative error of each bucket is below 1/32.
+    assertThat(pValue.asNanos()).isAtLeast(pExpected);
+    assertThat(pValue.asNanos()).isAtMost(pExpected + pExpected / 32);
+  }
+}
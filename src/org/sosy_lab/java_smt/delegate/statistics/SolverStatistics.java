@@ -9,67 +9,79 @@
 package org.sosy_lab.java_smt.delegate.statistics;
 
 import com.google.common.collect.ImmutableMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import com.google.common.collect.Maps;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 import org.sosy_lab.common.time.TimeSpan;
 
+/**
+ * Statistics about the interaction with the solver. All counters are based on {@link LongAdder},
+ * such that updating them from many concurrent threads does not cause contention.
+ */
 public class SolverStatistics {
 
   // prover operations
-  final AtomicInteger provers = new AtomicInteger();
-  final AtomicInteger pop = new AtomicInteger();
-  final AtomicInteger push = new AtomicInteger();
-  final AtomicInteger constraint = new AtomicInteger();
-  final AtomicInteger model = new AtomicInteger();
-  final AtomicInteger unsatCore = new AtomicInteger();
+  final LongAdder provers = new LongAdder();
+  final LongAdder pop = new LongAdder();
+  final LongAdder push = new LongAdder();
+  final LongAdder constraint = new LongAdder();
+  final LongAdder model = new LongAdder();
+  final LongAdder unsatCore = new LongAdder();
 
   final TimerPool unsat = new TimerPool();
   final TimerPool allSat = new TimerPool();
   final TimerPool interpolation = new TimerPool();
 
   // manager operations
-  final AtomicInteger visits = new AtomicInteger();
-  final AtomicInteger booleanOperations = new AtomicInteger();
-  final AtomicInteger numericOperations = new AtomicInteger();
-  final AtomicInteger arrayOperations = new AtomicInteger();
-  final AtomicInteger slOperations = new AtomicInteger();
-  final AtomicInteger ufOperations = new AtomicInteger();
-  final AtomicInteger quantifierOperations = new AtomicInteger();
-  final AtomicInteger bvOperations = new AtomicInteger();
-  final AtomicInteger fpOperations = new AtomicInteger();
-  final AtomicInteger typeOperations = new AtomicInteger();
-  final AtomicInteger stringOperations = new AtomicInteger();
-  final AtomicInteger enumerationDeclarations = new AtomicInteger();
-  final AtomicInteger enumerationOperations = new AtomicInteger();
+  final LongAdder visits = new LongAdder();
+  final LongAdder booleanOperations = new LongAdder();
+  final LongAdder numericOperations = new LongAdder();
+  final LongAdder arrayOperations = new LongAdder();
+  final LongAdder slOperations = new LongAdder();
+  final LongAdder ufOperations = new LongAdder();
+  final LongAdder quantifierOperations = new LongAdder();
+  final LongAdder bvOperations = new LongAdder();
+  final LongAdder fpOperations = new LongAdder();
+  final LongAdder typeOperations = new LongAdder();
+  final LongAdder stringOperations = new LongAdder();
+  final LongAdder enumerationDeclarations = new LongAdder();
+  final LongAdder enumerationOperations = new LongAdder();
 
   // model operations
-  final AtomicInteger modelEvaluations = new AtomicInteger();
-  final AtomicInteger modelListings = new AtomicInteger();
+  final LongAdder modelEvaluations = new LongAdder();
+  final LongAdder modelListings = new LongAdder();
+
+  final TimerPool evaluation = new TimerPool();
+
+  // parsing and dumping of formulas
+  final TimerPool parse = new TimerPool();
+  final TimerPool dump = new TimerPool();
 
   SolverStatistics() {}
 
   // visible access methods
   public int getNumberOfProverEnvironments() {
-    return provers.get();
+    return provers.intValue();
   }
 
   public int getNumberOfPopQueries() {
-    return pop.get();
+    return pop.intValue();
   }
 
   public int getNumberOfPushQueries() {
-    return push.get();
+    return push.intValue();
   }
 
   public int getNumberOfAddConstraintQueries() {
-    return constraint.get();
+    return constraint.intValue();
   }
 
   public int getNumberOfModelQueries() {
-    return model.get();
+    return model.intValue();
   }
 
   public int getNumberOfUnsatCoreQueries() {
-    return unsatCore.get();
+    return unsatCore.intValue();
   }
 
   public int getNumberOfIsUnsatQueries() {
@@ -109,55 +121,148 @@ public class SolverStatistics {
   }
 
   public int getNumberOfBooleanOperations() {
-    return booleanOperations.get();
+    return booleanOperations.intValue();
   }
 
   public int getNumberOfVisits() {
-    return visits.get();
+    return visits.intValue();
   }
 
   public int getNumberOfNumericOperations() {
-    return numericOperations.get();
+    return numericOperations.intValue();
   }
 
   public int getNumberOfArrayOperations() {
-    return arrayOperations.get();
+    return arrayOperations.intValue();
   }
 
   public int getNumberOfSLOperations() {
-    return slOperations.get();
+    return slOperations.intValue();
   }
 
   public int getNumberOfUFOperations() {
-    return ufOperations.get();
+    return ufOperations.intValue();
   }
 
   public int getNumberOfQuantifierOperations() {
-    return quantifierOperations.get();
+    return quantifierOperations.intValue();
   }
 
   public int getNumberOfBVOperations() {
-    return bvOperations.get();
+    return bvOperations.intValue();
   }
 
   public int getNumberOfFPOperations() {
-    return fpOperations.get();
+    return fpOperations.intValue();
   }
 
   public int getNumberOfStringOperations() {
-    return stringOperations.get();
+    return stringOperations.intValue();
   }
 
   public int getNumberOfModelEvaluationQueries() {
-    return modelEvaluations.get();
+    return modelEvaluations.intValue();
   }
 
   public int getNumberOfModelListings() {
-    return modelListings.get();
+    return modelListings.intValue();
+  }
+
+  public TimeSpan getSumTimeOfModelEvaluationQueries() {
+    return evaluation.getSumTime();
+  }
+
+  public TimeSpan getMaxTimeOfModelEvaluationQueries() {
+    return evaluation.getMaxTime();
+  }
+
+  public int getNumberOfParseQueries() {
+    return parse.getNumberOfIntervals();
+  }
+
+  public TimeSpan getSumTimeOfParseQueries() {
+    return parse.getSumTime();
+  }
+
+  public TimeSpan getMaxTimeOfParseQueries() {
+    return parse.getMaxTime();
+  }
+
+  public int getNumberOfDumpQueries() {
+    return dump.getNumberOfIntervals();
+  }
+
+  public TimeSpan getSumTimeOfDumpQueries() {
+    return dump.getSumTime();
+  }
+
+  public TimeSpan getMaxTimeOfDumpQueries() {
+    return dump.getMaxTime();
+  }
+
+  // latency distributions
+
+  public LatencyHistogram.Snapshot getLatencyOfIsUnsatQueries() {
+    return unsat.getHistogram().snapshot();
+  }
+
+  public LatencyHistogram.Snapshot getLatencyOfAllSatQueries() {
+    return allSat.getHistogram().snapshot();
+  }
+
+  public LatencyHistogram.Snapshot getLatencyOfInterpolationQueries() {
+    return interpolation.getHistogram().snapshot();
+  }
+
+  public LatencyHistogram.Snapshot getLatencyOfModelEvaluationQueries() {
+    return evaluation.getHistogram().snapshot();
+  }
+
+  public LatencyHistogram.Snapshot getLatencyOfParseQueries() {
+    return parse.getHistogram().snapshot();
+  }
+
+  public LatencyHistogram.Snapshot getLatencyOfDumpQueries() {
+    return dump.getHistogram().snapshot();
+  }
+
+  private ImmutableMap<String, TimerPool> getTimedOperations() {
+    return ImmutableMap.<String, TimerPool>builder()
+        .put("isUnsat", unsat)
+        .put("allSat", allSat)
+        .put("interpolation", interpolation)
+        .put("model evaluation", evaluation)
+        .put("parse", parse)
+        .put("dump", dump)
+        .buildOrThrow();
+  }
+
+  /** Returns the current latency distribution of all timed operations. */
+  public ImmutableMap<String, LatencyHistogram.Snapshot> getLatencyHistograms() {
+    return ImmutableMap.copyOf(
+        Maps.transformValues(getTimedOperations(), pool -> pool.getHistogram().snapshot()));
+  }
+
+  /**
+   * Returns the latency distribution of all timed operations since the last call of this method (or
+   * {@link #resetLatencyHistograms}), and starts a new window. Counters and accumulated times are
+   * not affected.
+   */
+  public ImmutableMap<String, LatencyHistogram.Snapshot> snapshotAndResetLatencyHistograms() {
+    return ImmutableMap.copyOf(
+        Maps.transformValues(getTimedOperations(), pool -> pool.getHistogram().snapshotAndReset()));
+  }
+
+  /** Remove all values from the latency distributions. */
+  public void resetLatencyHistograms() {
+    for (TimerPool pool : getTimedOperations().values()) {
+      pool.getHistogram().reset();
+    }
   }
 
   public ImmutableMap<String, Object> asMap() {
-    return ImmutableMap.<String, Object>builder()
+    ImmutableMap.Builder<String, Object> builder = ImmutableMap.builder();
+    builder
         .put("number of prover environments", getNumberOfProverEnvironments())
         .put("number of pop queries", getNumberOfPopQueries())
         .put("number of push queries", getNumberOfPushQueries())
@@ -185,6 +290,17 @@ public class SolverStatistics {
         .put("number of String operations", getNumberOfStringOperations())
         .put("number of model evaluation queries", getNumberOfModelEvaluationQueries())
         .put("number of model listings", getNumberOfModelListings())
-        .buildOrThrow();
+        .put("sumTime of model evaluation queries", getSumTimeOfModelEvaluationQueries())
+        .put("maxTime of model evaluation queries", getMaxTimeOfModelEvaluationQueries())
+        .put("number of parse queries", getNumberOfParseQueries())
+        .put("sumTime of parse queries", getSumTimeOfParseQueries())
+        .put("maxTime of parse queries", getMaxTimeOfParseQueries())
+        .put("number of dump queries", getNumberOfDumpQueries())
+        .put("sumTime of dump queries", getSumTimeOfDumpQueries())
+        .put("maxTime of dump queries", getMaxTimeOfDumpQueries());
+    for (Map.Entry<String, LatencyHistogram.Snapshot> entry : getLatencyHistograms().entrySet()) {
+      builder.put("latency of " + entry.getKey() + " queries", entry.getValue());
+    }
+    return builder.buildOrThrow();
   }
 }
@@ -10,6 +10,7 @@ package org.sosy_lab.java_smt.delegate.statistics;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.time.Duration;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
@@ -32,24 +33,24 @@ class StatisticsBasicProverEnvironment<T> implements BasicProverEnvironment<T> {
     stats = checkNotNull(pStats);
     unsatTimer = stats.unsat.getNewTimer();
     allSatTimer = stats.allSat.getNewTimer();
-    stats.provers.getAndIncrement();
+    stats.provers.increment();
   }
 
   @Override
   public void pop() {
-    stats.pop.getAndIncrement();
+    stats.pop.increment();
     delegate.pop();
   }
 
   @Override
   public @Nullable T addConstraint(BooleanFormula pConstraint) throws InterruptedException {
-    stats.constraint.getAndIncrement();
+    stats.constraint.increment();
     return delegate.addConstraint(pConstraint);
   }
 
   @Override
   public void push() throws InterruptedException {
-    stats.push.getAndIncrement();
+    stats.push.increment();
     delegate.push();
   }
 
@@ -68,6 +69,21 @@ class StatisticsBasicProverEnvironment<T> implements BasicProverEnvironment<T> {
     }
   }
 
+  @Override
+  public boolean isUnsat(Duration pTimeout) throws SolverException, InterruptedException {
+    unsatTimer.start();
+    try {
+      return delegate.isUnsat(pTimeout);
+    } finally {
+      unsatTimer.stop();
+    }
+  }
+
+  @Override
+  public @Nullable Runnable getInterruptCall() {
+    return delegate.getInterruptCall();
+  }
+
   @Override
   public boolean isUnsatWithAssumptions(Collection<BooleanFormula> pAssumptions)
       throws SolverException, InterruptedException {
@@ -82,20 +98,20 @@ class StatisticsBasicProverEnvironment<T> implements BasicProverEnvironment<T> {
   @SuppressWarnings("resource")
   @Override
   public Model getModel() throws SolverException {
-    stats.model.getAndIncrement();
+    stats.model.increment();
     return new StatisticsModel(delegate.getModel(), stats);
   }
 
   @Override
   public List<BooleanFormula> getUnsatCore() {
-    stats.unsatCore.getAndIncrement();
+    stats.unsatCore.increment();
     return delegate.getUnsatCore();
   }
 
   @Override
   public Optional<List<BooleanFormula>> unsatCoreOverAssumptions(
       Collection<BooleanFormula> pAssumptions) throws SolverException, InterruptedException {
-    stats.unsatCore.getAndIncrement();
+    stats.unsatCore.increment();
     return delegate.unsatCoreOverAssumptions(pAssumptions);
   }
 
@@ -36,6 +36,7 @@ import org.sosy_lab.java_smt.api.UFManager;
 import org.sosy_lab.java_smt.api.visitors.FormulaTransformationVisitor;
 import org.sosy_lab.java_smt.api.visitors.FormulaVisitor;
 import org.sosy_lab.java_smt.api.visitors.TraversalProcess;
+import org.sosy_lab.java_smt.delegate.statistics.TimerPool.TimerWrapper;
 
 class StatisticsFormulaManager implements FormulaManager {
 
@@ -127,7 +128,14 @@ class StatisticsFormulaManager implements FormulaManager {
 
   @Override
   public BooleanFormula parse(String pS) throws IllegalArgumentException {
-    return delegate.parse(pS);
+    // the formula manager can be shared between threads, thus we use a new timer for each call.
+    TimerWrapper timer = stats.parse.getNewTimer();
+    timer.start();
+    try {
+      return delegate.parse(pS);
+    } finally {
+      timer.stop();
+    }
   }
 
   @Override
@@ -136,7 +144,13 @@ class StatisticsFormulaManager implements FormulaManager {
       @Override
       public void appendTo(Appendable out) throws IOException {
         String dump;
-        dump = delegate.dumpFormula(pT).toString(); // the work is done here
+        TimerWrapper timer = stats.dump.getNewTimer();
+        timer.start();
+        try {
+          dump = delegate.dumpFormula(pT).toString(); // the work is done here
+        } finally {
+          timer.stop();
+        }
         out.append(dump);
       }
     };
@@ -22,68 +22,111 @@ import org.sosy_lab.java_smt.api.Model;
 import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
 import org.sosy_lab.java_smt.api.NumeralFormula.RationalFormula;
 import org.sosy_lab.java_smt.api.StringFormula;
+import org.sosy_lab.java_smt.delegate.statistics.TimerPool.TimerWrapper;
 
 class StatisticsModel implements Model {
 
   private final Model delegate;
   private final SolverStatistics stats;
+  private final TimerWrapper evaluationTimer;
 
   StatisticsModel(Model pDelegate, SolverStatistics pStats) {
     delegate = checkNotNull(pDelegate);
     stats = checkNotNull(pStats);
+    evaluationTimer = stats.evaluation.getNewTimer();
   }
 
   @Override
   public <T extends Formula> @Nullable T eval(T pFormula) {
-    stats.modelEvaluations.getAndIncrement();
-    return delegate.eval(pFormula);
+    stats.modelEvaluations.increment();
+    evaluationTimer.start();
+    try {
+      return delegate.eval(pFormula);
+    } finally {
+      evaluationTimer.stop();
+    }
   }
 
   @Override
   public @Nullable Object evaluate(Formula pF) {
-    stats.modelEvaluations.getAndIncrement();
-    return delegate.evaluate(pF);
+    stats.modelEvaluations.increment();
+    evaluationTimer.start();
+    try {
+      return delegate.evaluate(pF);
+    } finally {
+      evaluationTimer.stop();
+    }
   }
 
   @Override
   public @Nullable BigInteger evaluate(IntegerFormula pF) {
-    stats.modelEvaluations.getAndIncrement();
-    return delegate.evaluate(pF);
+    stats.modelEvaluations.increment();
+    evaluationTimer.start();
+    try {
+      return delegate.evaluate(pF);
+    } finally {
+      evaluationTimer.stop();
+    }
   }
 
   @Override
   public @Nullable Rational evaluate(RationalFormula pF) {
-    stats.modelEvaluations.getAndIncrement();
-    return delegate.evaluate(pF);
+    stats.modelEvaluations.increment();
+    evaluationTimer.start();
+    try {
+      return delegate.evaluate(pF);
+    } finally {
+      evaluationTimer.stop();
+    }
   }
 
   @Override
   public @Nullable Boolean evaluate(BooleanFormula pF) {
-    stats.modelEvaluations.getAndIncrement();
-    return delegate.evaluate(pF);
+    stats.modelEvaluations.increment();
+    evaluationTimer.start();
+    try {
+      return delegate.evaluate(pF);
+    } finally {
+      evaluationTimer.stop();
+    }
   }
 
   @Override
   public @Nullable BigInteger evaluate(BitvectorFormula pF) {
-    stats.modelEvaluations.getAndIncrement();
-    return delegate.evaluate(pF);
+    stats.modelEvaluations.increment();
+    evaluationTimer.start();
+    try {
+      return delegate.evaluate(pF);
+    } finally {
+      evaluationTimer.stop();
+    }
   }
 
   @Override
   public @Nullable String evaluate(StringFormula pF) {
-    stats.modelEvaluations.getAndIncrement();
-    return delegate.evaluate(pF);
+    stats.modelEvaluations.increment();
+    evaluationTimer.start();
+    try {
+      return delegate.evaluate(pF);
+    } finally {
+      evaluationTimer.stop();
+    }
   }
 
   @Override
   public @Nullable String evaluate(EnumerationFormula pF) {
-    stats.modelEvaluations.getAndIncrement();
-    return delegate.evaluate(pF);
+    stats.modelEvaluations.increment();
+    evaluationTimer.start();
+    try {
+      return delegate.evaluate(pF);
+    } finally {
+      evaluationTimer.stop();
+    }
   }
 
   @Override
   public ImmutableList<ValueAssignment> asList() {
-    stats.modelListings.getAndIncrement();
+    stats.modelListings.increment();
     return delegate.asList();
   }
 
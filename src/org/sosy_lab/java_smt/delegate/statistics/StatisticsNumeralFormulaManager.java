@@ -37,127 +37,127 @@ class StatisticsNumeralFormulaManager<
 
   @Override
   public ResultFormulaType makeNumber(long pNumber) {
-    stats.numericOperations.getAndIncrement();
+    stats.numericOperations.increment();
     return delegate.makeNumber(pNumber);
   }
 
   @Override
   public ResultFormulaType makeNumber(BigInteger pNumber) {
-    stats.numericOperations.getAndIncrement();
+    stats.numericOperations.increment();
     return delegate.makeNumber(pNumber);
   }
 
   @Override
   public ResultFormulaType makeNumber(double pNumber) {
-    stats.numericOperations.getAndIncrement();
+    stats.numericOperations.increment();
     return delegate.makeNumber(pNumber);
   }
 
   @Override
   public ResultFormulaType makeNumber(BigDecimal pNumber) {
-    stats.numericOperations.getAndIncrement();
+    stats.numericOperations.increment();
     return delegate.makeNumber(pNumber);
   }
 
   @Override
   public ResultFormulaType makeNumber(String pI) {
-    stats.numericOperations.getAndIncrement();
+    stats.numericOperations.increment();
     return delegate.makeNumber(pI);
   }
 
   @Override
   public ResultFormulaType makeNumber(Rational pRational) {
-    stats.numericOperations.getAndIncrement();
+    stats.numericOperations.increment();
     return delegate.makeNumber(pRational);
   }
 
   @Override
   public ResultFormulaType makeVariable(String pVar) {
-    stats.numericOperations.getAndIncrement();
+    stats.numericOperations.increment();
     return delegate.makeVariable(pVar);
   }
 
   @Override
   public FormulaType<ResultFormulaType> getFormulaType() {
-    stats.numericOperations.getAndIncrement();
+    stats.numericOperations.increment();
     return delegate.getFormulaType();
   }
 
   @Override
   public ResultFormulaType negate(ParamFormulaType pNumber) {
-    stats.numericOperations.getAndIncrement();
+    stats.numericOperations.increment();
     return delegate.negate(pNumber);
   }
 
   @Override
   public ResultFormulaType add(ParamFormulaType pNumber1, ParamFormulaType pNumber2) {
-    stats.numericOperations.getAndIncrement();
+    stats.numericOperations.increment();
     return delegate.add(pNumber1, pNumber2);
   }
 
   @Override
   public ResultFormulaType sum(List<ParamFormulaType> pOperands) {
-    stats.numericOperations.getAndIncrement();
+    stats.numericOperations.increment();
     return delegate.sum(pOperands);
   }
 
   @Override
   public ResultFormulaType subtract(ParamFormulaType pNumber1, ParamFormulaType pNumber2) {
-    stats.numericOperations.getAndIncrement();
+    stats.numericOperations.increment();
     return delegate.subtract(pNumber1, pNumber2);
   }
 
   @Override
   public ResultFormulaType divide(ParamFormulaType pNumber1, ParamFormulaType pNumber2) {
-    stats.numericOperations.getAndIncrement();
+    stats.numericOperations.increment();
     return delegate.divide(pNumber1, pNumber2);
   }
 
   @Override
   public ResultFormulaType multiply(ParamFormulaType pNumber1, ParamFormulaType pNumber2) {
-    stats.numericOperations.getAndIncrement();
+    stats.numericOperations.increment();
     return delegate.multiply(pNumber1, pNumber2);
   }
 
   @Override
   public BooleanFormula equal(ParamFormulaType pNumber1, ParamFormulaType pNumber2) {
-    stats.numericOperations.getAndIncrement();
+    stats.numericOperations.increment();
     return delegate.equal(pNumber1, pNumber2);
   }
 
   @Override
   public BooleanFormula distinct(List<ParamFormulaType> pNumbers) {
-    stats.numericOperations.getAndIncrement();
+    stats.numericOperations.increment();
     return delegate.distinct(pNumbers);
   }
 
   @Override
   public BooleanFormula greaterThan(ParamFormulaType pNumber1, ParamFormulaType pNumber2) {
-    stats.numericOperations.getAndIncrement();
+    stats.numericOperations.increment();
     return delegate.greaterThan(pNumber1, pNumber2);
   }
 
   @Override
   public BooleanFormula greaterOrEquals(ParamFormulaType pNumber1, ParamFormulaType pNumber2) {
-    stats.numericOperations.getAndIncrement();
+    stats.numericOperations.increment();
     return delegate.greaterOrEquals(pNumber1, pNumber2);
   }
 
   @Override
   public BooleanFormula lessThan(ParamFormulaType pNumber1, ParamFormulaType pNumber2) {
-    stats.numericOperations.getAndIncrement();
+    stats.numericOperations.increment();
     return delegate.lessThan(pNumber1, pNumber2);
   }
 
   @Override
   public BooleanFormula lessOrEquals(ParamFormulaType pNumber1, ParamFormulaType pNumber2) {
-    stats.numericOperations.getAndIncrement();
+    stats.numericOperations.increment();
     return delegate.lessOrEquals(pNumber1, pNumber2);
   }
 
   @Override
   public IntegerFormula floor(ParamFormulaType pNumber) {
-    stats.numericOperations.getAndIncrement();
+    stats.numericOperations.increment();
     return delegate.floor(pNumber);
   }
 }
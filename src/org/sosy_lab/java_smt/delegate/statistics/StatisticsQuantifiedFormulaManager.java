@@ -29,14 +29,14 @@ class StatisticsQuantifiedFormulaManager implements QuantifiedFormulaManager {
   @Override
   public BooleanFormula mkQuantifier(
       Quantifier pQ, List<? extends Formula> pVariables, BooleanFormula pBody) {
-    stats.quantifierOperations.getAndIncrement();
+    stats.quantifierOperations.increment();
     return delegate.mkQuantifier(pQ, pVariables, pBody);
   }
 
   @Override
   public BooleanFormula eliminateQuantifiers(BooleanFormula pF)
       throws InterruptedException, SolverException {
-    stats.quantifierOperations.getAndIncrement();
+    stats.quantifierOperations.increment();
     return delegate.eliminateQuantifiers(pF);
   }
 }
@@ -28,19 +28,19 @@ class StatisticsSLFormulaManager implements SLFormulaManager {
 
   @Override
   public BooleanFormula makeStar(BooleanFormula pF1, BooleanFormula pF2) {
-    stats.slOperations.getAndIncrement();
+    stats.slOperations.increment();
     return delegate.makeStar(pF1, pF2);
   }
 
   @Override
   public <AF extends Formula, VF extends Formula> BooleanFormula makePointsTo(AF pPtr, VF pTo) {
-    stats.slOperations.getAndIncrement();
+    stats.slOperations.increment();
     return delegate.makePointsTo(pPtr, pTo);
   }
 
   @Override
   public BooleanFormula makeMagicWand(BooleanFormula pF1, BooleanFormula pF2) {
-    stats.slOperations.getAndIncrement();
+    stats.slOperations.increment();
     return delegate.makeMagicWand(pF1, pF2);
   }
 
@@ -51,13 +51,13 @@ class StatisticsSLFormulaManager implements SLFormulaManager {
           AT extends FormulaType<AF>,
           VT extends FormulaType<VF>>
       BooleanFormula makeEmptyHeap(AT pAdressType, VT pValueType) {
-    stats.slOperations.getAndIncrement();
+    stats.slOperations.increment();
     return delegate.makeEmptyHeap(pAdressType, pValueType);
   }
 
   @Override
   public <AF extends Formula, AT extends FormulaType<AF>> AF makeNilElement(AT pAdressType) {
-    stats.slOperations.getAndIncrement();
+    stats.slOperations.increment();
     return delegate.makeNilElement(pAdressType);
   }
 }
@@ -29,41 +29,41 @@ class StatisticsUFManager implements UFManager {
   @Override
   public <T extends Formula> FunctionDeclaration<T> declareUF(
       String pName, FormulaType<T> pReturnType, List<FormulaType<?>> pArgs) {
-    stats.ufOperations.getAndIncrement();
+    stats.ufOperations.increment();
     return delegate.declareUF(pName, pReturnType, pArgs);
   }
 
   @Override
   public <T extends Formula> FunctionDeclaration<T> declareUF(
       String pName, FormulaType<T> pReturnType, FormulaType<?>... pArgs) {
-    stats.ufOperations.getAndIncrement();
+    stats.ufOperations.increment();
     return delegate.declareUF(pName, pReturnType, pArgs);
   }
 
   @Override
   public <T extends Formula> T callUF(
       FunctionDeclaration<T> pFuncType, List<? extends Formula> pArgs) {
-    stats.ufOperations.getAndIncrement();
+    stats.ufOperations.increment();
     return delegate.callUF(pFuncType, pArgs);
   }
 
   @Override
   public <T extends Formula> T callUF(FunctionDeclaration<T> pFuncType, Formula... pArgs) {
-    stats.ufOperations.getAndIncrement();
+    stats.ufOperations.increment();
     return delegate.callUF(pFuncType, pArgs);
   }
 
   @Override
   public <T extends Formula> T declareAndCallUF(
       String pName, FormulaType<T> pReturnType, List<Formula> pArgs) {
-    stats.ufOperations.getAndIncrement();
+    stats.ufOperations.increment();
     return delegate.declareAndCallUF(pName, pReturnType, pArgs);
   }
 
   @Override
   public <T extends Formula> T declareAndCallUF(
       String pName, FormulaType<T> pReturnType, Formula... pArgs) {
-    stats.ufOperations.getAndIncrement();
+    stats.ufOperations.increment();
     return delegate.declareAndCallUF(pName, pReturnType, pArgs);
   }
 }
@@ -11,96 +11,94 @@ package org.sosy_lab.java_smt.delegate.statistics;
 import java.lang.ref.Reference;
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
-import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
-import java.util.function.BiFunction;
-import java.util.function.Function;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 import org.sosy_lab.common.time.TimeSpan;
-import org.sosy_lab.common.time.Timer;
 
+/**
+ * A pool of timers that accumulates the intervals of all its timers.
+ *
+ * <p>Each finished interval is directly added to striped accumulators ({@link LongAdder} and {@link
+ * LongAccumulator}), such that many threads can use their own timers from the same pool without
+ * contention. Timers do not need to be registered or cleaned up, only currently running timers are
+ * tracked, such that their current intervals can be included when reading the values. Running
+ * timers are only referenced weakly, a timer that is garbage collected while running ends its
+ * interval when the pool notices this.
+ *
+ * <p>Reading the values does not block any timer. An interval that finishes concurrently to a read
+ * is counted either as running or as finished, but never twice. Only its length can be missing from
+ * the sum for a very short moment while the timer stops.
+ */
 public class TimerPool {
 
-  /** We assume one common unit for all sub-timers. */
-  private static final TimeUnit UNIT = new Timer().getMaxTime().getUnit();
+  /** We use one common unit for all timers. */
+  private static final TimeUnit UNIT = TimeUnit.NANOSECONDS;
 
-  /**
-   * This map contains all usable timers.
-   *
-   * <p>We use WeakReferences to avoid memory leak when deleting timers. WeakReference allows us to
-   * access the wrapped Timer before GC.
-   */
-  private final IdentityHashMap<WeakReference<TimerWrapper>, Timer> activeTimers =
-      new IdentityHashMap<>();
+  private static final long NOT_RUNNING = -1;
 
-  private final ReferenceQueue<TimerWrapper> referenceQueue = new ReferenceQueue<>();
+  /** The intervals of all timers that are currently running. */
+  private final Set<Interval> runningIntervals = ConcurrentHashMap.newKeySet();
 
-  /**
-   * The sum of times of all intervals. This field should be accessed through {@link #getSumTime()}
-   * to account for a currently running interval.
-   */
-  private long sumTime = 0;
+  /** The intervals of all timers that were garbage collected. */
+  private final ReferenceQueue<TimerWrapper> collectedTimers = new ReferenceQueue<>();
 
-  /** The maximal time of all intervals. */
-  private long maxTime = 0;
+  /** The sum of times of all finished intervals. */
+  private final LongAdder sumTime = new LongAdder();
 
-  /**
-   * The number of intervals. This field should be accessed through {@link #getNumberOfIntervals()}
-   * to account for a currently running interval.
-   */
-  private int numberOfIntervals = 0;
+  /** The maximal time of all finished intervals. */
+  private final LongAccumulator maxTime = new LongAccumulator(Math::max, 0);
+
+  /** The number of intervals, including currently running ones. */
+  private final LongAdder numberOfIntervals = new LongAdder();
+
+  /** The distribution of the lengths of all finished intervals. */
+  private final LatencyHistogram histogram = new LatencyHistogram(UNIT);
 
   public TimerPool() {}
 
   public TimerWrapper getNewTimer() {
-    cleanupReferences();
-    Timer timer = new Timer();
-    TimerWrapper wrapper = new TimerWrapper(timer);
-    assert UNIT == timer.getSumTime().getUnit() : "sub-timers should use same unit";
-    synchronized (activeTimers) {
-      activeTimers.put(new WeakReference<>(wrapper, referenceQueue), timer);
-    }
-    return wrapper;
+    finishCollectedTimers();
+    return new TimerWrapper(this);
   }
 
-  private void cleanupReferences() {
-    Reference<? extends TimerWrapper> ref;
-    while ((ref = referenceQueue.poll()) != null) {
-      synchronized (activeTimers) {
-        closeTimer(activeTimers.remove(ref));
+  /** End the intervals of all timers that were garbage collected while running. */
+  private void finishCollectedTimers() {
+    for (Reference<? extends TimerWrapper> ref = collectedTimers.poll();
+        ref != null;
+        ref = collectedTimers.poll()) {
+      Interval interval = (Interval) ref;
+      if (runningIntervals.contains(interval)) {
+        finish(interval, System.nanoTime());
       }
     }
   }
 
-  /** Stop the given Timer and collect its values. */
-  private void closeTimer(Timer timer) {
-    timer.stopIfRunning();
-    sumTime += convert(timer.getSumTime());
-    maxTime = Math.max(maxTime, convert(timer.getMaxTime()));
-    numberOfIntervals += timer.getNumberOfIntervals();
+  /** End the given running interval and add it to the finished intervals. */
+  private void finish(Interval pInterval, long pNow) {
+    long length = pNow - pInterval.startTime;
+    // First mark as stopped, such that concurrent reads do not count this interval twice.
+    pInterval.startTime = NOT_RUNNING;
+    runningIntervals.remove(pInterval);
+    sumTime.add(length);
+    maxTime.accumulate(length);
+    histogram.record(length);
   }
 
-  private long convert(TimeSpan time) {
-    // we assume the same unit for all sub-timers.
-    return time.getSaturated(UNIT);
-  }
-
-  private long eval(Function<Timer, Long> f, BiFunction<Long, Long, Long> acc) {
-    long currentInterval = 0;
-    for (Timer timer : activeTimers.values()) {
-      currentInterval = acc.apply(currentInterval, f.apply(timer));
-    }
-    return currentInterval;
-  }
-
-  /*
+  /**
    * Return the sum of all intervals. If timers are running, the current intervals are also counted
    * (up to the current time). If no timer was started, this method returns 0.
    */
   public TimeSpan getSumTime() {
-    cleanupReferences();
-    synchronized (activeTimers) {
-      return export(sumTime + eval(t -> convert(t.getSumTime()), Math::addExact));
+    finishCollectedTimers();
+    long now = System.nanoTime();
+    long sum = sumTime.sum();
+    for (Interval interval : runningIntervals) {
+      sum += interval.currentLength(now);
     }
+    return export(sum);
   }
 
   /**
@@ -108,10 +106,13 @@ public class TimerPool {
    * counted (up to the current time). If no timer was started, this method returns 0.
    */
   public TimeSpan getMaxTime() {
-    cleanupReferences();
-    synchronized (activeTimers) {
-      return export(Math.max(maxTime, eval(t -> convert(t.getMaxTime()), Math::max)));
+    finishCollectedTimers();
+    long now = System.nanoTime();
+    long max = maxTime.get();
+    for (Interval interval : runningIntervals) {
+      max = Math.max(max, interval.currentLength(now));
     }
+    return export(max);
   }
 
   /**
@@ -119,10 +120,15 @@ public class TimerPool {
    * If no timer was started, this method returns 0.
    */
   public int getNumberOfIntervals() {
-    cleanupReferences();
-    synchronized (activeTimers) {
-      return (int) (numberOfIntervals + eval(t -> (long) t.getNumberOfIntervals(), Math::addExact));
-    }
+    return numberOfIntervals.intValue();
+  }
+
+  /**
+   * Return the distribution of the lengths of all finished intervals. Currently running intervals
+   * are not included.
+   */
+  public LatencyHistogram getHistogram() {
+    return histogram;
   }
 
   private TimeSpan export(long time) {
@@ -131,24 +137,56 @@ public class TimerPool {
 
   @Override
   public String toString() {
-    cleanupReferences();
     return getSumTime().formatAs(TimeUnit.SECONDS);
   }
 
-  /** A minimal wrapper to keep a reference on the timer and provide a limited view. */
+  /**
+   * The current interval of a timer. It only references the timer weakly, such that a timer that is
+   * never stopped can still be garbage collected.
+   */
+  private static final class Interval extends WeakReference<TimerWrapper> {
+
+    /** Start of the current interval, or {@link #NOT_RUNNING}. */
+    private volatile long startTime = NOT_RUNNING;
+
+    private Interval(TimerWrapper pTimer, ReferenceQueue<TimerWrapper> pQueue) {
+      super(pTimer, pQueue);
+    }
+
+    private long currentLength(long now) {
+      long start = startTime;
+      return start == NOT_RUNNING ? 0 : Math.max(0, now - start);
+    }
+  }
+
+  /**
+   * A minimal timer that reports its intervals to the pool. A single timer must not be started
+   * concurrently from several threads, but different timers of the same pool can be used in
+   * parallel.
+   */
   public static class TimerWrapper {
-    private final Timer timer;
+    private final TimerPool pool;
+    private final Interval interval;
 
-    TimerWrapper(Timer pTimer) {
-      timer = pTimer;
+    TimerWrapper(TimerPool pPool) {
+      pool = pPool;
+      interval = new Interval(this, pPool.collectedTimers);
     }
 
     public void start() {
-      timer.start();
+      if (interval.startTime != NOT_RUNNING) {
+        throw new IllegalStateException("Timer already running");
+      }
+      pool.numberOfIntervals.increment();
+      interval.startTime = System.nanoTime();
+      pool.runningIntervals.add(interval);
     }
 
     public void stop() {
-      timer.stop();
+      if (interval.startTime == NOT_RUNNING) {
+        throw new IllegalStateException("Timer not running");
+      }
+      pool.finish(interval, System.nanoTime());
     }
   }
 }
@@ -0,0 +1,58 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.delegate.statistics;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.testing.GcFinalization;
+import java.lang.ref.WeakReference;
+import org.junit.Test;
+import org.sosy_lab.common.time.TimeSpan;
+import org.sosy_lab.java_smt.delegate.statistics.TimerPool.TimerWrapper;
+
+public class TimerPoolTest {
+
+  @Test
+  public void intervalsOfAllTimersAreCounted() {
+    TimerPool pool = new TimerPool();
+    TimerWrapper timer1 = pool.getNewTimer();
+    TimerWrapper timer2 = pool.getNewTimer();
+    timer1.start();
+    timer2.start();
+    timer1.stop();
+    assertThat(pool.getNumberOfIntervals()).isEqualTo(2);
+    assertThat(pool.getHistogram().snapshot().getCount()).isEqualTo(1);
+    timer2.stop();
+    assertThat(pool.getHistogram().snapshot().getCount()).isEqualTo(2);
+    assertThat(pool.getSumTime()).isEqualTo(pool.getHistogram().snapshot().getSum());
+  }
+
+  @Test
+  public void runningTimerCanBeCollected() {
+    TimerPool pool = new TimerPool();
+    WeakReference<TimerWrapper> timer = startAbandonedTimer(pool);
+    GcFinalization.awaitClear(timer);
+
+    // the interval of the collected timer ends when the pool notices the collection
+    GcFinalization.awaitDone(
+        () -> {
+          pool.getNewTimer();
+          return pool.getHistogram().snapshot().getCount() == 1;
+        });
+    TimeSpan sum = pool.getSumTime();
+    assertThat(pool.getSumTime()).isEqualTo(sum);
+    assertThat(pool.getNumberOfIntervals()).isEqualTo(1);
+  }
+
+  private static WeakReference<TimerWrapper> startAbandonedTimer(TimerPool pPool) {
+    TimerWrapper timer = pPool.getNewTimer();
+    timer.start();
+    return new WeakReference<>(timer);
+  }
+}
@@ -11,6 +11,7 @@ package org.sosy_lab.java_smt.delegate.synchronize;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.common.collect.ImmutableMap;
+import java.time.Duration;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
@@ -66,6 +67,19 @@ class SynchronizedBasicProverEnvironment<T> implements BasicProverEnvironment<T>
     }
   }
 
+  @Override
+  public boolean isUnsat(Duration pTimeout) throws SolverException, InterruptedException {
+    synchronized (sync) {
+      return delegate.isUnsat(pTimeout);
+    }
+  }
+
+  @Override
+  public @Nullable Runnable getInterruptCall() {
+    // not synchronized, because the interrupt is sent while a check holds the lock
+    return delegate.getInterruptCall();
+  }
+
   @Override
   public boolean isUnsatWithAssumptions(Collection<BooleanFormula> pAssumptions)
       throws SolverException, InterruptedException {
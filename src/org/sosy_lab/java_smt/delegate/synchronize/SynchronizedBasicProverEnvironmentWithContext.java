@@ -12,6 +12,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import java.time.Duration;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
@@ -30,6 +31,13 @@ class SynchronizedBasicProverEnvironmentWithContext<T> implements BasicProverEnv
   final FormulaManager otherManager;
   final SolverContext sync;
 
+  /**
+   * Guards all accesses to the separate context of this prover, including its models. The separate
+   * context is only used by this prover, thus a running query does not block the shared context.
+   * The shared lock is only taken for translating formulas, and always after this lock.
+   */
+  final Object proverLock = new Object();
+
   SynchronizedBasicProverEnvironmentWithContext(
       BasicProverEnvironment<T> pDelegate,
       SolverContext pSync,
@@ -41,6 +49,7 @@ class SynchronizedBasicProverEnvironmentWithContext<T> implements BasicProverEnv
     otherManager = checkNotNull(pOtherManager);
   }
 
+  /** Translate formulas between the shared and the separate context, requires the prover lock. */
   List<BooleanFormula> translate(
       Collection<BooleanFormula> fs, FormulaManager from, FormulaManager to) {
     ImmutableList.Builder<BooleanFormula> result = ImmutableList.builder();
@@ -54,83 +63,111 @@ class SynchronizedBasicProverEnvironmentWithContext<T> implements BasicProverEnv
 
   @Override
   public void pop() {
-    delegate.pop();
+    synchronized (proverLock) {
+      delegate.pop();
+    }
   }
 
   @Override
   public @Nullable T addConstraint(BooleanFormula pConstraint) throws InterruptedException {
-    BooleanFormula constraint;
-    synchronized (sync) {
-      constraint = otherManager.translateFrom(pConstraint, manager);
+    synchronized (proverLock) {
+      BooleanFormula constraint;
+      synchronized (sync) {
+        constraint = otherManager.translateFrom(pConstraint, manager);
+      }
+      return delegate.addConstraint(constraint);
     }
-    return delegate.addConstraint(constraint);
   }
 
   @Override
   public void push() throws InterruptedException {
-    delegate.push();
+    synchronized (proverLock) {
+      delegate.push();
+    }
   }
 
   @Override
   public int size() {
-    synchronized (sync) {
+    synchronized (proverLock) {
       return delegate.size();
     }
   }
 
   @Override
   public boolean isUnsat() throws SolverException, InterruptedException {
-    return delegate.isUnsat();
+    synchronized (proverLock) {
+      return delegate.isUnsat();
+    }
+  }
+
+  @Override
+  public boolean isUnsat(Duration pTimeout) throws SolverException, InterruptedException {
+    synchronized (proverLock) {
+      return delegate.isUnsat(pTimeout);
+    }
+  }
+
+  @Override
+  public @Nullable Runnable getInterruptCall() {
+    // not synchronized, because the interrupt is sent while a check holds the lock
+    return delegate.getInterruptCall();
   }
 
   @Override
   public boolean isUnsatWithAssumptions(Collection<BooleanFormula> pAssumptions)
       throws SolverException, InterruptedException {
-    return delegate.isUnsatWithAssumptions(translate(pAssumptions, manager, otherManager));
+    synchronized (proverLock) {
+      return delegate.isUnsatWithAssumptions(translate(pAssumptions, manager, otherManager));
+    }
   }
 
   @SuppressWarnings("resource")
   @Override
   public Model getModel() throws SolverException {
-    synchronized (sync) {
-      return new SynchronizedModelWithContext(delegate.getModel(), sync, manager, otherManager);
+    synchronized (proverLock) {
+      return new SynchronizedModelWithContext(
+          delegate.getModel(), sync, proverLock, manager, otherManager);
     }
   }
 
   @Override
   public List<BooleanFormula> getUnsatCore() {
-    return translate(delegate.getUnsatCore(), otherManager, manager);
+    synchronized (proverLock) {
+      return translate(delegate.getUnsatCore(), otherManager, manager);
+    }
   }
 
   @Override
   public Optional<List<BooleanFormula>> unsatCoreOverAssumptions(
       Collection<BooleanFormula> pAssumptions) throws SolverException, InterruptedException {
-    Optional<List<BooleanFormula>> core =
-        delegate.unsatCoreOverAssumptions(translate(pAssumptions, manager, otherManager));
-    if (core.isPresent()) {
-      return Optional.of(translate(core.orElseThrow(), otherManager, manager));
-    } else {
-      return Optional.empty();
+    synchronized (proverLock) {
+      Optional<List<BooleanFormula>> core =
+          delegate.unsatCoreOverAssumptions(translate(pAssumptions, manager, otherManager));
+      if (core.isPresent()) {
+        return Optional.of(translate(core.orElseThrow(), otherManager, manager));
+      } else {
+        return Optional.empty();
+      }
     }
   }
 
   @Override
   public ImmutableMap<String, String> getStatistics() {
-    synchronized (sync) {
+    synchronized (proverLock) {
       return delegate.getStatistics();
     }
   }
 
   @Override
   public void close() {
-    synchronized (sync) {
+    synchronized (proverLock) {
       delegate.close();
     }
   }
 
   @Override
   public String toString() {
-    synchronized (sync) {
+    synchronized (proverLock) {
       return delegate.toString();
     }
   }
@@ -139,7 +176,7 @@ class SynchronizedBasicProverEnvironmentWithContext<T> implements BasicProverEnv
   public <R> R allSat(AllSatCallback<R> pCallback, List<BooleanFormula> pImportant)
       throws InterruptedException, SolverException {
     AllSatCallback<R> callback = new AllSatCallbackWithContext<>(pCallback);
-    synchronized (sync) {
+    synchronized (proverLock) {
       return delegate.allSat(callback, translate(pImportant, manager, otherManager));
     }
   }
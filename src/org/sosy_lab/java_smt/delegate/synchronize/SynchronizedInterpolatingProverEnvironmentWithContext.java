@@ -36,20 +36,31 @@ class SynchronizedInterpolatingProverEnvironmentWithContext<T>
   @Override
   public BooleanFormula getInterpolant(Collection<T> pFormulasOfA)
       throws SolverException, InterruptedException {
-    return manager.translateFrom(delegate.getInterpolant(pFormulasOfA), otherManager);
+    synchronized (proverLock) {
+      BooleanFormula interpolant = delegate.getInterpolant(pFormulasOfA);
+      synchronized (sync) {
+        return manager.translateFrom(interpolant, otherManager);
+      }
+    }
   }
 
   @Override
   public List<BooleanFormula> getSeqInterpolants(List<? extends Collection<T>> pPartitionedFormulas)
       throws SolverException, InterruptedException {
-    return translate(delegate.getSeqInterpolants(pPartitionedFormulas), otherManager, manager);
+    synchronized (proverLock) {
+      return translate(delegate.getSeqInterpolants(pPartitionedFormulas), otherManager, manager);
+    }
   }
 
   @Override
   public List<BooleanFormula> getTreeInterpolants(
       List<? extends Collection<T>> pPartitionedFormulas, int[] pStartOfSubTree)
       throws SolverException, InterruptedException {
-    return translate(
-        delegate.getTreeInterpolants(pPartitionedFormulas, pStartOfSubTree), otherManager, manager);
+    synchronized (proverLock) {
+      return translate(
+          delegate.getTreeInterpolants(pPartitionedFormulas, pStartOfSubTree),
+          otherManager,
+          manager);
+    }
   }
 }
@@ -32,13 +32,19 @@ class SynchronizedModelWithContext implements Model {
 
   private final Model delegate;
   private final SolverContext sync;
+  private final Object proverLock;
   private final FormulaManager manager;
   private final FormulaManager otherManager;
 
   SynchronizedModelWithContext(
-      Model pDelegate, SolverContext pSync, FormulaManager pManager, FormulaManager pOtherManager) {
+      Model pDelegate,
+      SolverContext pSync,
+      Object pProverLock,
+      FormulaManager pManager,
+      FormulaManager pOtherManager) {
     delegate = checkNotNull(pDelegate);
     sync = checkNotNull(pSync);
+    proverLock = checkNotNull(pProverLock);
     manager = checkNotNull(pManager);
     otherManager = checkNotNull(pOtherManager);
   }
@@ -65,11 +71,13 @@ class SynchronizedModelWithContext implements Model {
 
   @Override
   public @Nullable Boolean evaluate(BooleanFormula pF) {
-    BooleanFormula f;
-    synchronized (sync) {
-      f = otherManager.translateFrom(pF, manager);
+    synchronized (proverLock) {
+      BooleanFormula f;
+      synchronized (sync) {
+        f = otherManager.translateFrom(pF, manager);
+      }
+      return delegate.evaluate(f);
     }
-    return delegate.evaluate(f);
   }
 
   @Override
@@ -113,7 +121,7 @@ class SynchronizedModelWithContext implements Model {
 
   @Override
   public void close() {
-    synchronized (sync) {
+    synchronized (proverLock) {
       delegate.close();
     }
   }
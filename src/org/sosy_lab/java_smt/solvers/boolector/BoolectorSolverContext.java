@@ -17,6 +17,8 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
@@ -113,6 +115,10 @@ public final class BoolectorSolverContext extends AbstractSolverContext {
     return Solvers.BOOLECTOR;
   }
 
+  /** The memory of the Boolector instance in megabytes, printed in the locale of the process. */
+  private static final Pattern MEMORY_STATISTICS =
+      Pattern.compile("^\\[btor>core\\] (\\d+[.,]\\d+) MB\\s*\\z", Pattern.MULTILINE);
+
   /**
    * Boolector returns a pre-formatted text for statistics. We might need to parse it. Example:
    *
@@ -184,8 +190,14 @@ public final class BoolectorSolverContext extends AbstractSolverContext {
     // then parse them into a map
     // TODO ... forget it, Boolector dumps it in human-readable form,
     // there is no simple way of converting it into a key-value-mapping.
-
-    return ImmutableMap.of("statistics", stats);
+    // Only the memory of this instance is extracted, which is the last line of the statistics.
+    ImmutableMap.Builder<String, String> builder = ImmutableMap.builder();
+    builder.put("statistics", stats);
+    Matcher memory = MEMORY_STATISTICS.matcher(stats);
+    if (memory.find()) {
+      builder.put("memory", memory.group(1).replace(',', '.'));
+    }
+    return builder.buildOrThrow();
   }
 
   @Override
@@ -199,6 +199,11 @@ class CVC4TheoremProver extends AbstractProverWithAllSat<Void>
     return convertSatResult(result);
   }
 
+  @Override
+  public Runnable getInterruptCall() {
+    return smtEngine::interrupt;
+  }
+
   private boolean convertSatResult(Result result) throws InterruptedException, SolverException {
     if (result.isUnknown()) {
       if (result.whyUnknown().equals(Result.UnknownExplanation.INTERRUPTED)) {
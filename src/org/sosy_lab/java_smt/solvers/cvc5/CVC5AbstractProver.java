@@ -16,6 +16,7 @@ import io.github.cvc5.Result;
 import io.github.cvc5.Solver;
 import io.github.cvc5.Term;
 import io.github.cvc5.UnknownExplanation;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -30,6 +31,7 @@ import org.sosy_lab.java_smt.api.Model.ValueAssignment;
 import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
 import org.sosy_lab.java_smt.api.SolverException;
 import org.sosy_lab.java_smt.basicimpl.AbstractProverWithAllSat;
+import org.sosy_lab.java_smt.basicimpl.DeadlineTimer;
 
 public class CVC5AbstractProver<T> extends AbstractProverWithAllSat<T> {
 
@@ -162,6 +164,19 @@ public class CVC5AbstractProver<T> extends AbstractProverWithAllSat<T> {
   @Override
   @SuppressWarnings("try")
   public boolean isUnsat() throws InterruptedException, SolverException {
+    return checkSat(null);
+  }
+
+  /** CVC5 can not be interrupted, thus we use its native per-query time limit "tlimit-per". */
+  @Override
+  public boolean isUnsat(Duration pTimeout) throws InterruptedException, SolverException {
+    DeadlineTimer.checkTimeout(pTimeout);
+    return checkSat(pTimeout);
+  }
+
+  /** Check the asserted formulas, with a time limit if one is given. */
+  private boolean checkSat(@Nullable Duration pTimeout)
+      throws InterruptedException, SolverException {
     Preconditions.checkState(!closed);
     closeAllEvaluators();
     changedSinceLastSatQuery = false;
@@ -170,8 +185,23 @@ public class CVC5AbstractProver<T> extends AbstractProverWithAllSat<T> {
     }
 
     /* Shutdown currently not possible in CVC5. */
-    Result result = solver.checkSat();
+    Result result;
+    if (pTimeout == null) {
+      result = solver.checkSat();
+    } else {
+      solver.setOption("tlimit-per", String.valueOf(DeadlineTimer.toMillis(pTimeout)));
+      try {
+        result = solver.checkSat();
+      } finally {
+        solver.setOption("tlimit-per", "0"); // no limit
+      }
+    }
     shutdownNotifier.shutdownIfNecessary();
+    if (pTimeout != null
+        && result.isUnknown()
+        && result.getUnknownExplanation() == UnknownExplanation.TIMEOUT) {
+      throw DeadlineTimer.timeoutException(pTimeout, null);
+    }
     return convertSatResult(result);
   }
 
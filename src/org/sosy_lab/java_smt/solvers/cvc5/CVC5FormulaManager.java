@@ -25,6 +25,7 @@ import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.Formula;
 import org.sosy_lab.java_smt.api.FormulaType;
 import org.sosy_lab.java_smt.basicimpl.AbstractFormulaManager;
+import org.sosy_lab.java_smt.basicimpl.SmtLibWriter;
 
 class CVC5FormulaManager extends AbstractFormulaManager<Term, Sort, Solver, Term> {
 
@@ -77,7 +78,14 @@ class CVC5FormulaManager extends AbstractFormulaManager<Term, Sort, Solver, Term
   public Appender dumpFormula(Term f) {
     assert getFormulaCreator().getFormulaType(f) == FormulaType.BooleanType
         : "Only BooleanFormulas may be dumped";
+    return new SmtLibWriter(this, creator.encapsulateBoolean(f), dumpUnfoldedFormula(f));
+  }
 
+  /**
+   * Dump the formula with CVC5's printer, which does not preserve sharing. This is only used for
+   * formulas that are not supported by {@link SmtLibWriter}.
+   */
+  private Appender dumpUnfoldedFormula(Term f) {
     return new Appenders.AbstractAppender() {
 
       @Override
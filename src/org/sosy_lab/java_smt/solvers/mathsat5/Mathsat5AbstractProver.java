@@ -34,6 +34,7 @@ import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.primitives.Longs;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -49,8 +50,11 @@ import org.sosy_lab.java_smt.api.Model;
 import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
 import org.sosy_lab.java_smt.api.SolverException;
 import org.sosy_lab.java_smt.basicimpl.AbstractProver;
+import org.sosy_lab.java_smt.basicimpl.AllSatCallbackIterator;
 import org.sosy_lab.java_smt.basicimpl.CachingModel;
+import org.sosy_lab.java_smt.basicimpl.DeadlineTimer;
 import org.sosy_lab.java_smt.solvers.mathsat5.Mathsat5NativeApi.AllSatModelCallback;
+import org.sosy_lab.java_smt.solvers.mathsat5.Mathsat5NativeApi.TerminationCallback;
 
 /** Common base class for {@link Mathsat5TheoremProver} and {@link Mathsat5InterpolatingProver}. */
 abstract class Mathsat5AbstractProver<T2> extends AbstractProver<T2> {
@@ -108,6 +112,29 @@ abstract class Mathsat5AbstractProver<T2> extends AbstractProver<T2> {
     }
   }
 
+  @Override
+  public boolean isUnsat(Duration pTimeout) throws InterruptedException, SolverException {
+    Preconditions.checkState(!closed);
+    DeadlineTimer.checkTimeout(pTimeout);
+
+    // MathSAT polls the termination callback, thus we do not need a timer.
+    final long deadline = System.nanoTime() + pTimeout.toNanos();
+    final TerminationCallback contextTest = context.getTerminationTest();
+    final long hook =
+        msat_set_termination_callback(
+            curEnv, () -> contextTest.shouldTerminate() || System.nanoTime() - deadline > 0);
+    try {
+      return !msat_check_sat(curEnv);
+    } catch (IllegalStateException | SolverException e) {
+      if (System.nanoTime() - deadline > 0) {
+        throw DeadlineTimer.timeoutException(pTimeout, e);
+      }
+      throw e;
+    } finally {
+      msat_free_termination_callback(hook);
+    }
+  }
+
   @Override
   public boolean isUnsatWithAssumptions(Collection<BooleanFormula> pAssumptions)
       throws SolverException, InterruptedException {
@@ -248,8 +275,13 @@ abstract class Mathsat5AbstractProver<T2> extends AbstractProver<T2> {
     }
     MathsatAllSatCallback<T> uCallback = new MathsatAllSatCallback<>(callback);
     push();
-    int numModels = msat_all_sat(curEnv, imp, uCallback);
-    pop();
+    int numModels;
+    try {
+      numModels = msat_all_sat(curEnv, imp, uCallback);
+    } finally {
+      // an exception of the callback stops the computation
+      pop();
+    }
 
     if (numModels == -1) {
       throw new SolverException(
@@ -264,6 +296,17 @@ abstract class Mathsat5AbstractProver<T2> extends AbstractProver<T2> {
     return callback.getResult();
   }
 
+  /**
+   * MathSAT computes all models within one native call. We run it on a separate thread that waits
+   * within the callback, such that the next model is only computed on demand.
+   */
+  @Override
+  public AllSatIterator allSatIterator(List<BooleanFormula> important) {
+    Preconditions.checkState(!closed);
+    checkGenerateAllSat();
+    return new AllSatCallbackIterator(this, important);
+  }
+
   class MathsatAllSatCallback<T> implements AllSatModelCallback {
     private final AllSatCallback<T> clientCallback;
 
@@ -128,7 +128,7 @@ final class Mathsat5FormulaManager extends AbstractFormulaManager<Long, Long, Lo
   }
 
   @Override
-  public BooleanFormula translateFrom(BooleanFormula formula, FormulaManager otherManager) {
+  protected BooleanFormula translateFromImpl(BooleanFormula formula, FormulaManager otherManager) {
     if (otherManager instanceof Mathsat5FormulaManager) {
       long otherMsatContext = ((Mathsat5FormulaManager) otherManager).getEnvironment();
       if (otherMsatContext == getEnvironment()) {
@@ -143,6 +143,6 @@ final class Mathsat5FormulaManager extends AbstractFormulaManager<Long, Long, Lo
         return getFormulaCreator().encapsulateBoolean(translatedFormula);
       }
     }
-    return super.translateFrom(formula, otherManager);
+    return super.translateFromImpl(formula, otherManager);
   }
 }
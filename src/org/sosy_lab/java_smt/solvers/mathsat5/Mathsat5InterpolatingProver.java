@@ -158,4 +158,10 @@ class Mathsat5InterpolatingProver extends Mathsat5AbstractProver<Integer>
     throw new UnsupportedOperationException(
         "allsat computation is not possible with interpolation prover.");
   }
+
+  @Override
+  public AllSatIterator allSatIterator(List<BooleanFormula> important) {
+    throw new UnsupportedOperationException(
+        "allsat computation is not possible with interpolation prover.");
+  }
 }
@@ -15,6 +15,7 @@ import static org.sosy_lab.java_smt.solvers.mathsat5.Mathsat5NativeApi.msat_crea
 import static org.sosy_lab.java_smt.solvers.mathsat5.Mathsat5NativeApi.msat_create_shared_opt_env;
 import static org.sosy_lab.java_smt.solvers.mathsat5.Mathsat5NativeApi.msat_destroy_config;
 import static org.sosy_lab.java_smt.solvers.mathsat5.Mathsat5NativeApi.msat_destroy_env;
+import static org.sosy_lab.java_smt.solvers.mathsat5.Mathsat5NativeApi.msat_get_search_stats;
 import static org.sosy_lab.java_smt.solvers.mathsat5.Mathsat5NativeApi.msat_get_version;
 import static org.sosy_lab.java_smt.solvers.mathsat5.Mathsat5NativeApi.msat_set_option_checked;
 
@@ -289,6 +290,19 @@ public final class Mathsat5SolverContext extends AbstractSolverContext {
     return Solvers.MATHSAT5;
   }
 
+  /**
+   * Returns the statistics of the environment of this context, which shares its terms with the
+   * environments of all provers.
+   */
+  @Override
+  public ImmutableMap<String, String> getStatistics() {
+    // Mathsat sigsevs if you try to get statistics for closed environments
+    Preconditions.checkState(!closed, "solver context is already closed");
+    final String stats = msat_get_search_stats(creator.getEnv());
+    return ImmutableMap.copyOf(
+        Splitter.on("\n").trimResults().omitEmptyStrings().withKeyValueSeparator(" ").split(stats));
+  }
+
   @Override
   public void close() {
     if (!closed) {
@@ -213,6 +213,11 @@ public abstract class OpenSmtAbstractProver<T> extends AbstractProverWithAllSat<
     }
   }
 
+  @Override
+  public Runnable getInterruptCall() {
+    return osmtSolver::stop;
+  }
+
   @Override
   @SuppressWarnings("try") // ShutdownHook is never referenced, and this is correct.
   public boolean isUnsat() throws InterruptedException, SolverException {
@@ -20,6 +20,7 @@ import ap.parser.IFunction;
 import ap.parser.ITerm;
 import com.google.common.base.Preconditions;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import java.time.Duration;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -27,6 +28,7 @@ import java.util.Deque;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.UniqueIdGenerator;
 import org.sosy_lab.common.collect.PathCopyingPersistentTreeMap;
@@ -37,6 +39,7 @@ import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
 import org.sosy_lab.java_smt.api.SolverException;
 import org.sosy_lab.java_smt.basicimpl.AbstractProverWithAllSat;
 import org.sosy_lab.java_smt.basicimpl.CachingModel;
+import org.sosy_lab.java_smt.basicimpl.DeadlineTimer;
 import scala.Enumeration.Value;
 
 @SuppressWarnings("ClassTypeParameterName")
@@ -53,6 +56,12 @@ abstract class PrincessAbstractProver<E> extends AbstractProverWithAllSat<E> {
   private final PrincessFormulaCreator creator;
   protected boolean wasLastSatCheckSat = false; // and stack is not changed
 
+  /** How long we wait for the result of Princess before checking for an interrupt. */
+  private static final long INTERRUPT_POLL_MS = 10;
+
+  /** Set by another thread for stopping the running check, reset when a check starts. */
+  private volatile boolean interruptRequested = false;
+
   protected PrincessAbstractProver(
       PrincessFormulaManager pMgr,
       PrincessFormulaCreator creator,
@@ -74,9 +83,46 @@ abstract class PrincessAbstractProver<E> extends AbstractProverWithAllSat<E> {
    */
   @Override
   public boolean isUnsat() throws SolverException {
+    return check(null);
+  }
+
+  @Override
+  public boolean isUnsat(Duration pTimeout) throws SolverException {
+    DeadlineTimer.checkTimeout(pTimeout);
+    return check(pTimeout);
+  }
+
+  /**
+   * Run the check in the background of Princess and wait for its result, such that only this thread
+   * accesses Princess when the check is stopped after an interrupt or the time limit.
+   */
+  private boolean check(@Nullable Duration pTimeout) throws SolverException {
     Preconditions.checkState(!closed);
     wasLastSatCheckSat = false;
-    final Value result = api.checkSat(true);
+    interruptRequested = false;
+    final long start = System.nanoTime();
+    api.checkSat(false);
+    Value result = api.getStatus(INTERRUPT_POLL_MS);
+    while (result.equals(SimpleAPI.ProverStatus$.MODULE$.Running())) {
+      if (interruptRequested) {
+        api.stop(true);
+        throw new SolverException("Princess' check was interrupted");
+      }
+      if (pTimeout != null && System.nanoTime() - start >= pTimeout.toNanos()) {
+        api.stop(true);
+        throw DeadlineTimer.timeoutException(pTimeout, null);
+      }
+      result = api.getStatus(INTERRUPT_POLL_MS);
+    }
+    return evaluateResult(result);
+  }
+
+  @Override
+  public Runnable getInterruptCall() {
+    return () -> interruptRequested = true;
+  }
+
+  private boolean evaluateResult(Value result) throws SolverException {
     if (result.equals(SimpleAPI.ProverStatus$.MODULE$.Sat())) {
       wasLastSatCheckSat = true;
       return false;
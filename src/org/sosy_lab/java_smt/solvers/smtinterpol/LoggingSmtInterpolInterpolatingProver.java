@@ -38,9 +38,10 @@ class LoggingSmtInterpolInterpolatingProver extends SmtInterpolInterpolatingProv
       Script pScript,
       Set<ProverOptions> pOptions,
       ShutdownNotifier pShutdownNotifier,
+      Set<Thread> pInterruptedThreads,
       Map<String, Object> pGlobalOptions,
       Path pLogfile) {
-    super(pMgr, pScript, pOptions, pShutdownNotifier);
+    super(pMgr, pScript, pOptions, pShutdownNotifier, pInterruptedThreads);
     try {
       out = initializeLoggerForInterpolation(pGlobalOptions, pLogfile);
     } catch (IOException e) {
@@ -24,6 +24,8 @@ import de.uni_freiburg.informatik.ultimate.logic.Script;
 import de.uni_freiburg.informatik.ultimate.logic.Script.LBool;
 import de.uni_freiburg.informatik.ultimate.logic.Sort;
 import de.uni_freiburg.informatik.ultimate.logic.Term;
+import java.math.BigInteger;
+import java.time.Duration;
 import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Deque;
@@ -32,6 +34,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.UniqueIdGenerator;
 import org.sosy_lab.common.collect.Collections3;
@@ -43,6 +46,7 @@ import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
 import org.sosy_lab.java_smt.api.SolverException;
 import org.sosy_lab.java_smt.basicimpl.AbstractProver;
 import org.sosy_lab.java_smt.basicimpl.CachingModel;
+import org.sosy_lab.java_smt.basicimpl.DeadlineTimer;
 import org.sosy_lab.java_smt.basicimpl.FormulaCreator;
 
 @SuppressWarnings("ClassTypeParameterName")
@@ -54,6 +58,14 @@ abstract class SmtInterpolAbstractProver<T> extends AbstractProver<T> {
   protected final Deque<PersistentMap<String, BooleanFormula>> annotatedTerms = new ArrayDeque<>();
   protected final ShutdownNotifier shutdownNotifier;
 
+  /** The threads whose running check is interrupted, shared by all provers of the context. */
+  private final Set<Thread> interruptedThreads;
+
+  /** Guards the thread of the running check together with sending an interrupt. */
+  private final Object interruptLock = new Object();
+
+  private @Nullable Thread checkingThread = null;
+
   private static final String PREFIX = "term_"; // for termnames
   private static final UniqueIdGenerator termIdGenerator =
       new UniqueIdGenerator(); // for different termnames
@@ -62,12 +74,14 @@ abstract class SmtInterpolAbstractProver<T> extends AbstractProver<T> {
       SmtInterpolFormulaManager pMgr,
       Script pEnv,
       Set<ProverOptions> options,
-      ShutdownNotifier pShutdownNotifier) {
+      ShutdownNotifier pShutdownNotifier,
+      Set<Thread> pInterruptedThreads) {
     super(options);
     mgr = pMgr;
     creator = pMgr.getFormulaCreator();
     env = pEnv;
     shutdownNotifier = pShutdownNotifier;
+    interruptedThreads = pInterruptedThreads;
     annotatedTerms.add(PathCopyingPersistentTreeMap.of());
   }
 
@@ -111,7 +125,7 @@ abstract class SmtInterpolAbstractProver<T> extends AbstractProver<T> {
     // so we check here, too.
     shutdownNotifier.shutdownIfNecessary();
 
-    LBool result = env.checkSat();
+    LBool result = checkSat();
     switch (result) {
       case SAT:
         return false;
@@ -138,6 +152,59 @@ abstract class SmtInterpolAbstractProver<T> extends AbstractProver<T> {
     }
   }
 
+  /** Run the check, such that {@link #getInterruptCall()} can stop it. */
+  private LBool checkSat() {
+    Thread current = Thread.currentThread();
+    synchronized (interruptLock) {
+      checkingThread = current;
+    }
+    try {
+      return env.checkSat();
+    } finally {
+      synchronized (interruptLock) {
+        checkingThread = null;
+        interruptedThreads.remove(current);
+      }
+    }
+  }
+
+  /**
+   * SMTInterpol polls a termination request while solving, which is shared by all provers of the
+   * context. Thus, we interrupt the check of this prover by marking its thread for termination.
+   */
+  @Override
+  public Runnable getInterruptCall() {
+    return () -> {
+      synchronized (interruptLock) {
+        Thread thread = checkingThread;
+        if (thread != null) {
+          interruptedThreads.add(thread);
+        }
+      }
+    };
+  }
+
+  @Override
+  public boolean isUnsat(Duration pTimeout) throws InterruptedException, SolverException {
+    checkState(!closed);
+    DeadlineTimer.checkTimeout(pTimeout);
+    Object defaultTimeout = env.getOption(":timeout");
+    env.setOption(":timeout", BigInteger.valueOf(DeadlineTimer.toMillis(pTimeout)));
+    try {
+      return isUnsat();
+    } catch (SMTLIBException e) {
+      // SMTInterpol reports an exceeded timeout as cancelled
+      Object reason = env.getInfo(":reason-unknown");
+      if (!shutdownNotifier.shouldShutdown()
+          && (reason == ReasonUnknown.TIMEOUT || reason == ReasonUnknown.CANCELLED)) {
+        throw DeadlineTimer.timeoutException(pTimeout, e);
+      }
+      throw e;
+    } finally {
+      env.setOption(":timeout", defaultTimeout);
+    }
+  }
+
   @SuppressWarnings("resource")
   @Override
   public org.sosy_lab.java_smt.api.Model getModel() {
@@ -244,8 +311,15 @@ abstract class SmtInterpolAbstractProver<T> extends AbstractProver<T> {
     // mStopEngine flag in DPLLEngine before starting to solve,
     // so we check here, too.
     shutdownNotifier.shutdownIfNecessary();
-    for (Term[] model : env.checkAllsat(importantTerms)) {
-      callback.apply(Collections3.transformedImmutableListCopy(model, creator::encapsulateBoolean));
+    // SmtInterpol keeps the blocking clauses of all models, thus we remove them afterwards.
+    push();
+    try {
+      for (Term[] model : env.checkAllsat(importantTerms)) {
+        callback.apply(
+            Collections3.transformedImmutableListCopy(model, creator::encapsulateBoolean));
+      }
+    } finally {
+      pop();
     }
     return callback.getResult();
   }
@@ -35,8 +35,9 @@ class SmtInterpolInterpolatingProver extends SmtInterpolAbstractProver<String>
       SmtInterpolFormulaManager pMgr,
       Script pScript,
       Set<ProverOptions> options,
-      ShutdownNotifier pShutdownNotifier) {
-    super(pMgr, pScript, options, pShutdownNotifier);
+      ShutdownNotifier pShutdownNotifier,
+      Set<Thread> pInterruptedThreads) {
+    super(pMgr, pScript, options, pShutdownNotifier, pInterruptedThreads);
   }
 
   @Override
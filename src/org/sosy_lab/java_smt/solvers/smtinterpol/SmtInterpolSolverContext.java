@@ -28,6 +28,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
@@ -95,14 +96,22 @@ public final class SmtInterpolSolverContext extends AbstractSolverContext {
   private final ShutdownNotifier shutdownNotifier;
   private final SmtInterpolFormulaManager manager;
 
+  /**
+   * The threads whose running check was interrupted via a single prover. All scripts share the
+   * termination request of the central script, which stops the check of these threads.
+   */
+  private final Set<Thread> interruptedThreads;
+
   private SmtInterpolSolverContext(
       SmtInterpolFormulaManager pManager,
       ShutdownNotifier pShutdownNotifier,
-      SmtInterpolSettings pSettings) {
+      SmtInterpolSettings pSettings,
+      Set<Thread> pInterruptedThreads) {
     super(pManager);
     settings = pSettings;
     shutdownNotifier = checkNotNull(pShutdownNotifier);
     manager = pManager;
+    interruptedThreads = pInterruptedThreads;
   }
 
   public static SmtInterpolSolverContext create(
@@ -115,7 +124,9 @@ public final class SmtInterpolSolverContext extends AbstractSolverContext {
       throws InvalidConfigurationException {
 
     SmtInterpolSettings settings = new SmtInterpolSettings(config, randomSeed, smtLogfile);
-    Script script = getSmtInterpolScript(pShutdownNotifier, smtLogfile, settings, logger);
+    Set<Thread> interruptedThreads = ConcurrentHashMap.newKeySet();
+    Script script =
+        getSmtInterpolScript(pShutdownNotifier, interruptedThreads, smtLogfile, settings, logger);
 
     SmtInterpolFormulaCreator creator = new SmtInterpolFormulaCreator(script);
     SmtInterpolUFManager functionTheory = new SmtInterpolUFManager(creator);
@@ -134,12 +145,13 @@ public final class SmtInterpolSolverContext extends AbstractSolverContext {
             rationalTheory,
             arrayTheory,
             logger);
-    return new SmtInterpolSolverContext(manager, pShutdownNotifier, settings);
+    return new SmtInterpolSolverContext(manager, pShutdownNotifier, settings, interruptedThreads);
   }
 
   /** instantiate the central SMTInterpol script from where all others are copied. */
   private static Script getSmtInterpolScript(
       ShutdownNotifier pShutdownNotifier,
+      Set<Thread> pInterruptedThreads,
       @javax.annotation.Nullable PathCounterTemplate smtLogfile,
       SmtInterpolSettings settings,
       LogManager logger)
@@ -147,7 +159,11 @@ public final class SmtInterpolSolverContext extends AbstractSolverContext {
     LogProxyForwarder smtInterpolLogProxy =
         new LogProxyForwarder(logger.withComponentName("SMTInterpol"));
     final SMTInterpol smtInterpol =
-        new SMTInterpol(smtInterpolLogProxy, pShutdownNotifier::shouldShutdown);
+        new SMTInterpol(
+            smtInterpolLogProxy,
+            () ->
+                pShutdownNotifier.shouldShutdown()
+                    || pInterruptedThreads.contains(Thread.currentThread()));
 
     final Script script = wrapInLoggingScriptIfNeeded(smtInterpol, smtLogfile);
 
@@ -228,7 +244,8 @@ public final class SmtInterpolSolverContext extends AbstractSolverContext {
   @Override
   protected ProverEnvironment newProverEnvironment0(Set<ProverOptions> options) {
     Script newScript = createNewScript(options);
-    return new SmtInterpolTheoremProver(manager, newScript, options, shutdownNotifier);
+    return new SmtInterpolTheoremProver(
+        manager, newScript, options, shutdownNotifier, interruptedThreads);
   }
 
   @SuppressWarnings("resource")
@@ -238,7 +255,9 @@ public final class SmtInterpolSolverContext extends AbstractSolverContext {
     Script newScript = createNewScript(options);
     final SmtInterpolInterpolatingProver prover;
     if (settings.smtLogfile == null) {
-      prover = new SmtInterpolInterpolatingProver(manager, newScript, options, shutdownNotifier);
+      prover =
+          new SmtInterpolInterpolatingProver(
+              manager, newScript, options, shutdownNotifier, interruptedThreads);
     } else {
       prover =
           new LoggingSmtInterpolInterpolatingProver(
@@ -246,6 +265,7 @@ public final class SmtInterpolSolverContext extends AbstractSolverContext {
               newScript,
               options,
               shutdownNotifier,
+              interruptedThreads,
               settings.optionsMap,
               settings.smtLogfile.getFreshPath());
     }
@@ -23,8 +23,9 @@ class SmtInterpolTheoremProver extends SmtInterpolAbstractProver<Void>
       SmtInterpolFormulaManager pMgr,
       Script pEnv,
       Set<ProverOptions> options,
-      ShutdownNotifier pShutdownNotifier) {
-    super(pMgr, pEnv, options, pShutdownNotifier);
+      ShutdownNotifier pShutdownNotifier,
+      Set<Thread> pInterruptedThreads) {
+    super(pMgr, pEnv, options, pShutdownNotifier, pInterruptedThreads);
   }
 
   @Override
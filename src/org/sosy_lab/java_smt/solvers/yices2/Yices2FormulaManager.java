@@ -33,6 +33,7 @@ import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.Formula;
 import org.sosy_lab.java_smt.api.FormulaType;
 import org.sosy_lab.java_smt.basicimpl.AbstractFormulaManager;
+import org.sosy_lab.java_smt.basicimpl.SmtLibWriter;
 
 public class Yices2FormulaManager extends AbstractFormulaManager<Integer, Integer, Long, Integer> {
 
@@ -78,6 +79,15 @@ public class Yices2FormulaManager extends AbstractFormulaManager<Integer, Intege
   public Appender dumpFormula(final Integer formula) {
     assert getFormulaCreator().getFormulaType(formula) == FormulaType.BooleanType
         : "Only BooleanFormulas may be dumped";
+    return new SmtLibWriter(
+        this, getFormulaCreator().encapsulateBoolean(formula), dumpUnfoldedFormula(formula));
+  }
+
+  /**
+   * Dump the formula with Yices' printer, which does not preserve sharing. This is only used for
+   * formulas that are not supported by {@link SmtLibWriter}.
+   */
+  private Appender dumpUnfoldedFormula(final Integer formula) {
     return new Appenders.AbstractAppender() {
 
       @Override
@@ -114,7 +124,6 @@ public class Yices2FormulaManager extends AbstractFormulaManager<Integer, Intege
             out.append(")\n");
           }
         }
-        // TODO fold formula to avoid exp. overhead
         out.append("(assert ").append(yices_term_to_string(formula)).append(")");
       }
 
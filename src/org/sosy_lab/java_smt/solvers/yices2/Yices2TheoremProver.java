@@ -22,6 +22,7 @@ import static org.sosy_lab.java_smt.solvers.yices2.Yices2NativeApi.yices_new_con
 import static org.sosy_lab.java_smt.solvers.yices2.Yices2NativeApi.yices_pop;
 import static org.sosy_lab.java_smt.solvers.yices2.Yices2NativeApi.yices_push;
 import static org.sosy_lab.java_smt.solvers.yices2.Yices2NativeApi.yices_set_config;
+import static org.sosy_lab.java_smt.solvers.yices2.Yices2NativeApi.yices_stop_search;
 
 import com.google.common.base.Preconditions;
 import com.google.common.primitives.Ints;
@@ -116,6 +117,11 @@ class Yices2TheoremProver extends AbstractProverWithAllSat<Void> implements Prov
     }
   }
 
+  @Override
+  public Runnable getInterruptCall() {
+    return () -> yices_stop_search(curEnv);
+  }
+
   @Override
   public boolean isUnsat() throws SolverException, InterruptedException {
     Preconditions.checkState(!closed);
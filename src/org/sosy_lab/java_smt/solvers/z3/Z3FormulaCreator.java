@@ -27,13 +27,20 @@ import java.lang.ref.Reference;
 import java.lang.ref.ReferenceQueue;
 import java.math.BigInteger;
 import java.util.ArrayList;
-import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.sosy_lab.common.ShutdownNotifier;
 import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.IntegerOption;
 import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.configuration.Option;
 import org.sosy_lab.common.configuration.Options;
@@ -45,10 +52,13 @@ import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.EnumerationFormula;
 import org.sosy_lab.java_smt.api.FloatingPointFormula;
 import org.sosy_lab.java_smt.api.FloatingPointRoundingMode;
+import org.sosy_lab.java_smt.api.FloatingPointRoundingModeFormula;
 import org.sosy_lab.java_smt.api.Formula;
 import org.sosy_lab.java_smt.api.FormulaType;
 import org.sosy_lab.java_smt.api.FormulaType.ArrayFormulaType;
 import org.sosy_lab.java_smt.api.FunctionDeclarationKind;
+import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
+import org.sosy_lab.java_smt.api.NumeralFormula.RationalFormula;
 import org.sosy_lab.java_smt.api.QuantifiedFormulaManager.Quantifier;
 import org.sosy_lab.java_smt.api.RegexFormula;
 import org.sosy_lab.java_smt.api.SolverException;
@@ -108,6 +118,23 @@ class Z3FormulaCreator extends FormulaCreator<Long, Long, Long, Long> {
   @Option(secure = true, description = "Whether to use PhantomReferences for discarding Z3 AST")
   private boolean usePhantomReferences = false;
 
+  @Option(
+      secure = true,
+      description =
+          "Detect unreachable formulas in a background thread instead of while creating formulas. "
+              + "Their Z3 ASTs are released in batches by the thread that uses the context, "
+              + "because Z3 contexts are not thread-safe. "
+              + "Only relevant if PhantomReferences are used.")
+  private boolean cleanupPhantomReferencesInBackground = false;
+
+  @Option(
+      secure = true,
+      description =
+          "Number of unreachable Z3 ASTs detected in the background "
+              + "after which they are released in one batch.")
+  @IntegerOption(min = 1)
+  private int phantomReferenceBatchSize = 1000;
+
   /**
    * We need to track all created symbols for parsing.
    *
@@ -117,13 +144,19 @@ class Z3FormulaCreator extends FormulaCreator<Long, Long, Long, Long> {
 
   private final Table<Long, Long, Long> allocatedArraySorts = HashBasedTable.create();
 
-  /** Automatic clean-up of Z3 ASTs. */
+  /** Automatic clean-up of Z3 ASTs. In background mode, a shared queue is used instead. */
   private final ReferenceQueue<Z3Formula> referenceQueue = new ReferenceQueue<>();
 
-  private final IdentityHashMap<PhantomReference<? extends Z3Formula>, Long> referenceMap =
-      new IdentityHashMap<>();
+  /** All references for reachable formulas, such that the references are not collected. */
+  private final Set<Z3AstReference> references = ConcurrentHashMap.newKeySet();
+
+  /** ASTs of unreachable formulas that were detected in the background, but not yet released. */
+  private final Queue<Long> pendingRelease = new ConcurrentLinkedQueue<>();
+
+  private final AtomicInteger pendingReleaseCount = new AtomicInteger();
+  private final LongAdder releasedAsts = new LongAdder();
+  private volatile boolean closed = false;
 
-  // todo: getters for statistic.
   private final Timer cleanupTimer = new Timer();
   protected final ShutdownNotifier shutdownNotifier;
 
@@ -255,18 +288,54 @@ class Z3FormulaCreator extends FormulaCreator<Long, Long, Long, Long> {
       Long pTerm, FormulaType<TD> pIndexType, FormulaType<TR> pElementType) {
     assert getFormulaType(pTerm).equals(FormulaType.getArrayType(pIndexType, pElementType));
     cleanupReferences();
-    return storePhantomReference(
-        new Z3ArrayFormula<>(getEnv(), pTerm, pIndexType, pElementType), pTerm);
+    return newArrayFormula(pTerm, pIndexType, pElementType);
   }
 
   private <T extends Z3Formula> T storePhantomReference(T out, Long pTerm) {
     if (usePhantomReferences) {
-      PhantomReference<T> ref = new PhantomReference<>(out, referenceQueue);
-      referenceMap.put(ref, pTerm);
+      references.add(
+          new Z3AstReference(
+              out,
+              cleanupPhantomReferencesInBackground ? BackgroundCleaner.QUEUE : referenceQueue,
+              this,
+              pTerm));
     }
     return out;
   }
 
+  private Z3BooleanFormula newBooleanFormula(Long pTerm) {
+    return storePhantomReference(new Z3BooleanFormula(getEnv(), pTerm), pTerm);
+  }
+
+  private Z3BitvectorFormula newBitvectorFormula(Long pTerm) {
+    return storePhantomReference(new Z3BitvectorFormula(getEnv(), pTerm), pTerm);
+  }
+
+  private Z3FloatingPointFormula newFloatingPointFormula(Long pTerm) {
+    return storePhantomReference(new Z3FloatingPointFormula(getEnv(), pTerm), pTerm);
+  }
+
+  private Z3StringFormula newStringFormula(Long pTerm) {
+    return storePhantomReference(new Z3StringFormula(getEnv(), pTerm), pTerm);
+  }
+
+  private Z3RegexFormula newRegexFormula(Long pTerm) {
+    return storePhantomReference(new Z3RegexFormula(getEnv(), pTerm), pTerm);
+  }
+
+  private Z3EnumerationFormula newEnumerationFormula(Long pTerm) {
+    return storePhantomReference(new Z3EnumerationFormula(getEnv(), pTerm), pTerm);
+  }
+
+  @SuppressWarnings("MethodTypeParameterName")
+  private <TD extends Formula, TR extends Formula> ArrayFormula<TD, TR> newArrayFormula(
+      Long pTerm, FormulaType<TD> pIndexType, FormulaType<TR> pElementType) {
+    return intern(
+        ArrayFormula.class,
+        pTerm,
+        t -> storePhantomReference(new Z3ArrayFormula<>(getEnv(), t, pIndexType, pElementType), t));
+  }
+
   @SuppressWarnings("unchecked")
   @Override
   public <T extends Formula> T encapsulate(FormulaType<T> pType, Long pTerm) {
@@ -277,30 +346,38 @@ class Z3FormulaCreator extends FormulaCreator<Long, Long, Long, Long> {
             "Trying to encapsulate formula of type %s as %s", getFormulaType(pTerm), pType);
     cleanupReferences();
     if (pType.isBooleanType()) {
-      return (T) storePhantomReference(new Z3BooleanFormula(getEnv(), pTerm), pTerm);
+      return (T) intern(BooleanFormula.class, pTerm, this::newBooleanFormula);
     } else if (pType.isIntegerType()) {
-      return (T) storePhantomReference(new Z3IntegerFormula(getEnv(), pTerm), pTerm);
+      return (T)
+          intern(
+              IntegerFormula.class,
+              pTerm,
+              t -> storePhantomReference(new Z3IntegerFormula(getEnv(), t), t));
     } else if (pType.isRationalType()) {
-      return (T) storePhantomReference(new Z3RationalFormula(getEnv(), pTerm), pTerm);
+      return (T)
+          intern(
+              RationalFormula.class,
+              pTerm,
+              t -> storePhantomReference(new Z3RationalFormula(getEnv(), t), t));
     } else if (pType.isStringType()) {
-      return (T) storePhantomReference(new Z3StringFormula(getEnv(), pTerm), pTerm);
+      return (T) intern(StringFormula.class, pTerm, this::newStringFormula);
     } else if (pType.isRegexType()) {
-      return (T) storePhantomReference(new Z3RegexFormula(getEnv(), pTerm), pTerm);
+      return (T) intern(RegexFormula.class, pTerm, this::newRegexFormula);
     } else if (pType.isBitvectorType()) {
-      return (T) storePhantomReference(new Z3BitvectorFormula(getEnv(), pTerm), pTerm);
+      return (T) intern(BitvectorFormula.class, pTerm, this::newBitvectorFormula);
     } else if (pType.isFloatingPointType()) {
-      return (T) storePhantomReference(new Z3FloatingPointFormula(getEnv(), pTerm), pTerm);
+      return (T) intern(FloatingPointFormula.class, pTerm, this::newFloatingPointFormula);
     } else if (pType.isFloatingPointRoundingModeType()) {
       return (T)
-          storePhantomReference(new Z3FloatingPointRoundingModeFormula(getEnv(), pTerm), pTerm);
+          intern(
+              FloatingPointRoundingModeFormula.class,
+              pTerm,
+              t -> storePhantomReference(new Z3FloatingPointRoundingModeFormula(getEnv(), t), t));
     } else if (pType.isArrayType()) {
       ArrayFormulaType<?, ?> arrFt = (ArrayFormulaType<?, ?>) pType;
-      return (T)
-          storePhantomReference(
-              new Z3ArrayFormula<>(getEnv(), pTerm, arrFt.getIndexType(), arrFt.getElementType()),
-              pTerm);
+      return (T) newArrayFormula(pTerm, arrFt.getIndexType(), arrFt.getElementType());
     } else if (pType.isEnumerationType()) {
-      return (T) storePhantomReference(new Z3EnumerationFormula(getEnv(), pTerm), pTerm);
+      return (T) intern(EnumerationFormula.class, pTerm, this::newEnumerationFormula);
     }
 
     throw new IllegalArgumentException("Cannot create formulas of type " + pType + " in Z3");
@@ -310,21 +387,21 @@ class Z3FormulaCreator extends FormulaCreator<Long, Long, Long, Long> {
   public BooleanFormula encapsulateBoolean(Long pTerm) {
     assert getFormulaType(pTerm).isBooleanType();
     cleanupReferences();
-    return storePhantomReference(new Z3BooleanFormula(getEnv(), pTerm), pTerm);
+    return intern(BooleanFormula.class, pTerm, this::newBooleanFormula);
   }
 
   @Override
   public BitvectorFormula encapsulateBitvector(Long pTerm) {
     assert getFormulaType(pTerm).isBitvectorType();
     cleanupReferences();
-    return storePhantomReference(new Z3BitvectorFormula(getEnv(), pTerm), pTerm);
+    return intern(BitvectorFormula.class, pTerm, this::newBitvectorFormula);
   }
 
   @Override
   protected FloatingPointFormula encapsulateFloatingPoint(Long pTerm) {
     assert getFormulaType(pTerm).isFloatingPointType();
     cleanupReferences();
-    return storePhantomReference(new Z3FloatingPointFormula(getEnv(), pTerm), pTerm);
+    return intern(FloatingPointFormula.class, pTerm, this::newFloatingPointFormula);
   }
 
   @Override
@@ -335,7 +412,7 @@ class Z3FormulaCreator extends FormulaCreator<Long, Long, Long, Long> {
             Native.astToString(getEnv(), pTerm),
             Native.sortToString(getEnv(), Native.getSort(getEnv(), pTerm)));
     cleanupReferences();
-    return storePhantomReference(new Z3StringFormula(getEnv(), pTerm), pTerm);
+    return intern(StringFormula.class, pTerm, this::newStringFormula);
   }
 
   @Override
@@ -346,7 +423,7 @@ class Z3FormulaCreator extends FormulaCreator<Long, Long, Long, Long> {
             Native.astToString(getEnv(), pTerm),
             Native.sortToString(getEnv(), Native.getSort(getEnv(), pTerm)));
     cleanupReferences();
-    return storePhantomReference(new Z3RegexFormula(getEnv(), pTerm), pTerm);
+    return intern(RegexFormula.class, pTerm, this::newRegexFormula);
   }
 
   @Override
@@ -357,7 +434,7 @@ class Z3FormulaCreator extends FormulaCreator<Long, Long, Long, Long> {
             Native.astToString(getEnv(), pTerm),
             Native.sortToString(getEnv(), Native.getSort(getEnv(), pTerm)));
     cleanupReferences();
-    return storePhantomReference(new Z3EnumerationFormula(getEnv(), pTerm), pTerm);
+    return intern(EnumerationFormula.class, pTerm, this::newEnumerationFormula);
   }
 
   @Override
@@ -390,18 +467,68 @@ class Z3FormulaCreator extends FormulaCreator<Long, Long, Long, Long> {
     if (!usePhantomReferences) {
       return;
     }
+    if (cleanupPhantomReferencesInBackground) {
+      // cheap check on the hot path, the actual work is done in batches
+      if (pendingReleaseCount.get() >= phantomReferenceBatchSize) {
+        releasePendingAsts();
+      }
+      return;
+    }
     cleanupTimer.start();
     try {
       Reference<? extends Z3Formula> ref;
       while ((ref = referenceQueue.poll()) != null) {
-        long z3ast = referenceMap.remove(ref);
-        Native.decRef(environment, z3ast);
+        Z3AstReference astRef = (Z3AstReference) ref;
+        references.remove(astRef);
+        Native.decRef(environment, astRef.ast);
+        releasedAsts.increment();
       }
     } finally {
       cleanupTimer.stop();
     }
   }
 
+  /** Called by the background thread for an AST whose formula became unreachable. */
+  private void scheduleRelease(Z3AstReference pRef) {
+    if (references.remove(pRef) && !closed) {
+      pendingRelease.add(pRef.ast);
+      pendingReleaseCount.incrementAndGet();
+    }
+  }
+
+  /**
+   * Release all ASTs that were detected as unreachable in the background. This must only be called
+   * by a thread that currently uses the context.
+   */
+  void releasePendingAsts() {
+    if (pendingReleaseCount.get() == 0) {
+      return;
+    }
+    cleanupTimer.start();
+    try {
+      Long ast;
+      while ((ast = pendingRelease.poll()) != null) {
+        pendingReleaseCount.decrementAndGet();
+        Native.decRef(environment, ast);
+        releasedAsts.increment();
+      }
+    } finally {
+      cleanupTimer.stop();
+    }
+  }
+
+  /** Statistics about the release of ASTs via PhantomReferences. */
+  ImmutableMap<String, String> getCleanupStatistics() {
+    if (!usePhantomReferences) {
+      return ImmutableMap.of();
+    }
+    return ImmutableMap.of(
+        "tracked ASTs", Integer.toString(references.size()),
+        "ASTs pending release", Integer.toString(pendingReleaseCount.get()),
+        "released ASTs", Long.toString(releasedAsts.sum()),
+        "time for releasing ASTs", cleanupTimer.getSumTime().formatAs(TimeUnit.SECONDS));
+  }
+
   private String getAppName(long f) {
     long funcDecl = Native.getAppDecl(environment, f);
     long symbol = Native.getDeclName(environment, funcDecl);
@@ -927,12 +1054,32 @@ class Z3FormulaCreator extends FormulaCreator<Long, Long, Long, Long> {
 
   /** Closing the context. */
   public void forceClose() {
+    closed = true;
     cleanupReferences();
+    releasePendingAsts();
 
     // Force clean all ASTs, even those which were not GC'd yet.
     // Is a no-op if phantom reference handling is not enabled.
-    for (long ast : referenceMap.values()) {
-      Native.decRef(getEnv(), ast);
+    for (Z3AstReference ref : references) {
+      Native.decRef(getEnv(), ref.ast);
+    }
+    references.clear();
+  }
+
+  /** A reference that knows the AST of its formula and the creator that owns the AST. */
+  private static final class Z3AstReference extends PhantomReference<Z3Formula> {
+
+    private final Z3FormulaCreator creator;
+    private final long ast;
+
+    private Z3AstReference(
+        Z3Formula pFormula,
+        ReferenceQueue<? super Z3Formula> pQueue,
+        Z3FormulaCreator pCreator,
+        long pAst) {
+      super(pFormula, pQueue);
+      creator = pCreator;
+      ast = pAst;
     }
   }
 
@@ -943,4 +1090,33 @@ class Z3FormulaCreator extends FormulaCreator<Long, Long, Long, Long> {
   @Nullable Long getKnownDeclaration(String symbolName) {
     return symbolsToDeclarations.get(symbolName);
   }
+
+  /**
+   * Detects unreachable formulas of all contexts that use background mode. The thread is only
+   * started when this class is loaded, i.e., when the first context uses background mode.
+   */
+  private static final class BackgroundCleaner {
+
+    private static final ReferenceQueue<Z3Formula> QUEUE = new ReferenceQueue<>();
+
+    static {
+      Thread cleaner =
+          new Thread(
+              () -> {
+                while (true) {
+                  try {
+                    Z3AstReference ref = (Z3AstReference) QUEUE.remove();
+                    ref.creator.scheduleRelease(ref);
+                  } catch (InterruptedException e) {
+                    // the daemon thread runs until the JVM exits
+                  }
+                }
+              },
+              "Z3 AST cleaner");
+      cleaner.setDaemon(true);
+      cleaner.start();
+    }
+
+    private BackgroundCleaner() {}
+  }
 }
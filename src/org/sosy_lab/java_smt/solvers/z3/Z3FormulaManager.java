@@ -223,7 +223,7 @@ final class Z3FormulaManager extends AbstractFormulaManager<Long, Long, Long, Lo
   }
 
   @Override
-  public BooleanFormula translateFrom(BooleanFormula other, FormulaManager otherManager) {
+  protected BooleanFormula translateFromImpl(BooleanFormula other, FormulaManager otherManager) {
     if (otherManager instanceof Z3FormulaManager) {
       long otherZ3Context = ((Z3FormulaManager) otherManager).getEnvironment();
       if (otherZ3Context == getEnvironment()) {
@@ -237,6 +237,6 @@ final class Z3FormulaManager extends AbstractFormulaManager<Long, Long, Long, Lo
         return getFormulaCreator().encapsulateBoolean(translatedAST);
       }
     }
-    return super.translateFrom(other, otherManager);
+    return super.translateFromImpl(other, otherManager);
   }
 }
@@ -267,6 +267,20 @@ public final class Z3SolverContext extends AbstractSolverContext {
     return Solvers.Z3;
   }
 
+  /**
+   * Returns statistics about the release of ASTs and the estimated memory usage of Z3 in megabytes.
+   * Z3 estimates its memory only for the whole process, i.e., the value includes all contexts, thus
+   * it is reported as "process memory" and not as memory of this context.
+   */
+  @Override
+  public ImmutableMap<String, String> getStatistics() {
+    Preconditions.checkState(!closed, "solver context is already closed");
+    return ImmutableMap.<String, String>builder()
+        .putAll(creator.getCleanupStatistics())
+        .put("process memory", Double.toString(Native.getEstimatedAllocSize() / (1024.0 * 1024.0)))
+        .buildOrThrow();
+  }
+
   @Override
   public void close() {
     if (!closed) {
@@ -13,6 +13,7 @@ import com.google.common.collect.ImmutableMap;
 import com.microsoft.z3.Native;
 import com.microsoft.z3.Z3Exception;
 import com.microsoft.z3.enumerations.Z3_lbool;
+import java.time.Duration;
 import java.util.Collection;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -23,12 +24,20 @@ import org.sosy_lab.common.io.PathCounterTemplate;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.ProverEnvironment;
 import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
+import org.sosy_lab.java_smt.api.SolverException;
+import org.sosy_lab.java_smt.basicimpl.DeadlineTimer;
 
 class Z3TheoremProver extends Z3AbstractProver implements ProverEnvironment {
 
   private final long z3solver;
   private final ShutdownRequestListener interruptListener;
 
+  /** The timeout in milliseconds from the solver options, or {@link #NO_TIMEOUT}. */
+  private final int defaultTimeout;
+
+  /** Z3 interprets the parameter as unsigned integer, this is its maximum value. */
+  private static final int NO_TIMEOUT = -1;
+
   Z3TheoremProver(
       Z3FormulaCreator creator,
       Z3FormulaManager pMgr,
@@ -50,6 +59,17 @@ class Z3TheoremProver extends Z3AbstractProver implements ProverEnvironment {
     }
     Native.solverSetParams(z3context, z3solver, z3params);
     Native.paramsDecRef(z3context, z3params);
+
+    Object timeout = pSolverOptions.get("timeout");
+    defaultTimeout = timeout instanceof Integer ? (Integer) timeout : NO_TIMEOUT;
+  }
+
+  private void setTimeout(int pTimeout) {
+    long z3params = Native.mkParams(z3context);
+    Native.paramsIncRef(z3context, z3params);
+    addParameter(z3params, "timeout", pTimeout);
+    Native.solverSetParams(z3context, z3solver, z3params);
+    Native.paramsDecRef(z3context, z3params);
   }
 
   @Override
@@ -82,6 +102,8 @@ class Z3TheoremProver extends Z3AbstractProver implements ProverEnvironment {
   public boolean isUnsat() throws Z3SolverException, InterruptedException {
     Preconditions.checkState(!closed);
     logSolverStack();
+    // release unreachable ASTs before the long-running call, not while building formulas
+    creator.releasePendingAsts();
     int result;
     try {
       result = Native.solverCheck(z3context, z3solver);
@@ -92,10 +114,30 @@ class Z3TheoremProver extends Z3AbstractProver implements ProverEnvironment {
     return result == Z3_lbool.Z3_L_FALSE.toInt();
   }
 
+  @Override
+  public boolean isUnsat(Duration pTimeout) throws SolverException, InterruptedException {
+    Preconditions.checkState(!closed);
+    DeadlineTimer.checkTimeout(pTimeout);
+    setTimeout(DeadlineTimer.toMillis(pTimeout));
+    try {
+      return isUnsat();
+    } catch (Z3SolverException | InterruptedException e) {
+      String reason = Native.solverGetReasonUnknown(z3context, z3solver);
+      if (!shutdownNotifier.shouldShutdown()
+          && (reason.equals("timeout") || reason.equals("canceled"))) {
+        throw DeadlineTimer.timeoutException(pTimeout, e);
+      }
+      throw e;
+    } finally {
+      setTimeout(defaultTimeout);
+    }
+  }
+
   @Override
   public boolean isUnsatWithAssumptions(Collection<BooleanFormula> assumptions)
       throws Z3SolverException, InterruptedException {
     Preconditions.checkState(!closed);
+    creator.releasePendingAsts();
 
     int result;
     try {
@@ -154,6 +196,11 @@ class Z3TheoremProver extends Z3AbstractProver implements ProverEnvironment {
     return Native.solverGetStatistics(z3context, z3solver);
   }
 
+  @Override
+  public Runnable getInterruptCall() {
+    return () -> Native.solverInterrupt(z3context, z3solver);
+  }
+
   @Override
   public String toString() {
     Preconditions.checkState(!closed);
@@ -0,0 +1,163 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.test;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.TruthJUnit.assume;
+import static org.junit.Assert.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
+import org.sosy_lab.java_smt.api.BasicProverEnvironment;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.basicimpl.withAssumptionsWrapper.ProverWithAssumptionsWrapper;
+import org.sosy_lab.java_smt.delegate.async.AsyncProverEnvironment;
+
+public class AsyncProverEnvironmentTest extends SolverBasedTest0.ParameterizedSolverBasedTest0 {
+
+  // provers of the same context must not run concurrently, unless the context is synchronized
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+  @Before
+  public void requireSolver() {
+    assume()
+        .withMessage("Solver %s runs out of stack space on threads of an executor", solverToUse())
+        .that(solverToUse())
+        .isNotEqualTo(Solvers.BOOLECTOR);
+  }
+
+  @After
+  public void shutdownExecutor() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void queriesAreExecutedInOrder() throws InterruptedException, ExecutionException {
+    // formulas are created before the prover runs, as the context is not synchronized
+    BooleanFormula a = bmgr.makeVariable("a");
+    BooleanFormula notA = bmgr.not(a);
+    try (AsyncProverEnvironment prover =
+        new AsyncProverEnvironment(context.newProverEnvironment(), executor)) {
+      prover.addConstraintAsync(a);
+      CompletableFuture<Boolean> sat = prover.isUnsatAsync();
+      prover.pushAsync();
+      prover.addConstraintAsync(notA);
+      CompletableFuture<Boolean> unsat = prover.isUnsatAsync();
+      prover.popAsync();
+      CompletableFuture<Boolean> satAgain = prover.isUnsatAsync();
+
+      assertThat(sat.get()).isFalse();
+      assertThat(unsat.get()).isTrue();
+      assertThat(satAgain.get()).isFalse();
+    }
+  }
+
+  @Test
+  public void manyProversShareExecutor() throws InterruptedException, ExecutionException {
+    List<BooleanFormula> constraints = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      BooleanFormula v = bmgr.makeVariable("v" + i);
+      constraints.add(i % 2 == 0 ? v : bmgr.and(v, bmgr.not(v)));
+    }
+    List<AsyncProverEnvironment> provers = new ArrayList<>();
+    List<CompletableFuture<Boolean>> results = new ArrayList<>();
+    for (BooleanFormula constraint : constraints) {
+      AsyncProverEnvironment prover =
+          new AsyncProverEnvironment(context.newProverEnvironment(), executor);
+      prover.addConstraintAsync(constraint);
+      results.add(prover.isUnsatAsync());
+      provers.add(prover);
+    }
+    CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).join();
+    for (int i = 0; i < 20; i++) {
+      assertThat(results.get(i).get()).isEqualTo(i % 2 == 1);
+      provers.get(i).close();
+    }
+  }
+
+  @Test
+  public void cancelledQueryIsSkipped() throws InterruptedException, ExecutionException {
+    CountDownLatch blocker = new CountDownLatch(1);
+    try (AsyncProverEnvironment prover =
+        new AsyncProverEnvironment(context.newProverEnvironment(), executor)) {
+      CompletableFuture<Void> blocking =
+          prover.submit(
+              p -> {
+                blocker.await();
+                return null;
+              });
+      CompletableFuture<Boolean> cancelled = prover.isUnsatAsync();
+      CompletableFuture<Boolean> query = prover.isUnsatAsync();
+      assertThat(cancelled.cancel(true)).isTrue();
+      blocker.countDown();
+
+      blocking.get();
+      assertThat(query.get()).isFalse();
+      assertThrows(CancellationException.class, cancelled::get);
+    }
+  }
+
+  @Test(timeout = 20000)
+  public void cancelledRunningQueryIsInterrupted() throws InterruptedException, ExecutionException {
+    requireIntegers();
+    BasicProverEnvironment<?> basicProver = context.newProverEnvironment();
+    assume()
+        .withMessage("Solver %s can not interrupt a single prover", solverToUse())
+        .that(basicProver.getInterruptCall())
+        .isNotNull();
+    assertCancelledQueryIsInterrupted(basicProver);
+  }
+
+  @Test(timeout = 20000)
+  public void cancelledRunningQueryOfWrappedProverIsInterrupted()
+      throws InterruptedException, ExecutionException {
+    requireIntegers();
+    assume()
+        .withMessage("Solver %s does not support assumptions natively", solverToUse())
+        .that(solverToUse())
+        .isEqualTo(Solvers.SMTINTERPOL);
+    BasicProverEnvironment<?> basicProver = context.newProverEnvironment();
+    assertThat(basicProver).isInstanceOf(ProverWithAssumptionsWrapper.class);
+    assertCancelledQueryIsInterrupted(basicProver);
+  }
+
+  private void assertCancelledQueryIsInterrupted(BasicProverEnvironment<?> basicProver)
+      throws InterruptedException, ExecutionException {
+    BooleanFormula hard = new HardIntegerFormulaGenerator(imgr, bmgr).generate(100);
+    CountDownLatch started = new CountDownLatch(1);
+    try (AsyncProverEnvironment prover = new AsyncProverEnvironment(basicProver, executor)) {
+      prover.pushAsync();
+      prover.addConstraintAsync(hard);
+      CompletableFuture<Boolean> hardQuery =
+          prover.submit(
+              p -> {
+                started.countDown();
+                return p.isUnsat();
+              });
+      prover.popAsync();
+      CompletableFuture<Boolean> nextQuery = prover.isUnsatAsync();
+
+      started.await();
+      assertThat(hardQuery.cancel(true)).isTrue();
+      // the hard query is interrupted, and the following query is not affected
+      assertThat(nextQuery.get()).isFalse();
+      assertThrows(CancellationException.class, hardQuery::get);
+    }
+  }
+}
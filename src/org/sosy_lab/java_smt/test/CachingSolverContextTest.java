@@ -0,0 +1,101 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.sosy_lab.common.configuration.ConfigurationBuilder;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
+import org.sosy_lab.java_smt.api.SolverException;
+
+public class CachingSolverContextTest extends SolverBasedTest0.ParameterizedSolverBasedTest0 {
+
+  @Override
+  protected ConfigurationBuilder createTestConfigBuilder() {
+    return super.createTestConfigBuilder()
+        .setOption("solver.cacheSatResults", "true")
+        .setOption("solver.cache.size", "2")
+        .setOption("solver.cache.models", "true")
+        .setOption("solver.cache.unsatCores", "true");
+  }
+
+  private String getStatistic(String key) {
+    return context.getStatistics().get(key);
+  }
+
+  @Test
+  public void sameQueryInOtherProverIsCached() throws SolverException, InterruptedException {
+    BooleanFormula a = bmgr.makeVariable("a");
+    BooleanFormula b = bmgr.makeVariable("b");
+    try (ProverEnvironment prover = context.newProverEnvironment()) {
+      prover.push(a);
+      prover.push(b);
+      assertThat(prover.isUnsat()).isFalse();
+    }
+    try (ProverEnvironment prover = context.newProverEnvironment()) {
+      // same set of formulas, but different order and stack structure
+      prover.addConstraint(b);
+      prover.addConstraint(a);
+      assertThat(prover.isUnsat()).isFalse();
+    }
+    assertThat(getStatistic("sat cache hits")).isEqualTo("1");
+    assertThat(getStatistic("sat cache misses")).isEqualTo("1");
+  }
+
+  @Test
+  public void modelAfterCacheHit() throws SolverException, InterruptedException {
+    BooleanFormula a = bmgr.makeVariable("a");
+    try (ProverEnvironment prover = context.newProverEnvironment(ProverOptions.GENERATE_MODELS)) {
+      prover.push(a);
+      assertThat(prover.isUnsat()).isFalse();
+      assertThat(prover.isUnsat()).isFalse();
+      assertThat(prover.getModelAssignments()).isNotEmpty();
+      assertThat(prover.getModel().evaluate(a)).isTrue();
+    }
+  }
+
+  @Test
+  public void unsatCoreAfterCacheHit() throws SolverException, InterruptedException {
+    requireUnsatCore();
+    BooleanFormula a = bmgr.makeVariable("a");
+    try (ProverEnvironment prover =
+        context.newProverEnvironment(ProverOptions.GENERATE_UNSAT_CORE)) {
+      prover.push(a);
+      prover.push(bmgr.not(a));
+      assertThat(prover.isUnsat()).isTrue();
+      assertThat(prover.isUnsat()).isTrue();
+      assertThat(prover.getUnsatCore()).containsExactly(a, bmgr.not(a));
+    }
+    assertThat(getStatistic("sat cache hits")).isEqualTo("1");
+  }
+
+  @Test
+  public void leastRecentlyUsedIsEvicted() throws SolverException, InterruptedException {
+    BooleanFormula a = bmgr.makeVariable("a");
+    BooleanFormula b = bmgr.makeVariable("b");
+    try (ProverEnvironment prover = context.newProverEnvironment()) {
+      assertThat(prover.isUnsat()).isFalse(); // query {}
+      prover.push(a);
+      assertThat(prover.isUnsat()).isFalse(); // query {a}
+      prover.pop();
+      assertThat(prover.isUnsat()).isFalse(); // hit for {}
+      prover.push(b);
+      assertThat(prover.isUnsat()).isFalse(); // query {b} evicts {a}
+      prover.pop();
+      prover.push(a);
+      assertThat(prover.isUnsat()).isFalse(); // miss for {a}
+    }
+    assertThat(getStatistic("sat cache hits")).isEqualTo("1");
+    assertThat(getStatistic("sat cache misses")).isEqualTo("4");
+    assertThat(getStatistic("sat cache evictions")).isEqualTo("2");
+  }
+}
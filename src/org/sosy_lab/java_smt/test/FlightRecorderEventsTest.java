@@ -0,0 +1,119 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.test;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sosy_lab.common.configuration.ConfigurationBuilder;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverException;
+
+/** Checks the Java Flight Recorder events that are emitted for solver calls. */
+public class FlightRecorderEventsTest extends SolverBasedTest0.ParameterizedSolverBasedTest0 {
+
+  private static final String PROVER_CALL = "org.sosy_lab.java_smt.ProverCall";
+  private static final String FORMULA_MANAGER_CALL = "org.sosy_lab.java_smt.FormulaManagerCall";
+
+  @Rule public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Override
+  protected ConfigurationBuilder createTestConfigBuilder() {
+    return super.createTestConfigBuilder().setOption("solver.emitFlightRecorderEvents", "true");
+  }
+
+  /** Record the events of the given calls and return them in the order of their start time. */
+  private ImmutableList<RecordedEvent> record(SolverCalls pCalls)
+      throws IOException, SolverException, InterruptedException {
+    Path file = folder.newFile("events.jfr").toPath();
+    try (Recording recording = new Recording()) {
+      recording.enable(PROVER_CALL);
+      recording.enable(FORMULA_MANAGER_CALL);
+      recording.start();
+      pCalls.run();
+      recording.stop();
+      recording.dump(file);
+    }
+    return RecordingFile.readAllEvents(file).stream()
+        .sorted((e1, e2) -> e1.getStartTime().compareTo(e2.getStartTime()))
+        .collect(toImmutableList());
+  }
+
+  private interface SolverCalls {
+    void run() throws SolverException, InterruptedException;
+  }
+
+  private static ImmutableList<RecordedEvent> eventsOf(
+      List<RecordedEvent> pEvents, String pName, String pOperation) {
+    return pEvents.stream()
+        .filter(e -> e.getEventType().getName().equals(pName))
+        .filter(e -> e.getString("operation").equals(pOperation))
+        .collect(toImmutableList());
+  }
+
+  @Test
+  public void proverEvents() throws IOException, SolverException, InterruptedException {
+    BooleanFormula a = bmgr.makeVariable("a");
+    ImmutableList<RecordedEvent> events =
+        record(
+            () -> {
+              try (ProverEnvironment prover = context.newProverEnvironment()) {
+                prover.push(a);
+                prover.push(bmgr.not(a));
+                assertThat(prover.isUnsat()).isTrue();
+              }
+            });
+
+    ImmutableList<RecordedEvent> pushes = eventsOf(events, PROVER_CALL, "push");
+    assertThat(pushes).hasSize(2);
+    for (int i = 0; i < pushes.size(); i++) {
+      RecordedEvent push = pushes.get(i);
+      assertThat(push.getString("solver")).isEqualTo(solverToUse().toString());
+      assertThat(push.getInt("stackDepth")).isEqualTo(i + 1);
+      // the formula of push(formula) is asserted after the new level was created
+      assertThat(push.getInt("assertedFormulas")).isEqualTo(i);
+      assertThat(push.getString("result")).isEqualTo("success");
+    }
+
+    ImmutableList<RecordedEvent> checks = eventsOf(events, PROVER_CALL, "isUnsat");
+    assertThat(checks).hasSize(1);
+    RecordedEvent check = checks.get(0);
+    assertThat(check.getString("solver")).isEqualTo(solverToUse().toString());
+    assertThat(check.getInt("stackDepth")).isEqualTo(2);
+    assertThat(check.getInt("assertedFormulas")).isEqualTo(2);
+    assertThat(check.getString("result")).isEqualTo("unsat");
+    assertThat(check.getDuration().isNegative()).isFalse();
+  }
+
+  @Test
+  public void parseEvent() throws IOException, SolverException, InterruptedException {
+    requireParser();
+    BooleanFormula a = bmgr.makeVariable("a");
+    String dump = mgr.dumpFormula(a).toString();
+    ImmutableList<RecordedEvent> events = record(() -> assertThat(mgr.parse(dump)).isEqualTo(a));
+
+    ImmutableList<RecordedEvent> parses = eventsOf(events, FORMULA_MANAGER_CALL, "parse");
+    assertThat(parses).hasSize(1);
+    RecordedEvent parse = parses.get(0);
+    assertThat(parse.getString("solver")).isEqualTo(solverToUse().toString());
+    assertThat(parse.getString("result")).isEqualTo("success");
+    assertThat(parse.getDuration().isNegative()).isFalse();
+  }
+}
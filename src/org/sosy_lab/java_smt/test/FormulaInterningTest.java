@@ -0,0 +1,60 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.test;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.TruthJUnit.assume;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.common.configuration.ConfigurationBuilder;
+import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
+
+public class FormulaInterningTest extends SolverBasedTest0.ParameterizedSolverBasedTest0 {
+
+  @Override
+  protected ConfigurationBuilder createTestConfigBuilder() {
+    return super.createTestConfigBuilder().setOption("solver.internFormulas", "true");
+  }
+
+  @Before
+  public void checkSolver() {
+    // these solvers use their own wrapper classes without interning
+    assume()
+        .withMessage("Solver %s does not intern formulas", solverToUse())
+        .that(solverToUse())
+        .isNoneOf(
+            Solvers.BOOLECTOR,
+            Solvers.CVC4,
+            Solvers.CVC5,
+            Solvers.MATHSAT5,
+            Solvers.OPENSMT,
+            Solvers.YICES2);
+  }
+
+  @Test
+  public void sameTermIsSameFormula() {
+    BooleanFormula a = bmgr.makeVariable("a");
+    BooleanFormula b = bmgr.makeVariable("b");
+    assertThat(bmgr.makeVariable("a")).isSameInstanceAs(a);
+    assertThat(bmgr.and(a, b)).isSameInstanceAs(bmgr.and(a, b));
+    assertThat(bmgr.makeTrue()).isSameInstanceAs(bmgr.makeTrue());
+  }
+
+  @Test
+  public void sameIntegerTermIsSameFormula() {
+    requireIntegers();
+    IntegerFormula x = imgr.makeVariable("x");
+    assertThat(imgr.makeVariable("x")).isSameInstanceAs(x);
+    assertThat(imgr.equal(x, imgr.makeNumber(1)))
+        .isSameInstanceAs(imgr.equal(x, imgr.makeNumber(1)));
+  }
+}
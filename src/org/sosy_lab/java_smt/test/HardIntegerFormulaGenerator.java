@@ -16,19 +16,19 @@ import org.sosy_lab.java_smt.api.BooleanFormulaManager;
 import org.sosy_lab.java_smt.api.IntegerFormulaManager;
 
 /** Generator of hard formulas using the theory of integers. */
-class HardIntegerFormulaGenerator {
+public class HardIntegerFormulaGenerator {
   private final IntegerFormulaManager ifmgr;
   private final BooleanFormulaManager bfmgr;
 
   private static final String CHOICE_PREFIX = "b@";
   private static final String COUNTER_PREFIX = "i@";
 
-  HardIntegerFormulaGenerator(IntegerFormulaManager pIfmgr, BooleanFormulaManager pBfmgr) {
+  public HardIntegerFormulaGenerator(IntegerFormulaManager pIfmgr, BooleanFormulaManager pBfmgr) {
     ifmgr = pIfmgr;
     bfmgr = pBfmgr;
   }
 
-  BooleanFormula generate(int n) {
+  public BooleanFormula generate(int n) {
     Preconditions.checkArgument(n >= 2);
     List<BooleanFormula> clauses = new ArrayList<>();
     clauses.add(ifmgr.equal(ifmgr.makeVariable(COUNTER_PREFIX + 0), ifmgr.makeNumber(0)));
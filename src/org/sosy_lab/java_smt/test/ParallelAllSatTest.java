@@ -0,0 +1,113 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.java_smt.api.BasicProverEnvironment.AllSatCallback;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.SolverContext;
+import org.sosy_lab.java_smt.api.SolverException;
+import org.sosy_lab.java_smt.utils.ParallelAllSat;
+import org.sosy_lab.java_smt.utils.SolverUtils;
+
+public class ParallelAllSatTest extends SolverBasedTest0.ParameterizedSolverBasedTest0 {
+
+  private static final int WORKERS = 2;
+
+  private final List<SolverContext> workers = new ArrayList<>();
+  private ExecutorService executor;
+
+  @Before
+  public void setUpWorkers() throws InvalidConfigurationException {
+    requireParser();
+    for (int i = 0; i < WORKERS; i++) {
+      workers.add(factory.generateContext());
+    }
+    executor = Executors.newFixedThreadPool(WORKERS);
+  }
+
+  @After
+  public void closeWorkers() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+    for (SolverContext worker : workers) {
+      worker.close();
+    }
+  }
+
+  private static class ModelCollector implements AllSatCallback<List<List<BooleanFormula>>> {
+
+    private final List<List<BooleanFormula>> models = new ArrayList<>();
+
+    @Override
+    public void apply(List<BooleanFormula> pModel) {
+      models.add(pModel);
+    }
+
+    @Override
+    public List<List<BooleanFormula>> getResult() {
+      return models;
+    }
+  }
+
+  @Test
+  public void parallelAllSatTest() throws SolverException, InterruptedException {
+    BooleanFormula a = bmgr.makeVariable("a");
+    BooleanFormula b = bmgr.makeVariable("b");
+    BooleanFormula c = bmgr.makeVariable("c");
+    BooleanFormula d = bmgr.makeVariable("d");
+
+    // (a | b) & (c <=> !a) & (d <=> b)
+    ImmutableList<BooleanFormula> constraints =
+        ImmutableList.of(bmgr.or(a, b), bmgr.equivalence(c, bmgr.not(a)), bmgr.equivalence(d, b));
+
+    for (int splitDepth = 0; splitDepth <= 4; splitDepth++) {
+      ParallelAllSat allSat = SolverUtils.parallelAllSat(mgr, workers, executor, splitDepth);
+      List<List<BooleanFormula>> models =
+          allSat.allSat(constraints, ImmutableList.of(a, b, c, d), new ModelCollector());
+
+      ImmutableList<ImmutableList<BooleanFormula>> expected =
+          ImmutableList.of(
+              ImmutableList.of(a, b, bmgr.not(c), d),
+              ImmutableList.of(a, bmgr.not(b), bmgr.not(c), bmgr.not(d)),
+              ImmutableList.of(bmgr.not(a), b, c, d));
+      if (splitDepth >= 2) {
+        // each cube over a and b has at most one model, reported in the order of the cubes
+        assertThat(models).containsExactlyElementsIn(expected).inOrder();
+      } else {
+        assertThat(models).containsExactlyElementsIn(expected);
+      }
+    }
+  }
+
+  @Test
+  public void parallelAllSatUnsatTest() throws SolverException, InterruptedException {
+    BooleanFormula a = bmgr.makeVariable("a");
+    BooleanFormula b = bmgr.makeVariable("b");
+
+    ParallelAllSat allSat = SolverUtils.parallelAllSat(mgr, workers, executor, 1);
+    List<List<BooleanFormula>> models =
+        allSat.allSat(
+            ImmutableList.of(bmgr.and(a, bmgr.not(a))),
+            ImmutableList.of(a, b),
+            new ModelCollector());
+    assertThat(models).isEmpty();
+  }
+}
@@ -0,0 +1,131 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sosy_lab.common.ShutdownManager;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.FileOption;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.configuration.converters.FileTypeConverter;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.java_smt.SolverContextFactory;
+import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.BooleanFormulaManager;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext;
+import org.sosy_lab.java_smt.api.SolverException;
+
+/** Checks that results of the persistent cache survive the context that computed them. */
+public class PersistentSatResultStoreTest {
+
+  @Rule public final TemporaryFolder folder = new TemporaryFolder();
+
+  private final LogManager logger = LogManager.createTestLogManager();
+  private final ShutdownManager shutdownManager = ShutdownManager.create();
+
+  private SolverContext createContext(Path directory, int compactionThreshold)
+      throws InvalidConfigurationException {
+    Configuration config =
+        Configuration.builder()
+            .addConverter(
+                FileOption.class, FileTypeConverter.create(Configuration.defaultConfiguration()))
+            .setOption("solver.cacheSatResults", "true")
+            .setOption("solver.cache.persistent.directory", directory.toString())
+            .setOption(
+                "solver.cache.persistent.compactionThreshold",
+                Integer.toString(compactionThreshold))
+            .build();
+    return SolverContextFactory.createSolverContext(
+        config, logger, shutdownManager.getNotifier(), Solvers.SMTINTERPOL);
+  }
+
+  /** Check {a, not b} and {a, not a} in a fresh context. */
+  private static void checkQueries(SolverContext context)
+      throws SolverException, InterruptedException {
+    BooleanFormulaManager bmgr = context.getFormulaManager().getBooleanFormulaManager();
+    BooleanFormula a = bmgr.makeVariable("a");
+    BooleanFormula b = bmgr.makeVariable("b");
+    try (ProverEnvironment prover = context.newProverEnvironment()) {
+      prover.push(a);
+      prover.push(bmgr.not(b));
+      assertThat(prover.isUnsat()).isFalse();
+      prover.pop();
+      prover.push(bmgr.not(a));
+      assertThat(prover.isUnsat()).isTrue();
+    }
+  }
+
+  private void checkWarmStart(Path directory, int compactionThreshold)
+      throws InvalidConfigurationException, SolverException, InterruptedException {
+    try (SolverContext context = createContext(directory, compactionThreshold)) {
+      checkQueries(context);
+      assertThat(context.getStatistics()).containsEntry("persistent cache misses", "2");
+    }
+    try (SolverContext context = createContext(directory, compactionThreshold)) {
+      checkQueries(context);
+      assertThat(context.getStatistics()).containsEntry("persistent cache hits", "2");
+      assertThat(context.getStatistics()).containsEntry("persistent cache misses", "0");
+    }
+  }
+
+  @Test
+  public void resultsAreReusedByLaterContext()
+      throws InvalidConfigurationException, SolverException, InterruptedException {
+    checkWarmStart(folder.getRoot().toPath(), 10_000);
+  }
+
+  @Test
+  public void resultsAreReusedAfterCompaction()
+      throws InvalidConfigurationException, SolverException, InterruptedException {
+    checkWarmStart(folder.getRoot().toPath(), 1);
+  }
+
+  @Test
+  public void lockedDirectoryIsOnlyCachedInMemory()
+      throws InvalidConfigurationException, SolverException, InterruptedException {
+    Path directory = folder.getRoot().toPath();
+    try (SolverContext owner = createContext(directory, 10_000)) {
+      try (SolverContext other = createContext(directory, 10_000)) {
+        checkQueries(other);
+        assertThat(other.getStatistics()).doesNotContainKey("persistent cache misses");
+      }
+      checkQueries(owner);
+      assertThat(owner.getStatistics()).containsEntry("persistent cache misses", "2");
+    }
+    // the lock is released when the owner is closed
+    try (SolverContext context = createContext(directory, 10_000)) {
+      checkQueries(context);
+      assertThat(context.getStatistics()).containsEntry("persistent cache hits", "2");
+    }
+  }
+
+  @Test
+  public void incompleteRecordIsDropped()
+      throws InvalidConfigurationException, SolverException, InterruptedException, IOException {
+    Path directory = folder.getRoot().toPath();
+    Files.createDirectories(directory);
+    // a record that was only partially written before a crash
+    Files.write(
+        directory.resolve("results.log"),
+        new byte[] {1, 2, 3},
+        StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE);
+    checkWarmStart(directory, 10_000);
+  }
+}
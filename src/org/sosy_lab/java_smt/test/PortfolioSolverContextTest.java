@@ -0,0 +1,142 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.test;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import java.math.BigInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.common.ShutdownManager;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.IntegerFormulaManager;
+import org.sosy_lab.java_smt.api.Model;
+import org.sosy_lab.java_smt.api.Model.ValueAssignment;
+import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
+import org.sosy_lab.java_smt.api.SolverException;
+import org.sosy_lab.java_smt.delegate.portfolio.PortfolioSolverContext;
+
+/** Races the solvers that are available on all platforms against each other. */
+public class PortfolioSolverContextTest {
+
+  private PortfolioSolverContext context;
+  private IntegerFormulaManager imgr;
+
+  @Before
+  public void init() throws InvalidConfigurationException {
+    Configuration config =
+        Configuration.builder()
+            .setOption("solver.portfolio.solvers", "SMTINTERPOL,PRINCESS")
+            .build();
+    context =
+        new PortfolioSolverContext(
+            config, LogManager.createTestLogManager(), ShutdownManager.create().getNotifier());
+    imgr = context.getFormulaManager().getIntegerFormulaManager();
+  }
+
+  @After
+  public void close() {
+    context.close();
+  }
+
+  @Test
+  public void pushPopAndModel() throws SolverException, InterruptedException {
+    IntegerFormula x = imgr.makeVariable("x");
+    BooleanFormula xIsFour = imgr.equal(x, imgr.makeNumber(4));
+    try (ProverEnvironment prover = context.newProverEnvironment(ProverOptions.GENERATE_MODELS)) {
+      prover.addConstraint(imgr.greaterThan(x, imgr.makeNumber(3)));
+      prover.push();
+      prover.addConstraint(imgr.lessThan(x, imgr.makeNumber(5)));
+      assertThat(prover.isUnsat()).isFalse();
+      try (Model model = prover.getModel()) {
+        assertThat(model.evaluate(xIsFour)).isTrue();
+      }
+
+      prover.push();
+      prover.addConstraint(imgr.lessThan(x, imgr.makeNumber(4)));
+      assertThat(prover.size()).isEqualTo(2);
+      assertThat(prover.isUnsat()).isTrue();
+
+      prover.pop();
+      prover.pop();
+      for (int i = 0; i < 5; i++) {
+        // slower solvers are cancelled and rebuilt in between
+        assertThat(prover.isUnsat()).isFalse();
+      }
+    }
+    assertThat(context.getStatistics()).containsKey("portfolio wins of PRINCESS");
+  }
+
+  @Test
+  public void unsatCore() throws SolverException, InterruptedException {
+    IntegerFormula x = imgr.makeVariable("x");
+    BooleanFormula greater = imgr.greaterThan(x, imgr.makeNumber(3));
+    BooleanFormula less = imgr.lessThan(x, imgr.makeNumber(3));
+    try (ProverEnvironment prover =
+        context.newProverEnvironment(ProverOptions.GENERATE_UNSAT_CORE)) {
+      prover.addConstraint(greater);
+      prover.addConstraint(less);
+      assertThat(prover.isUnsat()).isTrue();
+      assertThat(prover.getUnsatCore()).containsExactly(greater, less);
+    }
+  }
+
+  @Test
+  public void modelWithNonBooleanTerms() throws SolverException, InterruptedException {
+    IntegerFormula x = imgr.makeVariable("x");
+    IntegerFormula y = imgr.makeVariable("y");
+    try (ProverEnvironment prover = context.newProverEnvironment(ProverOptions.GENERATE_MODELS)) {
+      prover.addConstraint(imgr.equal(x, imgr.makeNumber(4)));
+      prover.addConstraint(imgr.equal(y, imgr.add(x, imgr.makeNumber(1))));
+      assertThat(prover.isUnsat()).isFalse();
+      try (Model model = prover.getModel()) {
+        assertThat(model.evaluate(imgr.add(x, y))).isEqualTo(BigInteger.valueOf(9));
+        assertThat(model.eval(y)).isEqualTo(imgr.makeNumber(5));
+        assertThat(model.asList())
+            .containsExactly(
+                new ValueAssignment(
+                    x,
+                    imgr.makeNumber(4),
+                    imgr.equal(x, imgr.makeNumber(4)),
+                    "x",
+                    BigInteger.valueOf(4),
+                    ImmutableList.of()),
+                new ValueAssignment(
+                    y,
+                    imgr.makeNumber(5),
+                    imgr.equal(y, imgr.makeNumber(5)),
+                    "y",
+                    BigInteger.valueOf(5),
+                    ImmutableList.of()));
+      }
+    }
+  }
+
+  @Test
+  public void modelOfClosedSolverIsNotAccessed() throws SolverException, InterruptedException {
+    IntegerFormula x = imgr.makeVariable("x");
+    Model model;
+    try (ProverEnvironment prover = context.newProverEnvironment(ProverOptions.GENERATE_MODELS)) {
+      prover.addConstraint(imgr.equal(x, imgr.makeNumber(4)));
+      assertThat(prover.isUnsat()).isFalse();
+      model = prover.getModel();
+    }
+    // closing the prover also freed the model within the solver
+    assertThrows(IllegalStateException.class, () -> model.evaluate(x));
+    model.close();
+  }
+}
@@ -0,0 +1,71 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverException;
+import org.sosy_lab.java_smt.basicimpl.withAssumptionsWrapper.ProverWithAssumptionsWrapper;
+
+public class ProverWithAssumptionsWrapperTest
+    extends SolverBasedTest0.ParameterizedSolverBasedTest0 {
+
+  @Test
+  public void sharedPrefixTest() throws SolverException, InterruptedException {
+    checkQueriesWithSharedPrefix(false);
+  }
+
+  @Test
+  public void sharedPrefixBatchedTest() throws SolverException, InterruptedException {
+    checkQueriesWithSharedPrefix(true);
+  }
+
+  private void checkQueriesWithSharedPrefix(boolean batch)
+      throws SolverException, InterruptedException {
+    BooleanFormula a = bmgr.makeVariable("a");
+    BooleanFormula b = bmgr.makeVariable("b");
+    BooleanFormula c = bmgr.makeVariable("c");
+    BooleanFormula d = bmgr.makeVariable("d");
+
+    try (ProverEnvironment delegate = context.newProverEnvironment();
+        ProverEnvironment prover = new ProverWithAssumptionsWrapper(delegate, batch)) {
+      prover.push(bmgr.or(bmgr.not(a), bmgr.not(d)));
+      prover.push(bmgr.implication(b, c));
+      assertThat(prover.size()).isEqualTo(2);
+
+      assertThat(prover.isUnsatWithAssumptions(ImmutableList.of(a, b, c))).isFalse();
+      assertThat(prover.size()).isEqualTo(2);
+      assertThat(delegate.size()).isEqualTo(batch ? 3 : 5);
+
+      // shares the prefix "a, b" with the previous query
+      assertThat(prover.isUnsatWithAssumptions(ImmutableList.of(a, b, bmgr.not(c)))).isTrue();
+      assertThat(delegate.size()).isEqualTo(batch ? 3 : 5);
+
+      // extends the previous query
+      assertThat(prover.isUnsatWithAssumptions(ImmutableList.of(a, b, bmgr.not(c), d))).isTrue();
+      assertThat(delegate.size()).isEqualTo(batch ? 4 : 6);
+      assertThat(prover.isUnsatWithAssumptions(ImmutableList.of(a, d))).isTrue();
+      assertThat(prover.isUnsatWithAssumptions(ImmutableList.of(a))).isFalse();
+      assertThat(prover.isUnsatWithAssumptions(ImmutableList.of())).isFalse();
+      assertThat(prover.isUnsatWithAssumptions(ImmutableList.of(d, b, bmgr.not(c)))).isTrue();
+
+      // assumptions do not influence the stack of the prover
+      prover.pop();
+      assertThat(prover.size()).isEqualTo(1);
+      assertThat(delegate.size()).isEqualTo(1);
+      assertThat(prover.isUnsat()).isFalse();
+      assertThat(prover.isUnsatWithAssumptions(ImmutableList.of(d, b, bmgr.not(c)))).isFalse();
+      assertThat(prover.isUnsatWithAssumptions(ImmutableList.of(d, a))).isTrue();
+    }
+  }
+}
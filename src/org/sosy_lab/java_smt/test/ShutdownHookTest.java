@@ -0,0 +1,104 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.sosy_lab.common.ShutdownManager;
+import org.sosy_lab.java_smt.basicimpl.ShutdownHook;
+
+public class ShutdownHookTest {
+
+  @Test
+  public void interruptsAreRepeatedUntilClose() throws InterruptedException {
+    ShutdownManager manager = ShutdownManager.create();
+    AtomicBoolean closed = new AtomicBoolean(false);
+    AtomicInteger interruptsAfterClose = new AtomicInteger();
+    CountDownLatch repeated = new CountDownLatch(3);
+    long cancelledBefore = cancelledCalls();
+
+    ShutdownHook hook =
+        new ShutdownHook(
+            manager.getNotifier(),
+            () -> {
+              if (closed.get()) {
+                interruptsAfterClose.incrementAndGet();
+              }
+              repeated.countDown();
+            });
+    // the request does not wait for the interrupted solver
+    manager.requestShutdown("test");
+    assertThat(repeated.await(10, TimeUnit.SECONDS)).isTrue();
+    hook.close();
+    closed.set(true);
+
+    assertThat(interruptsAfterClose.get()).isEqualTo(0);
+    assertThat(cancelledCalls()).isAtLeast(cancelledBefore + 1);
+  }
+
+  @Test
+  public void closeWaitsForRunningInterrupt() throws InterruptedException {
+    ShutdownManager manager = ShutdownManager.create();
+    CountDownLatch interruptStarted = new CountDownLatch(1);
+    CountDownLatch finishInterrupt = new CountDownLatch(1);
+    CountDownLatch closed = new CountDownLatch(1);
+    AtomicBoolean closedDuringInterrupt = new AtomicBoolean(false);
+
+    ShutdownHook hook =
+        new ShutdownHook(
+            manager.getNotifier(),
+            () -> {
+              interruptStarted.countDown();
+              Uninterruptibles.awaitUninterruptibly(finishInterrupt);
+              if (closed.getCount() == 0) {
+                closedDuringInterrupt.set(true);
+              }
+            });
+    manager.requestShutdown("test");
+    assertThat(interruptStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+    Thread closer =
+        new Thread(
+            () -> {
+              hook.close();
+              closed.countDown();
+            });
+    closer.start();
+    // wait until the closing thread waits for the interrupt
+    while (closer.getState() != Thread.State.BLOCKED) {
+      assertThat(closer.isAlive()).isTrue();
+      Thread.yield();
+    }
+    finishInterrupt.countDown();
+
+    assertThat(closed.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(closedDuringInterrupt.get()).isFalse();
+  }
+
+  @Test
+  public void noInterruptWithoutRequest() throws InterruptedException {
+    ShutdownManager manager = ShutdownManager.create();
+    AtomicInteger interrupts = new AtomicInteger();
+    ShutdownHook hook = new ShutdownHook(manager.getNotifier(), interrupts::incrementAndGet);
+    hook.close();
+    manager.requestShutdown("test");
+    Thread.sleep(50);
+    assertThat(interrupts.get()).isEqualTo(0);
+  }
+
+  private static long cancelledCalls() {
+    return (Long) ShutdownHook.getCancellationStatistics().get("number of cancelled solver calls");
+  }
+}
@@ -25,11 +25,13 @@ import org.junit.runners.Parameterized.Parameters;
 import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
 import org.sosy_lab.java_smt.api.BasicProverEnvironment;
 import org.sosy_lab.java_smt.api.BasicProverEnvironment.AllSatCallback;
+import org.sosy_lab.java_smt.api.BasicProverEnvironment.AllSatIterator;
 import org.sosy_lab.java_smt.api.BitvectorFormula;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
 import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
 import org.sosy_lab.java_smt.api.SolverException;
+import org.sosy_lab.java_smt.basicimpl.AllSatCallbackIterator;
 import org.sosy_lab.java_smt.solvers.opensmt.Logics;
 
 @RunWith(Parameterized.class)
@@ -258,4 +260,205 @@ public class SolverAllSatTest extends SolverBasedTest0 {
     assertThat(callback.models)
         .isEqualTo(ImmutableList.of(ImmutableList.of(pred1, bmgr.not(pred3))));
   }
+
+  @Test
+  public void allSatTest_minimizedModels() throws SolverException, InterruptedException {
+    assume().that(proverEnv).isEqualTo("normal");
+    // SMTInterpol and MathSAT5 compute AllSAT natively,
+    // Boolector does not support visiting formulas and would enumerate all full models.
+    assume()
+        .withMessage("Solver %s does not use the generic AllSAT computation", solverToUse())
+        .that(solverToUse())
+        .isNoneOf(Solvers.SMTINTERPOL, Solvers.MATHSAT5, Solvers.BOOLECTOR);
+
+    BooleanFormula a = bmgr.makeVariable("a");
+    BooleanFormula b = bmgr.makeVariable("b");
+    List<BooleanFormula> predicates = new ArrayList<>();
+    predicates.add(a);
+    predicates.add(b);
+    int unconstrained = 20;
+    for (int i = 0; i < unconstrained; i++) {
+      predicates.add(bmgr.makeVariable("free" + i));
+    }
+
+    try (BasicProverEnvironment<?> prover =
+        context.newProverEnvironment(
+            ProverOptions.GENERATE_ALL_SAT, ProverOptions.MINIMIZE_ALL_SAT_MODELS)) {
+      prover.push(bmgr.or(a, b));
+
+      TestAllSatCallback callback = new TestAllSatCallback();
+      assertThat(prover.allSat(callback, predicates)).isEqualTo(EXPECTED_RESULT);
+
+      // without minimization, there would be 3 * 2^20 models
+      assertThat(callback.models.size()).isAtMost(3);
+      long coveredModels = 0;
+      for (List<BooleanFormula> model : callback.models) {
+        coveredModels += 1L << (predicates.size() - model.size());
+      }
+      assertThat(coveredModels).isEqualTo(3L << unconstrained);
+    }
+  }
+
+  @Test
+  public void allSatTest_minimizedModelsWithTheoryPredicates()
+      throws SolverException, InterruptedException {
+    assume().that(proverEnv).isEqualTo("normal");
+    assume()
+        .withMessage("Solver %s does not use the generic AllSAT computation", solverToUse())
+        .that(solverToUse())
+        .isNoneOf(Solvers.SMTINTERPOL, Solvers.MATHSAT5, Solvers.BOOLECTOR);
+    requireIntegers();
+    requireUnsatCoreOverAssumptions();
+
+    IntegerFormula x = imgr.makeVariable("x");
+    BooleanFormula a = bmgr.makeVariable("a");
+    BooleanFormula large = imgr.greaterThan(x, imgr.makeNumber(5));
+    BooleanFormula positive = imgr.greaterThan(x, imgr.makeNumber(0));
+    BooleanFormula small = imgr.lessThan(x, imgr.makeNumber(10));
+    BooleanFormula constraint = bmgr.or(large, a);
+
+    try (BasicProverEnvironment<?> prover =
+        context.newProverEnvironment(
+            ProverOptions.GENERATE_ALL_SAT, ProverOptions.MINIMIZE_ALL_SAT_MODELS)) {
+      prover.push(constraint);
+
+      TestAllSatCallback callback = new TestAllSatCallback();
+      assertThat(prover.allSat(callback, ImmutableList.of(large, positive, small, a)))
+          .isEqualTo(EXPECTED_RESULT);
+
+      // without minimization, the irrelevant theory predicates would split the models
+      assertThat(callback.models).hasSize(2);
+      for (List<BooleanFormula> model : callback.models) {
+        assertThat(model).containsNoneOf(positive, bmgr.not(positive), small, bmgr.not(small));
+        // each reported cube still implies the constraint
+        try (BasicProverEnvironment<?> check = context.newProverEnvironment()) {
+          check.push(bmgr.and(bmgr.and(model), bmgr.not(constraint)));
+          assertThat(check.isUnsat()).isTrue();
+        }
+      }
+    }
+  }
+
+  @Test
+  public void allSatTest_minimizedModelsWithOtherAtoms()
+      throws SolverException, InterruptedException {
+    assume().that(proverEnv).isEqualTo("normal");
+    assume()
+        .withMessage("Solver %s does not use the generic AllSAT computation", solverToUse())
+        .that(solverToUse())
+        .isNoneOf(Solvers.SMTINTERPOL, Solvers.MATHSAT5, Solvers.BOOLECTOR);
+    requireIntegers();
+    requireUnsatCoreOverAssumptions();
+
+    IntegerFormula x = imgr.makeVariable("x");
+    IntegerFormula y = imgr.makeVariable("y");
+    BooleanFormula a = bmgr.makeVariable("a");
+    BooleanFormula b = bmgr.makeVariable("b");
+    BooleanFormula large = imgr.greaterThan(x, imgr.makeNumber(5));
+    BooleanFormula positive = imgr.greaterThan(x, imgr.makeNumber(0));
+    BooleanFormula small = imgr.lessThan(x, imgr.makeNumber(10));
+    BooleanFormula relevant = bmgr.or(large, a);
+    // atoms that are not important and do not share a symbol with the important predicates
+    BooleanFormula other = bmgr.or(imgr.greaterThan(y, imgr.makeNumber(3)), b);
+
+    try (BasicProverEnvironment<?> prover =
+        context.newProverEnvironment(
+            ProverOptions.GENERATE_ALL_SAT, ProverOptions.MINIMIZE_ALL_SAT_MODELS)) {
+      prover.push(relevant);
+      prover.push(other);
+
+      TestAllSatCallback callback = new TestAllSatCallback();
+      assertThat(prover.allSat(callback, ImmutableList.of(large, positive, small, a)))
+          .isEqualTo(EXPECTED_RESULT);
+
+      // the other atoms must not prevent the minimization
+      assertThat(callback.models).hasSize(2);
+      for (List<BooleanFormula> model : callback.models) {
+        assertThat(model).containsNoneOf(positive, bmgr.not(positive), small, bmgr.not(small));
+        try (BasicProverEnvironment<?> check = context.newProverEnvironment()) {
+          check.push(bmgr.and(bmgr.and(model), bmgr.not(relevant)));
+          assertThat(check.isUnsat()).isTrue();
+        }
+      }
+    }
+  }
+
+  @Test
+  public void allSatIteratorTest() throws SolverException, InterruptedException {
+    checkIterator(false);
+  }
+
+  @Test
+  public void allSatCallbackIteratorTest() throws SolverException, InterruptedException {
+    checkIterator(true);
+  }
+
+  private AllSatIterator createIterator(boolean fromCallback, List<BooleanFormula> predicates)
+      throws SolverException, InterruptedException {
+    if (fromCallback) {
+      assume()
+          .withMessage("Solver %s overflows its stack when used from another thread", solverToUse())
+          .that(solverToUse())
+          .isNotEqualTo(Solvers.BOOLECTOR);
+    }
+    return fromCallback
+        ? new AllSatCallbackIterator(env, predicates)
+        : env.allSatIterator(predicates);
+  }
+
+  private void checkIterator(boolean fromCallback) throws SolverException, InterruptedException {
+    BooleanFormula v1 = bmgr.makeVariable("b1");
+    BooleanFormula v2 = bmgr.makeVariable("b2");
+    env.push(bmgr.xor(v1, v2));
+
+    List<List<BooleanFormula>> models = new ArrayList<>();
+    try (AllSatIterator iterator = createIterator(fromCallback, ImmutableList.of(v1, v2))) {
+      while (iterator.hasNext()) {
+        models.add(iterator.next());
+      }
+      assertThat(iterator.hasNext()).isFalse();
+    }
+    assertThat(models)
+        .containsExactly(ImmutableList.of(v1, bmgr.not(v2)), ImmutableList.of(bmgr.not(v1), v2));
+    assertThat(env.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void allSatIteratorEarlyCloseTest() throws SolverException, InterruptedException {
+    checkEarlyClose(false);
+  }
+
+  @Test
+  public void allSatCallbackIteratorEarlyCloseTest() throws SolverException, InterruptedException {
+    checkEarlyClose(true);
+  }
+
+  private void checkEarlyClose(boolean fromCallback) throws SolverException, InterruptedException {
+    List<BooleanFormula> predicates = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      predicates.add(bmgr.makeVariable("b" + i));
+    }
+    env.push(bmgr.or(predicates));
+
+    try (AllSatIterator iterator = createIterator(fromCallback, predicates)) {
+      for (int i = 0; i < 3; i++) {
+        assertThat(iterator.hasNext()).isTrue();
+        assertThat(iterator.next()).isNotEmpty();
+      }
+    }
+
+    // the blocking clauses of the first models are removed from the prover
+    assertThat(env.size()).isEqualTo(1);
+    env.push(bmgr.and(predicates));
+    assertThat(env.isUnsat()).isFalse();
+    env.pop();
+
+    TestAllSatCallback callback = new TestAllSatCallback();
+    env.allSat(callback, predicates);
+    long coveredModels = 0;
+    for (List<BooleanFormula> model : callback.models) {
+      coveredModels += 1L << (predicates.size() - model.size());
+    }
+    assertThat(coveredModels).isEqualTo((1L << predicates.size()) - 1);
+  }
 }
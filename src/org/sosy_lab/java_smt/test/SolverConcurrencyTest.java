@@ -49,6 +49,7 @@ import org.sosy_lab.java_smt.api.BitvectorFormulaManager;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.BooleanFormulaManager;
 import org.sosy_lab.java_smt.api.FormulaManager;
+import org.sosy_lab.java_smt.api.FunctionDeclaration;
 import org.sosy_lab.java_smt.api.IntegerFormulaManager;
 import org.sosy_lab.java_smt.api.Model;
 import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
@@ -57,6 +58,8 @@ import org.sosy_lab.java_smt.api.OptimizationProverEnvironment.OptStatus;
 import org.sosy_lab.java_smt.api.SolverContext;
 import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
 import org.sosy_lab.java_smt.api.SolverException;
+import org.sosy_lab.java_smt.api.visitors.DefaultBooleanFormulaVisitor;
+import org.sosy_lab.java_smt.api.visitors.TraversalProcess;
 
 @SuppressWarnings("resource")
 @RunWith(Parameterized.class)
@@ -506,6 +509,98 @@ public class SolverConcurrencyTest {
         });
   }
 
+  /**
+   * Stress test for a synchronized context that is shared by all threads. Each thread creates
+   * formulas, inspects them with operations that wrap native terms, and solves them on its own
+   * prover, while the other threads do the same.
+   */
+  @Test
+  public void testSynchronizedSharedContext() throws InvalidConfigurationException {
+    // Boolector can not be used from threads other than the one that created the context, and
+    // Princess does not support models of interleaved provers on the same context.
+    assume().that(solver).isNoneOf(Solvers.BOOLECTOR, Solvers.PRINCESS);
+
+    SolverContext context = initSolver("solver.synchronize", "true");
+    UniqueIdGenerator idGenerator = new UniqueIdGenerator();
+    try {
+      assertConcurrency(
+          "testSynchronizedSharedContext",
+          () -> sharedContextTest(context, idGenerator.getFreshId()));
+    } finally {
+      closeSolver(context);
+    }
+  }
+
+  /**
+   * Stress test for a synchronized context whose provers use separate contexts, such that the
+   * per-prover locks and the shared lock are used concurrently.
+   */
+  @Test
+  public void testSynchronizedContextWithSeparateProvers() throws InvalidConfigurationException {
+    // The constraints are translated into the separate contexts.
+    assume()
+        .withMessage("Solver does not support translation of formulas")
+        .that(solver)
+        .isNoneOf(Solvers.CVC4, Solvers.CVC5, Solvers.PRINCESS, Solvers.BOOLECTOR, Solvers.YICES2);
+
+    SolverContext context =
+        initSolver("solver.synchronize", "true", "solver.synchronized.useSeperateProvers", "true");
+    UniqueIdGenerator idGenerator = new UniqueIdGenerator();
+    try {
+      assertConcurrency(
+          "testSynchronizedContextWithSeparateProvers",
+          () -> sharedContextTest(context, idGenerator.getFreshId()));
+    } finally {
+      closeSolver(context);
+    }
+  }
+
+  private void sharedContextTest(SolverContext context, int id)
+      throws SolverException, InterruptedException {
+    FormulaManager mgr = context.getFormulaManager();
+    BooleanFormulaManager bmgr = mgr.getBooleanFormulaManager();
+    for (int i = 0; i < 20; i++) {
+      BooleanFormula a = bmgr.makeVariable(mgr.escape("a_" + id + "_" + i));
+      BooleanFormula b = bmgr.makeVariable(mgr.escape("b_" + id + "_" + i));
+      BooleanFormula f = bmgr.and(bmgr.or(a, b), bmgr.not(b));
+
+      assertThat(mgr.extractVariables(f)).hasSize(2);
+      assertThat(mgr.getFormulaType(f).isBooleanType()).isTrue();
+      assertThat(bmgr.isTrue(f)).isFalse();
+      assertThat(mgr.dumpFormula(f).toString()).isNotEmpty();
+      List<BooleanFormula> atoms = new ArrayList<>();
+      bmgr.visitRecursively(
+          f,
+          new DefaultBooleanFormulaVisitor<>() {
+            @Override
+            protected TraversalProcess visitDefault() {
+              return TraversalProcess.CONTINUE;
+            }
+
+            @Override
+            public TraversalProcess visitAtom(
+                BooleanFormula atom, FunctionDeclaration<BooleanFormula> decl) {
+              // visitors may create new formulas while the visit is running
+              atoms.add(bmgr.not(atom));
+              return TraversalProcess.CONTINUE;
+            }
+          });
+      assertThat(atoms).isNotEmpty();
+
+      try (BasicProverEnvironment<?> prover =
+          context.newProverEnvironment(ProverOptions.GENERATE_MODELS)) {
+        prover.push(f);
+        assertThat(prover.isUnsat()).isFalse();
+        try (Model model = prover.getModel()) {
+          assertThat(model.evaluate(a)).isTrue();
+        }
+        assertThat(prover.getStatistics()).isNotNull();
+        prover.push(b);
+        assertThat(prover.isUnsat()).isTrue();
+      }
+    }
+  }
+
   // As optimization is not used much at the moment this small test is ok
   private void optimizationTest(SolverContext context)
       throws InterruptedException, SolverException {
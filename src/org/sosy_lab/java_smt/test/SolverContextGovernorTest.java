@@ -0,0 +1,146 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.test;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.TruthJUnit.assume;
+import static org.junit.Assert.assertThrows;
+
+import org.junit.Test;
+import org.sosy_lab.common.ShutdownManager;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
+import org.sosy_lab.java_smt.SolverContextGovernor;
+import org.sosy_lab.java_smt.SolverContextGovernor.RetainedFormula;
+import org.sosy_lab.java_smt.api.BitvectorFormula;
+import org.sosy_lab.java_smt.api.BitvectorFormulaManager;
+import org.sosy_lab.java_smt.api.BooleanFormulaManager;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext;
+import org.sosy_lab.java_smt.api.SolverException;
+
+/** Checks the replacement of contexts with a solver that is available on all platforms. */
+public class SolverContextGovernorTest {
+
+  private final LogManager logger = LogManager.createTestLogManager();
+  private final ShutdownManager shutdownManager = ShutdownManager.create();
+
+  private SolverContextGovernor createGovernor() throws InvalidConfigurationException {
+    return new SolverContextGovernor(
+        Configuration.defaultConfiguration(),
+        logger,
+        shutdownManager.getNotifier(),
+        Solvers.SMTINTERPOL);
+  }
+
+  /** Create a governor for Z3, which only reports the memory usage of the whole process. */
+  private SolverContextGovernor createZ3Governor(boolean useProcessMemory)
+      throws InvalidConfigurationException {
+    Configuration config =
+        Configuration.builder()
+            .setOption("solver.governor.maxMemory", "1")
+            .setOption("solver.governor.useProcessMemory", Boolean.toString(useProcessMemory))
+            .build();
+    return createNativeGovernor(config, Solvers.Z3);
+  }
+
+  private SolverContextGovernor createNativeGovernor(Configuration pConfig, Solvers pSolver)
+      throws InvalidConfigurationException {
+    try {
+      return new SolverContextGovernor(pConfig, logger, shutdownManager.getNotifier(), pSolver);
+    } catch (InvalidConfigurationException e) {
+      assume()
+          .withMessage(e.getMessage())
+          .that(e)
+          .hasCauseThat()
+          .isNotInstanceOf(UnsatisfiedLinkError.class);
+      throw e;
+    }
+  }
+
+  @Test
+  public void retainedFormulasAreMigrated()
+      throws InvalidConfigurationException, SolverException, InterruptedException {
+    try (SolverContextGovernor governor = createGovernor()) {
+      SolverContext oldContext = governor.getContext();
+      BooleanFormulaManager bmgr = oldContext.getFormulaManager().getBooleanFormulaManager();
+      RetainedFormula a = governor.retain(bmgr.makeVariable("a"));
+      RetainedFormula notA = governor.retain(bmgr.not(bmgr.makeVariable("a")));
+
+      governor.recycle();
+
+      SolverContext newContext = governor.getContext();
+      assertThat(newContext).isNotSameInstanceAs(oldContext);
+      try (ProverEnvironment prover = newContext.newProverEnvironment()) {
+        prover.push(a.get());
+        assertThat(prover.isUnsat()).isFalse();
+        prover.push(notA.get());
+        assertThat(prover.isUnsat()).isTrue();
+      }
+      assertThat(governor.getStatistics()).containsEntry("number of recycled contexts", 1L);
+      assertThat(governor.getStatistics()).containsEntry("number of migrated formulas", 2L);
+    }
+  }
+
+  @Test
+  public void noRecyclingWithoutMemoryStatistics() throws InvalidConfigurationException {
+    try (SolverContextGovernor governor = createGovernor()) {
+      SolverContext context = governor.getContext();
+      // SMTInterpol does not report its memory usage
+      assertThat(governor.recycleIfNecessary()).isFalse();
+      assertThat(governor.getContext()).isSameInstanceAs(context);
+    }
+  }
+
+  @Test
+  public void processMemoryIsOnlyUsedWhenEnabled() throws InvalidConfigurationException {
+    try (SolverContextGovernor governor = createZ3Governor(false)) {
+      assertThat(governor.getContext().getStatistics()).containsKey("process memory");
+      assertThat(governor.recycleIfNecessary()).isFalse();
+    }
+    try (SolverContextGovernor governor = createZ3Governor(true)) {
+      // Z3 uses more than one megabyte of memory for a context
+      assertThat(governor.recycleIfNecessary()).isTrue();
+    }
+  }
+
+  @Test
+  public void processMemoryHasOneOwner() throws InvalidConfigurationException {
+    try (SolverContextGovernor owner = createZ3Governor(true)) {
+      assertThrows(InvalidConfigurationException.class, () -> createZ3Governor(true));
+      // governors without the option are not affected
+      createZ3Governor(false).close();
+      assertThat(owner.recycleIfNecessary()).isTrue();
+    }
+    // the process memory can be used again after the owner was closed
+    createZ3Governor(true).close();
+  }
+
+  @Test
+  public void recyclingWithContextMemory() throws InvalidConfigurationException {
+    Configuration config =
+        Configuration.builder().setOption("solver.governor.maxMemory", "1").build();
+    try (SolverContextGovernor governor = createNativeGovernor(config, Solvers.BOOLECTOR)) {
+      SolverContext context = governor.getContext();
+      assertThat(governor.recycleIfNecessary()).isFalse();
+
+      // Boolector reports the memory of each context, which grows with the number of terms
+      BitvectorFormulaManager bvmgr = context.getFormulaManager().getBitvectorFormulaManager();
+      BitvectorFormula sum = bvmgr.makeVariable(32, "x");
+      for (int i = 0; i < 20000; i++) {
+        sum = bvmgr.add(sum, bvmgr.makeVariable(32, "x" + i));
+      }
+      assertThat(governor.recycleIfNecessary()).isTrue();
+      assertThat(governor.getContext()).isNotSameInstanceAs(context);
+      assertThat(governor.recycleIfNecessary()).isFalse();
+    }
+  }
+}
@@ -0,0 +1,184 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.test;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.TruthJUnit.assume;
+import static org.junit.Assert.assertThrows;
+
+import org.junit.Test;
+import org.sosy_lab.common.ShutdownManager;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
+import org.sosy_lab.java_smt.SolverContextPool;
+import org.sosy_lab.java_smt.api.BitvectorFormula;
+import org.sosy_lab.java_smt.api.BitvectorFormulaManager;
+import org.sosy_lab.java_smt.api.BooleanFormulaManager;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext;
+import org.sosy_lab.java_smt.api.SolverException;
+
+/** Checks leasing and recycling of contexts with a solver that is available on all platforms. */
+public class SolverContextPoolTest {
+
+  private final LogManager logger = LogManager.createTestLogManager();
+  private final ShutdownManager shutdownManager = ShutdownManager.create();
+
+  private SolverContextPool createPool(int size, int maxLeases)
+      throws InvalidConfigurationException {
+    Configuration config =
+        Configuration.builder()
+            .setOption("solver.pool.size", Integer.toString(size))
+            .setOption("solver.pool.maxLeasesPerContext", Integer.toString(maxLeases))
+            .build();
+    return new SolverContextPool(
+        config, logger, shutdownManager.getNotifier(), Solvers.SMTINTERPOL);
+  }
+
+  @Test
+  public void leaseAndReturn()
+      throws InvalidConfigurationException, SolverException, InterruptedException {
+    try (SolverContextPool pool = createPool(2, 0)) {
+      assertThat(pool.getNumberOfIdleContexts()).isEqualTo(2);
+
+      try (SolverContext context = pool.lease()) {
+        assertThat(pool.getNumberOfIdleContexts()).isEqualTo(1);
+        BooleanFormulaManager bmgr = context.getFormulaManager().getBooleanFormulaManager();
+        try (ProverEnvironment prover = context.newProverEnvironment()) {
+          prover.addConstraint(bmgr.makeVariable("a"));
+          assertThat(prover.isUnsat()).isFalse();
+        }
+      }
+
+      assertThat(pool.getNumberOfIdleContexts()).isEqualTo(2);
+      assertThat(pool.getStatistics()).containsEntry("number of created contexts", 2L);
+    }
+  }
+
+  @Test
+  public void leaseBeyondSize() throws InvalidConfigurationException {
+    try (SolverContextPool pool = createPool(1, 0)) {
+      try (SolverContext context1 = pool.lease();
+          SolverContext context2 = pool.lease()) {
+        assertThat(context1.getFormulaManager()).isNotSameInstanceAs(context2.getFormulaManager());
+        assertThat(pool.getNumberOfIdleContexts()).isEqualTo(0);
+      }
+      // only one of both contexts is kept
+      assertThat(pool.getNumberOfIdleContexts()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  public void recycleAfterMaxLeases() throws InvalidConfigurationException {
+    try (SolverContextPool pool = createPool(1, 2)) {
+      for (int i = 0; i < 5; i++) {
+        try (SolverContext context = pool.lease()) {
+          assertThat(context.getFormulaManager()).isNotNull();
+        }
+      }
+      assertThat(pool.getStatistics()).containsEntry("number of recycled contexts", 2L);
+      assertThat(pool.getNumberOfIdleContexts()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  @SuppressWarnings("resource")
+  public void returnedContextIsUnusable() throws InvalidConfigurationException {
+    try (SolverContextPool pool = createPool(1, 0)) {
+      SolverContext context = pool.lease();
+      context.close();
+      assertThrows(IllegalStateException.class, context::getFormulaManager);
+      context.close(); // returning twice has no effect
+      assertThat(pool.getNumberOfIdleContexts()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  @SuppressWarnings("resource")
+  public void openProversAreClosedOnReturn()
+      throws InvalidConfigurationException, SolverException, InterruptedException {
+    try (SolverContextPool pool = createPool(1, 0)) {
+      ProverEnvironment leftover;
+      try (SolverContext context = pool.lease()) {
+        BooleanFormulaManager bmgr = context.getFormulaManager().getBooleanFormulaManager();
+        leftover = context.newProverEnvironment();
+        leftover.push();
+        leftover.addConstraint(bmgr.makeVariable("a"));
+      }
+      assertThrows(IllegalStateException.class, leftover::size);
+
+      // the next lessee gets the same context without the assertions of the leftover prover
+      try (SolverContext context = pool.lease();
+          ProverEnvironment prover = context.newProverEnvironment()) {
+        BooleanFormulaManager bmgr = context.getFormulaManager().getBooleanFormulaManager();
+        prover.addConstraint(bmgr.not(bmgr.makeVariable("a")));
+        assertThat(prover.isUnsat()).isFalse();
+      }
+      assertThat(pool.getStatistics()).containsEntry("number of created contexts", 1L);
+    }
+  }
+
+  @Test
+  public void recycleAfterMaxMemory() throws InvalidConfigurationException {
+    Configuration config =
+        Configuration.builder()
+            .setOption("solver.pool.size", "1")
+            .setOption("solver.pool.maxMemoryPerContext", "1")
+            .build();
+    SolverContextPool pool;
+    try {
+      pool =
+          new SolverContextPool(config, logger, shutdownManager.getNotifier(), Solvers.BOOLECTOR);
+    } catch (InvalidConfigurationException e) {
+      assume()
+          .withMessage(e.getMessage())
+          .that(e)
+          .hasCauseThat()
+          .isNotInstanceOf(UnsatisfiedLinkError.class);
+      throw e;
+    }
+    try {
+      // a fresh context stays below the limit
+      try (SolverContext context = pool.lease()) {
+        assertThat(context.getFormulaManager()).isNotNull();
+      }
+      assertThat(pool.getStatistics()).containsEntry("number of recycled contexts", 0L);
+
+      // Boolector reports the memory of each context, which grows with the number of terms
+      try (SolverContext context = pool.lease()) {
+        BitvectorFormulaManager bvmgr = context.getFormulaManager().getBitvectorFormulaManager();
+        BitvectorFormula sum = bvmgr.makeVariable(32, "x");
+        for (int i = 0; i < 20000; i++) {
+          sum = bvmgr.add(sum, bvmgr.makeVariable(32, "x" + i));
+        }
+      }
+      assertThat(pool.getStatistics()).containsEntry("number of recycled contexts", 1L);
+      assertThat(pool.getStatistics()).containsEntry("number of created contexts", 2L);
+      assertThat(pool.getNumberOfIdleContexts()).isEqualTo(1);
+    } finally {
+      pool.close();
+    }
+  }
+
+  @Test
+  public void freshSymbolTableForEachLease() throws InvalidConfigurationException {
+    try (SolverContextPool pool = createPool(1, 1)) {
+      try (SolverContext context = pool.lease()) {
+        context.getFormulaManager().getBooleanFormulaManager().makeVariable("x");
+      }
+      try (SolverContext context = pool.lease()) {
+        // declaring x with another type would fail in the previous context
+        assertThat(context.getFormulaManager().getIntegerFormulaManager().makeVariable("x"))
+            .isNotNull();
+      }
+    }
+  }
+}
@@ -8,9 +8,11 @@
 
 package org.sosy_lab.java_smt.test;
 
+import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.assertThrows;
 
 import com.google.common.truth.TruthJUnit;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
@@ -23,6 +25,7 @@ import org.junit.runners.Parameterized.Parameters;
 import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
 import org.sosy_lab.java_smt.api.BasicProverEnvironment;
 import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.SolverException;
 import org.sosy_lab.java_smt.api.Tactic;
 import org.sosy_lab.java_smt.solvers.opensmt.Logics;
 
@@ -114,6 +117,38 @@ public class TimeoutTest extends SolverBasedTest0 {
     testBasicProverTimeoutInt(() -> context.newOptimizationProverEnvironment());
   }
 
+  @Test(timeout = TIMOUT_MILLISECONDS)
+  public void testProverDeadlineInt() throws InterruptedException, SolverException {
+    requireIntegers();
+    HardIntegerFormulaGenerator gen = new HardIntegerFormulaGenerator(imgr, bmgr);
+    testProverDeadline(gen.generate(100));
+  }
+
+  @Test(timeout = TIMOUT_MILLISECONDS)
+  public void testProverDeadlineBv() throws InterruptedException, SolverException {
+    requireBitvectors();
+    TruthJUnit.assume()
+        .withMessage("Boolector can not continue after a terminated check")
+        .that(solverToUse())
+        .isNotEqualTo(Solvers.BOOLECTOR);
+    HardBitvectorFormulaGenerator gen = new HardBitvectorFormulaGenerator(bvmgr, bmgr);
+    testProverDeadline(gen.generate(100));
+  }
+
+  private void testProverDeadline(BooleanFormula instance)
+      throws InterruptedException, SolverException {
+    try (BasicProverEnvironment<?> pe = context.newProverEnvironment()) {
+      pe.push(instance);
+      assertThrows(SolverException.class, () -> pe.isUnsat(Duration.ofMillis(delay)));
+
+      // only the check was aborted, the prover and the context are still usable
+      pe.pop();
+      pe.push(bmgr.makeTrue());
+      assertThat(pe.isUnsat(Duration.ofMillis(TIMOUT_MILLISECONDS))).isFalse();
+      assertThat(pe.isUnsat()).isFalse();
+    }
+  }
+
   private void testBasicProverTimeoutInt(Supplier<BasicProverEnvironment<?>> proverConstructor)
       throws InterruptedException {
     HardIntegerFormulaGenerator gen = new HardIntegerFormulaGenerator(imgr, bmgr);
@@ -8,9 +8,11 @@
 
 package org.sosy_lab.java_smt.test;
 
+import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.TruthJUnit.assume;
 import static org.sosy_lab.java_smt.test.BooleanFormulaSubject.assertUsing;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import java.util.Arrays;
 import java.util.List;
@@ -27,13 +29,21 @@ import org.sosy_lab.common.configuration.InvalidConfigurationException;
 import org.sosy_lab.common.log.LogManager;
 import org.sosy_lab.java_smt.SolverContextFactory;
 import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
+import org.sosy_lab.java_smt.api.BitvectorFormula;
+import org.sosy_lab.java_smt.api.BitvectorFormulaManager;
 import org.sosy_lab.java_smt.api.BooleanFormula;
 import org.sosy_lab.java_smt.api.BooleanFormulaManager;
 import org.sosy_lab.java_smt.api.FormulaManager;
+import org.sosy_lab.java_smt.api.FormulaType;
+import org.sosy_lab.java_smt.api.FunctionDeclaration;
 import org.sosy_lab.java_smt.api.IntegerFormulaManager;
 import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
+import org.sosy_lab.java_smt.api.QuantifiedFormulaManager;
 import org.sosy_lab.java_smt.api.SolverContext;
 import org.sosy_lab.java_smt.api.SolverException;
+import org.sosy_lab.java_smt.api.UFManager;
+import org.sosy_lab.java_smt.utils.FormulaTranslator;
+import org.sosy_lab.java_smt.utils.SolverUtils;
 
 /** Testing formula serialization. */
 @RunWith(Parameterized.class)
@@ -110,6 +120,20 @@ public class TranslateFormulaTest {
         .isNotEqualTo(Solvers.BOOLECTOR);
   }
 
+  private void requireBitvectors(Solvers solver) {
+    assume()
+        .withMessage("Solver %s does not support bitvector theory", solver)
+        .that(solver)
+        .isNoneOf(Solvers.SMTINTERPOL, Solvers.YICES2, Solvers.OPENSMT);
+  }
+
+  private void requireIntegersTo() {
+    assume()
+        .withMessage("Solver %s does not support integer theory", translateTo)
+        .that(translateTo)
+        .isNotEqualTo(Solvers.BOOLECTOR);
+  }
+
   @Test
   public void testDumpingAndParsing() throws SolverException, InterruptedException {
     requireParserTo();
@@ -172,6 +196,161 @@ public class TranslateFormulaTest {
     assertUsing(from).that(inputFrom).isEquivalentTo(translatedReverseInput);
   }
 
+  @Test
+  public void testTranslatingWithCache()
+      throws SolverException, InterruptedException, InvalidConfigurationException {
+    requireParserTo();
+
+    Configuration config =
+        Configuration.builder().setOption("solver.translationCacheSize", "100").build();
+    try (SolverContext cached =
+        new SolverContextFactory(config, logger, ShutdownManager.create().getNotifier())
+            .generateContext(translateTo)) {
+      FormulaManager managerCached = cached.getFormulaManager();
+
+      BooleanFormula inputFrom = createTestFormula(managerFrom);
+      BooleanFormula translatedInput = managerCached.translateFrom(inputFrom, managerFrom);
+      assertThat(managerCached.translateFrom(inputFrom, managerFrom))
+          .isSameInstanceAs(translatedInput);
+      assertUsing(cached).that(createTestFormula(managerCached)).isEquivalentTo(translatedInput);
+
+      // a formula sharing conjuncts with the cached one is translated correctly
+      BooleanFormulaManager bfmgr = managerFrom.getBooleanFormulaManager();
+      BooleanFormula extended = bfmgr.and(inputFrom, bfmgr.makeVariable("p"));
+      BooleanFormula translatedExtended = managerCached.translateFrom(extended, managerFrom);
+      assertUsing(cached)
+          .that(translatedExtended)
+          .isEquivalentTo(
+              managerCached
+                  .getBooleanFormulaManager()
+                  .and(
+                      translatedInput, managerCached.getBooleanFormulaManager().makeVariable("p")));
+    }
+  }
+
+  @Test
+  public void testTranslatingWithVisitor() throws SolverException, InterruptedException {
+    requireIntegersTo();
+
+    FormulaTranslator translator = SolverUtils.formulaTranslator(managerFrom, managerTo);
+
+    BooleanFormula inputFrom = createTestFormula(managerFrom);
+    BooleanFormula translatedInput = translator.translate(inputFrom);
+
+    assertThat(translator.getFallbacks()).isEmpty();
+    assertUsing(to).that(createTestFormula(managerTo)).isEquivalentTo(translatedInput);
+  }
+
+  @Test
+  public void testTranslatingUFsWithVisitor() throws SolverException, InterruptedException {
+    requireIntegers();
+    requireIntegersTo();
+
+    FormulaTranslator translator = SolverUtils.formulaTranslator(managerFrom, managerTo);
+    BooleanFormula inputFrom = createUFTestFormula(managerFrom);
+    BooleanFormula translatedInput = translator.translate(inputFrom);
+
+    assertThat(translator.getFallbacks()).isEmpty();
+    assertUsing(to).that(createUFTestFormula(managerTo)).isEquivalentTo(translatedInput);
+
+    // translating again is answered from the memo
+    assertThat(translator.translate(inputFrom)).isEqualTo(translatedInput);
+  }
+
+  @Test
+  public void testTranslatingNaryOperatorsWithVisitor()
+      throws SolverException, InterruptedException {
+    requireParserFrom();
+    requireBitvectors(translateFrom);
+    requireBitvectors(translateTo);
+    assume()
+        .withMessage("Solver %s encodes bitvectors as integers", translateFrom)
+        .that(translateFrom)
+        .isNotEqualTo(Solvers.PRINCESS);
+
+    // n-ary applications are only created by parsing
+    BooleanFormula inputFrom =
+        managerFrom.parse(
+            "(declare-fun a () (_ BitVec 8))(declare-fun b () (_ BitVec 8))"
+                + "(declare-fun c () (_ BitVec 8))"
+                + "(assert (and (= (bvadd a b c) #x00) (= (bvmul a b c) (bvor a b c))"
+                + " (= (bvand a b c) (bvxor a b))))");
+
+    FormulaTranslator translator = SolverUtils.formulaTranslator(managerFrom, managerTo);
+    BooleanFormula translatedInput = translator.translate(inputFrom);
+
+    assertThat(translator.getFallbacks()).isEmpty();
+    BooleanFormulaManager bfmgr = managerTo.getBooleanFormulaManager();
+    BitvectorFormulaManager bvmgr = managerTo.getBitvectorFormulaManager();
+    BitvectorFormula a = bvmgr.makeVariable(8, "a");
+    BitvectorFormula b = bvmgr.makeVariable(8, "b");
+    BitvectorFormula c = bvmgr.makeVariable(8, "c");
+    BooleanFormula expected =
+        bfmgr.and(
+            bvmgr.equal(bvmgr.add(bvmgr.add(a, b), c), bvmgr.makeBitvector(8, 0)),
+            bvmgr.equal(bvmgr.multiply(bvmgr.multiply(a, b), c), bvmgr.or(bvmgr.or(a, b), c)),
+            bvmgr.equal(bvmgr.and(bvmgr.and(a, b), c), bvmgr.xor(a, b)));
+    assertUsing(to).that(translatedInput).isEquivalentTo(expected);
+  }
+
+  @Test
+  public void testTranslatingQuantifiersWithVisitor() throws SolverException, InterruptedException {
+    // Princess does not report the variables of a quantifier to the visitor
+    assume()
+        .withMessage("Solver %s does not support visiting quantifiers", translateFrom)
+        .that(translateFrom)
+        .isAnyOf(Solvers.Z3, Solvers.CVC4, Solvers.CVC5);
+    assume()
+        .withMessage("Solver %s does not support quantifiers", translateTo)
+        .that(translateTo)
+        .isAnyOf(Solvers.Z3, Solvers.CVC4, Solvers.CVC5, Solvers.PRINCESS);
+
+    FormulaTranslator translator = SolverUtils.formulaTranslator(managerFrom, managerTo);
+    BooleanFormula translatedInput = translator.translate(createQuantifiedTestFormula(managerFrom));
+
+    assertThat(translator.getFallbacks()).isEmpty();
+    assertUsing(to).that(translatedInput).isEquivalentTo(createQuantifiedTestFormula(managerTo));
+  }
+
+  /**
+   * Nested quantifiers with several bound variables, such that a wrong mapping of the bound
+   * variables changes the meaning of the formula.
+   */
+  private BooleanFormula createQuantifiedTestFormula(FormulaManager mgr) {
+    BooleanFormulaManager bfmgr = mgr.getBooleanFormulaManager();
+    IntegerFormulaManager ifmgr = mgr.getIntegerFormulaManager();
+    QuantifiedFormulaManager qfmgr = mgr.getQuantifiedFormulaManager();
+    IntegerFormula x = ifmgr.makeVariable("x");
+    IntegerFormula y = ifmgr.makeVariable("y");
+    IntegerFormula z = ifmgr.makeVariable("z");
+    IntegerFormula w = ifmgr.makeVariable("w");
+    IntegerFormula zero = ifmgr.makeNumber(0);
+    // equivalent to z <= 0
+    return qfmgr.forall(
+        ImmutableList.of(x, w),
+        bfmgr.implication(
+            bfmgr.and(ifmgr.greaterOrEquals(x, w), ifmgr.greaterOrEquals(w, zero)),
+            qfmgr.exists(
+                y, bfmgr.and(ifmgr.greaterOrEquals(y, zero), ifmgr.equal(x, ifmgr.add(y, z))))));
+  }
+
+  private BooleanFormula createUFTestFormula(FormulaManager mgr) {
+    BooleanFormulaManager bfmgr = mgr.getBooleanFormulaManager();
+    IntegerFormulaManager ifmgr = mgr.getIntegerFormulaManager();
+    UFManager ufmgr = mgr.getUFManager();
+    IntegerFormula x = ifmgr.makeVariable("x");
+    IntegerFormula y = ifmgr.makeVariable("y");
+    FunctionDeclaration<IntegerFormula> f =
+        ufmgr.declareUF("f", FormulaType.IntegerType, FormulaType.IntegerType);
+    IntegerFormula fx = ufmgr.callUF(f, x);
+    return bfmgr.and(
+        ifmgr.greaterThan(ufmgr.callUF(f, ifmgr.add(fx, y)), fx),
+        bfmgr.ifThenElse(
+            bfmgr.makeVariable("p"),
+            ifmgr.lessOrEquals(x, ifmgr.makeNumber(-3)),
+            ifmgr.equal(ifmgr.subtract(y, x), ifmgr.makeNumber(7))));
+  }
+
   private BooleanFormula createTestFormula(FormulaManager mgr) {
     requireIntegers();
 
@@ -0,0 +1,161 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.test;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth8.assertThat;
+import static com.google.common.truth.TruthJUnit.assume;
+
+import com.google.common.collect.ImmutableList;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.Before;
+import org.junit.Test;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.SolverContext;
+import org.sosy_lab.java_smt.api.SolverException;
+import org.sosy_lab.java_smt.utils.SolverUtils;
+import org.sosy_lab.java_smt.utils.UnsatCoreMinimizer;
+import org.sosy_lab.java_smt.utils.UnsatCoreMinimizer.Strategy;
+
+public class UnsatCoreMinimizerTest extends SolverBasedTest0.ParameterizedSolverBasedTest0 {
+
+  private BooleanFormula a;
+  private BooleanFormula b;
+  private BooleanFormula c;
+  private BooleanFormula d;
+
+  /** Contains exactly one minimal unsat core: a, b, and (!a | !b). */
+  private ImmutableList<BooleanFormula> soft;
+
+  private ImmutableList<BooleanFormula> expectedCore;
+
+  @Before
+  public void setUpFormulas() {
+    a = bmgr.makeVariable("a");
+    b = bmgr.makeVariable("b");
+    c = bmgr.makeVariable("c");
+    d = bmgr.makeVariable("d");
+    BooleanFormula conflict = bmgr.or(bmgr.not(a), bmgr.not(b));
+    soft = ImmutableList.of(a, c, b, bmgr.implication(c, d), conflict, d);
+    expectedCore = ImmutableList.of(a, b, conflict);
+  }
+
+  @Test
+  public void deletionTest() throws SolverException, InterruptedException {
+    UnsatCoreMinimizer minimizer = SolverUtils.unsatCoreMinimizer(context);
+    assertThat(minimizer.minimize(ImmutableList.of(), soft)).hasValue(expectedCore);
+  }
+
+  @Test
+  public void quickXplainTest() throws SolverException, InterruptedException {
+    UnsatCoreMinimizer minimizer =
+        SolverUtils.unsatCoreMinimizer(context).setStrategy(Strategy.QUICK_XPLAIN);
+    assertThat(minimizer.minimize(ImmutableList.of(), soft)).hasValue(expectedCore);
+  }
+
+  @Test
+  public void hardConstraintsTest() throws SolverException, InterruptedException {
+    ImmutableList<BooleanFormula> hard = ImmutableList.of(bmgr.or(bmgr.not(a), bmgr.not(b)));
+    for (Strategy strategy : Strategy.values()) {
+      UnsatCoreMinimizer minimizer = SolverUtils.unsatCoreMinimizer(context).setStrategy(strategy);
+      assertThat(minimizer.minimize(hard, ImmutableList.of(c, a, d, b)))
+          .hasValue(ImmutableList.of(a, b));
+      assertThat(minimizer.minimize(hard, ImmutableList.of(c, a, d))).isEmpty();
+      assertThat(minimizer.minimize(ImmutableList.of(bmgr.makeFalse()), ImmutableList.of(a, b)))
+          .hasValue(ImmutableList.of());
+    }
+  }
+
+  @Test
+  public void timeLimitTest() throws SolverException, InterruptedException {
+    for (Strategy strategy : Strategy.values()) {
+      UnsatCoreMinimizer minimizer =
+          SolverUtils.unsatCoreMinimizer(context).setStrategy(strategy).setTimeLimit(Duration.ZERO);
+      // without time, the core from the initial query is returned
+      List<BooleanFormula> core = minimizer.minimize(ImmutableList.of(), soft).orElseThrow();
+      assertThat(core).containsAtLeastElementsIn(expectedCore);
+      assertThat(soft).containsAtLeastElementsIn(core);
+    }
+  }
+
+  @Test
+  public void queryLimitTest() throws SolverException, InterruptedException {
+    for (Strategy strategy : Strategy.values()) {
+      UnsatCoreMinimizer minimizer =
+          SolverUtils.unsatCoreMinimizer(context).setStrategy(strategy).setQueryLimit(0);
+      // without further queries, the core from the initial query is returned
+      List<BooleanFormula> core = minimizer.minimize(ImmutableList.of(), soft).orElseThrow();
+      assertThat(core).containsAtLeastElementsIn(expectedCore);
+      assertThat(soft).containsAtLeastElementsIn(core);
+    }
+  }
+
+  @Test
+  public void quickXplainQueryLimitTest() throws SolverException, InterruptedException {
+    List<BooleanFormula> initialCore =
+        SolverUtils.unsatCoreMinimizer(context)
+            .setStrategy(Strategy.QUICK_XPLAIN)
+            .setTimeLimit(Duration.ZERO)
+            .minimize(ImmutableList.of(), soft)
+            .orElseThrow();
+    assume()
+        .withMessage("the initial core of %s is already minimal", solverToUse())
+        .that(initialCore.size())
+        .isGreaterThan(expectedCore.size());
+
+    // each further query can only shrink the core, until it is minimal
+    List<BooleanFormula> previousCore = initialCore;
+    for (int limit = 0; limit <= 10; limit++) {
+      List<BooleanFormula> core =
+          SolverUtils.unsatCoreMinimizer(context)
+              .setStrategy(Strategy.QUICK_XPLAIN)
+              .setQueryLimit(limit)
+              .minimize(ImmutableList.of(), soft)
+              .orElseThrow();
+      if (limit == 0) {
+        assertThat(core).isEqualTo(initialCore);
+      } else if (limit == 4) {
+        // the fourth query of the recursion is the first one with an unsatisfiable background
+        assertThat(core.size()).isLessThan(initialCore.size());
+      }
+      assertThat(core.size()).isAtMost(previousCore.size());
+      assertThat(core).containsAtLeastElementsIn(expectedCore);
+      assertThat(soft).containsAtLeastElementsIn(core);
+      previousCore = core;
+    }
+    assertThat(previousCore).isEqualTo(expectedCore);
+  }
+
+  @Test
+  public void parallelProbingTest()
+      throws SolverException, InterruptedException, InvalidConfigurationException {
+    requireParser();
+
+    List<SolverContext> probingContexts = new ArrayList<>();
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      for (int i = 0; i < 2; i++) {
+        probingContexts.add(factory.generateContext());
+      }
+      UnsatCoreMinimizer minimizer =
+          SolverUtils.unsatCoreMinimizer(context).setParallelProbing(probingContexts, executor);
+      assertThat(minimizer.minimize(ImmutableList.of(), soft)).hasValue(expectedCore);
+    } finally {
+      executor.shutdownNow();
+      for (SolverContext probingContext : probingContexts) {
+        probingContext.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,70 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.sosy_lab.common.ShutdownManager;
+import org.sosy_lab.common.configuration.Configuration;
+import org.sosy_lab.common.configuration.InvalidConfigurationException;
+import org.sosy_lab.common.log.LogManager;
+import org.sosy_lab.java_smt.SolverContextFactory;
+import org.sosy_lab.java_smt.SolverContextFactory.Solvers;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.BooleanFormulaManager;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext;
+import org.sosy_lab.java_smt.api.SolverException;
+
+/** Checks that Z3 ASTs of unreachable formulas are released when detected in the background. */
+public class Z3PhantomReferenceCleanupTest {
+
+  private final LogManager logger = LogManager.createTestLogManager();
+  private final ShutdownManager shutdownManager = ShutdownManager.create();
+
+  private SolverContext createContext() throws InvalidConfigurationException {
+    Configuration config =
+        Configuration.builder()
+            .setOption("solver.z3.usePhantomReferences", "true")
+            .setOption("solver.z3.cleanupPhantomReferencesInBackground", "true")
+            .setOption("solver.z3.phantomReferenceBatchSize", "10")
+            .build();
+    return SolverContextFactory.createSolverContext(
+        config, logger, shutdownManager.getNotifier(), Solvers.Z3);
+  }
+
+  private static long getReleased(SolverContext context) {
+    return Long.parseLong(context.getStatistics().get("released ASTs"));
+  }
+
+  @Test
+  public void unreachableFormulasAreReleased()
+      throws InvalidConfigurationException, InterruptedException, SolverException {
+    try (SolverContext context = createContext()) {
+      BooleanFormulaManager bmgr = context.getFormulaManager().getBooleanFormulaManager();
+      BooleanFormula a = bmgr.makeVariable("a");
+      for (int round = 0; round < 100 && getReleased(context) == 0; round++) {
+        for (int i = 0; i < 1000; i++) {
+          // creates formulas that are unreachable immediately
+          bmgr.and(a, bmgr.makeVariable("b" + i));
+        }
+        System.gc();
+        Thread.sleep(10);
+        // a satisfiability check releases pending ASTs, too
+        try (ProverEnvironment prover = context.newProverEnvironment()) {
+          prover.addConstraint(a);
+          assertThat(prover.isUnsat()).isFalse();
+        }
+      }
+      assertThat(getReleased(context)).isGreaterThan(0);
+      assertThat(context.getStatistics()).containsKey("ASTs pending release");
+    }
+  }
+}
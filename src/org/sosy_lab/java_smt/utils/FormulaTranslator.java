@@ -0,0 +1,631 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.utils;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.Multiset;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.common.rationals.Rational;
+import org.sosy_lab.java_smt.api.ArrayFormula;
+import org.sosy_lab.java_smt.api.ArrayFormulaManager;
+import org.sosy_lab.java_smt.api.BitvectorFormula;
+import org.sosy_lab.java_smt.api.BitvectorFormulaManager;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.BooleanFormulaManager;
+import org.sosy_lab.java_smt.api.Formula;
+import org.sosy_lab.java_smt.api.FormulaManager;
+import org.sosy_lab.java_smt.api.FormulaType;
+import org.sosy_lab.java_smt.api.FormulaType.BitvectorType;
+import org.sosy_lab.java_smt.api.FunctionDeclaration;
+import org.sosy_lab.java_smt.api.FunctionDeclarationKind;
+import org.sosy_lab.java_smt.api.NumeralFormula;
+import org.sosy_lab.java_smt.api.NumeralFormula.IntegerFormula;
+import org.sosy_lab.java_smt.api.NumeralFormulaManager;
+import org.sosy_lab.java_smt.api.QuantifiedFormulaManager.Quantifier;
+import org.sosy_lab.java_smt.api.StringFormula;
+import org.sosy_lab.java_smt.api.visitors.FormulaVisitor;
+
+/**
+ * FormulaTranslator translates formulas between two contexts, possibly of different solvers, by
+ * traversing the formula with {@link FormulaManager#visit} and rebuilding each term with the
+ * managers of the target context. In contrast to {@link FormulaManager#translateFrom}, this does
+ * not serialize the formula to SMT-LIB, and it also works for target solvers without a parser.
+ *
+ * <p>Translated terms are memoized, such that shared subterms are translated only once, also across
+ * several calls of {@link #translate(BooleanFormula)}. The memo keeps all translated source terms
+ * alive, thus an instance should only be used as long as formulas of the source context are
+ * translated.
+ *
+ * <p>Constructs that can not be rebuilt directly (e.g., floating-point operations, strings
+ * operations, or bitvector extraction) cause a fallback to {@link FormulaManager#translateFrom} for
+ * the whole formula. The reasons for such fallbacks are available via {@link #getFallbacks()}.
+ * Quantifiers are rebuilt if the source solver reports their bound variables, which Princess does
+ * not.
+ */
+public class FormulaTranslator {
+
+  private final FormulaManager from;
+  private final FormulaManager to;
+  private final BooleanFormulaManager bfmgr;
+
+  /** Memo from terms of the source context to terms of the target context. */
+  private final Map<Formula, Formula> memo = new HashMap<>();
+
+  private final Multiset<String> fallbacks = HashMultiset.create();
+
+  FormulaTranslator(FormulaManager pFrom, FormulaManager pTo) {
+    from = checkNotNull(pFrom);
+    to = checkNotNull(pTo);
+    bfmgr = pTo.getBooleanFormulaManager();
+  }
+
+  /**
+   * Translate a formula from the source context into the target context.
+   *
+   * @param pFormula a formula of the source context
+   * @return an equivalent formula of the target context
+   */
+  public BooleanFormula translate(BooleanFormula pFormula) {
+    checkNotNull(pFormula);
+    TranslationStep step = new TranslationStep(memo, ImmutableList.of());
+    Formula result = step.translateTerm(pFormula);
+    if (result == null) {
+      fallbacks.add(checkNotNull(step.unsupported));
+      return to.translateFrom(pFormula, from);
+    }
+    return (BooleanFormula) result;
+  }
+
+  /**
+   * Translate a term of any sort from the source context into the target context. Boolean formulas
+   * are handled like in {@link #translate(BooleanFormula)}. For other terms, there is no fallback
+   * via SMT-LIB, because only assertions can be serialized.
+   *
+   * @param pTerm a term of the source context
+   * @return an equivalent term of the target context
+   * @throws UnsupportedOperationException if the term contains a construct that can not be rebuilt
+   */
+  @SuppressWarnings("unchecked")
+  public <T extends Formula> T translateTerm(T pTerm) {
+    checkNotNull(pTerm);
+    if (pTerm instanceof BooleanFormula) {
+      return (T) translate((BooleanFormula) pTerm);
+    }
+    TranslationStep step = new TranslationStep(memo, ImmutableList.of());
+    Formula result = step.translateTerm(pTerm);
+    if (result == null) {
+      throw new UnsupportedOperationException(
+          "cannot translate term with " + step.unsupported + ": " + pTerm);
+    }
+    return (T) result;
+  }
+
+  /**
+   * Returns the constructs that caused a fallback to the translation via SMT-LIB, with one entry
+   * per translated formula that contained such a construct.
+   */
+  public ImmutableMultiset<String> getFallbacks() {
+    return ImmutableMultiset.copyOf(fallbacks);
+  }
+
+  /**
+   * Visits a single term. If all children are already translated, the term itself is translated and
+   * stored in the memo, otherwise the missing children are scheduled before the term.
+   *
+   * <p>The body of a quantifier is translated by a separate step with its own memo, because the
+   * meaning of a bound variable depends on the enclosing quantifiers.
+   */
+  private final class TranslationStep implements FormulaVisitor<Void> {
+
+    private final Deque<Formula> toProcess = new ArrayDeque<>();
+    private final Map<Formula, Formula> scopedMemo;
+
+    /** The translated variables of the enclosing quantifiers, the innermost quantifier first. */
+    private final ImmutableList<List<Formula>> binders;
+
+    private @Nullable String unsupported = null;
+
+    private TranslationStep(Map<Formula, Formula> pMemo, ImmutableList<List<Formula>> pBinders) {
+      scopedMemo = pMemo;
+      binders = pBinders;
+    }
+
+    /** Translate the term, or return null if it contains an unsupported construct. */
+    private @Nullable Formula translateTerm(Formula pTerm) {
+      toProcess.push(pTerm);
+      while (!toProcess.isEmpty()) {
+        Formula f = toProcess.peek();
+        if (scopedMemo.containsKey(f)) {
+          toProcess.pop();
+          continue;
+        }
+        try {
+          from.visit(f, this);
+        } catch (UnsupportedOperationException e) {
+          // the target solver does not support the theory of this term
+          unsupported = "unsupported theory in target context";
+        }
+        if (unsupported != null) {
+          toProcess.clear();
+          return null;
+        }
+      }
+      return scopedMemo.get(pTerm);
+    }
+
+    private void finish(Formula f, @Nullable Formula translated, String construct) {
+      if (translated == null) {
+        unsupported = construct;
+      } else if (!to.getFormulaType(translated).equals(from.getFormulaType(f))) {
+        // e.g., Princess reports some bitvector terms as integer terms
+        unsupported = construct + " with inconsistent type";
+      } else {
+        toProcess.pop();
+        scopedMemo.put(f, translated);
+      }
+    }
+
+    /** Schedule all children without translation and return whether all children are done. */
+    private boolean scheduleMissing(List<Formula> children) {
+      boolean done = true;
+      for (Formula child : children) {
+        if (!scopedMemo.containsKey(child)) {
+          toProcess.push(child);
+          done = false;
+        }
+      }
+      return done;
+    }
+
+    @Override
+    public Void visitFreeVariable(Formula f, String name) {
+      finish(f, to.makeVariable(from.getFormulaType(f), name), "variable");
+      return null;
+    }
+
+    @Override
+    public Void visitBoundVariable(Formula f, int deBruijnIdx) {
+      // de-Bruijn index 0 is the last variable of the innermost quantifier
+      int index = deBruijnIdx;
+      for (List<Formula> boundVariables : binders) {
+        if (index < boundVariables.size()) {
+          finish(f, boundVariables.get(boundVariables.size() - 1 - index), "bound variable");
+          return null;
+        }
+        index -= boundVariables.size();
+      }
+      unsupported = "bound variable";
+      return null;
+    }
+
+    @Override
+    public Void visitConstant(Formula f, Object value) {
+      FormulaType<?> type = from.getFormulaType(f);
+      finish(f, makeConstant(type, value), "constant of type " + type);
+      return null;
+    }
+
+    @Override
+    public Void visitFunction(
+        Formula f, List<Formula> args, FunctionDeclaration<?> functionDeclaration) {
+      if (scheduleMissing(args)) {
+        List<Formula> newArgs = new ArrayList<>(args.size());
+        List<FormulaType<?>> argTypes = new ArrayList<>(args.size());
+        for (Formula arg : args) {
+          newArgs.add(scopedMemo.get(arg));
+          argTypes.add(from.getFormulaType(arg));
+        }
+        finish(
+            f,
+            makeApplication(functionDeclaration, newArgs, argTypes),
+            functionDeclaration.getKind().toString());
+      }
+      return null;
+    }
+
+    @Override
+    public Void visitQuantifier(
+        BooleanFormula f,
+        Quantifier quantifier,
+        List<Formula> boundVariables,
+        BooleanFormula body) {
+      if (boundVariables.isEmpty()) {
+        // e.g., Princess does not report the variables of a quantifier
+        unsupported = "quantifier without bound variables";
+        return null;
+      }
+      // the bound variables are reported as free variables
+      if (scheduleMissing(boundVariables)) {
+        List<Formula> newBoundVariables = new ArrayList<>(boundVariables.size());
+        for (Formula boundVariable : boundVariables) {
+          newBoundVariables.add(scopedMemo.get(boundVariable));
+        }
+        TranslationStep bodyStep =
+            new TranslationStep(
+                new HashMap<>(),
+                ImmutableList.<List<Formula>>builder()
+                    .add(newBoundVariables)
+                    .addAll(binders)
+                    .build());
+        Formula newBody = bodyStep.translateTerm(body);
+        if (newBody == null) {
+          unsupported = bodyStep.unsupported;
+        } else {
+          finish(
+              f,
+              to.getQuantifiedFormulaManager()
+                  .mkQuantifier(quantifier, newBoundVariables, (BooleanFormula) newBody),
+              "quantifier");
+        }
+      }
+      return null;
+    }
+  }
+
+  private @Nullable Formula makeConstant(FormulaType<?> type, Object value) {
+    if (type.isBooleanType() && value instanceof Boolean) {
+      return bfmgr.makeBoolean((Boolean) value);
+    } else if (type.isIntegerType() && value instanceof BigInteger) {
+      return to.getIntegerFormulaManager().makeNumber((BigInteger) value);
+    } else if (type.isRationalType()) {
+      if (value instanceof Rational) {
+        return to.getRationalFormulaManager().makeNumber((Rational) value);
+      } else if (value instanceof BigDecimal) {
+        return to.getRationalFormulaManager().makeNumber((BigDecimal) value);
+      } else if (value instanceof BigInteger) {
+        return to.getRationalFormulaManager().makeNumber((BigInteger) value);
+      }
+    } else if (type.isBitvectorType() && value instanceof BigInteger) {
+      return to.getBitvectorFormulaManager()
+          .makeBitvector(((BitvectorType) type).getSize(), (BigInteger) value);
+    } else if (type.isStringType() && value instanceof String) {
+      return to.getStringFormulaManager().makeString((String) value);
+    }
+    return null;
+  }
+
+  @SuppressWarnings("unchecked")
+  private @Nullable Formula makeApplication(
+      FunctionDeclaration<?> decl, List<Formula> args, List<FormulaType<?>> argTypes) {
+    switch (decl.getKind()) {
+      case UF:
+        return to.getUFManager()
+            .callUF(to.getUFManager().declareUF(decl.getName(), decl.getType(), argTypes), args);
+
+        // Boolean logic
+      case AND:
+        return bfmgr.and((List<BooleanFormula>) (List<?>) args);
+      case OR:
+        return bfmgr.or((List<BooleanFormula>) (List<?>) args);
+      case NOT:
+        return args.size() == 1 ? bfmgr.not((BooleanFormula) args.get(0)) : null;
+      case IMPLIES:
+        {
+          // right-associative: (=> a b c) is (=> a (=> b c))
+          List<BooleanFormula> bools = (List<BooleanFormula>) (List<?>) args;
+          BooleanFormula result = bools.get(bools.size() - 1);
+          for (int i = bools.size() - 2; i >= 0; i--) {
+            result = bfmgr.implication(bools.get(i), result);
+          }
+          return result;
+        }
+      case IFF:
+        return chain((List<BooleanFormula>) (List<?>) args, bfmgr::equivalence);
+      case XOR:
+        return foldLeft((List<BooleanFormula>) (List<?>) args, bfmgr::xor);
+      case ITE:
+        return args.size() == 3
+            ? bfmgr.ifThenElse((BooleanFormula) args.get(0), args.get(1), args.get(2))
+            : null;
+      case EQ:
+        return makeEquality(args, argTypes);
+      case DISTINCT:
+        return makeDistinct(args, argTypes);
+
+        // integer and rational arithmetic
+      case UMINUS:
+      case SUB:
+      case ADD:
+      case DIV:
+      case MUL:
+      case LT:
+      case LTE:
+      case GT:
+      case GTE:
+      case EQ_ZERO:
+      case GTE_ZERO:
+      case FLOOR:
+        return makeArithmetic(decl, args, argTypes);
+      case MODULO:
+        if (!decl.getType().isIntegerType() || args.size() != 2) {
+          return null;
+        }
+        return to.getIntegerFormulaManager()
+            .modulo((IntegerFormula) args.get(0), (IntegerFormula) args.get(1));
+
+        // arrays
+      case SELECT:
+        if (args.size() != 2) {
+          return null;
+        }
+        return to.getArrayFormulaManager()
+            .select((ArrayFormula<Formula, Formula>) args.get(0), args.get(1));
+      case STORE:
+        if (args.size() != 3) {
+          return null;
+        }
+        return to.getArrayFormulaManager()
+            .store((ArrayFormula<Formula, Formula>) args.get(0), args.get(1), args.get(2));
+
+        // bitvectors
+      case BV_CONCAT:
+      case BV_SIGN_EXTENSION:
+      case BV_ZERO_EXTENSION:
+      case BV_NOT:
+      case BV_NEG:
+      case BV_OR:
+      case BV_AND:
+      case BV_XOR:
+      case BV_SUB:
+      case BV_ADD:
+      case BV_SDIV:
+      case BV_UDIV:
+      case BV_SREM:
+      case BV_UREM:
+      case BV_MUL:
+      case BV_ULT:
+      case BV_SLT:
+      case BV_ULE:
+      case BV_SLE:
+      case BV_UGT:
+      case BV_SGT:
+      case BV_UGE:
+      case BV_SGE:
+      case BV_EQ:
+      case BV_SHL:
+      case BV_LSHR:
+      case BV_ASHR:
+        return makeBitvectorOperation(decl, args);
+
+      default:
+        // other operations, e.g., BV_EXTRACT, need parameters that are not part of the declaration
+        return null;
+    }
+  }
+
+  private @Nullable BooleanFormula makeEquality(List<Formula> args, List<FormulaType<?>> argTypes) {
+    checkArgument(args.size() >= 2, "equality needs at least two arguments");
+    List<BooleanFormula> equalities = new ArrayList<>(args.size() - 1);
+    for (int i = 1; i < args.size(); i++) {
+      BooleanFormula equality =
+          makeEquality(args.get(i - 1), args.get(i), argTypes.get(i - 1), argTypes.get(i));
+      if (equality == null) {
+        return null;
+      }
+      equalities.add(equality);
+    }
+    return bfmgr.and(equalities);
+  }
+
+  @SuppressWarnings("unchecked")
+  private @Nullable BooleanFormula makeEquality(
+      Formula pLeft, Formula pRight, FormulaType<?> pLeftType, FormulaType<?> pRightType) {
+    if (pLeftType.isBooleanType()) {
+      return bfmgr.equivalence((BooleanFormula) pLeft, (BooleanFormula) pRight);
+    } else if (pLeftType.isNumeralType()) {
+      return numeralManager(pLeftType, pRightType)
+          .equal((NumeralFormula) pLeft, (NumeralFormula) pRight);
+    } else if (pLeftType.isBitvectorType()) {
+      return to.getBitvectorFormulaManager()
+          .equal((BitvectorFormula) pLeft, (BitvectorFormula) pRight);
+    } else if (pLeftType.isArrayType()) {
+      ArrayFormulaManager amgr = to.getArrayFormulaManager();
+      return amgr.equivalence(
+          (ArrayFormula<Formula, Formula>) pLeft, (ArrayFormula<Formula, Formula>) pRight);
+    } else if (pLeftType.isStringType()) {
+      return to.getStringFormulaManager().equal((StringFormula) pLeft, (StringFormula) pRight);
+    }
+    return null;
+  }
+
+  private @Nullable BooleanFormula makeDistinct(List<Formula> args, List<FormulaType<?>> argTypes) {
+    List<BooleanFormula> disequalities = new ArrayList<>();
+    for (int i = 0; i < args.size(); i++) {
+      for (int j = i + 1; j < args.size(); j++) {
+        BooleanFormula equality =
+            makeEquality(args.get(i), args.get(j), argTypes.get(i), argTypes.get(j));
+        if (equality == null) {
+          return null;
+        }
+        disequalities.add(bfmgr.not(equality));
+      }
+    }
+    return bfmgr.and(disequalities);
+  }
+
+  /**
+   * Returns the integer manager if all given types are integer types, and the rational manager
+   * otherwise, such that mixed integer and rational terms are handled correctly.
+   */
+  @SuppressWarnings("unchecked")
+  private NumeralFormulaManager<NumeralFormula, ? extends NumeralFormula> numeralManager(
+      FormulaType<?>... types) {
+    for (FormulaType<?> type : types) {
+      if (type.isRationalType()) {
+        return (NumeralFormulaManager<NumeralFormula, ? extends NumeralFormula>)
+            (NumeralFormulaManager<?, ?>) to.getRationalFormulaManager();
+      }
+    }
+    return (NumeralFormulaManager<NumeralFormula, ? extends NumeralFormula>)
+        (NumeralFormulaManager<?, ?>) to.getIntegerFormulaManager();
+  }
+
+  private @Nullable Formula makeArithmetic(
+      FunctionDeclaration<?> decl, List<Formula> args, List<FormulaType<?>> argTypes) {
+    List<FormulaType<?>> types = new ArrayList<>(argTypes);
+    types.add(decl.getType());
+    NumeralFormulaManager<NumeralFormula, ? extends NumeralFormula> nmgr =
+        numeralManager(types.toArray(new FormulaType<?>[0]));
+    List<NumeralFormula> numbers = new ArrayList<>(args.size());
+    for (Formula arg : args) {
+      numbers.add((NumeralFormula) arg);
+    }
+    switch (decl.getKind()) {
+      case UMINUS:
+        if (numbers.size() != 1) {
+          // (- a b) is reported as UMINUS by some solvers
+          return foldLeft(numbers, nmgr::subtract);
+        }
+        return nmgr.negate(numbers.get(0));
+      case ADD:
+        return nmgr.sum(numbers);
+      case SUB:
+        return foldLeft(numbers, nmgr::subtract);
+      case MUL:
+        return foldLeft(numbers, nmgr::multiply);
+      case DIV:
+        return foldLeft(numbers, nmgr::divide);
+      case LT:
+        return chain(numbers, nmgr::lessThan);
+      case LTE:
+        return chain(numbers, nmgr::lessOrEquals);
+      case GT:
+        return chain(numbers, nmgr::greaterThan);
+      case GTE:
+        return chain(numbers, nmgr::greaterOrEquals);
+      case EQ_ZERO:
+        return numbers.size() == 1 ? nmgr.equal(numbers.get(0), nmgr.makeNumber(0)) : null;
+      case GTE_ZERO:
+        return numbers.size() == 1
+            ? nmgr.greaterOrEquals(numbers.get(0), nmgr.makeNumber(0))
+            : null;
+      case FLOOR:
+        return numbers.size() == 1 ? nmgr.floor(numbers.get(0)) : null;
+      default:
+        throw new AssertionError("unexpected arithmetic operation " + decl.getKind());
+    }
+  }
+
+  /** Applies a left-associative operation, e.g., (bvadd a b c) is (bvadd (bvadd a b) c). */
+  private static <T extends Formula> T foldLeft(List<T> operands, BinaryOperator<T> operation) {
+    T result = operands.get(0);
+    for (int i = 1; i < operands.size(); i++) {
+      result = operation.apply(result, operands.get(i));
+    }
+    return result;
+  }
+
+  /** Applies a chainable relation, e.g., (< a b c) is (and (< a b) (< b c)). */
+  private <T extends Formula> BooleanFormula chain(
+      List<T> operands, BiFunction<T, T, BooleanFormula> relation) {
+    checkArgument(operands.size() >= 2, "relation needs at least two arguments");
+    List<BooleanFormula> relations = new ArrayList<>(operands.size() - 1);
+    for (int i = 1; i < operands.size(); i++) {
+      relations.add(relation.apply(operands.get(i - 1), operands.get(i)));
+    }
+    return bfmgr.and(relations);
+  }
+
+  private @Nullable Formula makeBitvectorOperation(
+      FunctionDeclaration<?> decl, List<Formula> args) {
+    BitvectorFormulaManager bvmgr = to.getBitvectorFormulaManager();
+    List<BitvectorFormula> bvs = new ArrayList<>(args.size());
+    for (Formula arg : args) {
+      bvs.add((BitvectorFormula) arg);
+    }
+    FunctionDeclarationKind kind = decl.getKind();
+    switch (kind) {
+      case BV_CONCAT:
+        return foldLeft(bvs, bvmgr::concat);
+      case BV_OR:
+        return foldLeft(bvs, bvmgr::or);
+      case BV_AND:
+        return foldLeft(bvs, bvmgr::and);
+      case BV_XOR:
+        return foldLeft(bvs, bvmgr::xor);
+      case BV_SUB:
+        return foldLeft(bvs, bvmgr::subtract);
+      case BV_ADD:
+        return foldLeft(bvs, bvmgr::add);
+      case BV_MUL:
+        return foldLeft(bvs, bvmgr::multiply);
+      case BV_ULT:
+      case BV_SLT:
+        return chain(bvs, (a, b) -> bvmgr.lessThan(a, b, kind == FunctionDeclarationKind.BV_SLT));
+      case BV_ULE:
+      case BV_SLE:
+        return chain(
+            bvs, (a, b) -> bvmgr.lessOrEquals(a, b, kind == FunctionDeclarationKind.BV_SLE));
+      case BV_UGT:
+      case BV_SGT:
+        return chain(
+            bvs, (a, b) -> bvmgr.greaterThan(a, b, kind == FunctionDeclarationKind.BV_SGT));
+      case BV_UGE:
+      case BV_SGE:
+        return chain(
+            bvs, (a, b) -> bvmgr.greaterOrEquals(a, b, kind == FunctionDeclarationKind.BV_SGE));
+      case BV_EQ:
+        return chain(bvs, bvmgr::equal);
+      default:
+        break;
+    }
+
+    if (bvs.size() == 1) {
+      switch (kind) {
+        case BV_SIGN_EXTENSION:
+        case BV_ZERO_EXTENSION:
+          int extension = ((BitvectorType) decl.getType()).getSize() - bvmgr.getLength(bvs.get(0));
+          return bvmgr.extend(
+              bvs.get(0), extension, kind == FunctionDeclarationKind.BV_SIGN_EXTENSION);
+        case BV_NOT:
+          return bvmgr.not(bvs.get(0));
+        case BV_NEG:
+          return bvmgr.negate(bvs.get(0));
+        default:
+          return null;
+      }
+    }
+
+    if (bvs.size() == 2) {
+      switch (kind) {
+        case BV_SDIV:
+        case BV_UDIV:
+          return bvmgr.divide(bvs.get(0), bvs.get(1), kind == FunctionDeclarationKind.BV_SDIV);
+        case BV_SREM:
+        case BV_UREM:
+          return bvmgr.modulo(bvs.get(0), bvs.get(1), kind == FunctionDeclarationKind.BV_SREM);
+        case BV_SHL:
+          return bvmgr.shiftLeft(bvs.get(0), bvs.get(1));
+        case BV_LSHR:
+        case BV_ASHR:
+          return bvmgr.shiftRight(bvs.get(0), bvs.get(1), kind == FunctionDeclarationKind.BV_ASHR);
+        default:
+          return null;
+      }
+    }
+
+    // other arities are not defined for the remaining operations
+    return null;
+  }
+}
@@ -0,0 +1,303 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.utils;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.java_smt.api.BasicProverEnvironment.AllSatCallback;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.BooleanFormulaManager;
+import org.sosy_lab.java_smt.api.FormulaManager;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext;
+import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
+import org.sosy_lab.java_smt.api.SolverException;
+import org.sosy_lab.java_smt.api.visitors.DefaultBooleanFormulaVisitor;
+
+/**
+ * ParallelAllSat computes all satisfying assignments of important predicates on several solver
+ * contexts concurrently.
+ *
+ * <p>The first predicates are split into cubes, like the upper levels of the decision tree of the
+ * AllSAT fallback in {@link org.sosy_lab.java_smt.basicimpl.AbstractProverWithAllSat}. Each worker
+ * context gets one prover with all constraints, translated via {@link
+ * FormulaManager#translateFrom}, and repeatedly takes the next open cube, pushes it, and enumerates
+ * the remaining predicates with {@link ProverEnvironment#allSat}. The assignments of all cubes are
+ * reported to the callback on the calling thread, in the order of the cubes.
+ *
+ * <p>Each worker context is only used by one thread at a time, but the translation into the worker
+ * contexts happens on the calling thread. Thus, the worker contexts must belong to solvers that
+ * allow the use of a context from different threads, and must neither be the context of the source
+ * formulas nor be used otherwise while {@link #allSat} is running. A failing worker aborts the
+ * whole computation. {@link #allSat} returns only after all workers are finished with their
+ * contexts. Interrupting the calling thread does not stop running solver queries, this requires the
+ * {@link org.sosy_lab.common.ShutdownNotifier} of the worker contexts.
+ */
+public class ParallelAllSat {
+
+  private final FormulaManager mgr;
+  private final ImmutableList<SolverContext> workers;
+  private final ExecutorService executor;
+  private final int splitDepth;
+
+  ParallelAllSat(
+      FormulaManager pMgr,
+      List<SolverContext> pWorkers,
+      ExecutorService pExecutor,
+      int pSplitDepth) {
+    checkArgument(!pWorkers.isEmpty(), "at least one worker context is required");
+    checkArgument(0 <= pSplitDepth && pSplitDepth < 30, "split depth %s out of range", pSplitDepth);
+    mgr = checkNotNull(pMgr);
+    workers = ImmutableList.copyOf(pWorkers);
+    executor = checkNotNull(pExecutor);
+    splitDepth = pSplitDepth;
+  }
+
+  /**
+   * Compute all satisfying assignments of the important predicates for the conjunction of the
+   * constraints.
+   *
+   * @param pConstraints formulas of the source context, all of them are asserted.
+   * @param pImportantPredicates the predicates of the source context to enumerate.
+   * @param pCallback receives the assignments as lists of literals over the source predicates, in
+   *     the order of the important predicates. Predicates that can take any value might be missing.
+   * @return the result of the callback.
+   */
+  public <R> R allSat(
+      Collection<BooleanFormula> pConstraints,
+      List<BooleanFormula> pImportantPredicates,
+      AllSatCallback<R> pCallback)
+      throws SolverException, InterruptedException {
+    checkNotNull(pCallback);
+    BooleanFormulaManager bmgr = mgr.getBooleanFormulaManager();
+    List<BooleanFormula> predicates = ImmutableList.copyOf(pImportantPredicates);
+    int depth = Math.min(splitDepth, predicates.size());
+
+    // literals of the source context, built on the calling thread
+    List<BooleanFormula> negatedPredicates = new ArrayList<>();
+    for (BooleanFormula predicate : predicates) {
+      negatedPredicates.add(bmgr.not(predicate));
+    }
+
+    List<Cube> cubes = new ArrayList<>();
+    for (int i = 0; i < 1 << depth; i++) {
+      cubes.add(new Cube(i));
+    }
+    Queue<Cube> openCubes = new ConcurrentLinkedQueue<>(cubes);
+
+    List<Future<?>> workerFutures = new ArrayList<>();
+    try {
+      for (SolverContext worker : workers) {
+        Worker task = new Worker(worker, mgr, pConstraints, predicates, depth, openCubes);
+        workerFutures.add(executor.submit(task::call));
+      }
+
+      for (Cube cube : cubes) {
+        for (@Nullable Boolean[] assignment : getResult(cube)) {
+          List<BooleanFormula> model = new ArrayList<>();
+          for (int i = 0; i < predicates.size(); i++) {
+            if (assignment[i] != null) {
+              model.add(assignment[i] ? predicates.get(i) : negatedPredicates.get(i));
+            }
+          }
+          pCallback.apply(ImmutableList.copyOf(model));
+        }
+      }
+    } finally {
+      // Workers finish their current cube and must not use their contexts after we return.
+      openCubes.clear();
+      for (Future<?> future : workerFutures) {
+        try {
+          Uninterruptibles.getUninterruptibly(future);
+        } catch (ExecutionException e) {
+          // already reported via the result of a cube
+        }
+      }
+    }
+    return pCallback.getResult();
+  }
+
+  private static List<@Nullable Boolean[]> getResult(Cube pCube)
+      throws SolverException, InterruptedException {
+    try {
+      return pCube.result.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      Throwables.throwIfInstanceOf(cause, SolverException.class);
+      Throwables.throwIfInstanceOf(cause, InterruptedException.class);
+      Throwables.throwIfUnchecked(cause);
+      throw new AssertionError("unexpected exception in worker", cause);
+    }
+  }
+
+  /**
+   * A cube over the first predicates. The bits of the index are the values of the predicates,
+   * starting with the highest bit for the first predicate, i.e., cubes are ordered like in a
+   * depth-first traversal of the decision tree with positive branches first.
+   */
+  private static final class Cube {
+    private final int index;
+    private final CompletableFuture<List<@Nullable Boolean[]>> result = new CompletableFuture<>();
+
+    private Cube(int pIndex) {
+      index = pIndex;
+    }
+
+    private boolean getValue(int pPredicate, int pDepth) {
+      return (index & (1 << (pDepth - 1 - pPredicate))) == 0;
+    }
+  }
+
+  /** Solves open cubes on one worker context. */
+  private static final class Worker {
+
+    private final SolverContext context;
+    private final BooleanFormulaManager bmgr;
+    private final int depth;
+    private final Queue<Cube> openCubes;
+
+    /** The constraints and predicates, translated into the worker context. */
+    private final List<BooleanFormula> constraints = new ArrayList<>();
+
+    private final List<BooleanFormula> predicates = new ArrayList<>();
+    private final Map<BooleanFormula, Integer> predicateIndex = new HashMap<>();
+
+    private @Nullable Cube currentCube = null;
+
+    /** Translates all formulas into the worker context, must be called on the calling thread. */
+    private Worker(
+        SolverContext pContext,
+        FormulaManager pFrom,
+        Collection<BooleanFormula> pConstraints,
+        List<BooleanFormula> pPredicates,
+        int pDepth,
+        Queue<Cube> pOpenCubes) {
+      context = pContext;
+      depth = pDepth;
+      openCubes = pOpenCubes;
+      FormulaManager fmgr = pContext.getFormulaManager();
+      bmgr = fmgr.getBooleanFormulaManager();
+      for (BooleanFormula constraint : pConstraints) {
+        constraints.add(fmgr.translateFrom(constraint, pFrom));
+      }
+      for (BooleanFormula predicate : pPredicates) {
+        BooleanFormula translated = fmgr.translateFrom(predicate, pFrom);
+        predicateIndex.put(translated, predicates.size());
+        predicates.add(translated);
+      }
+    }
+
+    private @Nullable Void call() throws SolverException, InterruptedException {
+      currentCube = openCubes.poll();
+      if (currentCube == null) {
+        return null; // all cubes are already taken by other workers
+      }
+      try (ProverEnvironment prover =
+          context.newProverEnvironment(ProverOptions.GENERATE_ALL_SAT)) {
+        for (BooleanFormula constraint : constraints) {
+          prover.addConstraint(constraint);
+        }
+        for (; currentCube != null; currentCube = openCubes.poll()) {
+          prover.push();
+          for (int i = 0; i < depth; i++) {
+            BooleanFormula predicate = predicates.get(i);
+            prover.addConstraint(currentCube.getValue(i, depth) ? predicate : bmgr.not(predicate));
+          }
+          List<@Nullable Boolean[]> result =
+              prover.allSat(
+                  new Collector(currentCube), predicates.subList(depth, predicates.size()));
+          prover.pop();
+          currentCube.result.complete(result);
+        }
+      } catch (SolverException | InterruptedException | RuntimeException e) {
+        abort(e);
+        throw e;
+      }
+      return null;
+    }
+
+    /** Fail the current cube and all open cubes, such that the calling thread stops waiting. */
+    private void abort(Exception pException) {
+      if (currentCube != null) {
+        currentCube.result.completeExceptionally(pException);
+      }
+      for (Cube cube = openCubes.poll(); cube != null; cube = openCubes.poll()) {
+        cube.result.completeExceptionally(
+            new CancellationException("aborted after failure of another worker"));
+      }
+    }
+
+    /** Converts the literals of the worker context into values of the predicates. */
+    private final class Collector implements AllSatCallback<List<@Nullable Boolean[]>> {
+
+      private final Cube cube;
+      private final List<@Nullable Boolean[]> assignments = new ArrayList<>();
+
+      private Collector(Cube pCube) {
+        cube = pCube;
+      }
+
+      @Override
+      public void apply(List<BooleanFormula> pModel) {
+        @Nullable Boolean[] assignment = new Boolean[predicates.size()];
+        for (int i = 0; i < depth; i++) {
+          assignment[i] = cube.getValue(i, depth);
+        }
+        for (BooleanFormula literal : pModel) {
+          Integer index = predicateIndex.get(literal);
+          if (index != null) {
+            assignment[index] = true;
+          } else {
+            BooleanFormula atom = bmgr.visit(literal, NEGATED_ATOM);
+            index = atom == null ? null : predicateIndex.get(atom);
+            checkArgument(index != null, "unexpected literal %s in AllSAT result", literal);
+            assignment[index] = false;
+          }
+        }
+        assignments.add(assignment);
+      }
+
+      @Override
+      public List<@Nullable Boolean[]> getResult() {
+        return assignments;
+      }
+    }
+  }
+
+  /** Returns the operand of a negation, and null for all other formulas. */
+  private static final DefaultBooleanFormulaVisitor<@Nullable BooleanFormula> NEGATED_ATOM =
+      new DefaultBooleanFormulaVisitor<>() {
+        @Override
+        protected @Nullable BooleanFormula visitDefault() {
+          return null;
+        }
+
+        @Override
+        public BooleanFormula visitNot(BooleanFormula pOperand) {
+          return pOperand;
+        }
+      };
+}
@@ -8,7 +8,10 @@
 
 package org.sosy_lab.java_smt.utils;
 
+import java.util.List;
+import java.util.concurrent.ExecutorService;
 import org.sosy_lab.java_smt.api.FormulaManager;
+import org.sosy_lab.java_smt.api.SolverContext;
 
 /** Central entry point for all utility classes. */
 public final class SolverUtils {
@@ -34,4 +37,42 @@ public final class SolverUtils {
   public static PrettyPrinter prettyPrinter(FormulaManager pFormulaManager) {
     return new PrettyPrinter(pFormulaManager);
   }
+
+  /**
+   * Creates a new {@link FormulaTranslator} instance.
+   *
+   * @param pFrom the {@link FormulaManager} of the source context
+   * @param pTo the {@link FormulaManager} of the target context
+   * @return a new {@link FormulaTranslator} instance
+   */
+  public static FormulaTranslator formulaTranslator(FormulaManager pFrom, FormulaManager pTo) {
+    return new FormulaTranslator(pFrom, pTo);
+  }
+
+  /**
+   * Creates a new {@link ParallelAllSat} instance.
+   *
+   * @param pFormulaManager the {@link FormulaManager} of the formulas to be enumerated
+   * @param pWorkers separate contexts on which the cubes are solved
+   * @param pExecutor the executor running one task per worker context
+   * @param pSplitDepth the number of predicates that are split into cubes
+   * @return a new {@link ParallelAllSat} instance
+   */
+  public static ParallelAllSat parallelAllSat(
+      FormulaManager pFormulaManager,
+      List<SolverContext> pWorkers,
+      ExecutorService pExecutor,
+      int pSplitDepth) {
+    return new ParallelAllSat(pFormulaManager, pWorkers, pExecutor, pSplitDepth);
+  }
+
+  /**
+   * Creates a new {@link UnsatCoreMinimizer} instance.
+   *
+   * @param pContext the {@link SolverContext} of the constraints to be minimized
+   * @return a new {@link UnsatCoreMinimizer} instance
+   */
+  public static UnsatCoreMinimizer unsatCoreMinimizer(SolverContext pContext) {
+    return new UnsatCoreMinimizer(pContext);
+  }
 }
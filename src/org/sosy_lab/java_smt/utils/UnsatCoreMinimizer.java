@@ -0,0 +1,510 @@
+// This file is part of JavaSMT,
+// an API wrapper for a collection of SMT solvers:
+// https://github.com/sosy-lab/java-smt
+//
+// SPDX-FileCopyrightText: 2023 Dirk Beyer <https://www.sosy-lab.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.sosy_lab.java_smt.utils;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.sosy_lab.java_smt.api.BooleanFormula;
+import org.sosy_lab.java_smt.api.BooleanFormulaManager;
+import org.sosy_lab.java_smt.api.FormulaManager;
+import org.sosy_lab.java_smt.api.ProverEnvironment;
+import org.sosy_lab.java_smt.api.SolverContext;
+import org.sosy_lab.java_smt.api.SolverContext.ProverOptions;
+import org.sosy_lab.java_smt.api.SolverException;
+
+/**
+ * UnsatCoreMinimizer computes a minimal unsatisfiable subset (MUS) of a set of soft constraints,
+ * relative to a set of hard constraints. The unsat cores returned by the solvers are often far from
+ * minimal, and their quality differs between solvers.
+ *
+ * <p>Each soft constraint is guarded by a fresh selector variable, and all queries are answered by
+ * {@link ProverEnvironment#isUnsatWithAssumptions} over the selectors on one prover, such that the
+ * solver can keep its learned information between the queries. If the solver supports {@link
+ * ProverOptions#GENERATE_UNSAT_CORE_OVER_ASSUMPTIONS}, the core of each unsatisfiable query
+ * replaces the current core (core reuse), which often removes many constraints at once.
+ *
+ * <p>The following strategies are available:
+ *
+ * <ul>
+ *   <li>{@link Strategy#DELETION} removes one constraint after another and keeps it only if the
+ *       rest becomes satisfiable. This needs one query per constraint of the core. With {@link
+ *       #setParallelProbing}, several constraints are tested at the same time on separate contexts.
+ *   <li>{@link Strategy#QUICK_XPLAIN} splits the constraints recursively, which needs less queries
+ *       if the minimal core is small compared to the initial core.
+ * </ul>
+ *
+ * <p>With a time limit, the minimization stops after the first query that exceeds the limit and
+ * returns the smallest core found so far, which might not be minimal. A running query is not
+ * interrupted, this requires the {@link org.sosy_lab.common.ShutdownNotifier} of the context. A
+ * limit on the number of queries stops the minimization in the same way, but independently of the
+ * speed of the solver.
+ */
+public class UnsatCoreMinimizer {
+
+  /** The algorithm that removes constraints from the core. */
+  public enum Strategy {
+    DELETION,
+    QUICK_XPLAIN
+  }
+
+  private static final String SELECTOR_PREFIX = "__unsat_core_selector_";
+
+  private final SolverContext context;
+
+  private Strategy strategy = Strategy.DELETION;
+  private @Nullable Duration timeLimit = null;
+  private int queryLimit = Integer.MAX_VALUE;
+  private ImmutableList<SolverContext> probingContexts = ImmutableList.of();
+  private @Nullable ExecutorService executor = null;
+
+  UnsatCoreMinimizer(SolverContext pContext) {
+    context = checkNotNull(pContext);
+  }
+
+  /** Set the algorithm for the minimization, the default is {@link Strategy#DELETION}. */
+  @CanIgnoreReturnValue
+  public UnsatCoreMinimizer setStrategy(Strategy pStrategy) {
+    strategy = checkNotNull(pStrategy);
+    return this;
+  }
+
+  /**
+   * Set a time limit for each call of {@link #minimize}. After the limit is exceeded, no further
+   * queries are started and the current core is returned.
+   */
+  @CanIgnoreReturnValue
+  public UnsatCoreMinimizer setTimeLimit(Duration pTimeLimit) {
+    checkArgument(!pTimeLimit.isNegative(), "time limit must not be negative");
+    timeLimit = pTimeLimit;
+    return this;
+  }
+
+  /**
+   * Set a limit for the number of queries of each call of {@link #minimize}, not counting the
+   * initial query that computes the first core. After the limit is reached, no further queries are
+   * started and the current core is returned.
+   */
+  @CanIgnoreReturnValue
+  public UnsatCoreMinimizer setQueryLimit(int pQueryLimit) {
+    checkArgument(pQueryLimit >= 0, "query limit must not be negative");
+    queryLimit = pQueryLimit;
+    return this;
+  }
+
+  /**
+   * Test several constraints at the same time for {@link Strategy#DELETION}, one on each of the
+   * given contexts. The constraints are translated into these contexts via {@link
+   * FormulaManager#translateFrom}, thus the solvers must support parsing. Each context is only used
+   * by one thread at a time, but not always by the same thread, and must not be used otherwise
+   * while {@link #minimize} is running.
+   *
+   * @param pProbingContexts separate contexts, e.g., created with the same configuration.
+   * @param pExecutor the executor that runs the queries on the probing contexts.
+   */
+  @CanIgnoreReturnValue
+  public UnsatCoreMinimizer setParallelProbing(
+      List<SolverContext> pProbingContexts, ExecutorService pExecutor) {
+    probingContexts = ImmutableList.copyOf(pProbingContexts);
+    executor = checkNotNull(pExecutor);
+    return this;
+  }
+
+  /**
+   * Compute a minimal subset of the soft constraints that is unsatisfiable together with the hard
+   * constraints.
+   *
+   * @param pHard constraints that are always asserted.
+   * @param pSoft constraints from which the core is chosen.
+   * @return a subset of the soft constraints, in their given order, or {@link Optional#empty()} if
+   *     the hard and soft constraints are satisfiable.
+   */
+  public Optional<ImmutableList<BooleanFormula>> minimize(
+      Collection<BooleanFormula> pHard, List<BooleanFormula> pSoft)
+      throws SolverException, InterruptedException {
+    ImmutableList<BooleanFormula> soft = ImmutableList.copyOf(pSoft);
+    Budget budget = new Budget(timeLimit, queryLimit);
+
+    FormulaManager fmgr = context.getFormulaManager();
+    BooleanFormulaManager bmgr = fmgr.getBooleanFormulaManager();
+    List<BooleanFormula> guarded = new ArrayList<>();
+    for (int i = 0; i < soft.size(); i++) {
+      guarded.add(bmgr.implication(bmgr.makeVariable(SELECTOR_PREFIX + i), soft.get(i)));
+    }
+
+    List<Prober> probers = new ArrayList<>();
+    try {
+      Prober prober = new Prober(context, pHard, guarded);
+      probers.add(prober);
+
+      List<Integer> core = prober.check(range(soft.size()));
+      if (core == null) {
+        return Optional.empty();
+      }
+
+      if (strategy == Strategy.DELETION && !probingContexts.isEmpty()) {
+        for (SolverContext probingContext : probingContexts) {
+          probers.add(
+              new Prober(
+                  probingContext,
+                  translate(pHard, probingContext, fmgr),
+                  translate(guarded, probingContext, fmgr)));
+        }
+        core = deletion(core, probers.subList(1, probers.size()), budget);
+      } else if (strategy == Strategy.DELETION) {
+        core = deletion(core, probers, budget);
+      } else {
+        core = quickXplain(core, prober, budget);
+      }
+
+      ImmutableList.Builder<BooleanFormula> result = ImmutableList.builder();
+      for (int index : core) {
+        result.add(soft.get(index));
+      }
+      return Optional.of(result.build());
+
+    } finally {
+      for (Prober prober : probers) {
+        prober.close();
+      }
+    }
+  }
+
+  private static List<BooleanFormula> translate(
+      Collection<BooleanFormula> pFormulas, SolverContext pTo, FormulaManager pFrom) {
+    List<BooleanFormula> result = new ArrayList<>();
+    for (BooleanFormula formula : pFormulas) {
+      result.add(pTo.getFormulaManager().translateFrom(formula, pFrom));
+    }
+    return result;
+  }
+
+  /**
+   * Deletion-based minimization. In each round, each prober tests the core without one of the
+   * untested constraints. A constraint is necessary if the rest of the core is satisfiable. This
+   * stays true for all subsets of the core, thus all results of a round can be used, except that
+   * only the first unsatisfiable query of a round can replace the core.
+   */
+  private List<Integer> deletion(List<Integer> pCore, List<Prober> pProbers, Budget pBudget)
+      throws SolverException, InterruptedException {
+    List<Integer> core = pCore;
+    Set<Integer> necessary = new HashSet<>();
+    while (!pBudget.isExceeded()) {
+      List<Integer> candidates = new ArrayList<>();
+      int maxCandidates = Math.min(pProbers.size(), pBudget.getRemainingQueries());
+      for (int index : core) {
+        if (!necessary.contains(index) && candidates.size() < maxCandidates) {
+          candidates.add(index);
+        }
+      }
+      if (candidates.isEmpty()) {
+        break;
+      }
+
+      pBudget.countQueries(candidates.size());
+      List<@Nullable List<Integer>> results = probeWithout(core, candidates, pProbers);
+      @Nullable List<Integer> nextCore = null;
+      for (int i = 0; i < candidates.size(); i++) {
+        List<Integer> result = results.get(i);
+        if (result == null) {
+          necessary.add(candidates.get(i));
+        } else if (nextCore == null) {
+          nextCore = result;
+        }
+      }
+      if (nextCore != null) {
+        core = nextCore;
+      }
+    }
+    return core;
+  }
+
+  /** Test the core without each of the candidates, each one on its own prober. */
+  private List<@Nullable List<Integer>> probeWithout(
+      List<Integer> pCore, List<Integer> pCandidates, List<Prober> pProbers)
+      throws SolverException, InterruptedException {
+    if (pCandidates.size() == 1) {
+      return Collections.singletonList(pProbers.get(0).check(without(pCore, pCandidates.get(0))));
+    }
+
+    List<Future<@Nullable List<Integer>>> futures = new ArrayList<>();
+    for (int i = 0; i < pCandidates.size(); i++) {
+      Prober prober = pProbers.get(i);
+      List<Integer> probe = without(pCore, pCandidates.get(i));
+      futures.add(checkNotNull(executor).submit(() -> prober.check(probe)));
+    }
+
+    List<@Nullable List<Integer>> results = new ArrayList<>();
+    @Nullable Throwable failure = null;
+    // wait for all queries, because the probers are used afterwards
+    for (Future<@Nullable List<Integer>> future : futures) {
+      try {
+        results.add(Uninterruptibles.getUninterruptibly(future));
+      } catch (ExecutionException e) {
+        failure = failure == null ? e.getCause() : failure;
+        results.add(null);
+      }
+    }
+    if (failure != null) {
+      Throwables.throwIfInstanceOf(failure, SolverException.class);
+      Throwables.throwIfInstanceOf(failure, InterruptedException.class);
+      Throwables.throwIfUnchecked(failure);
+      throw new AssertionError("unexpected exception while probing", failure);
+    }
+    return results;
+  }
+
+  /** The time limit and the query limit of one minimization. */
+  private static final class Budget {
+    private final long start = System.nanoTime();
+    private final long limit;
+    private int remainingQueries;
+
+    private Budget(@Nullable Duration pTimeLimit, int pQueryLimit) {
+      limit = pTimeLimit == null ? Long.MAX_VALUE : pTimeLimit.toNanos();
+      remainingQueries = pQueryLimit;
+    }
+
+    private boolean isExceeded() {
+      return remainingQueries <= 0 || System.nanoTime() - start >= limit;
+    }
+
+    private int getRemainingQueries() {
+      return remainingQueries;
+    }
+
+    private void countQueries(int pQueries) {
+      remainingQueries -= pQueries;
+    }
+  }
+
+  /** Signals that the time limit or the query limit is exceeded during QuickXplain. */
+  private static final class TimeLimitExceededException extends Exception {
+    private static final long serialVersionUID = 1L;
+  }
+
+  /** The smallest unsatisfiable subset that QuickXplain has seen so far. */
+  private static final class BestCore {
+    private List<Integer> core;
+
+    private BestCore(List<Integer> pCore) {
+      core = pCore;
+    }
+
+    private void offer(List<Integer> pCore) {
+      if (pCore.size() < core.size()) {
+        core = pCore;
+      }
+    }
+  }
+
+  /**
+   * QuickXplain by Junker, based on the core of the initial query. If the time limit or the query
+   * limit is exceeded, the smallest unsatisfiable subset seen during the recursion is returned.
+   */
+  private List<Integer> quickXplain(List<Integer> pCore, Prober pProber, Budget pBudget)
+      throws SolverException, InterruptedException {
+    BestCore best = new BestCore(pCore);
+    try {
+      List<Integer> result = new ArrayList<>();
+      // the hard constraints alone might already be unsatisfiable
+      quickXplain(ImmutableList.of(), true, pCore, pProber, pBudget, best, result);
+      result.sort(null);
+      return result;
+    } catch (TimeLimitExceededException e) {
+      List<Integer> result = new ArrayList<>(best.core);
+      result.sort(null);
+      return result;
+    }
+  }
+
+  /**
+   * Adds a minimal subset of the candidates to the result, such that it is unsatisfiable together
+   * with the background.
+   *
+   * @param pBackground constraints that are assumed to be part of the core.
+   * @param pBackgroundChanged whether the background was extended since the last query, only then
+   *     the background alone can be unsatisfiable.
+   * @param pCandidates constraints that are unsatisfiable together with the background.
+   * @param pBest collects the smallest unsatisfiable subset for the case of a timeout.
+   * @return the core of the background if the background alone is unsatisfiable (then nothing is
+   *     added to the result), and null otherwise.
+   */
+  private @Nullable List<Integer> quickXplain(
+      List<Integer> pBackground,
+      boolean pBackgroundChanged,
+      List<Integer> pCandidates,
+      Prober pProber,
+      Budget pBudget,
+      BestCore pBest,
+      List<Integer> pResult)
+      throws SolverException, InterruptedException, TimeLimitExceededException {
+    pBest.offer(concat(pBackground, pCandidates));
+    if (pBackgroundChanged) {
+      if (pBudget.isExceeded()) {
+        throw new TimeLimitExceededException();
+      }
+      pBudget.countQueries(1);
+      List<Integer> backgroundCore = pProber.check(pBackground);
+      if (backgroundCore != null) {
+        pBest.offer(backgroundCore);
+        return backgroundCore;
+      }
+    }
+    if (pCandidates.size() <= 1) {
+      pResult.addAll(pCandidates);
+      return null;
+    }
+
+    int split = pCandidates.size() / 2;
+    List<Integer> first = pCandidates.subList(0, split);
+    List<Integer> second = pCandidates.subList(split, pCandidates.size());
+
+    List<Integer> secondResult = new ArrayList<>();
+    List<Integer> firstCore =
+        quickXplain(
+            concat(pBackground, first), true, second, pProber, pBudget, pBest, secondResult);
+    if (firstCore != null) {
+      // the background with the first half is unsatisfiable, and so is the background with those
+      // constraints of the first half that are in its core
+      Set<Integer> coreConstraints = new HashSet<>(firstCore);
+      first = first.stream().filter(coreConstraints::contains).collect(toImmutableList());
+    }
+    quickXplain(
+        concat(pBackground, secondResult),
+        !secondResult.isEmpty(),
+        first,
+        pProber,
+        pBudget,
+        pBest,
+        pResult);
+    pResult.addAll(secondResult);
+    return null;
+  }
+
+  private static List<Integer> range(int pSize) {
+    List<Integer> result = new ArrayList<>();
+    for (int i = 0; i < pSize; i++) {
+      result.add(i);
+    }
+    return result;
+  }
+
+  private static List<Integer> without(List<Integer> pList, int pElement) {
+    List<Integer> result = new ArrayList<>(pList);
+    result.remove(Integer.valueOf(pElement));
+    return result;
+  }
+
+  private static List<Integer> concat(List<Integer> pFirst, List<Integer> pSecond) {
+    List<Integer> result = new ArrayList<>(pFirst);
+    result.addAll(pSecond);
+    return result;
+  }
+
+  /** A prover with all guarded soft constraints, which answers queries over the selectors. */
+  private static final class Prober implements AutoCloseable {
+
+    private final ProverEnvironment prover;
+    private final List<BooleanFormula> selectors = new ArrayList<>();
+    private final Map<BooleanFormula, Integer> selectorIndex = new HashMap<>();
+
+    /** Whether the solver returns unsat cores over assumptions, until it fails to do so. */
+    private boolean coreReuse = true;
+
+    private Prober(
+        SolverContext pContext, Collection<BooleanFormula> pHard, List<BooleanFormula> pGuarded)
+        throws InterruptedException {
+      BooleanFormulaManager bmgr = pContext.getFormulaManager().getBooleanFormulaManager();
+      prover = newProver(pContext);
+      try {
+        for (BooleanFormula constraint : pHard) {
+          prover.addConstraint(constraint);
+        }
+        for (int i = 0; i < pGuarded.size(); i++) {
+          prover.addConstraint(pGuarded.get(i));
+          BooleanFormula selector = bmgr.makeVariable(SELECTOR_PREFIX + i);
+          selectors.add(selector);
+          selectorIndex.put(selector, i);
+        }
+      } catch (InterruptedException | RuntimeException e) {
+        prover.close();
+        throw e;
+      }
+    }
+
+    private ProverEnvironment newProver(SolverContext pContext) {
+      try {
+        return pContext.newProverEnvironment(ProverOptions.GENERATE_UNSAT_CORE_OVER_ASSUMPTIONS);
+      } catch (UnsupportedOperationException e) {
+        // e.g., Princess, whose assumptions are emulated by push and pop
+        coreReuse = false;
+        return pContext.newProverEnvironment();
+      }
+    }
+
+    /**
+     * Check the given soft constraints.
+     *
+     * @return null if they are satisfiable, or otherwise a sorted unsatisfiable subset of them.
+     */
+    private @Nullable List<Integer> check(List<Integer> pSubset)
+        throws SolverException, InterruptedException {
+      List<BooleanFormula> assumptions = new ArrayList<>();
+      for (int index : pSubset) {
+        assumptions.add(selectors.get(index));
+      }
+
+      if (coreReuse) {
+        try {
+          Optional<List<BooleanFormula>> core = prover.unsatCoreOverAssumptions(assumptions);
+          if (!core.isPresent()) {
+            return null;
+          }
+          List<Integer> result = new ArrayList<>();
+          for (BooleanFormula formula : core.orElseThrow()) {
+            Integer index = selectorIndex.get(formula);
+            if (index != null) {
+              result.add(index);
+            }
+          }
+          result.sort(null);
+          return result;
+        } catch (UnsupportedOperationException e) {
+          coreReuse = false;
+        }
+      }
+      return prover.isUnsatWithAssumptions(assumptions) ? pSubset : null;
+    }
+
+    @Override
+    public void close() {
+      prover.close();
+    }
+  }
+}